@@ -117,4 +117,138 @@ create table if not exists space_user
     UNIQUE KEY uk_spaceId_userId (spaceId, userId), -- 唯一索引，用户在一个空间中只能有一个角色
     INDEX idx_spaceId (spaceId),                    -- 提升按空间查询的性能
     INDEX idx_userId (userId)                       -- 提升按用户查询的性能
-) comment '空间用户关联' collate = utf8mb4_unicode_ci;
\ No newline at end of file
+) comment '空间用户关联' collate = utf8mb4_unicode_ci;
+
+-- 游标分页索引：按空间 + 审核状态筛选后按时间排序（InnoDB 二级索引自带主键 id，可直接用于 (排序字段, id) 定位）
+CREATE INDEX idx_spaceId_reviewStatus_createTime ON picture (spaceId, reviewStatus, createTime);
+CREATE INDEX idx_spaceId_reviewStatus_editTime ON picture (spaceId, reviewStatus, editTime);
+
+-- 图片标签关联表（picture.tags 的规范化副本，用于按标签筛选和统计）
+create table if not exists picture_tag
+(
+    id         bigint auto_increment comment 'id' primary key,
+    pictureId  bigint                             not null comment '图片 id',
+    spaceId    bigint                             null comment '空间 id（为空表示公共图库）',
+    tag        varchar(256) collate utf8mb4_bin   not null comment '标签（区分大小写，与标签精确匹配）',
+    createTime datetime default CURRENT_TIMESTAMP not null comment '创建时间',
+    -- 索引设计
+    UNIQUE KEY uk_pictureId_tag (pictureId, tag), -- 同一张图片的标签不重复
+    INDEX idx_tag_spaceId (tag, spaceId),         -- 提升按标签筛选的性能
+    INDEX idx_spaceId (spaceId)                   -- 提升按空间加载标签的性能
+) comment '图片标签关联' collate = utf8mb4_unicode_ci;
+
+-- 添加图片主色板（多色搜索使用）
+ALTER TABLE picture
+    ADD COLUMN picPalette varchar(128) null comment '图片主色板，格式：0xRRGGBB:占比,...';
+
+-- 添加图片感知哈希（以图搜图使用）
+ALTER TABLE picture
+    ADD COLUMN picPHash bigint null comment '图片感知哈希 pHash',
+    ADD COLUMN picDHash bigint null comment '图片差异哈希 dHash';
+
+-- 图片文件表（按内容 SHA-256 去重，多张图片可以引用同一份文件）
+create table if not exists picture_blob
+(
+    id           bigint auto_increment comment 'id' primary key,
+    sha256       char(64)                           not null comment '原图内容 SHA-256',
+    url          varchar(512)                       not null comment '图片 url（压缩图）',
+    thumbnailUrl varchar(512)                       null comment '缩略图 url',
+    originalUrl  varchar(512)                       null comment '原图 url',
+    picSize      bigint                             null comment '图片体积',
+    picWidth     int                                null comment '图片宽度',
+    picHeight    int                                null comment '图片高度',
+    picScale     double                             null comment '图片宽高比例',
+    picFormat    varchar(32)                        null comment '图片格式',
+    picColor     varchar(16)                        null comment '图片主色调',
+    picPalette   varchar(128)                       null comment '图片主色板',
+    picPHash     bigint                             null comment '图片感知哈希 pHash',
+    picDHash     bigint                             null comment '图片差异哈希 dHash',
+    refCount     int      default 0                 not null comment '引用该文件的图片数',
+    createTime   datetime default CURRENT_TIMESTAMP not null comment '创建时间',
+    updateTime   datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
+    UNIQUE KEY uk_sha256 (sha256) -- 相同内容只存一份
+) comment '图片文件' collate = utf8mb4_unicode_ci;
+
+ALTER TABLE picture
+    ADD COLUMN blobId bigint null comment '图片文件 id（为空表示历史图片，文件未去重）';
+
+-- 图片变体表（按需生成的不同尺寸、格式的图片）
+create table if not exists picture_variant
+(
+    id            bigint auto_increment comment 'id' primary key,
+    pictureId     bigint                             not null comment '图片 id',
+    width         int                                not null comment '请求的宽度档位',
+    format        varchar(16)                        not null comment '请求的格式（auto、jpg、png、webp）',
+    url           varchar(512)                       not null comment '变体 url',
+    sourceUrl     varchar(512)                       not null comment '生成变体时使用的源图 url（源图变化后重新生成）',
+    variantWidth  int                                not null comment '变体实际宽度',
+    variantHeight int                                not null comment '变体实际高度',
+    variantSize   bigint                             not null comment '变体体积',
+    variantFormat varchar(16)                        not null comment '变体实际格式',
+    createTime    datetime default CURRENT_TIMESTAMP not null comment '创建时间',
+    updateTime    datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
+    -- 索引设计
+    UNIQUE KEY uk_pictureId_width_format (pictureId, width, format) -- 同一张图片的同一档位只生成一份
+) comment '图片变体' collate = utf8mb4_unicode_ci;
+
+-- 对象删除任务表（待删除文件的发件箱，与业务数据在同一事务中写入，由定时任务批量删除）
+create table if not exists object_delete_task
+(
+    id            bigint auto_increment comment 'id' primary key,
+    objectKey     varchar(1024)                      not null comment '对象键',
+    status        tinyint  default 0                 not null comment '状态：0-待删除 1-多次重试后失败',
+    retryCount    int      default 0                 not null comment '已重试次数',
+    nextRetryTime datetime default CURRENT_TIMESTAMP not null comment '下次执行时间',
+    lastError     varchar(512)                       null comment '最近一次失败原因',
+    createTime    datetime default CURRENT_TIMESTAMP not null comment '创建时间',
+    updateTime    datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
+    -- 索引设计
+    INDEX idx_status_nextRetryTime (status, nextRetryTime) -- 提升拉取到期任务的性能
+) comment '对象删除任务' collate = utf8mb4_unicode_ci;
+
+-- 空间统计表（按空间预聚合的分类、标签、大小区间统计，由图片变更增量维护）
+create table if not exists space_stat
+(
+    id           bigint auto_increment comment 'id' primary key,
+    spaceId      bigint   default 0                 not null comment '空间 id（0 表示公共图库）',
+    statType     tinyint                            not null comment '统计类型：0-分类 1-标签 2-大小区间',
+    statKey      varchar(256) collate utf8mb4_bin   not null comment '统计项（分类名、标签名、大小区间，空字符串表示未分类）',
+    pictureCount bigint   default 0                 not null comment '图片数量',
+    totalSize    bigint   default 0                 not null comment '图片总大小',
+    updateTime   datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
+    -- 索引设计
+    UNIQUE KEY uk_spaceId_statType_statKey (spaceId, statType, statKey) -- 按空间和类型点查，增量累加时定位唯一行
+) comment '空间统计' collate = utf8mb4_unicode_ci;
+
+-- 空间用户每日上传统计表
+create table if not exists space_user_day_stat
+(
+    id           bigint auto_increment comment 'id' primary key,
+    spaceId      bigint   default 0                 not null comment '空间 id（0 表示公共图库）',
+    userId       bigint                             not null comment '用户 id',
+    statDate     date                               not null comment '上传日期',
+    pictureCount bigint   default 0                 not null comment '图片数量',
+    updateTime   datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
+    -- 索引设计
+    UNIQUE KEY uk_spaceId_userId_statDate (spaceId, userId, statDate),
+    INDEX idx_spaceId_statDate (spaceId, statDate) -- 提升不指定用户时按时间统计的性能
+) comment '空间用户每日上传统计' collate = utf8mb4_unicode_ci;
+
+-- 图片统计状态表（每张图片最近一次计入统计时的取值，图片变化时先减去旧值再加上新值）
+create table if not exists picture_stat_state
+(
+    id         bigint auto_increment comment 'id' primary key,
+    pictureId  bigint                             not null comment '图片 id',
+    spaceId    bigint   default 0                 not null comment '空间 id（0 表示公共图库）',
+    userId     bigint                             not null comment '用户 id',
+    category   varchar(256) collate utf8mb4_bin   not null comment '分类（空字符串表示未分类）',
+    tags       text                               null comment '标签（JSON 数组，已去重排序）',
+    picSize    bigint   default 0                 not null comment '图片大小',
+    statDate   date                               not null comment '上传日期',
+    updateTime datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
+    -- 索引设计
+    UNIQUE KEY uk_pictureId (pictureId)
+) comment '图片统计状态' collate = utf8mb4_unicode_ci;
+
+-- 统计校验时按空间重新比对统计状态
+CREATE INDEX idx_spaceId ON picture_stat_state (spaceId);
@@ -5,11 +5,13 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @MapperScan("com.ping.pingpicturebackend.mapper")
 @EnableAspectJAutoProxy(exposeProxy = true)
 @EnableAsync
+@EnableScheduling
 public class PingPictureBackendApplication {
 
     public static void main(String[] args) {
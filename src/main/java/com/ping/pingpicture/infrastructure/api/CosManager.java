@@ -4,21 +4,34 @@ import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.StrUtil;
 import com.ping.pingpicture.infrastructure.config.CosClientConfig;
 import com.qcloud.cos.COSClient;
+import com.qcloud.cos.exception.MultiObjectDeleteException;
 import com.qcloud.cos.model.COSObject;
+import com.qcloud.cos.model.DeleteObjectsRequest;
 import com.qcloud.cos.model.GetObjectRequest;
+import com.qcloud.cos.model.ListObjectsRequest;
+import com.qcloud.cos.model.ObjectListing;
+import com.qcloud.cos.model.ObjectMetadata;
 import com.qcloud.cos.model.PutObjectRequest;
 import com.qcloud.cos.model.PutObjectResult;
 import com.qcloud.cos.model.ciModel.persistence.PicOperations;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Resource;
 import java.io.File;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
 @Component
+@ConditionalOnProperty(prefix = "picture.storage", name = "type", havingValue = "cos", matchIfMissing = true)
 public class CosManager {
 
+    /**
+     * 批量删除单次请求最多的对象数
+     */
+    private static final int MAX_DELETE_BATCH_SIZE = 1000;
+
     @Resource
     private CosClientConfig cosClientConfig;
 
@@ -39,6 +52,21 @@ public class CosManager {
         return cosClient.putObject(putObjectRequest);
     }
 
+    /**
+     * 以流的方式上传对象
+     *
+     * @param key           唯一键即文件名
+     * @param inputStream   内容（由调用方关闭）
+     * @param contentLength 内容字节数
+     */
+    public PutObjectResult putObject(String key, InputStream inputStream, long contentLength) {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentLength(contentLength);
+        PutObjectRequest putObjectRequest = new PutObjectRequest(cosClientConfig.getBucket(), key,
+                inputStream, objectMetadata);
+        return cosClient.putObject(putObjectRequest);
+    }
+
     /**
      * 下载对象
      *
@@ -49,6 +77,28 @@ public class CosManager {
         return cosClient.getObject(getObjectRequest);
     }
 
+    /**
+     * 下载对象的一段
+     *
+     * @param key   唯一键
+     * @param start 起始位置
+     * @param end   结束位置（包含）
+     */
+    public COSObject getObject(String key, long start, long end) {
+        GetObjectRequest getObjectRequest = new GetObjectRequest(cosClientConfig.getBucket(), key);
+        getObjectRequest.setRange(start, end);
+        return cosClient.getObject(getObjectRequest);
+    }
+
+    /**
+     * 获取对象元数据
+     *
+     * @param key 唯一键
+     */
+    public ObjectMetadata getObjectMetadata(String key) {
+        return cosClient.getObjectMetadata(cosClientConfig.getBucket(), key);
+    }
+
     /**
      * 上传对象（附带图片信息）
      *
@@ -58,7 +108,34 @@ public class CosManager {
      */
     public PutObjectResult putPictureObject(String key, File file) {
         PutObjectRequest putObjectRequest = new PutObjectRequest(cosClientConfig.getBucket(), key, file);
-        // 对图片进行处理（获取基本信息也被视作为一种处理）
+        putObjectRequest.setPicOperations(buildPicOperations(key, file.length()));
+        return cosClient.putObject(putObjectRequest);
+    }
+
+    /**
+     * 以流的方式上传对象（附带图片信息），不经过本地文件
+     *
+     * @param key           唯一键即文件名
+     * @param inputStream   图片内容（由调用方关闭）
+     * @param contentLength 内容字节数，必须准确，SDK 据此直接发送请求体而不在内存中缓冲
+     * @return PutObjectResult
+     */
+    public PutObjectResult putPictureObject(String key, InputStream inputStream, long contentLength) {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentLength(contentLength);
+        PutObjectRequest putObjectRequest = new PutObjectRequest(cosClientConfig.getBucket(), key,
+                inputStream, objectMetadata);
+        putObjectRequest.setPicOperations(buildPicOperations(key, contentLength));
+        return cosClient.putObject(putObjectRequest);
+    }
+
+    /**
+     * 构造图片处理参数（获取基本信息也被视作为一种处理）
+     *
+     * @param key         唯一键即文件名
+     * @param contentSize 原图字节数
+     */
+    private PicOperations buildPicOperations(String key, long contentSize) {
         PicOperations picOperations = new PicOperations();
         picOperations.setIsPicInfo(1); // 1 表示返回原图信息
         // 图片压缩 - webp
@@ -70,7 +147,7 @@ public class CosManager {
         webpRule.setFileId(webpKey);
         rules.add(webpRule);
         // 缩略图处理，仅对 > 20 KB 的图片生成缩略图
-        if(file.length() > 20 * 1024) {
+        if(contentSize > 20 * 1024) {
             String suffix = FileUtil.getSuffix(key);
             if (StrUtil.isBlank(suffix)) {
                 suffix = "png";
@@ -85,8 +162,7 @@ public class CosManager {
         }
         // 构造处理参数
         picOperations.setRules(rules);
-        putObjectRequest.setPicOperations(picOperations);
-        return cosClient.putObject(putObjectRequest);
+        return picOperations;
     }
 
     /**
@@ -97,4 +173,49 @@ public class CosManager {
     public void deleteObject(String key) {
         cosClient.deleteObject(cosClientConfig.getBucket(), key);
     }
+
+    /**
+     * 批量删除对象，每次请求最多 1000 个
+     *
+     * @param keys 唯一键
+     * @return 删除失败的对象键
+     */
+    public List<String> deleteObjects(List<String> keys) {
+        List<String> failedKeyList = new ArrayList<>();
+        for (int from = 0; from < keys.size(); from += MAX_DELETE_BATCH_SIZE) {
+            List<DeleteObjectsRequest.KeyVersion> keyList = new ArrayList<>();
+            for (String key : keys.subList(from, Math.min(keys.size(), from + MAX_DELETE_BATCH_SIZE))) {
+                keyList.add(new DeleteObjectsRequest.KeyVersion(key));
+            }
+            DeleteObjectsRequest deleteObjectsRequest = new DeleteObjectsRequest(cosClientConfig.getBucket());
+            deleteObjectsRequest.setKeys(keyList);
+            // 只返回删除失败的对象
+            deleteObjectsRequest.setQuiet(true);
+            try {
+                cosClient.deleteObjects(deleteObjectsRequest);
+            } catch (MultiObjectDeleteException e) {
+                // 部分对象删除失败
+                for (MultiObjectDeleteException.DeleteError deleteError : e.getErrors()) {
+                    failedKeyList.add(deleteError.getKey());
+                }
+            }
+        }
+        return failedKeyList;
+    }
+
+    /**
+     * 按前缀列出对象（按对象键的字典序）
+     *
+     * @param prefix  前缀
+     * @param marker  从该对象键之后开始列出，为空时从头开始
+     * @param maxKeys 最多返回的对象数（不超过 1000）
+     */
+    public ObjectListing listObjects(String prefix, String marker, int maxKeys) {
+        ListObjectsRequest listObjectsRequest = new ListObjectsRequest();
+        listObjectsRequest.setBucketName(cosClientConfig.getBucket());
+        listObjectsRequest.setPrefix(prefix);
+        listObjectsRequest.setMarker(marker);
+        listObjectsRequest.setMaxKeys(maxKeys);
+        return cosClient.listObjects(listObjectsRequest);
+    }
 }
\ No newline at end of file
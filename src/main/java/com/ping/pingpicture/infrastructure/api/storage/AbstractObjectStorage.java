@@ -0,0 +1,129 @@
+package com.ping.pingpicture.infrastructure.api.storage;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.net.url.UrlBuilder;
+import cn.hutool.core.util.StrUtil;
+import com.ping.pingpicture.infrastructure.utils.ImageSampleUtils;
+import com.ping.pingpicture.infrastructure.utils.ImageVariantUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 对象存储的公共实现：地址与对象键的转换、在本地解码生成派生图
+ */
+@Slf4j
+public abstract class AbstractObjectStorage implements ObjectStorage {
+
+    /**
+     * 缩略图尺寸
+     */
+    protected static final int THUMBNAIL_SIZE = 256;
+
+    /**
+     * 仅对大于该字节数的图片生成缩略图
+     */
+    protected static final long THUMBNAIL_MIN_CONTENT_SIZE = 20 * 1024;
+
+    /**
+     * 访问地址前缀
+     */
+    protected abstract String getHost();
+
+    @Override
+    public String getUrl(String key) {
+        return getHost() + "/" + trimLeadingSlash(key);
+    }
+
+    @Override
+    public String getKey(String url) {
+        String host = getHost();
+        if (StrUtil.isNotBlank(host) && url.startsWith(host + "/")) {
+            return url.substring(host.length() + 1);
+        }
+        // 其他域名（如历史数据）按路径解析
+        return trimLeadingSlash(UrlBuilder.ofHttp(url).getPathStr());
+    }
+
+    @Override
+    public File getLocalFile(String key) {
+        return null;
+    }
+
+    @Override
+    public StorageObject getObject(String key) throws IOException {
+        return getObject(key, 0, -1);
+    }
+
+    @Override
+    public List<String> deleteObjects(Collection<String> keys) {
+        List<String> failedKeyList = new ArrayList<>();
+        for (String key : keys) {
+            try {
+                deleteObject(key);
+            } catch (Exception e) {
+                log.error("删除对象失败，key = {}", key, e);
+                failedKeyList.add(key);
+            }
+        }
+        return failedKeyList;
+    }
+
+    @Override
+    public StoredVariant createVariant(String sourceKey, String targetKeyPrefix, int maxWidth, int maxHeight,
+                                       String format) throws IOException {
+        BufferedImage image;
+        try (StorageObject storageObject = getObject(sourceKey)) {
+            if (storageObject == null) {
+                return null;
+            }
+            // 降采样解码到不超过目标尺寸的两倍（长边至少为目标尺寸），再缩放到目标尺寸，避免整张解码大图
+            image = ImageSampleUtils.readScaled(storageObject.getInputStream(), Math.max(maxWidth, maxHeight) * 2);
+        }
+        if (image == null) {
+            return null;
+        }
+        return putVariant(image, targetKeyPrefix, maxWidth, maxHeight,
+                StrUtil.blankToDefault(format, FileUtil.getSuffix(sourceKey)));
+    }
+
+    /**
+     * 缩放、编码并保存派生图
+     *
+     * @param image           已解码的源图
+     * @param targetKeyPrefix 派生图对象键（不含后缀）
+     * @param maxWidth        最大宽度
+     * @param maxHeight       最大高度
+     * @param format          期望的格式，不支持时改用 jpg 或 png
+     * @return 派生图
+     * @throws IOException 编码或保存失败
+     */
+    protected StoredVariant putVariant(BufferedImage image, String targetKeyPrefix, int maxWidth, int maxHeight,
+                                       String format) throws IOException {
+        BufferedImage resized = ImageVariantUtils.resize(image, maxWidth, maxHeight);
+        String targetFormat = ImageVariantUtils.resolveFormat(format, resized);
+        byte[] bytes = ImageVariantUtils.encode(resized, targetFormat);
+        String key = targetKeyPrefix + "." + targetFormat;
+        putObject(key, new ByteArrayInputStream(bytes), bytes.length);
+        return new StoredVariant(key, bytes.length, targetFormat, resized.getWidth(), resized.getHeight());
+    }
+
+    /**
+     * 去掉对象键的后缀
+     */
+    protected static String removeSuffix(String key) {
+        int dotIndex = key.lastIndexOf('.');
+        int slashIndex = key.lastIndexOf('/');
+        return dotIndex > slashIndex ? key.substring(0, dotIndex) : key;
+    }
+
+    protected static String trimLeadingSlash(String key) {
+        return key.startsWith("/") ? key.substring(1) : key;
+    }
+}
@@ -0,0 +1,187 @@
+package com.ping.pingpicture.infrastructure.api.storage;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import com.ping.pingpicture.infrastructure.api.CosManager;
+import com.ping.pingpicture.infrastructure.config.CosClientConfig;
+import com.qcloud.cos.exception.CosServiceException;
+import com.qcloud.cos.model.COSObject;
+import com.qcloud.cos.model.COSObjectSummary;
+import com.qcloud.cos.model.ObjectListing;
+import com.qcloud.cos.model.ObjectMetadata;
+import com.qcloud.cos.model.PutObjectResult;
+import com.qcloud.cos.model.ciModel.persistence.CIObject;
+import com.qcloud.cos.model.ciModel.persistence.CIUploadResult;
+import com.qcloud.cos.model.ciModel.persistence.ImageInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 腾讯云对象存储
+ * <p>
+ * 上传图片时由数据万象生成 webp 压缩图和缩略图，按需生成的派生图在本地解码后写回。
+ * 读取整个对象时经过本地磁盘缓存（{@link ObjectDiskCache}），写入和删除对象时移除对应缓存
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "picture.storage", name = "type", havingValue = "cos", matchIfMissing = true)
+public class CosObjectStorage extends AbstractObjectStorage {
+
+    @Resource
+    private CosManager cosManager;
+
+    @Resource
+    private CosClientConfig cosClientConfig;
+
+    @Resource
+    private ObjectDiskCache objectDiskCache;
+
+    @Override
+    protected String getHost() {
+        return cosClientConfig.getHost();
+    }
+
+    @Override
+    public void putObject(String key, InputStream inputStream, long contentLength) {
+        objectDiskCache.invalidate(key);
+        cosManager.putObject(key, inputStream, contentLength);
+    }
+
+    @Override
+    public StoredPicture putPicture(String key, InputStream inputStream, long contentLength) {
+        objectDiskCache.invalidate(key);
+        PutObjectResult putObjectResult = cosManager.putPictureObject(key, inputStream, contentLength);
+        StoredPicture storedPicture = new StoredPicture();
+        storedPicture.setKey(key);
+        storedPicture.setSize(contentLength);
+        CIUploadResult ciUploadResult = putObjectResult.getCiUploadResult();
+        if (ciUploadResult == null) {
+            return storedPicture;
+        }
+        // 原图信息
+        if (ciUploadResult.getOriginalInfo() != null && ciUploadResult.getOriginalInfo().getImageInfo() != null) {
+            ImageInfo imageInfo = ciUploadResult.getOriginalInfo().getImageInfo();
+            storedPicture.setWidth(imageInfo.getWidth());
+            storedPicture.setHeight(imageInfo.getHeight());
+            storedPicture.setFormat(imageInfo.getFormat());
+            storedPicture.setColor(imageInfo.getAve());
+        }
+        // 规则处理结果：第一个为 webp 压缩图，有生成缩略图时第二个为缩略图
+        List<CIObject> objectList = ciUploadResult.getProcessResults() != null
+                ? ciUploadResult.getProcessResults().getObjectList() : null;
+        if (CollUtil.isNotEmpty(objectList)) {
+            storedPicture.setCompressed(toStoredVariant(objectList.get(0)));
+            if (objectList.size() > 1) {
+                storedPicture.setThumbnail(toStoredVariant(objectList.get(1)));
+            }
+        }
+        return storedPicture;
+    }
+
+    @Override
+    public StorageObjectInfo headObject(String key) {
+        StorageObjectInfo cachedInfo = objectDiskCache.getInfo(key);
+        if (cachedInfo != null) {
+            return cachedInfo;
+        }
+        try {
+            ObjectMetadata objectMetadata = cosManager.getObjectMetadata(key);
+            return new StorageObjectInfo(objectMetadata.getContentLength(),
+                    objectMetadata.getLastModified() != null ? objectMetadata.getLastModified().getTime() : -1L,
+                    StrUtil.unWrap(objectMetadata.getETag(), '"'));
+        } catch (CosServiceException e) {
+            if (e.getStatusCode() == 404) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public StorageObject getObject(String key, long offset, long length) {
+        // 1. 本地缓存命中
+        StorageObject cachedObject = objectDiskCache.open(key, offset, length);
+        if (cachedObject != null) {
+            return cachedObject;
+        }
+        // 2. 再次访问的对象先下载到缓存（只在读取整个对象时填充，范围读取直接回源）
+        if (offset == 0 && length < 0 && objectDiskCache.admit(key)) {
+            StorageObjectInfo objectInfo = headObject(key);
+            if (objectInfo == null) {
+                return null;
+            }
+            try {
+                return objectDiskCache.load(key, objectInfo, objectKey -> fetchObject(objectKey, 0, -1));
+            } catch (IOException e) {
+                log.warn("写入对象缓存失败，直接读取源站，key = {}", key, e);
+            }
+        }
+        return fetchObject(key, offset, length);
+    }
+
+    @Override
+    public void deleteObject(String key) {
+        objectDiskCache.invalidate(key);
+        cosManager.deleteObject(key);
+    }
+
+    @Override
+    public List<String> deleteObjects(Collection<String> keys) {
+        if (CollUtil.isEmpty(keys)) {
+            return new ArrayList<>();
+        }
+        keys.forEach(objectDiskCache::invalidate);
+        return cosManager.deleteObjects(new ArrayList<>(keys));
+    }
+
+    @Override
+    public StorageObjectListing listObjects(String prefix, String marker, int maxKeys) {
+        ObjectListing objectListing = cosManager.listObjects(prefix, marker, maxKeys);
+        StorageObjectListing storageObjectListing = new StorageObjectListing();
+        for (COSObjectSummary objectSummary : objectListing.getObjectSummaries()) {
+            storageObjectListing.getObjectList().add(new StorageObjectSummary(objectSummary.getKey(),
+                    objectSummary.getSize(),
+                    objectSummary.getLastModified() != null ? objectSummary.getLastModified().getTime() : -1L));
+        }
+        storageObjectListing.setTruncated(objectListing.isTruncated());
+        storageObjectListing.setNextMarker(objectListing.getNextMarker());
+        return storageObjectListing;
+    }
+
+    /**
+     * 从腾讯云读取对象
+     */
+    private StorageObject fetchObject(String key, long offset, long length) {
+        try {
+            COSObject cosObject;
+            if (offset == 0 && length < 0) {
+                cosObject = cosManager.getObject(key);
+            } else {
+                long end = length < 0 ? cosManager.getObjectMetadata(key).getContentLength() - 1
+                        : offset + length - 1;
+                cosObject = cosManager.getObject(key, offset, end);
+            }
+            ObjectMetadata objectMetadata = cosObject.getObjectMetadata();
+            return new StorageObject(cosObject.getObjectContent(), objectMetadata.getContentLength(),
+                    objectMetadata.getInstanceLength(), objectMetadata.getLastModified());
+        } catch (CosServiceException e) {
+            if (e.getStatusCode() == 404) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    private static StoredVariant toStoredVariant(CIObject ciObject) {
+        return new StoredVariant(ciObject.getKey(), ciObject.getSize().longValue(), ciObject.getFormat(),
+                ciObject.getWidth(), ciObject.getHeight());
+    }
+}
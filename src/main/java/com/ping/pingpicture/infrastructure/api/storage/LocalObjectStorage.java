@@ -0,0 +1,325 @@
+package com.ping.pingpicture.infrastructure.api.storage;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.CharUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import com.ping.pingpicture.infrastructure.config.LocalStorageConfig;
+import com.ping.pingpicture.infrastructure.exception.BusinessException;
+import com.ping.pingpicture.infrastructure.exception.ErrorCode;
+import com.ping.pingpicture.infrastructure.utils.ImageSampleUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 本地磁盘存储
+ * <p>
+ * 对象按键的哈希分散到两级目录（root/ab/cd/对象键），避免单个目录下文件过多；
+ * 写入先用 FileChannel 写临时文件，写完后原子改名，读者不会看到写了一半的文件。
+ * 压缩图和缩略图在本地解码生成，JDK 不能编码 webp，压缩图使用 jpg（透明图不生成压缩图）
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "picture.storage", name = "type", havingValue = "local")
+public class LocalObjectStorage extends AbstractObjectStorage {
+
+    /**
+     * 压缩图长边上限，同时也限制了解码时的内存占用
+     */
+    private static final int COMPRESSED_MAX_SIZE = 4096;
+
+    /**
+     * 单次 transferFrom 的字节数
+     */
+    private static final long TRANSFER_CHUNK_SIZE = 1024 * 1024;
+
+    @Resource
+    private LocalStorageConfig localStorageConfig;
+
+    private Path rootPath;
+
+    @PostConstruct
+    public void init() throws IOException {
+        rootPath = Paths.get(localStorageConfig.getRootPath()).toAbsolutePath().normalize();
+        Files.createDirectories(rootPath);
+        log.info("使用本地磁盘存储，根目录：{}", rootPath);
+    }
+
+    @Override
+    protected String getHost() {
+        return StrUtil.removeSuffix(localStorageConfig.getHost(), "/");
+    }
+
+    @Override
+    public void putObject(String key, InputStream inputStream, long contentLength) throws IOException {
+        Path path = resolve(key);
+        Files.createDirectories(path.getParent());
+        Path tempPath = path.resolveSibling(path.getFileName() + "." + IdUtil.fastSimpleUUID() + ".tmp");
+        try {
+            ReadableByteChannel source = Channels.newChannel(inputStream);
+            try (FileChannel fileChannel = FileChannel.open(tempPath,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                long position = 0;
+                while (position < contentLength) {
+                    long transferred = fileChannel.transferFrom(source, position,
+                            Math.min(TRANSFER_CHUNK_SIZE, contentLength - position));
+                    if (transferred <= 0) {
+                        break;
+                    }
+                    position += transferred;
+                }
+                if (position != contentLength) {
+                    throw new IOException(String.format("内容长度不一致，期望 %d 字节，实际 %d 字节",
+                            contentLength, position));
+                }
+            }
+            Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    @Override
+    public StoredPicture putPicture(String key, InputStream inputStream, long contentLength) throws IOException {
+        putObject(key, inputStream, contentLength);
+        StoredPicture storedPicture = new StoredPicture();
+        storedPicture.setKey(key);
+        storedPicture.setSize(contentLength);
+        try {
+            BufferedImage image;
+            try (InputStream fileInputStream = Files.newInputStream(resolve(key))) {
+                image = ImageSampleUtils.readScaled(fileInputStream, COMPRESSED_MAX_SIZE);
+            }
+            if (image == null) {
+                return storedPicture;
+            }
+            // 压缩图和缩略图共用一次解码
+            String keyPrefix = removeSuffix(key);
+            String format = FileUtil.getSuffix(key);
+            if (!"gif".equals(format) && !image.getColorModel().hasAlpha()) {
+                StoredVariant compressed = putVariant(image, keyPrefix + "_compressed",
+                        COMPRESSED_MAX_SIZE, COMPRESSED_MAX_SIZE, "jpg");
+                // 重新编码没有变小时直接使用原图
+                if (compressed.getSize() < contentLength) {
+                    storedPicture.setCompressed(compressed);
+                } else {
+                    deleteObject(compressed.getKey());
+                }
+            }
+            if (contentLength > THUMBNAIL_MIN_CONTENT_SIZE) {
+                storedPicture.setThumbnail(putVariant(image, keyPrefix + "_thumbnail",
+                        THUMBNAIL_SIZE, THUMBNAIL_SIZE, format));
+            }
+        } catch (Exception e) {
+            // 派生图生成失败不影响原图上传
+            log.warn("生成派生图失败，key = {}，原因：{}", key, e.getMessage());
+        }
+        return storedPicture;
+    }
+
+    @Override
+    public StorageObjectInfo headObject(String key) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(resolve(key), BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        // 对象写入是整体替换，大小和修改时间足以标识内容版本
+        return new StorageObjectInfo(size, lastModified,
+                Long.toHexString(size) + "-" + Long.toHexString(lastModified));
+    }
+
+    @Override
+    public File getLocalFile(String key) {
+        File file = resolve(key).toFile();
+        return file.isFile() ? file : null;
+    }
+
+    @Override
+    public StorageObject getObject(String key, long offset, long length) throws IOException {
+        FileChannel fileChannel;
+        try {
+            fileChannel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        try {
+            long totalLength = fileChannel.size();
+            if (offset < 0 || offset > totalLength) {
+                throw new IOException("读取位置超出对象范围：" + offset);
+            }
+            long contentLength = length < 0 ? totalLength - offset : Math.min(length, totalLength - offset);
+            fileChannel.position(offset);
+            InputStream inputStream = new RangeInputStream(Channels.newInputStream(fileChannel), contentLength);
+            Date lastModified = new Date(Files.getLastModifiedTime(resolve(key)).toMillis());
+            return new StorageObject(inputStream, contentLength, totalLength, lastModified);
+        } catch (IOException | RuntimeException e) {
+            fileChannel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void deleteObject(String key) {
+        try {
+            Files.deleteIfExists(resolve(key));
+        } catch (IOException e) {
+            log.error("删除对象失败，key = {}", key, e);
+        }
+    }
+
+    @Override
+    public List<String> deleteObjects(Collection<String> keys) {
+        List<String> failedKeyList = new ArrayList<>();
+        for (String key : keys) {
+            try {
+                Files.deleteIfExists(resolve(key));
+            } catch (IOException e) {
+                log.error("删除对象失败，key = {}", key, e);
+                failedKeyList.add(key);
+            }
+        }
+        return failedKeyList;
+    }
+
+    /**
+     * 遍历所有分片目录后排序，适合本地部署的数据量
+     */
+    @Override
+    public StorageObjectListing listObjects(String prefix, String marker, int maxKeys) throws IOException {
+        String keyPrefix = StrUtil.nullToEmpty(prefix);
+        // 标记为 分片目录/对象键，从标记所在的分片目录继续，之前的分片目录不再遍历
+        String markerFirst = null;
+        String markerShard = null;
+        String markerKey = null;
+        if (StrUtil.isNotEmpty(marker)) {
+            List<String> markerPartList = StrUtil.split(marker, '/', 3);
+            if (markerPartList.size() < 3 || !isShardName(markerPartList.get(0))
+                    || !isShardName(markerPartList.get(1))) {
+                throw new BusinessException(ErrorCode.PARAMS_ERROR, "列出标记错误");
+            }
+            markerFirst = markerPartList.get(0);
+            markerShard = markerFirst + "/" + markerPartList.get(1);
+            markerKey = markerPartList.get(2);
+        }
+        StorageObjectListing storageObjectListing = new StorageObjectListing();
+        for (Path firstPath : listShardDirs(rootPath)) {
+            String first = firstPath.getFileName().toString();
+            if (markerFirst != null && first.compareTo(markerFirst) < 0) {
+                continue;
+            }
+            for (Path shardPath : listShardDirs(firstPath)) {
+                String shard = first + "/" + shardPath.getFileName().toString();
+                if (markerShard != null && shard.compareTo(markerShard) < 0) {
+                    continue;
+                }
+                String startAfter = shard.equals(markerShard) ? markerKey : null;
+                for (Map.Entry<String, Path> entry : listShard(shardPath, keyPrefix, startAfter).entrySet()) {
+                    if (storageObjectListing.getObjectList().size() >= maxKeys) {
+                        storageObjectListing.setTruncated(true);
+                        return storageObjectListing;
+                    }
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(entry.getValue(), BasicFileAttributes.class);
+                    } catch (NoSuchFileException e) {
+                        // 已被删除
+                        continue;
+                    }
+                    storageObjectListing.getObjectList().add(new StorageObjectSummary(entry.getKey(),
+                            attributes.size(), attributes.lastModifiedTime().toMillis()));
+                    storageObjectListing.setNextMarker(shard + "/" + entry.getKey());
+                }
+            }
+        }
+        return storageObjectListing;
+    }
+
+    private static boolean isShardName(String name) {
+        return name.length() == 2 && StrUtil.isAllCharMatch(name, CharUtil::isHexChar);
+    }
+
+    /**
+     * 按名称排序列出分片目录
+     */
+    private static List<Path> listShardDirs(Path dirPath) throws IOException {
+        try (Stream<Path> stream = Files.list(dirPath)) {
+            return stream.filter(Files::isDirectory)
+                    .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * 列出单个分片目录中的对象（按对象键排序），跳过写入中的临时文件
+     *
+     * @param startAfter 只列出该对象键之后的对象，为空时列出全部
+     */
+    private static TreeMap<String, Path> listShard(Path shardPath, String keyPrefix, String startAfter)
+            throws IOException {
+        TreeMap<String, Path> pathMap = new TreeMap<>();
+        try (Stream<Path> stream = Files.walk(shardPath)) {
+            stream.filter(Files::isRegularFile).forEach(path -> {
+                if (path.getFileName().toString().endsWith(".tmp")) {
+                    return;
+                }
+                String key = shardPath.relativize(path).toString().replace(File.separatorChar, '/');
+                if (key.startsWith(keyPrefix) && (startAfter == null || key.compareTo(startAfter) > 0)) {
+                    pathMap.put(key, path);
+                }
+            });
+        }
+        return pathMap;
+    }
+
+    /**
+     * 对象键转为文件路径，拒绝跳出根目录的键
+     */
+    private Path resolve(String key) {
+        key = trimLeadingSlash(StrUtil.nullToEmpty(key));
+        if (StrUtil.isBlank(key) || key.endsWith("/")) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "对象键错误");
+        }
+        CRC32 crc32 = new CRC32();
+        crc32.update(StrUtil.utf8Bytes(key));
+        long hash = crc32.getValue();
+        Path shardPath = rootPath.resolve(String.format("%02x", hash & 0xFF))
+                .resolve(String.format("%02x", (hash >>> 8) & 0xFF));
+        Path path = shardPath.resolve(key).normalize();
+        if (!path.startsWith(shardPath)) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "对象键错误");
+        }
+        return path;
+    }
+}
@@ -0,0 +1,54 @@
+package com.ping.pingpicture.infrastructure.api.storage;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 对象磁盘缓存统计
+ */
+@Data
+public class ObjectCacheStats implements Serializable {
+
+    /**
+     * 是否启用
+     */
+    private boolean enabled;
+
+    /**
+     * 命中次数
+     */
+    private long hitCount;
+
+    /**
+     * 未命中次数
+     */
+    private long missCount;
+
+    /**
+     * 命中率
+     */
+    private double hitRate;
+
+    /**
+     * 淘汰次数
+     */
+    private long evictionCount;
+
+    /**
+     * 缓存对象数
+     */
+    private long entryCount;
+
+    /**
+     * 已用字节数
+     */
+    private long size;
+
+    /**
+     * 字节数上限
+     */
+    private long maxSize;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,464 @@
+package com.ping.pingpicture.infrastructure.api.storage;
+
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.crypto.SecureUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.ping.pingpicture.infrastructure.config.ObjectCacheConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 远程对象的本地磁盘缓存
+ * <p>
+ * 索引是按字节数限制容量的 Caffeine 缓存（W-TinyLFU 淘汰），被淘汰或替换的条目同时删除磁盘文件；
+ * 对象第一次未命中时只记录访问，窗口期内再次访问才下载到磁盘，避免只访问一次的对象挤掉热点对象。
+ * 每个缓存文件的末尾保存对象键、元数据和 CRC32，重启后扫描目录恢复索引，首次读取时校验内容，
+ * 校验失败的条目会被删除并回源读取
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "picture.storage", name = "type", havingValue = "cos", matchIfMissing = true)
+public class ObjectDiskCache {
+
+    /**
+     * 缓存文件尾部的魔数
+     */
+    private static final int MAGIC = 0x50494343;
+
+    /**
+     * 缓存文件后缀
+     */
+    private static final String FILE_SUFFIX = ".obj";
+
+    /**
+     * 写入中的临时文件后缀
+     */
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    @Resource
+    private ObjectCacheConfig objectCacheConfig;
+
+    private boolean enabled;
+
+    private long maxEntrySize;
+
+    private Path rootPath;
+
+    private Cache<String, CacheEntry> entryCache;
+
+    /**
+     * 第一次未命中的对象（准入过滤）
+     */
+    private final Cache<String, Boolean> doorkeeper = Caffeine.newBuilder()
+            .maximumSize(100_000L)
+            .expireAfterWrite(1L, TimeUnit.HOURS)
+            .build();
+
+    /**
+     * 正在下载的对象，同一对象并发未命中时只下载一次
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<CacheEntry>> loadingMap = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+        enabled = objectCacheConfig.isEnabled();
+        maxEntrySize = objectCacheConfig.getMaxEntrySize();
+        if (!enabled) {
+            return;
+        }
+        rootPath = Paths.get(objectCacheConfig.getPath()).toAbsolutePath().normalize();
+        Files.createDirectories(rootPath);
+        entryCache = Caffeine.newBuilder()
+                .maximumWeight(objectCacheConfig.getMaxSize())
+                .weigher((String key, CacheEntry entry) -> (int) Math.min(Integer.MAX_VALUE, entry.fileSize))
+                // 在调用线程中删除文件，移除后立即释放磁盘空间
+                .executor(Runnable::run)
+                .removalListener((String key, CacheEntry entry, RemovalCause cause) -> {
+                    if (entry != null) {
+                        deleteQuietly(entry.path);
+                    }
+                })
+                .recordStats()
+                .build();
+        restore();
+    }
+
+    /**
+     * 是否启用
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 读取缓存的对象
+     *
+     * @param key    对象键
+     * @param offset 起始位置
+     * @param length 字节数，小于 0 表示读到末尾
+     * @return 对象内容，未命中时返回 null
+     */
+    public StorageObject open(String key, long offset, long length) {
+        if (!enabled) {
+            return null;
+        }
+        CacheEntry entry = entryCache.getIfPresent(key);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            if (!entry.verified && !verify(entry)) {
+                log.warn("缓存文件校验失败，key = {}", key);
+                entryCache.asMap().remove(key, entry);
+                return null;
+            }
+            return openEntry(entry, offset, length);
+        } catch (IOException e) {
+            // 文件已被删除或损坏
+            entryCache.asMap().remove(key, entry);
+            return null;
+        }
+    }
+
+    /**
+     * 获取缓存的对象元数据
+     *
+     * @param key 对象键
+     * @return 对象元数据，未命中时返回 null
+     */
+    public StorageObjectInfo getInfo(String key) {
+        if (!enabled) {
+            return null;
+        }
+        CacheEntry entry = entryCache.asMap().get(key);
+        if (entry == null) {
+            return null;
+        }
+        return new StorageObjectInfo(entry.contentLength, entry.lastModified, entry.eTag);
+    }
+
+    /**
+     * 记录一次未命中，返回是否应该下载到缓存（窗口期内第二次未命中）
+     *
+     * @param key 对象键
+     */
+    public boolean admit(String key) {
+        if (!enabled) {
+            return false;
+        }
+        if (doorkeeper.getIfPresent(key) != null) {
+            doorkeeper.invalidate(key);
+            return true;
+        }
+        doorkeeper.put(key, Boolean.TRUE);
+        return false;
+    }
+
+    /**
+     * 从源站下载对象写入缓存，再从缓存读取
+     *
+     * @param key    对象键
+     * @param info   对象元数据
+     * @param loader 读取源站对象
+     * @return 对象内容；对象过大时直接返回源站内容，源站不存在时返回 null
+     * @throws IOException 下载失败
+     */
+    public StorageObject load(String key, StorageObjectInfo info, ObjectLoader loader) throws IOException {
+        if (info.getContentLength() > maxEntrySize) {
+            return loader.load(key);
+        }
+        CompletableFuture<CacheEntry> future = new CompletableFuture<>();
+        CompletableFuture<CacheEntry> existFuture = loadingMap.putIfAbsent(key, future);
+        if (existFuture != null) {
+            // 其他线程正在下载，等待结果，下载失败时回源读取
+            CacheEntry entry = existFuture.join();
+            return entry != null ? openEntry(entry, 0, -1) : loader.load(key);
+        }
+        CacheEntry entry = null;
+        try {
+            entry = download(key, info, loader);
+        } finally {
+            future.complete(entry);
+            loadingMap.remove(key, future);
+        }
+        return entry != null ? openEntry(entry, 0, -1) : null;
+    }
+
+    /**
+     * 对象被修改或删除时移除缓存
+     *
+     * @param key 对象键
+     */
+    public void invalidate(String key) {
+        if (!enabled) {
+            return;
+        }
+        entryCache.invalidate(key);
+    }
+
+    /**
+     * 缓存统计
+     */
+    public ObjectCacheStats getStats() {
+        ObjectCacheStats objectCacheStats = new ObjectCacheStats();
+        objectCacheStats.setEnabled(enabled);
+        if (!enabled) {
+            return objectCacheStats;
+        }
+        CacheStats stats = entryCache.stats();
+        objectCacheStats.setHitCount(stats.hitCount());
+        objectCacheStats.setMissCount(stats.missCount());
+        objectCacheStats.setHitRate(stats.hitRate());
+        objectCacheStats.setEvictionCount(stats.evictionCount());
+        objectCacheStats.setEntryCount(entryCache.estimatedSize());
+        objectCacheStats.setSize(entryCache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L));
+        objectCacheStats.setMaxSize(objectCacheConfig.getMaxSize());
+        return objectCacheStats;
+    }
+
+    /**
+     * 下载到临时文件，写完内容和尾部后改名为缓存文件
+     */
+    private CacheEntry download(String key, StorageObjectInfo info, ObjectLoader loader) throws IOException {
+        String fileName = SecureUtil.sha1(key) + "-" + IdUtil.fastSimpleUUID();
+        Path filePath = rootPath.resolve(fileName.substring(0, 2)).resolve(fileName + FILE_SUFFIX);
+        Path tempPath = rootPath.resolve(fileName + TEMP_FILE_SUFFIX);
+        CRC32 crc32 = new CRC32();
+        long contentLength = 0;
+        try {
+            try (StorageObject storageObject = loader.load(key)) {
+                if (storageObject == null) {
+                    return null;
+                }
+                try (InputStream inputStream = storageObject.getInputStream();
+                     OutputStream outputStream = Files.newOutputStream(tempPath)) {
+                    byte[] buffer = new byte[64 * 1024];
+                    int n;
+                    while ((n = inputStream.read(buffer)) != -1) {
+                        crc32.update(buffer, 0, n);
+                        outputStream.write(buffer, 0, n);
+                        contentLength += n;
+                        if (contentLength > maxEntrySize) {
+                            throw new IOException("对象大小超过缓存上限");
+                        }
+                    }
+                    outputStream.write(encodeTrailer(key, contentLength, info.getLastModified(), info.getETag(),
+                            crc32.getValue()));
+                }
+            }
+            Files.createDirectories(filePath.getParent());
+            Files.move(tempPath, filePath, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            deleteQuietly(tempPath);
+        }
+        CacheEntry entry = new CacheEntry(filePath, Files.size(filePath), contentLength, info.getLastModified(),
+                info.getETag(), crc32.getValue(), true);
+        entryCache.put(key, entry);
+        return entry;
+    }
+
+    private static StorageObject openEntry(CacheEntry entry, long offset, long length) throws IOException {
+        if (offset < 0 || offset > entry.contentLength) {
+            throw new IOException("读取位置超出对象范围：" + offset);
+        }
+        long contentLength = length < 0 ? entry.contentLength - offset : Math.min(length, entry.contentLength - offset);
+        FileChannel fileChannel = FileChannel.open(entry.path, StandardOpenOption.READ);
+        try {
+            fileChannel.position(offset);
+        } catch (IOException e) {
+            fileChannel.close();
+            throw e;
+        }
+        InputStream inputStream = new RangeInputStream(Channels.newInputStream(fileChannel), contentLength);
+        return new StorageObject(inputStream, contentLength, entry.contentLength,
+                entry.lastModified >= 0 ? new Date(entry.lastModified) : null);
+    }
+
+    /**
+     * 计算内容的 CRC32 并与尾部记录的值比较
+     */
+    private static boolean verify(CacheEntry entry) throws IOException {
+        CRC32 crc32 = new CRC32();
+        try (FileChannel fileChannel = FileChannel.open(entry.path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            long remaining = entry.contentLength;
+            while (remaining > 0) {
+                buffer.clear();
+                if (remaining < buffer.capacity()) {
+                    buffer.limit((int) remaining);
+                }
+                int n = fileChannel.read(buffer);
+                if (n < 0) {
+                    return false;
+                }
+                crc32.update(buffer.array(), 0, n);
+                remaining -= n;
+            }
+        }
+        entry.verified = crc32.getValue() == entry.crc32;
+        return entry.verified;
+    }
+
+    /**
+     * 扫描缓存目录恢复索引，内容在首次读取时校验
+     */
+    private void restore() throws IOException {
+        List<Path> pathList;
+        try (Stream<Path> stream = Files.walk(rootPath)) {
+            pathList = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        int restoredCount = 0;
+        for (Path filePath : pathList) {
+            String fileName = filePath.getFileName().toString();
+            if (!fileName.endsWith(FILE_SUFFIX)) {
+                deleteQuietly(filePath);
+                continue;
+            }
+            try {
+                String key = restoreEntry(filePath);
+                if (key == null) {
+                    deleteQuietly(filePath);
+                } else {
+                    restoredCount++;
+                }
+            } catch (IOException e) {
+                deleteQuietly(filePath);
+            }
+        }
+        log.info("对象磁盘缓存目录：{}，恢复 {} 个缓存文件", rootPath, restoredCount);
+    }
+
+    private String restoreEntry(Path filePath) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long fileSize = fileChannel.size();
+            if (fileSize < 8) {
+                return null;
+            }
+            ByteBuffer tail = ByteBuffer.allocate(8);
+            fileChannel.read(tail, fileSize - 8);
+            tail.flip();
+            int trailerLength = tail.getInt();
+            if (tail.getInt() != MAGIC || trailerLength < 8 || trailerLength > fileSize) {
+                return null;
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(trailerLength - 8);
+            fileChannel.read(trailer, fileSize - trailerLength);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(trailer.array()));
+            String key = in.readUTF();
+            String eTag = in.readUTF();
+            long contentLength = in.readLong();
+            long lastModified = in.readLong();
+            long crc = in.readLong();
+            if (contentLength + trailerLength != fileSize) {
+                return null;
+            }
+            entryCache.put(key, new CacheEntry(filePath, fileSize, contentLength, lastModified, eTag, crc, false));
+            return key;
+        }
+    }
+
+    /**
+     * 尾部格式：对象键、ETag、内容长度、修改时间、CRC32、尾部总长度、魔数
+     */
+    private static byte[] encodeTrailer(String key, long contentLength, long lastModified, String eTag, long crc)
+            throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(byteArrayOutputStream);
+        out.writeUTF(key);
+        out.writeUTF(eTag == null ? "" : eTag);
+        out.writeLong(contentLength);
+        out.writeLong(lastModified);
+        out.writeLong(crc);
+        out.writeInt(byteArrayOutputStream.size() + 8);
+        out.writeInt(MAGIC);
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    private static void deleteQuietly(Path filePath) {
+        try {
+            Files.deleteIfExists(filePath);
+        } catch (NoSuchFileException ignored) {
+            // 已被删除
+        } catch (IOException e) {
+            log.warn("删除缓存文件失败：{}", filePath);
+        }
+    }
+
+    /**
+     * 读取源站对象
+     */
+    public interface ObjectLoader {
+
+        /**
+         * @param key 对象键
+         * @return 对象内容，不存在时返回 null
+         */
+        StorageObject load(String key) throws IOException;
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static class CacheEntry {
+
+        private final Path path;
+
+        private final long fileSize;
+
+        private final long contentLength;
+
+        private final long lastModified;
+
+        private final String eTag;
+
+        private final long crc32;
+
+        /**
+         * 内容是否已校验（本进程写入的文件无需校验）
+         */
+        private volatile boolean verified;
+
+        CacheEntry(Path path, long fileSize, long contentLength, long lastModified, String eTag, long crc32,
+                   boolean verified) {
+            this.path = path;
+            this.fileSize = fileSize;
+            this.contentLength = contentLength;
+            this.lastModified = lastModified;
+            this.eTag = eTag;
+            this.crc32 = crc32;
+            this.verified = verified;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.ping.pingpicture.infrastructure.api.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 对象存储
+ * <p>
+ * 业务代码只依赖该接口，由配置 picture.storage.type 选择实现：cos（腾讯云对象存储，默认）或 local（本地磁盘）
+ */
+public interface ObjectStorage {
+
+    /**
+     * 获取对象的访问地址
+     *
+     * @param key 对象键
+     * @return 访问地址
+     */
+    String getUrl(String key);
+
+    /**
+     * 从访问地址解析对象键
+     *
+     * @param url 访问地址
+     * @return 对象键
+     */
+    String getKey(String url);
+
+    /**
+     * 上传对象
+     *
+     * @param key           对象键
+     * @param inputStream   内容（由调用方关闭）
+     * @param contentLength 内容字节数，必须准确
+     * @throws IOException 上传失败
+     */
+    void putObject(String key, InputStream inputStream, long contentLength) throws IOException;
+
+    /**
+     * 上传图片，并生成压缩图和缩略图（小图不生成缩略图）
+     *
+     * @param key           原图对象键
+     * @param inputStream   内容（由调用方关闭）
+     * @param contentLength 内容字节数，必须准确
+     * @return 原图和派生图
+     * @throws IOException 上传失败
+     */
+    StoredPicture putPicture(String key, InputStream inputStream, long contentLength) throws IOException;
+
+    /**
+     * 获取对象元数据
+     *
+     * @param key 对象键
+     * @return 对象元数据，对象不存在时返回 null
+     * @throws IOException 读取失败
+     */
+    StorageObjectInfo headObject(String key) throws IOException;
+
+    /**
+     * 获取对象对应的本地文件，用于零拷贝发送
+     *
+     * @param key 对象键
+     * @return 本地文件，不是本地存储或对象不存在时返回 null
+     */
+    File getLocalFile(String key);
+
+    /**
+     * 读取整个对象
+     *
+     * @param key 对象键
+     * @return 对象内容，对象不存在时返回 null
+     * @throws IOException 读取失败
+     */
+    StorageObject getObject(String key) throws IOException;
+
+    /**
+     * 读取对象的一段
+     *
+     * @param key    对象键
+     * @param offset 起始位置
+     * @param length 字节数，小于 0 表示读到末尾
+     * @return 对象内容，对象不存在时返回 null
+     * @throws IOException 读取失败
+     */
+    StorageObject getObject(String key, long offset, long length) throws IOException;
+
+    /**
+     * 删除对象，对象不存在时忽略
+     *
+     * @param key 对象键
+     */
+    void deleteObject(String key);
+
+    /**
+     * 批量删除对象，对象不存在时忽略
+     *
+     * @param keys 对象键
+     * @return 删除失败的对象键，全部成功时为空列表
+     */
+    List<String> deleteObjects(Collection<String> keys);
+
+    /**
+     * 按前缀列出对象
+     *
+     * @param prefix  前缀
+     * @param marker  上一页返回的 {@link StorageObjectListing#getNextMarker()}，为空时从头开始
+     * @param maxKeys 最多返回的对象数（不超过 1000）
+     * @return 一页对象
+     * @throws IOException 列出失败
+     */
+    StorageObjectListing listObjects(String prefix, String marker, int maxKeys) throws IOException;
+
+    /**
+     * 由已有图片生成派生图并保存
+     *
+     * @param sourceKey       源图对象键
+     * @param targetKeyPrefix 派生图对象键（不含后缀，后缀由实际格式决定）
+     * @param maxWidth        最大宽度
+     * @param maxHeight       最大高度
+     * @param format          期望的格式，为空时与源图一致
+     * @return 派生图，源图不存在或无法解码时返回 null
+     * @throws IOException 读取或保存失败
+     */
+    StoredVariant createVariant(String sourceKey, String targetKeyPrefix, int maxWidth, int maxHeight,
+                                String format) throws IOException;
+}
@@ -0,0 +1,60 @@
+package com.ping.pingpicture.infrastructure.api.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+
+/**
+ * 读取的对象内容（可能只是其中一段），使用完必须关闭
+ */
+public class StorageObject implements Closeable {
+
+    private final InputStream inputStream;
+
+    private final long contentLength;
+
+    private final long totalLength;
+
+    private final Date lastModified;
+
+    public StorageObject(InputStream inputStream, long contentLength, long totalLength, Date lastModified) {
+        this.inputStream = inputStream;
+        this.contentLength = contentLength;
+        this.totalLength = totalLength;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * 内容流
+     */
+    public InputStream getInputStream() {
+        return inputStream;
+    }
+
+    /**
+     * 本次读取的字节数
+     */
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    /**
+     * 对象总字节数
+     */
+    public long getTotalLength() {
+        return totalLength;
+    }
+
+    /**
+     * 最后修改时间，未知时为空
+     */
+    public Date getLastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+}
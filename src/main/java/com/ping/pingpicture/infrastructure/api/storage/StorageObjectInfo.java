@@ -0,0 +1,29 @@
+package com.ping.pingpicture.infrastructure.api.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 对象元数据
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorageObjectInfo {
+
+    /**
+     * 对象字节数
+     */
+    private long contentLength;
+
+    /**
+     * 最后修改时间（毫秒），未知时小于 0
+     */
+    private long lastModified;
+
+    /**
+     * 实体标签（不含引号），内容变化时改变
+     */
+    private String eTag;
+}
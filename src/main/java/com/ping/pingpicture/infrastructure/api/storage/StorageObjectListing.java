@@ -0,0 +1,28 @@
+package com.ping.pingpicture.infrastructure.api.storage;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 列出对象的一页结果
+ */
+@Data
+public class StorageObjectListing {
+
+    /**
+     * 本页的对象（顺序由存储实现决定，如 COS 按对象键的字典序，本地存储按分片目录和对象键）
+     */
+    private List<StorageObjectSummary> objectList = new ArrayList<>();
+
+    /**
+     * 下一页的起始标记（格式由存储实现决定，调用方原样传回）
+     */
+    private String nextMarker;
+
+    /**
+     * 是否还有下一页
+     */
+    private boolean truncated;
+}
@@ -0,0 +1,29 @@
+package com.ping.pingpicture.infrastructure.api.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 列出对象时返回的对象摘要
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorageObjectSummary {
+
+    /**
+     * 对象键
+     */
+    private String key;
+
+    /**
+     * 对象字节数
+     */
+    private long size;
+
+    /**
+     * 最后修改时间（毫秒）
+     */
+    private long lastModified;
+}
@@ -0,0 +1,50 @@
+package com.ping.pingpicture.infrastructure.api.storage;
+
+import lombok.Data;
+
+/**
+ * 图片上传结果：原图以及存储端生成的派生图
+ */
+@Data
+public class StoredPicture {
+
+    /**
+     * 原图对象键
+     */
+    private String key;
+
+    /**
+     * 原图字节数
+     */
+    private long size;
+
+    /**
+     * 压缩图，未生成时为空
+     */
+    private StoredVariant compressed;
+
+    /**
+     * 缩略图，未生成时为空（小图不生成缩略图）
+     */
+    private StoredVariant thumbnail;
+
+    /**
+     * 存储端解析的原图宽度，存储端不解析图片时为空
+     */
+    private Integer width;
+
+    /**
+     * 存储端解析的原图高度
+     */
+    private Integer height;
+
+    /**
+     * 存储端解析的原图格式
+     */
+    private String format;
+
+    /**
+     * 存储端计算的原图颜色
+     */
+    private String color;
+}
@@ -0,0 +1,39 @@
+package com.ping.pingpicture.infrastructure.api.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 派生图（压缩图、缩略图等）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredVariant {
+
+    /**
+     * 对象键
+     */
+    private String key;
+
+    /**
+     * 字节数
+     */
+    private long size;
+
+    /**
+     * 格式
+     */
+    private String format;
+
+    /**
+     * 宽度
+     */
+    private int width;
+
+    /**
+     * 高度
+     */
+    private int height;
+}
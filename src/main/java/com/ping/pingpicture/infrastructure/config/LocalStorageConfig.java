@@ -0,0 +1,24 @@
+package com.ping.pingpicture.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 本地磁盘存储配置（picture.storage.type = local 时生效）
+ */
+@Configuration
+@ConfigurationProperties(prefix = "picture.storage.local")
+@Data
+public class LocalStorageConfig {
+
+    /**
+     * 存储根目录
+     */
+    private String rootPath = "storage";
+
+    /**
+     * 访问地址前缀，默认由本服务的文件接口提供访问
+     */
+    private String host = "http://localhost:8123/api/file/object";
+}
@@ -0,0 +1,34 @@
+package com.ping.pingpicture.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 远程对象磁盘缓存配置（picture.storage.type = cos 时生效）
+ */
+@Configuration
+@ConfigurationProperties(prefix = "picture.storage.cache")
+@Data
+public class ObjectCacheConfig {
+
+    /**
+     * 是否启用
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存目录
+     */
+    private String path = "cache/objects";
+
+    /**
+     * 缓存总字节数上限，默认 1GB
+     */
+    private long maxSize = 1024L * 1024 * 1024;
+
+    /**
+     * 单个对象字节数上限，更大的对象不缓存，默认 16MB
+     */
+    private long maxEntrySize = 16L * 1024 * 1024;
+}
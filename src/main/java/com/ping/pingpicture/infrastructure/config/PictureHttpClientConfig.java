@@ -0,0 +1,39 @@
+package com.ping.pingpicture.infrastructure.config;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 下载 URL 图片使用的 HTTP 客户端
+ * <p>
+ * 连接池复用到同一图床的连接，批量抓取时不必每张图片重新建立 TCP / TLS 连接
+ */
+@Configuration
+public class PictureHttpClientConfig {
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient pictureHttpClient() {
+        PoolingHttpClientConnectionManager connectionManager =
+                new PoolingHttpClientConnectionManager(60L, TimeUnit.SECONDS);
+        connectionManager.setMaxTotal(64);
+        connectionManager.setDefaultMaxPerRoute(8);
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(5000)
+                .setConnectTimeout(5000)
+                .setSocketTimeout(10000)
+                .setMaxRedirects(3)
+                .build();
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictIdleConnections(30L, TimeUnit.SECONDS)
+                .setUserAgent("Mozilla/5.0 (compatible; PingPicture)")
+                .build();
+    }
+}
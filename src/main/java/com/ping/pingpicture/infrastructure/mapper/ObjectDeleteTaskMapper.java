@@ -0,0 +1,12 @@
+package com.ping.pingpicture.infrastructure.mapper;
+
+import com.ping.pingpicturebackend.model.entity.ObjectDeleteTask;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+
+/**
+* @description 针对表【object_delete_task(对象删除任务)】的数据库操作Mapper
+* @Entity com.ping.pingpicturebackend.model.entity.ObjectDeleteTask
+*/
+public interface ObjectDeleteTaskMapper extends BaseMapper<ObjectDeleteTask> {
+
+}
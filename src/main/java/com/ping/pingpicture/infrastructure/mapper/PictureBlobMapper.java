@@ -0,0 +1,12 @@
+package com.ping.pingpicture.infrastructure.mapper;
+
+import com.ping.pingpicturebackend.model.entity.PictureBlob;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+
+/**
+* @description 针对表【picture_blob(图片文件)】的数据库操作Mapper
+* @Entity com.ping.pingpicturebackend.model.entity.PictureBlob
+*/
+public interface PictureBlobMapper extends BaseMapper<PictureBlob> {
+
+}
@@ -1,7 +1,9 @@
 package com.ping.pingpicture.infrastructure.mapper;
 
+import com.ping.pingpicturebackend.manager.quota.SpaceUsage;
 import com.ping.pingpicturebackend.model.entity.Picture;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.session.ResultHandler;
 
 /**
 * @author 21877
@@ -11,6 +13,19 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 */
 public interface PictureMapper extends BaseMapper<Picture> {
 
+    /**
+     * 按空间聚合图片条数和大小（流式读取，每个空间回调一次）
+     *
+     * @param resultHandler 结果处理器
+     */
+    void streamSpaceUsage(ResultHandler<SpaceUsage> resultHandler);
+
+    /**
+     * 按空间顺序流式读取图片的统计字段（spaceId、userId、category、picSize、createTime）
+     *
+     * @param resultHandler 结果处理器，每张图片回调一次，公共图库的图片排在最前
+     */
+    void streamStatRows(ResultHandler<Picture> resultHandler);
 }
 
 
@@ -0,0 +1,21 @@
+package com.ping.pingpicture.infrastructure.mapper;
+
+import com.ping.pingpicturebackend.model.entity.PictureStatState;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+* @description 针对表【picture_stat_state(图片统计状态)】的数据库操作Mapper
+* @Entity com.ping.pingpicturebackend.model.entity.PictureStatState
+*/
+public interface PictureStatStateMapper extends BaseMapper<PictureStatState> {
+
+    /**
+     * 批量写入统计状态（按图片 id 覆盖）
+     *
+     * @param pictureStatStateList 统计状态列表
+     */
+    void upsertBatch(@Param("list") List<PictureStatState> pictureStatStateList);
+}
@@ -0,0 +1,19 @@
+package com.ping.pingpicture.infrastructure.mapper;
+
+import com.ping.pingpicturebackend.model.entity.PictureTag;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.session.ResultHandler;
+
+/**
+* @description 针对表【picture_tag(图片标签关联)】的数据库操作Mapper
+* @Entity com.ping.pingpicturebackend.model.entity.PictureTag
+*/
+public interface PictureTagMapper extends BaseMapper<PictureTag> {
+
+    /**
+     * 按空间顺序流式读取标签（spaceId、tag）
+     *
+     * @param resultHandler 结果处理器，每个图片标签回调一次，公共图库的标签排在最前
+     */
+    void streamSpaceTags(ResultHandler<PictureTag> resultHandler);
+}
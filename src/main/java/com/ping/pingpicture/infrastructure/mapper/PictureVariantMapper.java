@@ -0,0 +1,12 @@
+package com.ping.pingpicture.infrastructure.mapper;
+
+import com.ping.pingpicturebackend.model.entity.PictureVariant;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+
+/**
+* @description 针对表【picture_variant(图片变体)】的数据库操作Mapper
+* @Entity com.ping.pingpicturebackend.model.entity.PictureVariant
+*/
+public interface PictureVariantMapper extends BaseMapper<PictureVariant> {
+
+}
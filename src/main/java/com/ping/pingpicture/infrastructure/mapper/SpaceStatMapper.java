@@ -0,0 +1,21 @@
+package com.ping.pingpicture.infrastructure.mapper;
+
+import com.ping.pingpicturebackend.model.entity.SpaceStat;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+* @description 针对表【space_stat(空间统计)】的数据库操作Mapper
+* @Entity com.ping.pingpicturebackend.model.entity.SpaceStat
+*/
+public interface SpaceStatMapper extends BaseMapper<SpaceStat> {
+
+    /**
+     * 批量累加统计（不存在时插入）
+     *
+     * @param spaceStatList 图片数量和总大小为增量的统计列表
+     */
+    void incrementBatch(@Param("list") List<SpaceStat> spaceStatList);
+}
@@ -0,0 +1,21 @@
+package com.ping.pingpicture.infrastructure.mapper;
+
+import com.ping.pingpicturebackend.model.entity.SpaceUserDayStat;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+* @description 针对表【space_user_day_stat(空间用户每日上传统计)】的数据库操作Mapper
+* @Entity com.ping.pingpicturebackend.model.entity.SpaceUserDayStat
+*/
+public interface SpaceUserDayStatMapper extends BaseMapper<SpaceUserDayStat> {
+
+    /**
+     * 批量累加统计（不存在时插入）
+     *
+     * @param spaceUserDayStatList 图片数量为增量的统计列表
+     */
+    void incrementBatch(@Param("list") List<SpaceUserDayStat> spaceUserDayStatList);
+}
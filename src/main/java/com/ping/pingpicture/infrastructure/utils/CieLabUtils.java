@@ -0,0 +1,84 @@
+package com.ping.pingpicture.infrastructure.utils;
+
+/**
+ * 工具类：sRGB 与 CIELAB 颜色空间转换
+ * <p>
+ * CIELAB 空间中的欧氏距离（ΔE76）与人眼感知的色差基本一致，比直接比较 RGB 更准确
+ */
+public class CieLabUtils {
+
+    private CieLabUtils() {
+        // 工具类不需要实例化
+    }
+
+    /**
+     * D65 白点
+     */
+    private static final double XN = 0.95047;
+    private static final double YN = 1.00000;
+    private static final double ZN = 1.08883;
+
+    /**
+     * sRGB 分量（0-255）到线性值的查找表
+     */
+    private static final double[] LINEAR_TABLE = new double[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            double c = i / 255.0;
+            LINEAR_TABLE[i] = c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4);
+        }
+    }
+
+    /**
+     * sRGB 转 CIELAB
+     *
+     * @param rgb    0xRRGGBB
+     * @param lab    输出数组，依次写入 L、a、b
+     * @param offset 写入位置
+     */
+    public static void rgbToLab(int rgb, float[] lab, int offset) {
+        double r = LINEAR_TABLE[(rgb >> 16) & 0xFF];
+        double g = LINEAR_TABLE[(rgb >> 8) & 0xFF];
+        double b = LINEAR_TABLE[rgb & 0xFF];
+        double x = (0.4124564 * r + 0.3575761 * g + 0.1804375 * b) / XN;
+        double y = (0.2126729 * r + 0.7151522 * g + 0.0721750 * b) / YN;
+        double z = (0.0193339 * r + 0.1191920 * g + 0.9503041 * b) / ZN;
+        double fx = f(x);
+        double fy = f(y);
+        double fz = f(z);
+        lab[offset] = (float) (116 * fy - 16);
+        lab[offset + 1] = (float) (500 * (fx - fy));
+        lab[offset + 2] = (float) (200 * (fy - fz));
+    }
+
+    /**
+     * sRGB 转 CIELAB
+     *
+     * @param rgb 0xRRGGBB
+     * @return L、a、b
+     */
+    public static float[] rgbToLab(int rgb) {
+        float[] lab = new float[3];
+        rgbToLab(rgb, lab, 0);
+        return lab;
+    }
+
+    /**
+     * 计算两个颜色的色差 ΔE76
+     *
+     * @param lab1 第一个颜色的 L、a、b
+     * @param lab2 第二个颜色的 L、a、b
+     * @return 色差，0 为完全相同，约 2.3 为人眼刚好可以分辨
+     */
+    public static double deltaE(float[] lab1, float[] lab2) {
+        double dl = lab1[0] - lab2[0];
+        double da = lab1[1] - lab2[1];
+        double db = lab1[2] - lab2[2];
+        return Math.sqrt(dl * dl + da * da + db * db);
+    }
+
+    private static double f(double t) {
+        return t > 216.0 / 24389 ? Math.cbrt(t) : (24389.0 / 27 * t + 16) / 116;
+    }
+}
@@ -0,0 +1,173 @@
+package com.ping.pingpicture.infrastructure.utils;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 工具类：提取图片主色板
+ * <p>
+ * 按固定步长采样像素，每个通道量化到 4 位后统计直方图，取像素数最多的几个颜色（取该格子内像素的平均色）。
+ * 主色板的存储格式为 "0xRRGGBB:占比,0xRRGGBB:占比"，按占比降序排列
+ */
+@Slf4j
+public class ColorPaletteUtils {
+
+    private ColorPaletteUtils() {
+        // 工具类不需要实例化
+    }
+
+    /**
+     * 默认主色板颜色数量
+     */
+    public static final int DEFAULT_PALETTE_SIZE = 5;
+
+    /**
+     * 每个方向最多采样的像素数
+     */
+    private static final int MAX_SAMPLES_PER_AXIS = 128;
+
+    /**
+     * 占比低于该值的颜色不计入主色板
+     */
+    private static final double MIN_RATIO = 0.02;
+
+    /**
+     * 从图片提取主色板
+     *
+     * @param image       图片
+     * @param paletteSize 颜色数量
+     * @return 主色板颜色，按占比降序
+     */
+    public static List<PaletteColor> extractPalette(BufferedImage image, int paletteSize) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int stepX = Math.max(1, width / MAX_SAMPLES_PER_AXIS);
+        int stepY = Math.max(1, height / MAX_SAMPLES_PER_AXIS);
+        // 每个格子的像素数以及 RGB 累加值
+        int[] counts = new int[4096];
+        long[] sums = new long[4096 * 3];
+        int total = 0;
+        for (int y = stepY / 2; y < height; y += stepY) {
+            for (int x = stepX / 2; x < width; x += stepX) {
+                int argb = image.getRGB(x, y);
+                // 忽略接近透明的像素
+                if ((argb >>> 24) < 128) {
+                    continue;
+                }
+                int r = (argb >> 16) & 0xFF;
+                int g = (argb >> 8) & 0xFF;
+                int b = argb & 0xFF;
+                int bin = ((r >> 4) << 8) | ((g >> 4) << 4) | (b >> 4);
+                counts[bin]++;
+                sums[bin * 3] += r;
+                sums[bin * 3 + 1] += g;
+                sums[bin * 3 + 2] += b;
+                total++;
+            }
+        }
+        List<PaletteColor> palette = new ArrayList<>(paletteSize);
+        if (total == 0) {
+            return palette;
+        }
+        // 取像素数最多的几个格子
+        Integer[] bins = new Integer[4096];
+        for (int i = 0; i < bins.length; i++) {
+            bins[i] = i;
+        }
+        Arrays.sort(bins, (a, b) -> Integer.compare(counts[b], counts[a]));
+        for (int i = 0; i < paletteSize; i++) {
+            int bin = bins[i];
+            double ratio = counts[bin] * 1.0 / total;
+            if (counts[bin] == 0 || (i > 0 && ratio < MIN_RATIO)) {
+                break;
+            }
+            int r = (int) (sums[bin * 3] / counts[bin]);
+            int g = (int) (sums[bin * 3 + 1] / counts[bin]);
+            int b = (int) (sums[bin * 3 + 2] / counts[bin]);
+            palette.add(new PaletteColor((r << 16) | (g << 8) | b, (float) ratio));
+        }
+        return palette;
+    }
+
+    /**
+     * 主色板转为存储格式
+     *
+     * @param palette 主色板颜色
+     * @return 主色板字符串，为空时返回 null
+     */
+    public static String formatPalette(List<PaletteColor> palette) {
+        if (palette == null || palette.isEmpty()) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (PaletteColor paletteColor : palette) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(String.format(Locale.ROOT, "0x%06x:%.2f", paletteColor.getRgb(), paletteColor.getRatio()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 解析主色板字符串
+     *
+     * @param palette 主色板字符串
+     * @return 主色板颜色，格式错误的部分会被忽略
+     */
+    public static List<PaletteColor> parsePalette(String palette) {
+        List<PaletteColor> paletteColorList = new ArrayList<>();
+        if (StrUtil.isBlank(palette)) {
+            return paletteColorList;
+        }
+        for (String item : palette.split(",")) {
+            int index = item.indexOf(':');
+            if (index <= 0) {
+                continue;
+            }
+            try {
+                int rgb = Integer.decode(item.substring(0, index).trim()) & 0xFFFFFF;
+                float ratio = Float.parseFloat(item.substring(index + 1).trim());
+                paletteColorList.add(new PaletteColor(rgb, ratio));
+            } catch (NumberFormatException e) {
+                log.warn("主色板格式错误：{}", palette);
+            }
+        }
+        return paletteColorList;
+    }
+
+    /**
+     * 主色板中的一个颜色
+     */
+    public static class PaletteColor {
+
+        /**
+         * 0xRRGGBB
+         */
+        private final int rgb;
+
+        /**
+         * 像素占比（0-1）
+         */
+        private final float ratio;
+
+        public PaletteColor(int rgb, float ratio) {
+            this.rgb = rgb;
+            this.ratio = ratio;
+        }
+
+        public int getRgb() {
+            return rgb;
+        }
+
+        public float getRatio() {
+            return ratio;
+        }
+    }
+}
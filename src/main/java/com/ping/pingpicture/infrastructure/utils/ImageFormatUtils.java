@@ -0,0 +1,61 @@
+package com.ping.pingpicture.infrastructure.utils;
+
+/**
+ * 工具类：根据文件头（魔数）识别图片格式
+ * <p>
+ * 不依赖文件后缀和 Content-Type，防止伪造类型的文件被当作图片上传
+ */
+public class ImageFormatUtils {
+
+    private ImageFormatUtils() {
+        // 工具类不需要实例化
+    }
+
+    /**
+     * 识别格式需要的文件头长度
+     */
+    public static final int HEADER_LENGTH = 12;
+
+    /**
+     * 根据文件头识别图片格式
+     *
+     * @param header 文件头
+     * @param length 文件头有效长度
+     * @return 图片格式（jpg、png、gif、bmp、webp），无法识别时返回 null
+     */
+    public static String sniffFormat(byte[] header, int length) {
+        if (header == null) {
+            return null;
+        }
+        length = Math.min(length, header.length);
+        if (startsWith(header, length, 0, 0xFF, 0xD8, 0xFF)) {
+            return "jpg";
+        }
+        if (startsWith(header, length, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "png";
+        }
+        if (startsWith(header, length, 0, 'G', 'I', 'F', '8')) {
+            return "gif";
+        }
+        if (startsWith(header, length, 0, 'B', 'M')) {
+            return "bmp";
+        }
+        if (startsWith(header, length, 0, 'R', 'I', 'F', 'F')
+                && startsWith(header, length, 8, 'W', 'E', 'B', 'P')) {
+            return "webp";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] header, int length, int offset, int... magic) {
+        if (offset + magic.length > length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((header[offset + i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
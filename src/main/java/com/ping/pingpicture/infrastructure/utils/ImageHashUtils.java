@@ -0,0 +1,133 @@
+package com.ping.pingpicture.infrastructure.utils;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * 工具类：计算图片的 64 位感知哈希
+ * <p>
+ * 内容相似的图片（缩放、压缩、轻微调色）哈希值的汉明距离很小，可用于本地以图搜图：
+ * <ul>
+ *     <li>dHash：缩放到 9x8 灰度图，比较相邻像素的明暗变化，计算快，对渐变敏感</li>
+ *     <li>pHash：缩放到 32x32 灰度图做 DCT，取左上角 8x8 低频系数与中位数比较，对压缩和调色更稳定</li>
+ * </ul>
+ */
+public class ImageHashUtils {
+
+    private ImageHashUtils() {
+        // 工具类不需要实例化
+    }
+
+    private static final int DCT_SIZE = 32;
+
+    private static final int HASH_SIZE = 8;
+
+    /**
+     * DCT 系数表 cos((2x + 1) * u * π / 64)
+     */
+    private static final double[][] DCT_COS = new double[HASH_SIZE][DCT_SIZE];
+
+    static {
+        for (int u = 0; u < HASH_SIZE; u++) {
+            for (int x = 0; x < DCT_SIZE; x++) {
+                DCT_COS[u][x] = Math.cos((2 * x + 1) * u * Math.PI / (2 * DCT_SIZE));
+            }
+        }
+    }
+
+    /**
+     * 计算 dHash
+     *
+     * @param image 图片
+     * @return 64 位哈希
+     */
+    public static long dHash(BufferedImage image) {
+        double[] gray = resizeGray(image, HASH_SIZE + 1, HASH_SIZE);
+        long hash = 0;
+        for (int y = 0; y < HASH_SIZE; y++) {
+            for (int x = 0; x < HASH_SIZE; x++) {
+                int index = y * (HASH_SIZE + 1) + x;
+                hash = (hash << 1) | (gray[index] > gray[index + 1] ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * 计算 pHash
+     *
+     * @param image 图片
+     * @return 64 位哈希
+     */
+    public static long pHash(BufferedImage image) {
+        double[] gray = resizeGray(image, DCT_SIZE, DCT_SIZE);
+        // 只计算需要的 8x8 低频系数：先按行变换，再按列变换
+        double[] rowDct = new double[DCT_SIZE * HASH_SIZE];
+        for (int y = 0; y < DCT_SIZE; y++) {
+            for (int u = 0; u < HASH_SIZE; u++) {
+                double sum = 0;
+                for (int x = 0; x < DCT_SIZE; x++) {
+                    sum += gray[y * DCT_SIZE + x] * DCT_COS[u][x];
+                }
+                rowDct[y * HASH_SIZE + u] = sum;
+            }
+        }
+        double[] coefficients = new double[HASH_SIZE * HASH_SIZE];
+        for (int v = 0; v < HASH_SIZE; v++) {
+            for (int u = 0; u < HASH_SIZE; u++) {
+                double sum = 0;
+                for (int y = 0; y < DCT_SIZE; y++) {
+                    sum += rowDct[y * HASH_SIZE + u] * DCT_COS[v][y];
+                }
+                coefficients[v * HASH_SIZE + u] = sum;
+            }
+        }
+        // 直流分量只反映整体亮度，不参与中位数计算
+        double[] acCoefficients = Arrays.copyOfRange(coefficients, 1, coefficients.length);
+        Arrays.sort(acCoefficients);
+        double median = acCoefficients[acCoefficients.length / 2];
+        long hash = 0;
+        for (double coefficient : coefficients) {
+            hash = (hash << 1) | (coefficient > median ? 1 : 0);
+        }
+        return hash;
+    }
+
+    /**
+     * 计算两个哈希的汉明距离
+     *
+     * @param hash1 第一个哈希
+     * @param hash2 第二个哈希
+     * @return 不同的位数（0-64）
+     */
+    public static int hammingDistance(long hash1, long hash2) {
+        return Long.bitCount(hash1 ^ hash2);
+    }
+
+    /**
+     * 按区域平均缩放为灰度图
+     */
+    private static double[] resizeGray(BufferedImage image, int targetWidth, int targetHeight) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double[] sums = new double[targetWidth * targetHeight];
+        int[] counts = new int[targetWidth * targetHeight];
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            int targetY = (int) ((long) y * targetHeight / height);
+            for (int x = 0; x < width; x++) {
+                int argb = row[x];
+                int targetIndex = targetY * targetWidth + (int) ((long) x * targetWidth / width);
+                sums[targetIndex] += 0.299 * ((argb >> 16) & 0xFF) + 0.587 * ((argb >> 8) & 0xFF) + 0.114 * (argb & 0xFF);
+                counts[targetIndex]++;
+            }
+        }
+        for (int i = 0; i < sums.length; i++) {
+            if (counts[i] > 0) {
+                sums[i] /= counts[i];
+            }
+        }
+        return sums;
+    }
+}
@@ -0,0 +1,240 @@
+package com.ping.pingpicture.infrastructure.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+
+/**
+ * 工具类：从文件头解析图片格式和宽高
+ * <p>
+ * 只读取格式规定的头部字段（JPEG 读取到 SOF 段为止），不解码像素，几十字节到几 KB 即可得到结果
+ */
+public class ImageHeaderUtils {
+
+    private ImageHeaderUtils() {
+        // 工具类不需要实例化
+    }
+
+    /**
+     * 宽高的合理上限，超过时认为文件头损坏
+     */
+    private static final int MAX_DIMENSION = 1 << 16;
+
+    /**
+     * 解析图片文件头
+     *
+     * @param inputStream 图片流（由调用方关闭）
+     * @return 图片格式和宽高，格式不支持或文件头损坏时返回 null
+     * @throws IOException 读取失败
+     */
+    public static ImageHeader readHeader(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        byte[] header = new byte[ImageFormatUtils.HEADER_LENGTH];
+        try {
+            in.readFully(header);
+            String format = ImageFormatUtils.sniffFormat(header, header.length);
+            if (format == null) {
+                return null;
+            }
+            ImageHeader imageHeader;
+            switch (format) {
+                case "png":
+                    imageHeader = readPng(in);
+                    break;
+                case "gif":
+                    imageHeader = new ImageHeader(format, littleEndian16(header, 6), littleEndian16(header, 8));
+                    break;
+                case "bmp":
+                    imageHeader = readBmp(in);
+                    break;
+                case "webp":
+                    imageHeader = readWebp(in);
+                    break;
+                case "jpg":
+                    imageHeader = readJpeg(in, header);
+                    break;
+                default:
+                    return null;
+            }
+            return isValid(imageHeader) ? imageHeader : null;
+        } catch (EOFException e) {
+            // 文件头不完整
+            return null;
+        }
+    }
+
+    /**
+     * PNG：签名后紧跟 IHDR 块，宽高为大端 32 位
+     */
+    private static ImageHeader readPng(DataInputStream in) throws IOException {
+        // 已读 12 字节 = 8 字节签名 + IHDR 块长度，接下来是块类型
+        byte[] chunk = new byte[12];
+        in.readFully(chunk);
+        if (chunk[0] != 'I' || chunk[1] != 'H' || chunk[2] != 'D' || chunk[3] != 'R') {
+            return null;
+        }
+        return new ImageHeader("png", bigEndian32(chunk, 4), bigEndian32(chunk, 8));
+    }
+
+    /**
+     * BMP：信息头中宽高为小端 32 位，高度为负数表示自上而下存储
+     */
+    private static ImageHeader readBmp(DataInputStream in) throws IOException {
+        // 已读 12 字节，宽高位于偏移 18 和 22
+        byte[] infoHeader = new byte[14];
+        in.readFully(infoHeader);
+        int width = littleEndian32(infoHeader, 6);
+        int height = littleEndian32(infoHeader, 10);
+        return new ImageHeader("bmp", width, height == Integer.MIN_VALUE ? 0 : Math.abs(height));
+    }
+
+    /**
+     * WEBP：根据第一个块的类型（VP8 有损、VP8L 无损、VP8X 扩展）读取宽高
+     */
+    private static ImageHeader readWebp(DataInputStream in) throws IOException {
+        // 已读 12 字节（RIFF 头），接下来是块类型、块长度和块内容
+        byte[] chunk = new byte[18];
+        in.readFully(chunk);
+        if (chunk[0] != 'V' || chunk[1] != 'P' || chunk[2] != '8') {
+            return null;
+        }
+        switch (chunk[3]) {
+            case ' ':
+                // 帧头 3 字节 + 起始码 9D 01 2A，之后是 14 位宽高
+                if ((chunk[11] & 0xFF) != 0x9D || (chunk[12] & 0xFF) != 0x01 || (chunk[13] & 0xFF) != 0x2A) {
+                    return null;
+                }
+                return new ImageHeader("webp", littleEndian16(chunk, 14) & 0x3FFF,
+                        littleEndian16(chunk, 16) & 0x3FFF);
+            case 'L': {
+                // 签名 0x2F 之后 14 位宽 - 1、14 位高 - 1
+                if ((chunk[8] & 0xFF) != 0x2F) {
+                    return null;
+                }
+                int bits = littleEndian32(chunk, 9);
+                return new ImageHeader("webp", (bits & 0x3FFF) + 1, ((bits >>> 14) & 0x3FFF) + 1);
+            }
+            case 'X':
+                // 4 字节标志位之后 24 位画布宽 - 1、24 位画布高 - 1
+                return new ImageHeader("webp", littleEndian24(chunk, 12) + 1, littleEndian24(chunk, 15) + 1);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * JPEG：依次跳过各个段，直到遇到帧头（SOF）段
+     */
+    private static ImageHeader readJpeg(DataInputStream in, byte[] header) throws IOException {
+        // 已读的 12 字节中 SOI 之后的部分重新拼回流中，从第一个段开始解析
+        DataInputStream segmentIn = new DataInputStream(new SequenceInputStream(
+                new ByteArrayInputStream(header, 2, header.length - 2), in));
+        while (true) {
+            if (segmentIn.readUnsignedByte() != 0xFF) {
+                return null;
+            }
+            // 标记之前允许有填充的 0xFF
+            int marker;
+            do {
+                marker = segmentIn.readUnsignedByte();
+            } while (marker == 0xFF);
+            if (marker == 0xD9 || marker == 0xDA) {
+                // 图片结束或开始扫描数据之前都没有出现帧头
+                return null;
+            }
+            int length = segmentIn.readUnsignedShort();
+            if (length < 2) {
+                return null;
+            }
+            if (isStartOfFrame(marker)) {
+                // 段内容：精度(1) + 高(2) + 宽(2)
+                byte[] frame = new byte[5];
+                segmentIn.readFully(frame);
+                return new ImageHeader("jpg", bigEndian16(frame, 3), bigEndian16(frame, 1));
+            }
+            skipFully(segmentIn, length - 2);
+        }
+    }
+
+    /**
+     * SOF0 - SOF15，排除 DHT(C4)、JPG(C8)、DAC(CC)
+     */
+    private static boolean isStartOfFrame(int marker) {
+        return marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+    }
+
+    private static boolean isValid(ImageHeader imageHeader) {
+        return imageHeader != null
+                && imageHeader.getWidth() > 0 && imageHeader.getWidth() <= MAX_DIMENSION
+                && imageHeader.getHeight() > 0 && imageHeader.getHeight() <= MAX_DIMENSION;
+    }
+
+    private static void skipFully(DataInputStream in, int n) throws IOException {
+        while (n > 0) {
+            int skipped = in.skipBytes(n);
+            if (skipped <= 0) {
+                // skipBytes 到达流末尾时返回 0，读一个字节确认
+                in.readUnsignedByte();
+                skipped = 1;
+            }
+            n -= skipped;
+        }
+    }
+
+    private static int bigEndian16(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+    }
+
+    private static int bigEndian32(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+                | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+    }
+
+    private static int littleEndian16(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) | ((bytes[offset + 1] & 0xFF) << 8);
+    }
+
+    private static int littleEndian24(byte[] bytes, int offset) {
+        return littleEndian16(bytes, offset) | ((bytes[offset + 2] & 0xFF) << 16);
+    }
+
+    private static int littleEndian32(byte[] bytes, int offset) {
+        return littleEndian24(bytes, offset) | ((bytes[offset + 3] & 0xFF) << 24);
+    }
+
+    /**
+     * 文件头解析结果
+     */
+    public static class ImageHeader {
+
+        /**
+         * 图片格式（jpg、png、gif、bmp、webp）
+         */
+        private final String format;
+
+        private final int width;
+
+        private final int height;
+
+        public ImageHeader(String format, int width, int height) {
+            this.format = format;
+            this.width = width;
+            this.height = height;
+        }
+
+        public String getFormat() {
+            return format;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.ping.pingpicture.infrastructure.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * 工具类：以降采样方式解码图片
+ * <p>
+ * 主色板、感知哈希等分析只需要缩略尺寸的像素，解码时直接按步长跳过像素，避免大图整张解码占用大量内存
+ */
+@Slf4j
+public class ImageSampleUtils {
+
+    private ImageSampleUtils() {
+        // 工具类不需要实例化
+    }
+
+    /**
+     * 默认每个方向保留的像素数
+     */
+    public static final int DEFAULT_MAX_SAMPLES_PER_AXIS = 256;
+
+    /**
+     * 降采样解码图片文件
+     *
+     * @param file              图片文件
+     * @param maxSamplesPerAxis 每个方向大约保留的像素数
+     * @return 降采样后的图片，不支持的格式（如 webp）或解码失败时返回 null
+     */
+    public static BufferedImage readSampled(File file, int maxSamplesPerAxis) {
+        return read(file, maxSamplesPerAxis);
+    }
+
+    /**
+     * 降采样解码图片数据
+     *
+     * @param bytes             图片数据
+     * @param maxSamplesPerAxis 每个方向大约保留的像素数
+     * @return 降采样后的图片，不支持的格式（如 webp）或解码失败时返回 null
+     */
+    public static BufferedImage readSampled(byte[] bytes, int maxSamplesPerAxis) {
+        return readSampled(new ByteArrayInputStream(bytes), maxSamplesPerAxis);
+    }
+
+    /**
+     * 降采样解码图片流
+     *
+     * @param inputStream       图片流（由调用方关闭）
+     * @param maxSamplesPerAxis 每个方向大约保留的像素数
+     * @return 降采样后的图片，不支持的格式（如 webp）或解码失败时返回 null
+     */
+    public static BufferedImage readSampled(InputStream inputStream, int maxSamplesPerAxis) {
+        return read(inputStream, maxSamplesPerAxis, false);
+    }
+
+    /**
+     * 按相同步长降采样解码图片流，保持宽高比，用于生成缩略图等派生图
+     *
+     * @param inputStream 图片流（由调用方关闭）
+     * @param maxLongEdge 解码结果的长边不超过该值（步长向上取整，原图更小时按原尺寸解码），
+     *                    解码结果的长边至少为该值的一半
+     * @return 降采样后的图片，不支持的格式（如 webp）或解码失败时返回 null
+     */
+    public static BufferedImage readScaled(InputStream inputStream, int maxLongEdge) {
+        return read(inputStream, maxLongEdge, true);
+    }
+
+    private static BufferedImage read(Object input, int maxSamplesPerAxis) {
+        return read(input, maxSamplesPerAxis, false);
+    }
+
+    private static BufferedImage read(Object input, int maxSamplesPerAxis, boolean keepRatio) {
+        try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(input)) {
+            if (imageInputStream == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageInputStream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInputStream, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (keepRatio) {
+                    // 向上取整，保证解码结果不超过目标尺寸，内存占用有上限
+                    int step = Math.max(1, (int) Math.ceil(Math.max(width, height) / (double) maxSamplesPerAxis));
+                    param.setSourceSubsampling(step, step, 0, 0);
+                } else {
+                    param.setSourceSubsampling(Math.max(1, width / maxSamplesPerAxis),
+                            Math.max(1, height / maxSamplesPerAxis), 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        } catch (Exception e) {
+            log.warn("解码图片失败：{}", e.getMessage());
+            return null;
+        }
+    }
+}
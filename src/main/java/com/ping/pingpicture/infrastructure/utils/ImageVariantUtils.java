@@ -0,0 +1,125 @@
+package com.ping.pingpicture.infrastructure.utils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * 工具类：生成派生图（压缩图、缩略图）
+ * <p>
+ * 只依赖 JDK 的 ImageIO：可以编码 jpg、png、gif、bmp，不能编码 webp，请求 webp 时改用 jpg（有透明通道时用 png）
+ */
+public class ImageVariantUtils {
+
+    private ImageVariantUtils() {
+        // 工具类不需要实例化
+    }
+
+    /**
+     * jpg 编码质量
+     */
+    private static final float JPEG_QUALITY = 0.8f;
+
+    /**
+     * 等比缩放到指定范围内，不放大
+     *
+     * @param image     原图
+     * @param maxWidth  最大宽度
+     * @param maxHeight 最大高度
+     * @return 缩放后的图片，无需缩放时返回原图
+     */
+    public static BufferedImage resize(BufferedImage image, int maxWidth, int maxHeight) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double scale = Math.min(maxWidth * 1.0 / width, maxHeight * 1.0 / height);
+        if (scale >= 1) {
+            return image;
+        }
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage resized = new BufferedImage(targetWidth, targetHeight, type);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            graphics.dispose();
+        }
+        return resized;
+    }
+
+    /**
+     * 确定实际输出格式
+     *
+     * @param format 期望的格式，为空时按图片是否透明选择
+     * @param image  图片
+     * @return 可编码的格式（jpg、png、gif、bmp）
+     */
+    public static String resolveFormat(String format, BufferedImage image) {
+        if (format != null) {
+            format = format.toLowerCase();
+            if ("jpeg".equals(format)) {
+                return "jpg";
+            }
+            if ("jpg".equals(format) || "png".equals(format) || "gif".equals(format) || "bmp".equals(format)) {
+                return format;
+            }
+        }
+        return image.getColorModel().hasAlpha() ? "png" : "jpg";
+    }
+
+    /**
+     * 编码图片
+     *
+     * @param image  图片
+     * @param format 格式，需先经过 {@link #resolveFormat(String, BufferedImage)}
+     * @return 编码后的内容
+     * @throws IOException 编码失败
+     */
+    public static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        if (!"jpg".equals(format)) {
+            if (!ImageIO.write(image, format, outputStream)) {
+                throw new IOException("不支持的图片格式：" + format);
+            }
+            return outputStream.toByteArray();
+        }
+        // jpg 不支持透明通道，铺白底后再编码
+        BufferedImage rgbImage = image;
+        if (image.getType() != BufferedImage.TYPE_INT_RGB) {
+            rgbImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = rgbImage.createGraphics();
+            try {
+                graphics.drawImage(image, 0, 0, Color.WHITE, null);
+            } finally {
+                graphics.dispose();
+            }
+        }
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpg");
+        if (!writers.hasNext()) {
+            throw new IOException("不支持的图片格式：jpg");
+        }
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+            writer.setOutput(imageOutputStream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(rgbImage, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return outputStream.toByteArray();
+    }
+}
@@ -1,23 +1,30 @@
 package com.ping.pingpicturebackend.controller;
 
 import cn.dev33.satoken.annotation.SaCheckRole;
+import cn.hutool.core.util.StrUtil;
+import com.ping.pingpicture.infrastructure.api.storage.ObjectCacheStats;
+import com.ping.pingpicture.infrastructure.api.storage.ObjectDiskCache;
+import com.ping.pingpicture.infrastructure.api.storage.ObjectStorage;
 import com.ping.pingpicture.infrastructure.common.BaseResponse;
 import com.ping.pingpicture.infrastructure.common.ResultUtils;
 import com.ping.pingpicturebackend.constant.UserConstant;
+import com.ping.pingpicturebackend.manager.download.ObjectDownloadManager;
+import com.ping.pingpicturebackend.manager.storage.ObjectGarbageCollector;
 import com.ping.pingpicture.infrastructure.exception.BusinessException;
 import com.ping.pingpicture.infrastructure.exception.ErrorCode;
-import com.ping.pingpicture.infrastructure.api.CosManager;
-import com.qcloud.cos.model.COSObject;
-import com.qcloud.cos.model.COSObjectInputStream;
-import com.qcloud.cos.utils.IOUtils;
+import com.ping.pingpicture.infrastructure.exception.ThrowUtils;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.HandlerMapping;
 
 import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 
 /**
  * 文件上传检查接口
@@ -27,8 +34,25 @@ import java.io.IOException;
 @RequestMapping("/file")
 public class FileController {
 
+    /**
+     * 对象访问接口的缓存策略
+     */
+    private static final String OBJECT_CACHE_CONTROL = "public, max-age=2592000";
+
+    @Resource
+    private ObjectStorage objectStorage;
+
     @Resource
-    private CosManager cosManager;
+    private ObjectDownloadManager objectDownloadManager;
+
+    @Resource
+    private ObjectGarbageCollector objectGarbageCollector;
+
+    /**
+     * 只有腾讯云存储有磁盘缓存
+     */
+    @Resource
+    private ObjectProvider<ObjectDiskCache> objectDiskCacheProvider;
 
     /**
      * 文件上传检查
@@ -39,30 +63,17 @@ public class FileController {
     @SaCheckRole(UserConstant.ADMIN_ROLE)
     @PostMapping("/test/upload")
     public BaseResponse<String> testUploadFile(@RequestPart("file") MultipartFile multipartFile) {
-        // COS 文件目录
+        // 文件目录
         String filename = multipartFile.getOriginalFilename();
-        String filePath = String.format("/ping_pic/test/%s", filename);
-        File file = null;
-        try {
-            // 上传文件
-            file = File.createTempFile(filePath, null);
-            multipartFile.transferTo(file);
-            // 上传到cos
-            cosManager.putObject(filePath, file);
+        String filePath = String.format("ping_pic/test/%s", filename);
+        try (InputStream inputStream = multipartFile.getInputStream()) {
+            // 上传到对象存储
+            objectStorage.putObject(filePath, inputStream, multipartFile.getSize());
             // 返回可访问的地址
-            String fileURL = "https://img-1372837879.cos.ap-guangzhou.myqcloud.com" + filePath;
-            return ResultUtils.success(fileURL);
+            return ResultUtils.success(objectStorage.getUrl(filePath));
         } catch (Exception e) {
             log.error("文件上传失败, filepath = " + filePath, e);
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "文件上传失败");
-        } finally {
-            if (file != null) {
-                // 删除临时文件
-                boolean delete = file.delete();
-                if (!delete) {
-                    log.error("文件删除失败, filepath = {}", filePath);
-                }
-            }
         }
     }
 
@@ -70,33 +81,60 @@ public class FileController {
      * 文件下载检查
      *
      * @param filepath 文件路径
+     * @param request  请求对象
      * @param response 响应对象
      */
     @SaCheckRole(UserConstant.ADMIN_ROLE)
     @GetMapping("/test/download")
-    public void testDownloadFile(String filepath, HttpServletResponse response) throws IOException {
-        COSObjectInputStream cosObjectInput = null;
-        try {
-            // 从cos下载文件
-            COSObject cosObject = cosManager.getObject(filepath);
-            cosObjectInput = cosObject.getObjectContent();
-            byte[] bytes = IOUtils.toByteArray(cosObjectInput);
-            // 设置响应头
-            response.setContentType("application/octet-stream;charset=utf-8");
-            response.setHeader("Content-Disposition", "attachment;filename=" + filepath);
-            // 写入响应
-            response.getOutputStream().write(bytes);
-            response.getOutputStream().flush();
-        } catch (IOException e) {
-            log.error("文件下载失败, filepath = " + filepath, e);
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "文件下载失败");
-        } finally {
-            // 释放流
-            if (cosObjectInput != null) {
-                cosObjectInput.close();
-            }
-        }
+    public void testDownloadFile(String filepath, HttpServletRequest request,
+                                 HttpServletResponse response) throws IOException {
+        ThrowUtils.throwIf(StrUtil.isBlank(filepath), ErrorCode.PARAMS_ERROR, "文件路径不能为空");
+        objectDownloadManager.download(filepath, request, response, true, null);
     }
-}
 
+    /**
+     * 访问对象（本地磁盘存储的图片地址指向该接口），支持 Range 和协商缓存
+     *
+     * @param request  请求对象
+     * @param response 响应对象
+     */
+    @GetMapping("/object/**")
+    public void getObject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // 图片的对象键带随机串，内容不会变化，可以长期缓存
+        objectDownloadManager.download(getObjectKey(request), request, response, false,
+                OBJECT_CACHE_CONTROL);
+    }
+
+    /**
+     * 对象磁盘缓存统计（命中、未命中、淘汰）
+     */
+    @SaCheckRole(UserConstant.ADMIN_ROLE)
+    @GetMapping("/cache/stats")
+    public BaseResponse<ObjectCacheStats> getObjectCacheStats() {
+        ObjectDiskCache objectDiskCache = objectDiskCacheProvider.getIfAvailable();
+        ThrowUtils.throwIf(objectDiskCache == null, ErrorCode.OPERATION_ERROR, "当前存储未启用磁盘缓存");
+        return ResultUtils.success(objectDiskCache.getStats());
+    }
+
+    /**
+     * 手动清理孤儿文件（存储中存在但数据库中没有引用的文件）
+     *
+     * @return 登记删除的文件数
+     */
+    @SaCheckRole(UserConstant.ADMIN_ROLE)
+    @PostMapping("/gc/sweep")
+    public BaseResponse<Integer> sweepOrphanObjects() {
+        return ResultUtils.success(objectGarbageCollector.sweepOrphans());
+    }
 
+    /**
+     * 从请求路径中获取对象键（/file/object/ 之后的部分）
+     */
+    private String getObjectKey(HttpServletRequest request) {
+        String path = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+        String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String key = new AntPathMatcher().extractPathWithinPattern(pattern, path);
+        ThrowUtils.throwIf(key.isEmpty(), ErrorCode.PARAMS_ERROR, "文件路径不能为空");
+        return key;
+    }
+}
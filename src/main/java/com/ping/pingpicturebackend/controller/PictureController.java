@@ -3,16 +3,16 @@ package com.ping.pingpicturebackend.controller;
 import cn.dev33.satoken.annotation.SaCheckPermission;
 import cn.dev33.satoken.annotation.SaCheckRole;
 import cn.dev33.satoken.stp.StpUtil;
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.ObjUtil;
 import cn.hutool.core.util.RandomUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 import com.ping.pingpicture.infrastructure.api.aliyunai.AliYunAiApi;
 import com.ping.pingpicture.infrastructure.api.aliyunai.model.CreateOutPaintingTaskResponse;
 import com.ping.pingpicture.infrastructure.api.aliyunai.model.GetOutPaintingTaskResponse;
-import com.ping.pingpicture.infrastructure.api.imagesearch.SoImageSearchApiFacade;
 import com.ping.pingpicture.infrastructure.api.imagesearch.model.SoImageSearchResult;
 import com.ping.pingpicture.infrastructure.common.BaseResponse;
 import com.ping.pingpicture.infrastructure.common.DeleteRequest;
@@ -23,30 +23,50 @@ import com.ping.pingpicture.infrastructure.exception.ErrorCode;
 import com.ping.pingpicture.infrastructure.exception.ThrowUtils;
 import com.ping.pingpicturebackend.manager.auth.SpaceUserAuthManager;
 import com.ping.pingpicturebackend.manager.auth.model.SpaceUserPermissionConstant;
+import com.ping.pingpicturebackend.manager.cache.CacheVersionManager;
+import com.ping.pingpicturebackend.manager.cache.PictureCacheScope;
+import com.ping.pingpicturebackend.manager.cache.SingleFlightCacheLoader;
+import com.ping.pingpicturebackend.manager.cache.codec.CacheValueCodec;
+import com.ping.pingpicturebackend.manager.cache.codec.Lz4CacheValueCodec;
+import com.ping.pingpicturebackend.manager.cache.codec.PictureVOPageCodec;
+import com.ping.pingpicturebackend.manager.crawler.CrawlJob;
+import com.ping.pingpicturebackend.manager.crawler.PictureCrawler;
+import com.ping.pingpicturebackend.manager.search.PictureSearchManager;
+import com.ping.pingpicturebackend.manager.search.PictureSimilarSearchManager;
+import com.ping.pingpicturebackend.manager.tag.PictureTagIndexManager;
+import com.ping.pingpicturebackend.manager.upload.PictureChunkUploadManager;
+import com.ping.pingpicturebackend.manager.upload.PictureUploadTaskManager;
 import com.ping.pingpicturebackend.model.dto.picture.*;
 import com.ping.pingpicturebackend.model.entity.Picture;
 import com.ping.pingpicturebackend.model.entity.Space;
 import com.ping.pingpicturebackend.model.entity.User;
 import com.ping.pingpicturebackend.model.enums.PictureReviewStatusEnum;
+import com.ping.pingpicturebackend.model.vo.CrawlJobVO;
+import com.ping.pingpicturebackend.model.vo.CursorPage;
+import com.ping.pingpicturebackend.model.vo.PictureChunkUploadVO;
 import com.ping.pingpicturebackend.model.vo.PictureTagCategory;
+import com.ping.pingpicturebackend.model.vo.PictureUploadTaskVO;
 import com.ping.pingpicturebackend.model.vo.PictureVO;
+import com.ping.pingpicturebackend.model.vo.PictureVariantVO;
 import com.ping.pingpicturebackend.service.PictureService;
+import com.ping.pingpicturebackend.service.PictureTagService;
+import com.ping.pingpicturebackend.service.PictureVariantService;
 import com.ping.pingpicturebackend.service.SpaceService;
 import com.ping.pingpicturebackend.service.UserService;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
 
 /**
  * 用户接口
@@ -74,17 +94,46 @@ public class PictureController {
     @Resource
     private AliYunAiApi aliYunAiApi;
 
+    @Resource
+    private CacheVersionManager cacheVersionManager;
+
+    @Resource
+    private SingleFlightCacheLoader singleFlightCacheLoader;
+
+    @Resource
+    private PictureSearchManager pictureSearchManager;
+
+    @Resource
+    private PictureSimilarSearchManager pictureSimilarSearchManager;
+
+    @Resource
+    private PictureTagService pictureTagService;
+
+    @Resource
+    private PictureTagIndexManager pictureTagIndexManager;
+
+    @Resource
+    private PictureUploadTaskManager pictureUploadTaskManager;
+
+    @Resource
+    private PictureChunkUploadManager pictureChunkUploadManager;
+
+    @Resource
+    private PictureCrawler pictureCrawler;
+
+    @Resource
+    private PictureVariantService pictureVariantService;
+
+    /**
+     * 分页缓存逻辑过期时间（秒），过期后先返回旧值再异步刷新
+     */
+    private static final long PAGE_CACHE_FRESH_SECONDS = 600L;
+
     /**
-     * 本地缓存
+     * 分页缓存编解码器：紧凑二进制格式，超过 1KB 再做 LZ4 压缩
      */
-    private final Cache<String, String> LOCAL_CACHE =
-            // 设置初始容量为1024，优化初始内存分配，避免频繁扩容
-            Caffeine.newBuilder().initialCapacity(1024)
-                    // 设置最大缓存条目数为10000，防止内存溢出
-                    .maximumSize(10000L)
-                    // 缓存 5 分钟移除
-                    .expireAfterWrite(5L, TimeUnit.MINUTES)
-                    .build();
+    private static final CacheValueCodec<Page<PictureVO>> PAGE_CACHE_CODEC =
+            new Lz4CacheValueCodec<>(new PictureVOPageCodec(), 1024);
 
     /**
      * 上传图片
@@ -114,6 +163,104 @@ public class PictureController {
         return ResultUtils.success(pictureVO);
     }
 
+    /**
+     * 异步上传图片，返回任务 id
+     */
+    @PostMapping("/upload/async")
+    @SaCheckPermission(value = SpaceUserPermissionConstant.PICTURE_UPLOAD)
+    public BaseResponse<String> uploadPictureAsync(@RequestPart("file") MultipartFile multipartFile,
+                                                   PictureUploadRequest pictureUploadRequest,
+                                                   HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        String taskId = pictureUploadTaskManager.submit(multipartFile, pictureUploadRequest, loginUser);
+        return ResultUtils.success(taskId);
+    }
+
+    /**
+     * 通过 URL 异步上传图片（可重新上传），返回任务 id
+     */
+    @PostMapping("/upload/url/async")
+    @SaCheckPermission(value = SpaceUserPermissionConstant.PICTURE_UPLOAD)
+    public BaseResponse<String> uploadPictureByUrlAsync(@RequestBody PictureUploadRequest pictureUploadRequest,
+                                                        HttpServletRequest request) {
+        ThrowUtils.throwIf(pictureUploadRequest == null, ErrorCode.PARAMS_ERROR);
+        User loginUser = userService.getLoginUser(request);
+        String taskId = pictureUploadTaskManager.submit(pictureUploadRequest.getFileUrl(), pictureUploadRequest,
+                loginUser);
+        return ResultUtils.success(taskId);
+    }
+
+    /**
+     * 查询异步上传任务
+     */
+    @GetMapping("/upload/task")
+    public BaseResponse<PictureUploadTaskVO> getPictureUploadTask(@RequestParam String taskId,
+                                                                  HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(pictureUploadTaskManager.getTask(taskId, loginUser));
+    }
+
+    /**
+     * 秒传：按内容哈希上传图片（可重新上传），只复用本人或目标空间已有的文件，文件不存在时返回 null，客户端再上传文件
+     */
+    @PostMapping("/upload/hash")
+    @SaCheckPermission(value = SpaceUserPermissionConstant.PICTURE_UPLOAD)
+    public BaseResponse<PictureVO> uploadPictureByHash(@RequestBody PictureUploadByHashRequest pictureUploadByHashRequest,
+                                                       HttpServletRequest request) {
+        ThrowUtils.throwIf(pictureUploadByHashRequest == null, ErrorCode.PARAMS_ERROR);
+        User loginUser = userService.getLoginUser(request);
+        PictureVO pictureVO = pictureService.uploadPicture(pictureUploadByHashRequest, pictureUploadByHashRequest, loginUser);
+        return ResultUtils.success(pictureVO);
+    }
+
+    /**
+     * 初始化分片上传（可重新上传），返回上传 id 和分片大小
+     */
+    @PostMapping("/upload/chunk/init")
+    @SaCheckPermission(value = SpaceUserPermissionConstant.PICTURE_UPLOAD)
+    public BaseResponse<PictureChunkUploadVO> initChunkUpload(@RequestBody PictureChunkUploadInitRequest initRequest,
+                                                              HttpServletRequest request) {
+        ThrowUtils.throwIf(initRequest == null, ErrorCode.PARAMS_ERROR);
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(pictureChunkUploadManager.init(initRequest, loginUser));
+    }
+
+    /**
+     * 上传分片，请求体为分片的原始内容；空间权限在初始化和完成时校验
+     */
+    @PutMapping("/upload/chunk/{uploadId}/{chunkIndex}")
+    public BaseResponse<Boolean> uploadChunk(@PathVariable String uploadId, @PathVariable Integer chunkIndex,
+                                             HttpServletRequest request) throws IOException {
+        User loginUser = userService.getLoginUser(request);
+        long contentLength = request.getContentLengthLong();
+        ThrowUtils.throwIf(contentLength <= 0, ErrorCode.PARAMS_ERROR, "分片内容不能为空");
+        try (InputStream inputStream = request.getInputStream()) {
+            pictureChunkUploadManager.uploadChunk(uploadId, chunkIndex, inputStream, contentLength, loginUser);
+        }
+        return ResultUtils.success(true);
+    }
+
+    /**
+     * 查询分片上传状态（已上传的分片），用于断点续传
+     */
+    @GetMapping("/upload/chunk")
+    public BaseResponse<PictureChunkUploadVO> getChunkUpload(@RequestParam String uploadId,
+                                                             HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(pictureChunkUploadManager.getStatus(uploadId, loginUser));
+    }
+
+    /**
+     * 完成分片上传：拼接分片并保存图片
+     */
+    @PostMapping("/upload/chunk/complete")
+    public BaseResponse<PictureVO> completeChunkUpload(@RequestBody PictureChunkUploadCompleteRequest completeRequest,
+                                                       HttpServletRequest request) {
+        ThrowUtils.throwIf(completeRequest == null, ErrorCode.PARAMS_ERROR);
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(pictureChunkUploadManager.complete(completeRequest.getUploadId(), loginUser));
+    }
+
     /**
      * 删除图片
      */
@@ -139,22 +286,8 @@ public class PictureController {
         if (pictureUpdateRequest == null || pictureUpdateRequest.getId() <= 0) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR);
         }
-        // 判断图片是否存在
-        Picture oldPicture = pictureService.getById(pictureUpdateRequest.getId());
-        ThrowUtils.throwIf(oldPicture == null, ErrorCode.NOT_FOUND_ERROR, "图片不存在");
-        // 将实体类和 DTO 进行转换
-        Picture picture = new Picture();
-        BeanUtils.copyProperties(pictureUpdateRequest, picture);
-        // tag 类型转换
-        picture.setTags(JSONUtil.toJsonStr(pictureUpdateRequest.getTags()));
-        // 图片校验
-        pictureService.validPicture(picture);
-        // 补充审核参数
         User loginUser = userService.getLoginUser(request);
-        pictureService.fillReviewParams(picture, loginUser);
-        // 更新图片
-        boolean result = pictureService.updateById(picture);
-        ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "更新失败");
+        pictureService.updatePicture(pictureUpdateRequest, loginUser);
         return ResultUtils.success(true);
     }
 
@@ -197,6 +330,66 @@ public class PictureController {
         return ResultUtils.success(pictureVO);
     }
 
+    /**
+     * 获取图片变体（指定宽度、格式的图片）
+     * <p>
+     * 只有能编辑图片的用户（本人、管理员、空间编辑者）在第一次请求时同步生成，
+     * 其他用户只能获取已生成的变体，未生成的在后台生成，本次返回原图
+     */
+    @GetMapping("/variant")
+    public BaseResponse<PictureVariantVO> getPictureVariant(@RequestParam Long id, @RequestParam Integer width,
+                                                            @RequestParam(required = false) String format,
+                                                            HttpServletRequest request) {
+        ThrowUtils.throwIf(id <= 0, ErrorCode.PARAMS_ERROR);
+        Picture picture = pictureService.getById(id);
+        ThrowUtils.throwIf(picture == null, ErrorCode.NOT_FOUND_ERROR, "图片不存在");
+        boolean canEdit;
+        if (picture.getSpaceId() != null) {
+            boolean hasPermission = StpUtil.hasPermission(SpaceUserPermissionConstant.PICTURE_VIEW);
+            ThrowUtils.throwIf(!hasPermission, ErrorCode.NO_AUTH_ERROR, "无权限查看");
+            canEdit = StpUtil.hasPermission(SpaceUserPermissionConstant.PICTURE_EDIT);
+        } else {
+            User loginUser = StpUtil.isLogin() ? userService.getLoginUser(request) : null;
+            canEdit = loginUser != null
+                    && (picture.getUserId().equals(loginUser.getId()) || userService.isAdmin(loginUser));
+            // 公共图库只能查看已过审的图片（本人和管理员除外）
+            boolean reviewPassed = ObjUtil.equals(PictureReviewStatusEnum.PASS.getValue(), picture.getReviewStatus());
+            ThrowUtils.throwIf(!canEdit && !reviewPassed, ErrorCode.NOT_FOUND_ERROR, "图片不存在");
+        }
+        return ResultUtils.success(pictureVariantService.getPictureVariant(picture, width, format, canEdit));
+    }
+
+    /**
+     * 批量获取图片变体（列表页按网格尺寸加载图片）
+     * <p>
+     * 只返回已生成的变体，未生成的在后台生成，本次由前端使用缩略图或原图
+     */
+    @PostMapping("/variant/list")
+    public BaseResponse<List<PictureVariantVO>> listPictureVariant(@RequestBody PictureVariantQueryRequest pictureVariantQueryRequest) {
+        ThrowUtils.throwIf(pictureVariantQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        List<Long> pictureIdList = pictureVariantQueryRequest.getPictureIdList();
+        if (CollUtil.isEmpty(pictureIdList)) {
+            return ResultUtils.success(new ArrayList<>());
+        }
+        ThrowUtils.throwIf(pictureIdList.size() > 50, ErrorCode.PARAMS_ERROR, "一次最多获取 50 张图片");
+        // 空间权限校验，与列表查询一致
+        Long spaceId = pictureVariantQueryRequest.getSpaceId();
+        if (spaceId != null) {
+            boolean hasPermission = StpUtil.hasPermission(SpaceUserPermissionConstant.PICTURE_VIEW);
+            ThrowUtils.throwIf(!hasPermission, ErrorCode.NO_AUTH_ERROR, "无权限查看");
+        }
+        List<Picture> pictureList = pictureService.lambdaQuery()
+                .in(Picture::getId, pictureIdList)
+                // 公共图库只能查看已过审的图片
+                .isNull(spaceId == null, Picture::getSpaceId)
+                .eq(spaceId == null, Picture::getReviewStatus, PictureReviewStatusEnum.PASS.getValue())
+                .eq(spaceId != null, Picture::getSpaceId, spaceId)
+                .list();
+        Map<Long, PictureVariantVO> pictureVariantVOMap = pictureVariantService.getPictureVariantMap(pictureList,
+                pictureVariantQueryRequest.getWidth(), pictureVariantQueryRequest.getFormat());
+        return ResultUtils.success(new ArrayList<>(pictureVariantVOMap.values()));
+    }
+
     /**
      * 分页获取图片列表（仅管理员可用）- 查询
      */
@@ -251,6 +444,43 @@ public class PictureController {
         return ResultUtils.success(pictureVOPage);
     }
 
+    /**
+     * 游标分页获取图片列表（仅管理员可用）
+     */
+    @PostMapping("/list/cursor")
+    @SaCheckRole(UserConstant.ADMIN_ROLE)
+    public BaseResponse<CursorPage<Picture>> listPictureByCursor(@RequestBody PictureCursorQueryRequest pictureCursorQueryRequest) {
+        ThrowUtils.throwIf(pictureCursorQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        return ResultUtils.success(pictureService.listPictureByCursor(pictureCursorQueryRequest));
+    }
+
+    /**
+     * 游标分页获取图片列表（封装类）
+     * <p>
+     * 适合瀑布流等连续翻页的场景，翻页深度不影响查询性能
+     */
+    @PostMapping("/list/cursor/vo")
+    public BaseResponse<CursorPage<PictureVO>> listPictureVOByCursor(@RequestBody PictureCursorQueryRequest pictureCursorQueryRequest) {
+        ThrowUtils.throwIf(pictureCursorQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        // 限制爬虫
+        ThrowUtils.throwIf(pictureCursorQueryRequest.getPageSize() > 20, ErrorCode.PARAMS_ERROR);
+        // 空间权限校验
+        Long spaceId = pictureCursorQueryRequest.getSpaceId();
+        if (spaceId == null) {
+            // 默认只能查看已过审的图片
+            pictureCursorQueryRequest.setReviewStatus(PictureReviewStatusEnum.PASS.getValue());
+            // 只查询 spaceId 为 null 的数据
+            pictureCursorQueryRequest.setNullSpaceId(true);
+        } else {
+            boolean hasPermission = StpUtil.hasPermission(SpaceUserPermissionConstant.PICTURE_VIEW);
+            ThrowUtils.throwIf(!hasPermission, ErrorCode.NO_AUTH_ERROR, "无权限查看");
+            // 查询私有空间
+            pictureCursorQueryRequest.setNullSpaceId(false);
+        }
+        CursorPage<Picture> pictureCursorPage = pictureService.listPictureByCursor(pictureCursorQueryRequest);
+        return ResultUtils.success(pictureService.getPictureVOCursorPage(pictureCursorPage));
+    }
+
     /**
      * 分页获取图片列表（封装类）- 查询 - 使用缓存
      */
@@ -263,39 +493,29 @@ public class PictureController {
         ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
         // 默认只能查看已过审的图片
         pictureQueryRequest.setReviewStatus(PictureReviewStatusEnum.PASS.getValue());
-        // 构建缓存 key
+        // 空间权限校验，与不带缓存的查询一致；不指定空间时只查公共图库，缓存作用域才能覆盖查询结果
+        if (pictureQueryRequest.getSpaceId() == null) {
+            pictureQueryRequest.setNullSpaceId(true);
+        } else {
+            boolean hasPermission = StpUtil.hasPermission(SpaceUserPermissionConstant.PICTURE_VIEW);
+            ThrowUtils.throwIf(!hasPermission, ErrorCode.NO_AUTH_ERROR, "无权限查看");
+            pictureQueryRequest.setNullSpaceId(false);
+        }
+        // 构建缓存 key - 带上查询涉及作用域的版本号，图片变更后旧 key 自动失效
+        String versionTag = cacheVersionManager.buildVersionTag(PictureCacheScope.ofQuery(pictureQueryRequest));
         String queryCondition = JSONUtil.toJsonStr(pictureQueryRequest);
-        String hashKey = DigestUtils.md5DigestAsHex(queryCondition.getBytes());
+        String hashKey = DigestUtils.md5DigestAsHex((versionTag + "|" + queryCondition).getBytes());
         String cacheKey = String.format("pingPicture:listPictureVOByPage:%s", hashKey);
-        // 1. 先查本地缓存
-        String cachedValue = LOCAL_CACHE.getIfPresent(cacheKey);
-        if (StrUtil.isNotBlank(cachedValue)) {
-            // 缓存命中
-            Page<PictureVO> cachedPage = JSONUtil.toBean(cachedValue, Page.class);
-            return ResultUtils.success(cachedPage);
-        }
-        // 2. 查分布式缓存 - Redis
-        ValueOperations<String, String> valueOps = stringRedisTemplate.opsForValue();
-        cachedValue = valueOps.get(cacheKey);
-        if (StrUtil.isNotBlank(cachedValue)) {
-            // 如果命中 Redis，存入本地缓存并缓存
-            LOCAL_CACHE.put(cacheKey, cachedValue);
-            Page<PictureVO> cachedPage = JSONUtil.toBean(cachedValue, Page.class);
-            return ResultUtils.success(cachedPage);
-        }
-        // 3. 都未命中，查数据库
-        Page<Picture> picturePage = pictureService.page(
-                new Page<>(current, size), pictureService.getQueryWrapper(pictureQueryRequest));
-        Page<PictureVO> pictureVOPage = pictureService.getPictureVOPage(picturePage);
-        // 4. 更新缓存
-        String cacheValue = JSONUtil.toJsonStr(pictureVOPage);
-        // 更新本地缓存
-        LOCAL_CACHE.put(cacheKey, cacheValue);
-        // 更新分布式缓存
-        // 5 - 10 分钟随机过期，防止雪崩
-        int cacheExpireTime = RandomUtil.randomInt(300, 600);
-        valueOps.set(cacheKey, cacheValue, cacheExpireTime, TimeUnit.SECONDS);
-        return ResultUtils.success(pictureVOPage);
+        // 多级缓存读取，未命中时同一个 key 只回源一次
+        // 1 - 2 小时随机过期，防止雪崩
+        int cacheExpireTime = RandomUtil.randomInt(3600, 7200);
+        Page<PictureVO> cachedPage = singleFlightCacheLoader.getOrLoad(cacheKey, PAGE_CACHE_CODEC,
+                PAGE_CACHE_FRESH_SECONDS, cacheExpireTime, () -> {
+                    Page<Picture> picturePage = pictureService.page(
+                            new Page<>(current, size), pictureService.getQueryWrapper(pictureQueryRequest));
+                    return pictureService.getPictureVOPage(picturePage);
+                });
+        return ResultUtils.success(cachedPage);
     }
 
     /**
@@ -351,33 +571,95 @@ public class PictureController {
     }
 
     /**
-     * 以图搜图
+     * 提交批量抓取任务，返回任务进度（仅管理员可用）
+     */
+    @PostMapping("/upload/batch/async")
+    @SaCheckRole(UserConstant.ADMIN_ROLE)
+    public BaseResponse<CrawlJobVO> batchCrawlPictureAsync(@RequestBody PictureUploadByBatchRequest pictureUploadByBatchRequest,
+                                                           HttpServletRequest request) {
+        ThrowUtils.throwIf(pictureUploadByBatchRequest == null, ErrorCode.PARAMS_ERROR);
+        User loginUser = userService.getLoginUser(request);
+        CrawlJob crawlJob = pictureService.submitUploadPictureByBatch(pictureUploadByBatchRequest, loginUser);
+        return ResultUtils.success(crawlJob.toVO());
+    }
+
+    /**
+     * 查询批量抓取任务进度（仅管理员可用）
+     */
+    @GetMapping("/upload/batch/progress")
+    @SaCheckRole(UserConstant.ADMIN_ROLE)
+    public BaseResponse<CrawlJobVO> getBatchCrawlProgress(@RequestParam String jobId) {
+        CrawlJob crawlJob = pictureCrawler.getJob(jobId);
+        ThrowUtils.throwIf(crawlJob == null, ErrorCode.NOT_FOUND_ERROR, "任务不存在或已过期");
+        return ResultUtils.success(crawlJob.toVO());
+    }
+
+    /**
+     * 重建图片搜索索引（仅管理员可用）
+     */
+    @PostMapping("/search/index/rebuild")
+    @SaCheckRole(UserConstant.ADMIN_ROLE)
+    public BaseResponse<Boolean> rebuildPictureSearchIndex() {
+        // 异步执行，结果见日志
+        ThreadUtil.execAsync(pictureSearchManager::rebuild);
+        return ResultUtils.success(true);
+    }
+
+    /**
+     * 重建图片标签关联及标签索引（仅管理员可用）
+     */
+    @PostMapping("/tag/index/rebuild")
+    @SaCheckRole(UserConstant.ADMIN_ROLE)
+    public BaseResponse<Long> rebuildPictureTagIndex() {
+        long pictureCount = pictureTagService.rebuildAll();
+        pictureTagIndexManager.invalidateAll();
+        return ResultUtils.success(pictureCount);
+    }
+
+    /**
+     * 以图搜图（兼容原有返回格式，结果来自本地相似图片搜索）
      */
     @PostMapping("/search/picture")
+    @SaCheckPermission(value = SpaceUserPermissionConstant.PICTURE_VIEW)
     public BaseResponse<List<SoImageSearchResult>> searchPictureByPictureIsSo(@RequestBody SearchPictureByPictureRequest searchPictureByPictureRequest) {
         ThrowUtils.throwIf(searchPictureByPictureRequest == null, ErrorCode.PARAMS_ERROR);
-        Long pictureId = searchPictureByPictureRequest.getPictureId();
-        ThrowUtils.throwIf(pictureId == null || pictureId <= 0, ErrorCode.PARAMS_ERROR);
-        Picture oldPicture = pictureService.getById(pictureId);
-        ThrowUtils.throwIf(oldPicture == null, ErrorCode.NOT_FOUND_ERROR);
+        SearchSimilarPictureRequest searchSimilarPictureRequest = new SearchSimilarPictureRequest();
+        searchSimilarPictureRequest.setPictureId(searchPictureByPictureRequest.getPictureId());
+        searchSimilarPictureRequest.setLimit(50);
         List<SoImageSearchResult> resultList = new ArrayList<>();
-        // 这个 start 是控制查询多少页, 每页是 20 条
-        int start = 0;
-        while (resultList.size() <= 50) {
-            List<SoImageSearchResult> tempList = SoImageSearchApiFacade.searchImage(
-                    StrUtil.isNotBlank(oldPicture.getOriginalUrl()) ?
-                            oldPicture.getOriginalUrl() : oldPicture.getUrl(),
-                    start
-            );
-            if (tempList.isEmpty()) {
-                break;
-            }
-            resultList.addAll(tempList);
-            start += tempList.size();
+        for (PictureVO pictureVO : pictureService.searchSimilarPicture(searchSimilarPictureRequest)) {
+            SoImageSearchResult result = new SoImageSearchResult();
+            result.setThumbUrl(StrUtil.isNotBlank(pictureVO.getThumbnailUrl()) ? pictureVO.getThumbnailUrl() : pictureVO.getUrl());
+            result.setTitle(pictureVO.getName());
+            result.setImgkey(String.valueOf(pictureVO.getId()));
+            result.setHttp(pictureVO.getUrl());
+            result.setHttps(pictureVO.getUrl());
+            resultList.add(result);
         }
         return ResultUtils.success(resultList);
     }
 
+    /**
+     * 搜索相似图片（同一空间或公共图库内）
+     */
+    @PostMapping("/search/similar")
+    @SaCheckPermission(value = SpaceUserPermissionConstant.PICTURE_VIEW)
+    public BaseResponse<List<PictureVO>> searchSimilarPicture(@RequestBody SearchSimilarPictureRequest searchSimilarPictureRequest) {
+        ThrowUtils.throwIf(searchSimilarPictureRequest == null, ErrorCode.PARAMS_ERROR);
+        return ResultUtils.success(pictureService.searchSimilarPicture(searchSimilarPictureRequest));
+    }
+
+    /**
+     * 回填历史图片的感知哈希（仅管理员可用）
+     */
+    @PostMapping("/hash/backfill")
+    @SaCheckRole(UserConstant.ADMIN_ROLE)
+    public BaseResponse<Boolean> backfillPictureHash() {
+        // 异步执行，结果见日志
+        ThreadUtil.execAsync(pictureSimilarSearchManager::backfill);
+        return ResultUtils.success(true);
+    }
+
     /**
      * 根据颜色搜索图片
      */
@@ -393,6 +675,19 @@ public class PictureController {
         return ResultUtils.success(pictureVOList);
     }
 
+    /**
+     * 根据多个颜色搜索图片（支持权重）
+     */
+    @PostMapping("/search/color/multi")
+    @SaCheckPermission(value = SpaceUserPermissionConstant.PICTURE_VIEW)
+    public BaseResponse<List<PictureVO>> searchPictureByColors(@RequestBody SearchPictureByColorsRequest searchPictureByColorsRequest,
+                                                               HttpServletRequest request) {
+        ThrowUtils.throwIf(searchPictureByColorsRequest == null, ErrorCode.PARAMS_ERROR);
+        User loginUser = userService.getLoginUser(request);
+        List<PictureVO> pictureVOList = pictureService.searchPictureByColors(searchPictureByColorsRequest, loginUser);
+        return ResultUtils.success(pictureVOList);
+    }
+
     /**
      * 批量编辑图片
      */
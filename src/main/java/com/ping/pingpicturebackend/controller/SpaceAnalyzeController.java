@@ -1,9 +1,12 @@
 package com.ping.pingpicturebackend.controller;
 
+import cn.dev33.satoken.annotation.SaCheckRole;
 import com.ping.pingpicture.infrastructure.common.BaseResponse;
 import com.ping.pingpicture.infrastructure.common.ResultUtils;
 import com.ping.pingpicture.infrastructure.exception.ErrorCode;
 import com.ping.pingpicture.infrastructure.exception.ThrowUtils;
+import com.ping.pingpicturebackend.constant.UserConstant;
+import com.ping.pingpicturebackend.manager.stat.SpaceStatManager;
 import com.ping.pingpicturebackend.model.dto.space.analyze.*;
 import com.ping.pingpicturebackend.model.entity.Space;
 import com.ping.pingpicturebackend.model.entity.User;
@@ -34,6 +37,9 @@ public class SpaceAnalyzeController {
     @Resource
     private UserService userService;
 
+    @Resource
+    private SpaceStatManager spaceStatManager;
+
     /**
      * 获取空间使用状态
      */
@@ -105,4 +111,15 @@ public class SpaceAnalyzeController {
         List<Space> resultList = spaceAnalyzeService.getSpaceRank(spaceRankAnalyzeRequest, loginUser);
         return ResultUtils.success(resultList);
     }
+
+    /**
+     * 按图片表重建空间统计（仅管理员可用）
+     *
+     * @return 修正的图片数
+     */
+    @PostMapping("/stat/rebuild")
+    @SaCheckRole(UserConstant.ADMIN_ROLE)
+    public BaseResponse<Integer> rebuildSpaceStat() {
+        return ResultUtils.success(spaceStatManager.rebuild());
+    }
 }
@@ -10,6 +10,7 @@ import com.ping.pingpicture.infrastructure.exception.BusinessException;
 import com.ping.pingpicture.infrastructure.exception.ErrorCode;
 import com.ping.pingpicture.infrastructure.exception.ThrowUtils;
 import com.ping.pingpicturebackend.manager.auth.SpaceUserAuthManager;
+import com.ping.pingpicturebackend.manager.quota.SpaceQuotaManager;
 import com.ping.pingpicturebackend.model.dto.space.*;
 import com.ping.pingpicturebackend.model.entity.Space;
 import com.ping.pingpicturebackend.model.entity.User;
@@ -44,6 +45,9 @@ public class SpaceController {
     @Resource
     private SpaceUserAuthManager spaceUserAuthManager;
 
+    @Resource
+    private SpaceQuotaManager spaceQuotaManager;
+
     /**
      * 创建空间
      */
@@ -91,9 +95,22 @@ public class SpaceController {
         // 更新空间
         boolean result = spaceService.updateById(space);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "更新失败");
+        // 同步额度上限
+        spaceQuotaManager.refreshLimit(space.getId());
         return ResultUtils.success(true);
     }
 
+    /**
+     * 按图片表重建所有空间的已用额度（仅管理员可用）
+     *
+     * @return 修正的空间数
+     */
+    @PostMapping("/quota/reconcile")
+    @SaCheckRole(UserConstant.ADMIN_ROLE)
+    public BaseResponse<Integer> reconcileSpaceQuota() {
+        return ResultUtils.success(spaceQuotaManager.reconcile());
+    }
+
     /**
      * 根据 id 获取空间（仅管理员可用）
      */
@@ -9,6 +9,7 @@ import com.ping.pingpicturebackend.constant.UserConstant;
 import com.ping.pingpicture.infrastructure.exception.BusinessException;
 import com.ping.pingpicture.infrastructure.exception.ErrorCode;
 import com.ping.pingpicture.infrastructure.exception.ThrowUtils;
+import com.ping.pingpicturebackend.manager.cache.UserVOLoader;
 import com.ping.pingpicturebackend.model.dto.user.*;
 import com.ping.pingpicturebackend.model.entity.User;
 import com.ping.pingpicturebackend.model.vo.LoginUserVO;
@@ -31,6 +32,9 @@ public class UserController {
     @Resource
     private UserService userService;
 
+    @Resource
+    private UserVOLoader userVOLoader;
+
     /**
      * 用户注册
      */
@@ -136,6 +140,8 @@ public class UserController {
             throw new BusinessException(ErrorCode.PARAMS_ERROR);
         }
         boolean result = userService.removeById(deleteRequest.getId());
+        // 清除用户信息缓存
+        userVOLoader.invalidate(deleteRequest.getId());
         return ResultUtils.success(result);
     }
 
@@ -151,6 +157,8 @@ public class UserController {
         BeanUtils.copyProperties(userUpdateRequest, user);
         boolean result = userService.updateById(user);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+        // 清除用户信息缓存
+        userVOLoader.invalidate(user.getId());
         return ResultUtils.success(true);
     }
 
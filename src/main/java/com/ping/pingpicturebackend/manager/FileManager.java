@@ -13,6 +13,7 @@ import com.ping.pingpicturebackend.model.dto.file.UploadPictureResult;
 import com.qcloud.cos.model.PutObjectResult;
 import com.qcloud.cos.model.ciModel.persistence.ImageInfo;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -30,6 +31,7 @@ import java.util.List;
 @Deprecated
 @Slf4j
 @Service
+@ConditionalOnProperty(prefix = "picture.storage", name = "type", havingValue = "cos", matchIfMissing = true)
 public class FileManager {
 
     @Resource
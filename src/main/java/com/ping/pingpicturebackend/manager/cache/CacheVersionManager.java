@@ -0,0 +1,147 @@
+package com.ping.pingpicturebackend.manager.cache;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存版本号管理
+ * <p>
+ * 每个缓存作用域（如公共图库、某个分类、某个空间）维护一个递增的版本号，缓存 key 中带上版本号。
+ * 数据变更时只需将对应作用域的版本号 +1，旧 key 自然失效（O(1)），无需扫描删除。
+ * <p>
+ * 版本号以 Redis 为准，本地保留一份副本减少网络往返，版本号变更通过 Redis 频道广播到所有节点。
+ */
+@Slf4j
+@Component
+public class CacheVersionManager implements MessageListener {
+
+    /**
+     * 版本号 key 前缀
+     */
+    private static final String VERSION_KEY_PREFIX = "pingPicture:cacheVersion:";
+
+    /**
+     * 版本号变更广播频道
+     */
+    private static final String VERSION_CHANNEL = "pingPicture:cacheVersion:channel";
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    /**
+     * 本地版本号副本
+     * <p>
+     * 正常情况下由广播实时更新，1 分钟过期只是兜底（防止广播消息丢失导致一直读旧版本）
+     */
+    private final Cache<String, Long> LOCAL_VERSION_CACHE =
+            Caffeine.newBuilder()
+                    .maximumSize(10000L)
+                    .expireAfterWrite(1L, TimeUnit.MINUTES)
+                    .build();
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(VERSION_CHANNEL));
+    }
+
+    /**
+     * 获取作用域当前版本号
+     *
+     * @param scope 作用域
+     * @return 版本号（从未变更过为 0）
+     */
+    public long getVersion(String scope) {
+        Long version = LOCAL_VERSION_CACHE.get(scope, key -> {
+            String value = stringRedisTemplate.opsForValue().get(VERSION_KEY_PREFIX + key);
+            return StrUtil.isBlank(value) ? 0L : Long.parseLong(value);
+        });
+        return version == null ? 0L : version;
+    }
+
+    /**
+     * 构造多个作用域的版本标签，拼接到缓存 key 中
+     *
+     * @param scopes 作用域列表
+     * @return 版本标签，如 public@3
+     */
+    public String buildVersionTag(Collection<String> scopes) {
+        if (CollUtil.isEmpty(scopes)) {
+            return "";
+        }
+        StringBuilder versionTag = new StringBuilder();
+        // 排序保证同一组作用域生成的标签一致
+        for (String scope : new TreeSet<>(scopes)) {
+            if (versionTag.length() > 0) {
+                versionTag.append(',');
+            }
+            versionTag.append(scope).append('@').append(getVersion(scope));
+        }
+        return versionTag.toString();
+    }
+
+    /**
+     * 递增作用域版本号，使该作用域下的缓存全部失效
+     *
+     * @param scopes 作用域列表
+     */
+    public void bumpVersion(Collection<String> scopes) {
+        if (CollUtil.isEmpty(scopes)) {
+            return;
+        }
+        for (String scope : scopes) {
+            Long newVersion = stringRedisTemplate.opsForValue().increment(VERSION_KEY_PREFIX + scope);
+            if (newVersion == null) {
+                continue;
+            }
+            updateLocalVersion(scope, newVersion);
+            // 通知其他节点
+            stringRedisTemplate.convertAndSend(VERSION_CHANNEL, scope + "=" + newVersion);
+        }
+    }
+
+    /**
+     * 接收其他节点的版本号变更广播
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separatorIndex = body.lastIndexOf('=');
+        if (separatorIndex <= 0) {
+            log.warn("无法解析的缓存版本号消息：{}", body);
+            return;
+        }
+        try {
+            String scope = body.substring(0, separatorIndex);
+            long version = Long.parseLong(body.substring(separatorIndex + 1));
+            updateLocalVersion(scope, version);
+        } catch (NumberFormatException e) {
+            log.warn("无法解析的缓存版本号消息：{}", body);
+        }
+    }
+
+    /**
+     * 更新本地版本号，只允许变大，避免乱序消息导致版本回退
+     */
+    private void updateLocalVersion(String scope, long version) {
+        LOCAL_VERSION_CACHE.asMap().merge(scope, version, Math::max);
+    }
+}
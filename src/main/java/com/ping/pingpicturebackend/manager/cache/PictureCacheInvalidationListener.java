@@ -0,0 +1,36 @@
+package com.ping.pingpicturebackend.manager.cache;
+
+import com.ping.pingpicturebackend.manager.event.PictureChangeEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.Resource;
+import java.util.Set;
+
+/**
+ * 图片缓存失效监听器
+ * <p>
+ * 图片变更后递增受影响作用域的版本号，使对应的列表缓存失效
+ */
+@Slf4j
+@Component
+public class PictureCacheInvalidationListener {
+
+    @Resource
+    private CacheVersionManager cacheVersionManager;
+
+    /**
+     * 事务提交后再失效，避免并发请求在提交前把旧数据重新写回缓存；不在事务中发布时直接执行
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPictureChange(PictureChangeEvent pictureChangeEvent) {
+        Set<String> scopeSet = PictureCacheScope.ofChange(pictureChangeEvent);
+        try {
+            cacheVersionManager.bumpVersion(scopeSet);
+        } catch (Exception e) {
+            // 失效失败不影响主流程，缓存最终会按过期时间淘汰
+            log.error("图片缓存失效失败，scopes = {}", scopeSet, e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.ping.pingpicturebackend.manager.cache;
+
+import cn.hutool.core.util.StrUtil;
+import com.ping.pingpicture.infrastructure.exception.ErrorCode;
+import com.ping.pingpicture.infrastructure.exception.ThrowUtils;
+import com.ping.pingpicturebackend.manager.event.PictureChangeEvent;
+import com.ping.pingpicturebackend.model.dto.picture.PictureQueryRequest;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 图片缓存作用域
+ * <p>
+ * 查询命中哪些作用域，缓存 key 就带上哪些作用域的版本号；图片变更时递增其所在作用域的版本号：
+ * <ul>
+ *     <li>space:{spaceId}：某个空间的全部图片查询</li>
+ *     <li>public:category:{category}：公共图库中按分类过滤的查询</li>
+ *     <li>public：公共图库中不按分类过滤的查询</li>
+ * </ul>
+ */
+public class PictureCacheScope {
+
+    private PictureCacheScope() {
+        // 工具类不需要实例化
+    }
+
+    /**
+     * 公共图库
+     */
+    public static final String PUBLIC = "public";
+
+    /**
+     * 公共图库分类前缀
+     */
+    public static final String PUBLIC_CATEGORY_PREFIX = "public:category:";
+
+    /**
+     * 空间前缀
+     */
+    public static final String SPACE_PREFIX = "space:";
+
+    /**
+     * 获取查询依赖的作用域
+     * <p>
+     * 不指定空间的查询必须限定为公共图库（nullSpaceId 为 true），否则结果会包含各个空间的图片，无法按作用域失效
+     *
+     * @param pictureQueryRequest 查询请求
+     * @return 作用域列表
+     */
+    public static List<String> ofQuery(PictureQueryRequest pictureQueryRequest) {
+        Long spaceId = pictureQueryRequest.getSpaceId();
+        if (spaceId != null) {
+            return Collections.singletonList(SPACE_PREFIX + spaceId);
+        }
+        ThrowUtils.throwIf(!Boolean.TRUE.equals(pictureQueryRequest.getNullSpaceId()), ErrorCode.PARAMS_ERROR,
+                "不指定空间时只能查询公共图库");
+        String category = pictureQueryRequest.getCategory();
+        if (StrUtil.isNotBlank(category)) {
+            return Collections.singletonList(PUBLIC_CATEGORY_PREFIX + category);
+        }
+        return Collections.singletonList(PUBLIC);
+    }
+
+    /**
+     * 获取图片变更影响的作用域
+     *
+     * @param pictureChangeEvent 图片变更事件
+     * @return 作用域集合
+     */
+    public static Set<String> ofChange(PictureChangeEvent pictureChangeEvent) {
+        Set<String> scopeSet = new HashSet<>();
+        Long spaceId = pictureChangeEvent.getSpaceId();
+        if (spaceId != null) {
+            scopeSet.add(SPACE_PREFIX + spaceId);
+            return scopeSet;
+        }
+        // 公共图库：不按分类的查询全部失效，按分类的查询只失效涉及到的分类
+        scopeSet.add(PUBLIC);
+        for (String category : pictureChangeEvent.getCategorySet()) {
+            scopeSet.add(PUBLIC_CATEGORY_PREFIX + category);
+        }
+        return scopeSet;
+    }
+}
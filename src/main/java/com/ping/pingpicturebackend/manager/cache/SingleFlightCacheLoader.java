@@ -0,0 +1,342 @@
+package com.ping.pingpicturebackend.manager.cache;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.IdUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ping.pingpicture.infrastructure.exception.BusinessException;
+import com.ping.pingpicture.infrastructure.exception.ErrorCode;
+import com.ping.pingpicturebackend.manager.cache.codec.CacheValueCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * 防击穿的多级缓存加载器（本地缓存 + Redis）
+ * <p>
+ * 1. 同一 JVM 内，同一个 key 同时只有一个线程回源，其他线程等待并共享结果（single-flight）
+ * 2. 集群内，通过 Redis 租约保证同一个 key 同时只有一个节点回源，其他节点轮询等待结果
+ * 3. 缓存值带有逻辑过期时间，逻辑过期后先返回旧值，再异步刷新（stale-while-revalidate）
+ * <p>
+ * 缓存 key 需要由调用方保证唯一（建议带上业务前缀和版本号），缓存值的编码方式由调用方传入的编解码器决定
+ */
+@Slf4j
+@Component
+public class SingleFlightCacheLoader {
+
+    /**
+     * 租约 key 前缀
+     */
+    private static final String LEASE_KEY_PREFIX = "pingPicture:cacheLease:";
+
+    /**
+     * 租约时长（毫秒），回源超过该时间其他节点会自行回源
+     */
+    private static final long LEASE_MILLIS = 5000L;
+
+    /**
+     * 等待其他节点回源结果的轮询间隔（毫秒）
+     */
+    private static final long POLL_INTERVAL_MILLIS = 50L;
+
+    /**
+     * 同 JVM 内等待回源结果的最长时间（毫秒）
+     */
+    private static final long WAIT_TIMEOUT_MILLIS = 10000L;
+
+    /**
+     * Redis 缓存值头部长度（逻辑过期时间戳）
+     */
+    private static final int ENTRY_HEADER_LENGTH = 8;
+
+    /**
+     * 释放租约脚本：只删除自己持有的租约
+     */
+    private static final DefaultRedisScript<Long> RELEASE_LEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private RedisTemplate<String, byte[]> byteRedisTemplate;
+
+    /**
+     * 本地缓存，存放带逻辑过期时间的解码后对象，命中时无需反序列化
+     */
+    private final Cache<String, CacheEntry> LOCAL_CACHE =
+            Caffeine.newBuilder().initialCapacity(1024)
+                    .maximumSize(10000L)
+                    .expireAfterWrite(30L, TimeUnit.MINUTES)
+                    .build();
+
+    /**
+     * 正在回源的 key
+     */
+    private final Map<String, CompletableFuture<Object>> inFlightLoads = new ConcurrentHashMap<>();
+
+    /**
+     * 正在异步刷新的 key，避免重复提交刷新任务
+     */
+    private final Set<String> refreshingKeys = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 异步刷新线程池，队列满时直接丢弃（下次读到旧值时会再次触发）
+     */
+    private final ThreadPoolExecutor refreshExecutor = new ThreadPoolExecutor(
+            2, 4, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(256),
+            ThreadFactoryBuilder.create().setNamePrefix("cacheRefresh-").build(),
+            new ThreadPoolExecutor.DiscardPolicy());
+
+    /**
+     * 读取缓存，未命中时合并回源
+     * <p>
+     * 本地缓存直接保存解码后的对象，调用方不能修改返回值
+     *
+     * @param cacheKey      缓存 key
+     * @param codec         缓存值编解码器
+     * @param freshSeconds  逻辑过期时间（秒），超过后返回旧值并异步刷新
+     * @param expireSeconds Redis 物理过期时间（秒），应大于逻辑过期时间
+     * @param loader        回源方法，返回 null 表示不缓存
+     * @return 缓存值
+     */
+    public <T> T getOrLoad(String cacheKey, CacheValueCodec<T> codec, long freshSeconds, long expireSeconds,
+                           Supplier<T> loader) {
+        // 1. 先查本地缓存
+        CacheEntry cacheEntry = LOCAL_CACHE.getIfPresent(cacheKey);
+        if (cacheEntry == null) {
+            // 2. 再查分布式缓存 - Redis
+            cacheEntry = readRedis(cacheKey, codec);
+            if (cacheEntry != null) {
+                LOCAL_CACHE.put(cacheKey, cacheEntry);
+            }
+        }
+        if (cacheEntry != null) {
+            // 逻辑过期：先返回旧值，再异步刷新
+            if (cacheEntry.isStale()) {
+                refreshAsync(cacheKey, codec, freshSeconds, expireSeconds, loader);
+            }
+            return cacheEntry.getValue();
+        }
+        // 3. 都未命中，合并回源
+        return loadCoalesced(cacheKey, codec, freshSeconds, expireSeconds, loader);
+    }
+
+    /**
+     * 主动清除缓存
+     *
+     * @param cacheKey 缓存 key
+     */
+    public void evict(String cacheKey) {
+        LOCAL_CACHE.invalidate(cacheKey);
+        byteRedisTemplate.delete(cacheKey);
+    }
+
+    /**
+     * 同 JVM 内合并回源：同一个 key 只有第一个线程真正回源
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T loadCoalesced(String cacheKey, CacheValueCodec<T> codec, long freshSeconds, long expireSeconds,
+                                Supplier<T> loader) {
+        CompletableFuture<Object> newFuture = new CompletableFuture<>();
+        CompletableFuture<Object> existingFuture = inFlightLoads.putIfAbsent(cacheKey, newFuture);
+        if (existingFuture != null) {
+            return (T) awaitResult(cacheKey, existingFuture);
+        }
+        try {
+            T value = loadWithLease(cacheKey, codec, freshSeconds, expireSeconds, loader, true);
+            newFuture.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            newFuture.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(cacheKey, newFuture);
+        }
+    }
+
+    /**
+     * 异步刷新逻辑过期的缓存
+     */
+    private <T> void refreshAsync(String cacheKey, CacheValueCodec<T> codec, long freshSeconds, long expireSeconds,
+                                  Supplier<T> loader) {
+        if (!refreshingKeys.add(cacheKey)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    // 其他节点可能已经刷新过 Redis，直接同步到本地即可
+                    CacheEntry redisEntry = readRedis(cacheKey, codec);
+                    if (redisEntry != null && !redisEntry.isStale()) {
+                        LOCAL_CACHE.put(cacheKey, redisEntry);
+                        return;
+                    }
+                    // 拿不到租约说明其他节点正在刷新，直接放弃
+                    loadWithLease(cacheKey, codec, freshSeconds, expireSeconds, loader, false);
+                } catch (Exception e) {
+                    log.error("异步刷新缓存失败，cacheKey = {}", cacheKey, e);
+                } finally {
+                    refreshingKeys.remove(cacheKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshingKeys.remove(cacheKey);
+        }
+    }
+
+    /**
+     * 集群内合并回源：持有租约的节点回源，其他节点等待结果
+     *
+     * @param waitIfLeased 拿不到租约时是否等待其他节点的结果
+     * @return 缓存值，不等待且拿不到租约时返回 null
+     */
+    private <T> T loadWithLease(String cacheKey, CacheValueCodec<T> codec, long freshSeconds, long expireSeconds,
+                                Supplier<T> loader, boolean waitIfLeased) {
+        String leaseKey = LEASE_KEY_PREFIX + cacheKey;
+        String leaseToken = IdUtil.fastSimpleUUID();
+        Boolean acquired = stringRedisTemplate.opsForValue()
+                .setIfAbsent(leaseKey, leaseToken, LEASE_MILLIS, TimeUnit.MILLISECONDS);
+        if (Boolean.TRUE.equals(acquired)) {
+            try {
+                // 双重检查：拿到租约前其他节点可能刚写入了新值
+                if (waitIfLeased) {
+                    CacheEntry cacheEntry = readRedis(cacheKey, codec);
+                    if (cacheEntry != null && !cacheEntry.isStale()) {
+                        LOCAL_CACHE.put(cacheKey, cacheEntry);
+                        return cacheEntry.getValue();
+                    }
+                }
+                return loadAndStore(cacheKey, codec, freshSeconds, expireSeconds, loader);
+            } finally {
+                stringRedisTemplate.execute(RELEASE_LEASE_SCRIPT, Collections.singletonList(leaseKey), leaseToken);
+            }
+        }
+        if (!waitIfLeased) {
+            return null;
+        }
+        // 其他节点正在回源，轮询等待结果，租约过期后自行回源
+        long deadline = System.currentTimeMillis() + LEASE_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            CacheEntry cacheEntry = readRedis(cacheKey, codec);
+            if (cacheEntry != null) {
+                LOCAL_CACHE.put(cacheKey, cacheEntry);
+                return cacheEntry.getValue();
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "加载缓存被中断");
+            }
+        }
+        log.warn("等待其他节点回源超时，自行回源，cacheKey = {}", cacheKey);
+        return loadAndStore(cacheKey, codec, freshSeconds, expireSeconds, loader);
+    }
+
+    /**
+     * 回源并写入多级缓存
+     */
+    private <T> T loadAndStore(String cacheKey, CacheValueCodec<T> codec, long freshSeconds, long expireSeconds,
+                               Supplier<T> loader) {
+        T value = loader.get();
+        if (value == null) {
+            return null;
+        }
+        long freshUntil = System.currentTimeMillis() + freshSeconds * 1000L;
+        byte[] payload = codec.encode(value);
+        // Redis 中的格式：8 字节逻辑过期时间戳 + 编码后的数据
+        byte[] rawValue = ByteBuffer.allocate(ENTRY_HEADER_LENGTH + payload.length)
+                .putLong(freshUntil)
+                .put(payload)
+                .array();
+        byteRedisTemplate.opsForValue().set(cacheKey, rawValue, expireSeconds, TimeUnit.SECONDS);
+        LOCAL_CACHE.put(cacheKey, new CacheEntry(freshUntil, value));
+        return value;
+    }
+
+    /**
+     * 读取 Redis 中的缓存，数据格式不正确（如旧版本数据）时视为未命中
+     */
+    private <T> CacheEntry readRedis(String cacheKey, CacheValueCodec<T> codec) {
+        byte[] rawValue = byteRedisTemplate.opsForValue().get(cacheKey);
+        if (rawValue == null || rawValue.length <= ENTRY_HEADER_LENGTH) {
+            return null;
+        }
+        try {
+            long freshUntil = ByteBuffer.wrap(rawValue, 0, ENTRY_HEADER_LENGTH).getLong();
+            T value = codec.decode(Arrays.copyOfRange(rawValue, ENTRY_HEADER_LENGTH, rawValue.length));
+            return new CacheEntry(freshUntil, value);
+        } catch (RuntimeException e) {
+            log.warn("缓存数据解码失败，视为未命中，cacheKey = {}", cacheKey, e);
+            return null;
+        }
+    }
+
+    /**
+     * 等待同 JVM 内其他线程的回源结果
+     */
+    private Object awaitResult(String cacheKey, CompletableFuture<Object> future) {
+        try {
+            return future.get(WAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "加载缓存失败");
+        } catch (TimeoutException e) {
+            log.warn("等待回源结果超时，cacheKey = {}", cacheKey);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "系统繁忙，请稍后重试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "加载缓存被中断");
+        }
+    }
+
+    /**
+     * 优雅停机
+     */
+    @PreDestroy
+    public void close() {
+        refreshExecutor.shutdown();
+    }
+
+    /**
+     * 带逻辑过期时间的缓存值
+     */
+    private static class CacheEntry {
+
+        private final long freshUntil;
+
+        private final Object value;
+
+        private CacheEntry(long freshUntil, Object value) {
+            this.freshUntil = freshUntil;
+            this.value = value;
+        }
+
+        boolean isStale() {
+            return System.currentTimeMillis() > freshUntil;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> T getValue() {
+            return (T) value;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.ping.pingpicturebackend.manager.cache;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.RandomUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ping.pingpicture.infrastructure.mapper.UserMapper;
+import com.ping.pingpicturebackend.manager.cache.codec.UserVOCodec;
+import com.ping.pingpicturebackend.model.entity.User;
+import com.ping.pingpicturebackend.model.vo.UserVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户视图加载器，供各个 VO 组装方法共享
+ * <p>
+ * 按 请求内缓存 -> 本地缓存 -> Redis（批量 MGET）-> 数据库（批量 IN 查询）逐级查找，
+ * 每一级只把未命中的 id 交给下一级，查到后回填上面各级。
+ * <p>
+ * 用户信息变更时调用 {@link #invalidate(Long)}，清除 Redis 并通过频道通知所有节点清除本地缓存。
+ * 返回的 UserVO 会被多个请求共享，调用方不能修改。
+ */
+@Slf4j
+@Component
+public class UserVOLoader implements MessageListener {
+
+    /**
+     * Redis key 前缀
+     */
+    private static final String USER_VO_KEY_PREFIX = "pingPicture:userVO:";
+
+    /**
+     * 失效广播频道
+     */
+    private static final String EVICT_CHANNEL = "pingPicture:userVO:evict";
+
+    /**
+     * 请求内缓存在 request attribute 中的名称
+     */
+    private static final String REQUEST_MEMO_ATTRIBUTE = UserVOLoader.class.getName() + ".memo";
+
+    private static final UserVOCodec USER_VO_CODEC = new UserVOCodec();
+
+    @Resource
+    private UserMapper userMapper;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private RedisTemplate<String, byte[]> byteRedisTemplate;
+
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    /**
+     * 本地缓存，用户不存在时缓存 Optional.empty()，避免已删除用户反复查库
+     */
+    private final Cache<Long, Optional<UserVO>> LOCAL_CACHE =
+            Caffeine.newBuilder()
+                    .maximumSize(10000L)
+                    .expireAfterWrite(10L, TimeUnit.MINUTES)
+                    .build();
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(EVICT_CHANNEL));
+    }
+
+    /**
+     * 加载单个用户视图
+     *
+     * @param userId 用户 id
+     * @return 用户视图，不存在返回 null
+     */
+    public UserVO load(Long userId) {
+        if (userId == null || userId <= 0) {
+            return null;
+        }
+        return loadAll(Collections.singleton(userId)).get(userId);
+    }
+
+    /**
+     * 批量加载用户视图
+     *
+     * @param userIds 用户 id 集合
+     * @return 用户 id -> 用户视图，不存在的用户不包含在结果中
+     */
+    public Map<Long, UserVO> loadAll(Collection<Long> userIds) {
+        Map<Long, UserVO> result = new HashMap<>();
+        if (CollUtil.isEmpty(userIds)) {
+            return result;
+        }
+        // 1. 请求内缓存
+        Map<Long, UserVO> requestMemo = getRequestMemo();
+        Set<Long> missIds = new LinkedHashSet<>();
+        for (Long userId : userIds) {
+            if (userId == null || userId <= 0) {
+                continue;
+            }
+            if (requestMemo.containsKey(userId)) {
+                UserVO userVO = requestMemo.get(userId);
+                if (userVO != null) {
+                    result.put(userId, userVO);
+                }
+            } else {
+                missIds.add(userId);
+            }
+        }
+        // 2. 本地缓存
+        if (!missIds.isEmpty()) {
+            Iterator<Long> iterator = missIds.iterator();
+            while (iterator.hasNext()) {
+                Long userId = iterator.next();
+                Optional<UserVO> cached = LOCAL_CACHE.getIfPresent(userId);
+                if (cached != null) {
+                    iterator.remove();
+                    requestMemo.put(userId, cached.orElse(null));
+                    cached.ifPresent(userVO -> result.put(userId, userVO));
+                }
+            }
+        }
+        // 3. Redis
+        if (!missIds.isEmpty()) {
+            Map<Long, UserVO> redisHits = loadFromRedis(missIds);
+            redisHits.forEach((userId, userVO) -> {
+                missIds.remove(userId);
+                LOCAL_CACHE.put(userId, Optional.of(userVO));
+                requestMemo.put(userId, userVO);
+                result.put(userId, userVO);
+            });
+        }
+        // 4. 数据库
+        if (!missIds.isEmpty()) {
+            Map<Long, UserVO> dbHits = loadFromDb(missIds);
+            writeToRedis(dbHits);
+            for (Long userId : missIds) {
+                UserVO userVO = dbHits.get(userId);
+                LOCAL_CACHE.put(userId, Optional.ofNullable(userVO));
+                requestMemo.put(userId, userVO);
+                if (userVO != null) {
+                    result.put(userId, userVO);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 用户信息变更（修改、删除、登录）后清除缓存
+     *
+     * @param userId 用户 id
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        LOCAL_CACHE.invalidate(userId);
+        Map<Long, UserVO> requestMemo = getRequestMemo();
+        requestMemo.remove(userId);
+        try {
+            byteRedisTemplate.delete(USER_VO_KEY_PREFIX + userId);
+            // 通知其他节点清除本地缓存
+            stringRedisTemplate.convertAndSend(EVICT_CHANNEL, String.valueOf(userId));
+        } catch (Exception e) {
+            // 本地缓存最多 10 分钟后过期，这里失败不影响主流程
+            log.error("清除用户缓存失败，userId = {}", userId, e);
+        }
+    }
+
+    /**
+     * 接收其他节点的失效广播
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            LOCAL_CACHE.invalidate(Long.parseLong(body));
+        } catch (NumberFormatException e) {
+            log.warn("无法解析的用户缓存失效消息：{}", body);
+        }
+    }
+
+    private Map<Long, UserVO> loadFromRedis(Collection<Long> userIds) {
+        Map<Long, UserVO> result = new HashMap<>();
+        List<Long> userIdList = new ArrayList<>(userIds);
+        List<String> keys = new ArrayList<>(userIdList.size());
+        for (Long userId : userIdList) {
+            keys.add(USER_VO_KEY_PREFIX + userId);
+        }
+        try {
+            List<byte[]> values = byteRedisTemplate.opsForValue().multiGet(keys);
+            if (values == null) {
+                return result;
+            }
+            for (int i = 0; i < values.size() && i < userIdList.size(); i++) {
+                byte[] value = values.get(i);
+                if (value == null) {
+                    continue;
+                }
+                try {
+                    result.put(userIdList.get(i), USER_VO_CODEC.decode(value));
+                } catch (RuntimeException e) {
+                    log.warn("用户缓存解码失败，userId = {}", userIdList.get(i), e);
+                }
+            }
+        } catch (Exception e) {
+            // Redis 不可用时降级查库
+            log.error("批量读取用户缓存失败", e);
+        }
+        return result;
+    }
+
+    private Map<Long, UserVO> loadFromDb(Collection<Long> userIds) {
+        Map<Long, UserVO> result = new HashMap<>();
+        List<User> userList = userMapper.selectByIds(userIds);
+        for (User user : userList) {
+            UserVO userVO = new UserVO();
+            BeanUtils.copyProperties(user, userVO);
+            result.put(user.getId(), userVO);
+        }
+        return result;
+    }
+
+    private void writeToRedis(Map<Long, UserVO> userVOMap) {
+        if (userVOMap.isEmpty()) {
+            return;
+        }
+        try {
+            byteRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                userVOMap.forEach((userId, userVO) -> {
+                    byte[] key = (USER_VO_KEY_PREFIX + userId).getBytes(StandardCharsets.UTF_8);
+                    // 1 - 2 小时随机过期，防止雪崩
+                    connection.stringCommands().setEx(key, RandomUtil.randomInt(3600, 7200), USER_VO_CODEC.encode(userVO));
+                });
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("批量写入用户缓存失败", e);
+        }
+    }
+
+    /**
+     * 获取请求内缓存，不在 Web 请求中（如异步任务）时返回一个临时 Map
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Long, UserVO> getRequestMemo() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes == null) {
+            return new HashMap<>();
+        }
+        Map<Long, UserVO> requestMemo = (Map<Long, UserVO>) requestAttributes
+                .getAttribute(REQUEST_MEMO_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (requestMemo == null) {
+            requestMemo = new HashMap<>();
+            requestAttributes.setAttribute(REQUEST_MEMO_ATTRIBUTE, requestMemo, RequestAttributes.SCOPE_REQUEST);
+        }
+        return requestMemo;
+    }
+}
@@ -0,0 +1,99 @@
+package com.ping.pingpicturebackend.manager.cache.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 紧凑二进制读取器，与 {@link BinaryWriter} 对应，直接在原数组上读取，非线程安全
+ */
+public final class BinaryReader {
+
+    private final byte[] buffer;
+
+    private int position;
+
+    private final int limit;
+
+    public BinaryReader(byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    public BinaryReader(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    public int readByte() {
+        checkRemaining(1);
+        return buffer[position++] & 0xFF;
+    }
+
+    public long readVarLong() {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("varint 格式错误");
+    }
+
+    public int readVarInt() {
+        long value = readVarLong();
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("长度超出范围");
+        }
+        return (int) value;
+    }
+
+    public long readZigZagLong() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public double readDouble() {
+        checkRemaining(8);
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+            bits |= (long) (buffer[position++] & 0xFF) << (i * 8);
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    public String readString() {
+        int length = readVarInt();
+        checkRemaining(length);
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    public Date readDate() {
+        return new Date(readZigZagLong());
+    }
+
+    public List<String> readStringList() {
+        int size = readVarInt();
+        // 每个字符串至少占 1 字节，避免错误数据导致超大分配
+        List<String> values = new ArrayList<>(Math.min(size, remaining()));
+        for (int i = 0; i < size; i++) {
+            values.add(readString());
+        }
+        return values;
+    }
+
+    public int remaining() {
+        return limit - position;
+    }
+
+    private void checkRemaining(int required) {
+        if (required > limit - position) {
+            throw new IllegalArgumentException("数据不完整");
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.ping.pingpicturebackend.manager.cache.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 紧凑二进制写入器
+ * <p>
+ * 整数使用 varint（有符号数先做 zigzag），字符串使用“长度 + UTF-8”，非线程安全
+ */
+public final class BinaryWriter {
+
+    private byte[] buffer;
+
+    private int position;
+
+    public BinaryWriter(int initialCapacity) {
+        this.buffer = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    public void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+    public void writeBytes(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    /**
+     * 写入无符号 varint
+     */
+    public void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * 写入有符号 varint（zigzag）
+     */
+    public void writeZigZagLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public void writeDouble(double value) {
+        ensureCapacity(8);
+        long bits = Double.doubleToLongBits(value);
+        for (int i = 0; i < 8; i++) {
+            buffer[position++] = (byte) (bits >>> (i * 8));
+        }
+    }
+
+    public void writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length);
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    public void writeDate(Date value) {
+        writeZigZagLong(value.getTime());
+    }
+
+    public void writeStringList(List<String> values) {
+        writeVarLong(values.size());
+        for (String value : values) {
+            // 列表中的 null 元素按空字符串处理
+            writeString(value == null ? "" : value);
+        }
+    }
+
+    public int size() {
+        return position;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void ensureCapacity(int required) {
+        if (position + required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + required));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.ping.pingpicturebackend.manager.cache.codec;
+
+/**
+ * 缓存值编解码器
+ * <p>
+ * 负责缓存对象与 Redis 中字节数组之间的转换，不同的缓存可以选择不同的编码方式
+ *
+ * @param <T> 缓存对象类型
+ */
+public interface CacheValueCodec<T> {
+
+    /**
+     * 编码
+     *
+     * @param value 缓存对象，不为 null
+     * @return 字节数组
+     */
+    byte[] encode(T value);
+
+    /**
+     * 解码
+     *
+     * @param bytes 字节数组
+     * @return 缓存对象
+     * @throws IllegalArgumentException 数据格式不正确（如旧版本数据）
+     */
+    T decode(byte[] bytes);
+}
@@ -0,0 +1,33 @@
+package com.ping.pingpicturebackend.manager.cache.codec;
+
+import cn.hutool.core.lang.TypeReference;
+import cn.hutool.json.JSONUtil;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * JSON 缓存编解码器
+ * <p>
+ * 通用但体积较大、解析较慢，适合没有专用二进制格式的缓存对象
+ *
+ * @param <T> 缓存对象类型
+ */
+public class JsonCacheValueCodec<T> implements CacheValueCodec<T> {
+
+    private final Type type;
+
+    public JsonCacheValueCodec(TypeReference<T> typeReference) {
+        this.type = typeReference.getType();
+    }
+
+    @Override
+    public byte[] encode(T value) {
+        return JSONUtil.toJsonStr(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public T decode(byte[] bytes) {
+        return JSONUtil.toBean(new String(bytes, StandardCharsets.UTF_8), type, false);
+    }
+}
@@ -0,0 +1,86 @@
+package com.ping.pingpicturebackend.manager.cache.codec;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+/**
+ * LZ4 压缩装饰器
+ * <p>
+ * 格式：标记位（0 未压缩 / 1 LZ4）+ [原始长度] + 数据，数据较小或压缩无收益时不压缩
+ *
+ * @param <T> 缓存对象类型
+ */
+public class Lz4CacheValueCodec<T> implements CacheValueCodec<T> {
+
+    private static final int FLAG_RAW = 0;
+
+    private static final int FLAG_LZ4 = 1;
+
+    /**
+     * 解压后最大长度，防止错误数据导致超大分配
+     */
+    private static final int MAX_DECOMPRESSED_LENGTH = 64 * 1024 * 1024;
+
+    private static final LZ4Factory LZ4_FACTORY = LZ4Factory.fastestInstance();
+
+    private final CacheValueCodec<T> delegate;
+
+    /**
+     * 超过该长度才尝试压缩
+     */
+    private final int compressThreshold;
+
+    public Lz4CacheValueCodec(CacheValueCodec<T> delegate, int compressThreshold) {
+        this.delegate = delegate;
+        this.compressThreshold = compressThreshold;
+    }
+
+    @Override
+    public byte[] encode(T value) {
+        byte[] raw = delegate.encode(value);
+        if (raw.length > compressThreshold) {
+            LZ4Compressor compressor = LZ4_FACTORY.fastCompressor();
+            byte[] compressed = new byte[compressor.maxCompressedLength(raw.length)];
+            int compressedLength = compressor.compress(raw, 0, raw.length, compressed, 0, compressed.length);
+            BinaryWriter writer = new BinaryWriter(compressedLength + 6);
+            writer.writeByte(FLAG_LZ4);
+            writer.writeVarLong(raw.length);
+            writer.writeBytes(compressed, 0, compressedLength);
+            // 压缩有收益才使用压缩结果
+            if (writer.size() < raw.length + 1) {
+                return writer.toByteArray();
+            }
+        }
+        BinaryWriter writer = new BinaryWriter(raw.length + 1);
+        writer.writeByte(FLAG_RAW);
+        writer.writeBytes(raw, 0, raw.length);
+        return writer.toByteArray();
+    }
+
+    @Override
+    public T decode(byte[] bytes) {
+        BinaryReader reader = new BinaryReader(bytes);
+        int flag = reader.readByte();
+        if (flag == FLAG_RAW) {
+            byte[] raw = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, raw, 0, raw.length);
+            return delegate.decode(raw);
+        }
+        if (flag != FLAG_LZ4) {
+            throw new IllegalArgumentException("未知的压缩标记");
+        }
+        int rawLength = reader.readVarInt();
+        if (rawLength > MAX_DECOMPRESSED_LENGTH) {
+            throw new IllegalArgumentException("解压长度超出限制");
+        }
+        int offset = bytes.length - reader.remaining();
+        LZ4SafeDecompressor decompressor = LZ4_FACTORY.safeDecompressor();
+        byte[] raw = new byte[rawLength];
+        int decompressedLength = decompressor.decompress(bytes, offset, reader.remaining(), raw, 0, rawLength);
+        if (decompressedLength != rawLength) {
+            throw new IllegalArgumentException("解压长度不一致");
+        }
+        return delegate.decode(raw);
+    }
+}
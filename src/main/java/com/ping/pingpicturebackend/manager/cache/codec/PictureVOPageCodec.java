@@ -0,0 +1,256 @@
+package com.ping.pingpicturebackend.manager.cache.codec;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.ping.pingpicturebackend.model.vo.PictureVO;
+import com.ping.pingpicturebackend.model.vo.UserVO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 图片分页二进制编解码器
+ * <p>
+ * 格式：版本号 + 分页信息 + 记录数 + 每条记录（字段存在位图 + 存在的字段）
+ * <p>
+ * 同一页中同一个用户通常会出现多次，用户信息只写一次，之后用序号引用
+ */
+public class PictureVOPageCodec implements CacheValueCodec<Page<PictureVO>> {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int ID = 1;
+    private static final int URL = 1 << 1;
+    private static final int THUMBNAIL_URL = 1 << 2;
+    private static final int NAME = 1 << 3;
+    private static final int INTRODUCTION = 1 << 4;
+    private static final int CATEGORY = 1 << 5;
+    private static final int TAGS = 1 << 6;
+    private static final int PIC_SIZE = 1 << 7;
+    private static final int PIC_WIDTH = 1 << 8;
+    private static final int PIC_HEIGHT = 1 << 9;
+    private static final int PIC_SCALE = 1 << 10;
+    private static final int PIC_FORMAT = 1 << 11;
+    private static final int USER_ID = 1 << 12;
+    private static final int SPACE_ID = 1 << 13;
+    private static final int CREATE_TIME = 1 << 14;
+    private static final int EDIT_TIME = 1 << 15;
+    private static final int UPDATE_TIME = 1 << 16;
+    private static final int USER = 1 << 17;
+    private static final int PERMISSION_LIST = 1 << 18;
+    private static final int PIC_COLOR = 1 << 19;
+
+    @Override
+    public byte[] encode(Page<PictureVO> page) {
+        List<PictureVO> records = page.getRecords() == null ? Collections.emptyList() : page.getRecords();
+        BinaryWriter writer = new BinaryWriter(256 + records.size() * 384);
+        writer.writeByte(FORMAT_VERSION);
+        writer.writeVarLong(page.getCurrent());
+        writer.writeVarLong(page.getSize());
+        writer.writeVarLong(page.getTotal());
+        writer.writeVarLong(records.size());
+        // 已写入的用户 id -> 序号（从 1 开始，0 表示内联写入新用户）
+        Map<Long, Integer> writtenUsers = new HashMap<>();
+        for (PictureVO pictureVO : records) {
+            writePicture(writer, pictureVO, writtenUsers);
+        }
+        return writer.toByteArray();
+    }
+
+    @Override
+    public Page<PictureVO> decode(byte[] bytes) {
+        BinaryReader reader = new BinaryReader(bytes);
+        if (reader.readByte() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("不支持的图片分页缓存格式");
+        }
+        long current = reader.readVarLong();
+        long size = reader.readVarLong();
+        long total = reader.readVarLong();
+        int recordCount = reader.readVarInt();
+        List<PictureVO> records = new ArrayList<>(Math.min(recordCount, reader.remaining()));
+        List<UserVO> readUsers = new ArrayList<>();
+        for (int i = 0; i < recordCount; i++) {
+            records.add(readPicture(reader, readUsers));
+        }
+        Page<PictureVO> page = new Page<>(current, size, total);
+        page.setRecords(records);
+        return page;
+    }
+
+    private void writePicture(BinaryWriter writer, PictureVO pictureVO, Map<Long, Integer> writtenUsers) {
+        int mask = 0;
+        mask |= pictureVO.getId() != null ? ID : 0;
+        mask |= pictureVO.getUrl() != null ? URL : 0;
+        mask |= pictureVO.getThumbnailUrl() != null ? THUMBNAIL_URL : 0;
+        mask |= pictureVO.getName() != null ? NAME : 0;
+        mask |= pictureVO.getIntroduction() != null ? INTRODUCTION : 0;
+        mask |= pictureVO.getCategory() != null ? CATEGORY : 0;
+        mask |= pictureVO.getTags() != null ? TAGS : 0;
+        mask |= pictureVO.getPicSize() != null ? PIC_SIZE : 0;
+        mask |= pictureVO.getPicWidth() != null ? PIC_WIDTH : 0;
+        mask |= pictureVO.getPicHeight() != null ? PIC_HEIGHT : 0;
+        mask |= pictureVO.getPicScale() != null ? PIC_SCALE : 0;
+        mask |= pictureVO.getPicFormat() != null ? PIC_FORMAT : 0;
+        mask |= pictureVO.getUserId() != null ? USER_ID : 0;
+        mask |= pictureVO.getSpaceId() != null ? SPACE_ID : 0;
+        mask |= pictureVO.getCreateTime() != null ? CREATE_TIME : 0;
+        mask |= pictureVO.getEditTime() != null ? EDIT_TIME : 0;
+        mask |= pictureVO.getUpdateTime() != null ? UPDATE_TIME : 0;
+        mask |= pictureVO.getUser() != null ? USER : 0;
+        mask |= pictureVO.getPermissionList() != null ? PERMISSION_LIST : 0;
+        mask |= pictureVO.getPicColor() != null ? PIC_COLOR : 0;
+        writer.writeVarLong(mask);
+        if ((mask & ID) != 0) {
+            writer.writeZigZagLong(pictureVO.getId());
+        }
+        if ((mask & URL) != 0) {
+            writer.writeString(pictureVO.getUrl());
+        }
+        if ((mask & THUMBNAIL_URL) != 0) {
+            writer.writeString(pictureVO.getThumbnailUrl());
+        }
+        if ((mask & NAME) != 0) {
+            writer.writeString(pictureVO.getName());
+        }
+        if ((mask & INTRODUCTION) != 0) {
+            writer.writeString(pictureVO.getIntroduction());
+        }
+        if ((mask & CATEGORY) != 0) {
+            writer.writeString(pictureVO.getCategory());
+        }
+        if ((mask & TAGS) != 0) {
+            writer.writeStringList(pictureVO.getTags());
+        }
+        if ((mask & PIC_SIZE) != 0) {
+            writer.writeZigZagLong(pictureVO.getPicSize());
+        }
+        if ((mask & PIC_WIDTH) != 0) {
+            writer.writeZigZagLong(pictureVO.getPicWidth());
+        }
+        if ((mask & PIC_HEIGHT) != 0) {
+            writer.writeZigZagLong(pictureVO.getPicHeight());
+        }
+        if ((mask & PIC_SCALE) != 0) {
+            writer.writeDouble(pictureVO.getPicScale());
+        }
+        if ((mask & PIC_FORMAT) != 0) {
+            writer.writeString(pictureVO.getPicFormat());
+        }
+        if ((mask & USER_ID) != 0) {
+            writer.writeZigZagLong(pictureVO.getUserId());
+        }
+        if ((mask & SPACE_ID) != 0) {
+            writer.writeZigZagLong(pictureVO.getSpaceId());
+        }
+        if ((mask & CREATE_TIME) != 0) {
+            writer.writeDate(pictureVO.getCreateTime());
+        }
+        if ((mask & EDIT_TIME) != 0) {
+            writer.writeDate(pictureVO.getEditTime());
+        }
+        if ((mask & UPDATE_TIME) != 0) {
+            writer.writeDate(pictureVO.getUpdateTime());
+        }
+        if ((mask & USER) != 0) {
+            UserVO userVO = pictureVO.getUser();
+            Integer userIndex = userVO.getId() == null ? null : writtenUsers.get(userVO.getId());
+            if (userIndex != null) {
+                writer.writeVarLong(userIndex);
+            } else {
+                writer.writeVarLong(0);
+                UserVOCodec.write(writer, userVO);
+                // 没有 id 的用户无法引用，不分配序号（读取端同样处理）
+                if (userVO.getId() != null) {
+                    writtenUsers.put(userVO.getId(), writtenUsers.size() + 1);
+                }
+            }
+        }
+        if ((mask & PERMISSION_LIST) != 0) {
+            writer.writeStringList(pictureVO.getPermissionList());
+        }
+        if ((mask & PIC_COLOR) != 0) {
+            writer.writeString(pictureVO.getPicColor());
+        }
+    }
+
+    private PictureVO readPicture(BinaryReader reader, List<UserVO> readUsers) {
+        long mask = reader.readVarLong();
+        PictureVO pictureVO = new PictureVO();
+        if ((mask & ID) != 0) {
+            pictureVO.setId(reader.readZigZagLong());
+        }
+        if ((mask & URL) != 0) {
+            pictureVO.setUrl(reader.readString());
+        }
+        if ((mask & THUMBNAIL_URL) != 0) {
+            pictureVO.setThumbnailUrl(reader.readString());
+        }
+        if ((mask & NAME) != 0) {
+            pictureVO.setName(reader.readString());
+        }
+        if ((mask & INTRODUCTION) != 0) {
+            pictureVO.setIntroduction(reader.readString());
+        }
+        if ((mask & CATEGORY) != 0) {
+            pictureVO.setCategory(reader.readString());
+        }
+        if ((mask & TAGS) != 0) {
+            pictureVO.setTags(reader.readStringList());
+        }
+        if ((mask & PIC_SIZE) != 0) {
+            pictureVO.setPicSize(reader.readZigZagLong());
+        }
+        if ((mask & PIC_WIDTH) != 0) {
+            pictureVO.setPicWidth((int) reader.readZigZagLong());
+        }
+        if ((mask & PIC_HEIGHT) != 0) {
+            pictureVO.setPicHeight((int) reader.readZigZagLong());
+        }
+        if ((mask & PIC_SCALE) != 0) {
+            pictureVO.setPicScale(reader.readDouble());
+        }
+        if ((mask & PIC_FORMAT) != 0) {
+            pictureVO.setPicFormat(reader.readString());
+        }
+        if ((mask & USER_ID) != 0) {
+            pictureVO.setUserId(reader.readZigZagLong());
+        }
+        if ((mask & SPACE_ID) != 0) {
+            pictureVO.setSpaceId(reader.readZigZagLong());
+        }
+        if ((mask & CREATE_TIME) != 0) {
+            pictureVO.setCreateTime(reader.readDate());
+        }
+        if ((mask & EDIT_TIME) != 0) {
+            pictureVO.setEditTime(reader.readDate());
+        }
+        if ((mask & UPDATE_TIME) != 0) {
+            pictureVO.setUpdateTime(reader.readDate());
+        }
+        if ((mask & USER) != 0) {
+            int userIndex = reader.readVarInt();
+            if (userIndex == 0) {
+                UserVO userVO = UserVOCodec.read(reader);
+                if (userVO.getId() != null) {
+                    readUsers.add(userVO);
+                }
+                pictureVO.setUser(userVO);
+            } else if (userIndex <= readUsers.size()) {
+                pictureVO.setUser(readUsers.get(userIndex - 1));
+            } else {
+                throw new IllegalArgumentException("用户引用越界");
+            }
+        }
+        if ((mask & PERMISSION_LIST) != 0) {
+            pictureVO.setPermissionList(reader.readStringList());
+        } else {
+            pictureVO.setPermissionList(null);
+        }
+        if ((mask & PIC_COLOR) != 0) {
+            pictureVO.setPicColor(reader.readString());
+        }
+        return pictureVO;
+    }
+}
@@ -0,0 +1,104 @@
+package com.ping.pingpicturebackend.manager.cache.codec;
+
+import com.ping.pingpicturebackend.model.vo.UserVO;
+
+/**
+ * 用户视图二进制编解码器
+ * <p>
+ * 格式：版本号 + 字段存在位图 + 存在的字段（按声明顺序），新增字段只能追加在末尾
+ */
+public class UserVOCodec implements CacheValueCodec<UserVO> {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int ID = 1;
+    private static final int USER_ACCOUNT = 1 << 1;
+    private static final int USER_NAME = 1 << 2;
+    private static final int USER_AVATAR = 1 << 3;
+    private static final int USER_PROFILE = 1 << 4;
+    private static final int USER_ROLE = 1 << 5;
+    private static final int CREATE_TIME = 1 << 6;
+
+    @Override
+    public byte[] encode(UserVO value) {
+        BinaryWriter writer = new BinaryWriter(128);
+        writer.writeByte(FORMAT_VERSION);
+        write(writer, value);
+        return writer.toByteArray();
+    }
+
+    @Override
+    public UserVO decode(byte[] bytes) {
+        BinaryReader reader = new BinaryReader(bytes);
+        if (reader.readByte() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("不支持的用户缓存格式");
+        }
+        return read(reader);
+    }
+
+    /**
+     * 写入用户字段（不含版本号），供其他编解码器嵌套使用
+     */
+    static void write(BinaryWriter writer, UserVO userVO) {
+        int mask = 0;
+        mask |= userVO.getId() != null ? ID : 0;
+        mask |= userVO.getUserAccount() != null ? USER_ACCOUNT : 0;
+        mask |= userVO.getUserName() != null ? USER_NAME : 0;
+        mask |= userVO.getUserAvatar() != null ? USER_AVATAR : 0;
+        mask |= userVO.getUserProfile() != null ? USER_PROFILE : 0;
+        mask |= userVO.getUserRole() != null ? USER_ROLE : 0;
+        mask |= userVO.getCreateTime() != null ? CREATE_TIME : 0;
+        writer.writeVarLong(mask);
+        if ((mask & ID) != 0) {
+            writer.writeZigZagLong(userVO.getId());
+        }
+        if ((mask & USER_ACCOUNT) != 0) {
+            writer.writeString(userVO.getUserAccount());
+        }
+        if ((mask & USER_NAME) != 0) {
+            writer.writeString(userVO.getUserName());
+        }
+        if ((mask & USER_AVATAR) != 0) {
+            writer.writeString(userVO.getUserAvatar());
+        }
+        if ((mask & USER_PROFILE) != 0) {
+            writer.writeString(userVO.getUserProfile());
+        }
+        if ((mask & USER_ROLE) != 0) {
+            writer.writeString(userVO.getUserRole());
+        }
+        if ((mask & CREATE_TIME) != 0) {
+            writer.writeDate(userVO.getCreateTime());
+        }
+    }
+
+    /**
+     * 读取用户字段（不含版本号）
+     */
+    static UserVO read(BinaryReader reader) {
+        long mask = reader.readVarLong();
+        UserVO userVO = new UserVO();
+        if ((mask & ID) != 0) {
+            userVO.setId(reader.readZigZagLong());
+        }
+        if ((mask & USER_ACCOUNT) != 0) {
+            userVO.setUserAccount(reader.readString());
+        }
+        if ((mask & USER_NAME) != 0) {
+            userVO.setUserName(reader.readString());
+        }
+        if ((mask & USER_AVATAR) != 0) {
+            userVO.setUserAvatar(reader.readString());
+        }
+        if ((mask & USER_PROFILE) != 0) {
+            userVO.setUserProfile(reader.readString());
+        }
+        if ((mask & USER_ROLE) != 0) {
+            userVO.setUserRole(reader.readString());
+        }
+        if ((mask & CREATE_TIME) != 0) {
+            userVO.setCreateTime(reader.readDate());
+        }
+        return userVO;
+    }
+}
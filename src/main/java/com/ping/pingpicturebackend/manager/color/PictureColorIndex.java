@@ -0,0 +1,126 @@
+package com.ping.pingpicturebackend.manager.color;
+
+import com.ping.pingpicturebackend.manager.search.TopKHeap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 单个空间的图片主色调索引
+ * <p>
+ * 图片 id 和打包后的 RGB 值分别存放在原始类型数组中，查询时线性扫描并用大小为 K 的最大堆保留最相似的结果，
+ * 不需要为每次比较创建对象，也不需要对全部图片排序
+ */
+public class PictureColorIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] pictureIds = new long[16];
+
+    /**
+     * 0xRRGGBB
+     */
+    private int[] rgbs = new int[16];
+
+    private int size;
+
+    /**
+     * 图片 id -> 数组下标
+     */
+    private final Map<Long, Integer> slotMap = new HashMap<>();
+
+    /**
+     * 新增或更新图片的主色调
+     *
+     * @param pictureId 图片 id
+     * @param rgb       0xRRGGBB
+     */
+    public void put(long pictureId, int rgb) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotMap.get(pictureId);
+            if (slot != null) {
+                rgbs[slot] = rgb;
+                return;
+            }
+            if (size == pictureIds.length) {
+                pictureIds = Arrays.copyOf(pictureIds, size * 2);
+                rgbs = Arrays.copyOf(rgbs, size * 2);
+            }
+            pictureIds[size] = pictureId;
+            rgbs[size] = rgb;
+            slotMap.put(pictureId, size);
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除图片，用最后一个元素填补空位
+     *
+     * @param pictureId 图片 id
+     */
+    public void remove(long pictureId) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotMap.remove(pictureId);
+            if (slot == null) {
+                return;
+            }
+            int last = --size;
+            if (slot != last) {
+                pictureIds[slot] = pictureIds[last];
+                rgbs[slot] = rgbs[last];
+                slotMap.put(pictureIds[slot], slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查询与目标颜色最相似的图片（RGB 欧氏距离最小）
+     *
+     * @param rgb   目标颜色 0xRRGGBB
+     * @param limit 返回数量
+     * @return 图片 id，按相似度从高到低排列
+     */
+    public long[] topK(int rgb, int limit) {
+        int r = (rgb >> 16) & 0xFF;
+        int g = (rgb >> 8) & 0xFF;
+        int b = rgb & 0xFF;
+        lock.readLock().lock();
+        try {
+            int k = Math.min(limit, size);
+            if (k <= 0) {
+                return new long[0];
+            }
+            TopKHeap heap = new TopKHeap(k);
+            for (int i = 0; i < size; i++) {
+                int value = rgbs[i];
+                int dr = ((value >> 16) & 0xFF) - r;
+                int dg = ((value >> 8) & 0xFF) - g;
+                int db = (value & 0xFF) - b;
+                heap.offer(pictureIds[i], dr * dr + dg * dg + db * db);
+            }
+            return heap.drainAscending();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 图片数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.ping.pingpicturebackend.manager.color;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ping.pingpicture.infrastructure.mapper.PictureMapper;
+import com.ping.pingpicture.infrastructure.utils.CieLabUtils;
+import com.ping.pingpicture.infrastructure.utils.ColorPaletteUtils;
+import com.ping.pingpicture.infrastructure.utils.ColorPaletteUtils.PaletteColor;
+import com.ping.pingpicturebackend.manager.event.PictureChangeEvent;
+import com.ping.pingpicturebackend.manager.event.PictureChangeHandler;
+import com.ping.pingpicturebackend.manager.event.model.PictureChangeTypeEnum;
+import com.ping.pingpicturebackend.model.entity.Picture;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图片颜色索引管理
+ * <p>
+ * 首次按颜色搜索某个空间时，只读取 id、picColor、picPalette 三列构建该空间的
+ * {@link PictureColorIndex}（平均色）和 {@link PicturePaletteIndex}（主色板），
+ * 之后根据图片变更广播增量维护；查询在内存中完成，数据库只需要按 id 取回最终结果。
+ * <p>
+ * 没有主色板的历史图片以平均色作为唯一的色板颜色
+ */
+@Slf4j
+@Component
+public class PictureColorIndexManager implements PictureChangeHandler {
+
+    /**
+     * 缓存的空间数量上限
+     */
+    private static final int MAX_SPACE_COUNT = 512;
+
+    /**
+     * 加载空间时每批读取的图片数量
+     */
+    private static final int LOAD_BATCH_SIZE = 5000;
+
+    @Resource
+    private PictureMapper pictureMapper;
+
+    /**
+     * 空间 id -> 颜色索引
+     */
+    private final Cache<Long, SpaceColorIndex> spaceIndexCache = Caffeine.newBuilder()
+            .maximumSize(MAX_SPACE_COUNT)
+            .expireAfterAccess(30, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * 查询空间内与目标颜色最相似的图片
+     *
+     * @param spaceId 空间 id
+     * @param rgb     目标颜色 0xRRGGBB
+     * @param limit   返回数量
+     * @return 图片 id，按相似度从高到低排列
+     */
+    public long[] searchSimilar(long spaceId, int rgb, int limit) {
+        return spaceIndexCache.get(spaceId, this::loadSpace).averageIndex.topK(rgb, limit);
+    }
+
+    /**
+     * 按多个颜色查询空间内主色板最相似的图片
+     *
+     * @param spaceId 空间 id
+     * @param rgbs    查询颜色 0xRRGGBB
+     * @param weights 查询颜色的权重
+     * @param limit   返回数量
+     * @return 图片 id，按相似度从高到低排列
+     */
+    public long[] searchByPalette(long spaceId, int[] rgbs, float[] weights, int limit) {
+        float[] queryLabs = new float[rgbs.length * 3];
+        for (int i = 0; i < rgbs.length; i++) {
+            CieLabUtils.rgbToLab(rgbs[i], queryLabs, i * 3);
+        }
+        return spaceIndexCache.get(spaceId, this::loadSpace).paletteIndex.search(queryLabs, weights, limit);
+    }
+
+    @Override
+    public void onPictureChange(PictureChangeEvent pictureChangeEvent) {
+        List<Long> pictureIdList = pictureChangeEvent.getPictureIdList();
+        Long spaceId = pictureChangeEvent.getSpaceId();
+        // 只有私有空间支持按颜色搜索
+        if (spaceId == null || CollUtil.isEmpty(pictureIdList)) {
+            return;
+        }
+        SpaceColorIndex index = spaceIndexCache.getIfPresent(spaceId);
+        if (index == null) {
+            // 可能正在加载，加载结果不一定包含本次变更，等加载完成后丢弃，下次查询重新加载
+            spaceIndexCache.invalidate(spaceId);
+            return;
+        }
+        if (PictureChangeTypeEnum.DELETE.getValue().equals(pictureChangeEvent.getChangeType())) {
+            pictureIdList.forEach(index::remove);
+            return;
+        }
+        List<Picture> pictureList = pictureMapper.selectList(new QueryWrapper<Picture>()
+                .select("id", "picColor", "picPalette")
+                .in("id", pictureIdList));
+        Set<Long> indexedIdSet = new HashSet<>();
+        for (Picture picture : pictureList) {
+            if (index.put(picture)) {
+                indexedIdSet.add(picture.getId());
+            }
+        }
+        // 已删除或没有主色调的图片从索引中移除
+        for (Long pictureId : pictureIdList) {
+            if (!indexedIdSet.contains(pictureId)) {
+                index.remove(pictureId);
+            }
+        }
+    }
+
+    /**
+     * 解析颜色字符串
+     *
+     * @param color 颜色，如 0xRRGGBB、#RRGGBB
+     * @return 0xRRGGBB，格式错误时返回 null
+     */
+    public static Integer parseColor(String color) {
+        if (StrUtil.isBlank(color)) {
+            return null;
+        }
+        try {
+            return Integer.decode(color.trim()) & 0xFFFFFF;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private SpaceColorIndex loadSpace(Long spaceId) {
+        long startTime = System.currentTimeMillis();
+        SpaceColorIndex index = new SpaceColorIndex();
+        long lastId = 0;
+        while (true) {
+            List<Picture> pictureList = pictureMapper.selectList(new QueryWrapper<Picture>()
+                    .select("id", "picColor", "picPalette")
+                    .eq("spaceId", spaceId)
+                    .isNotNull("picColor")
+                    .gt("id", lastId)
+                    .orderByAsc("id")
+                    .last("limit " + LOAD_BATCH_SIZE));
+            pictureList.forEach(index::put);
+            if (pictureList.size() < LOAD_BATCH_SIZE) {
+                break;
+            }
+            lastId = pictureList.get(pictureList.size() - 1).getId();
+        }
+        log.info("颜色索引加载完成，spaceId = {}，图片数 = {}，耗时 = {} ms",
+                spaceId, index.averageIndex.size(), System.currentTimeMillis() - startTime);
+        return index;
+    }
+
+    /**
+     * 单个空间的颜色索引
+     */
+    private static class SpaceColorIndex {
+
+        private final PictureColorIndex averageIndex = new PictureColorIndex();
+
+        private final PicturePaletteIndex paletteIndex = new PicturePaletteIndex();
+
+        /**
+         * 按图片的平均色和主色板更新索引
+         *
+         * @return 是否已加入索引（没有有效颜色时返回 false）
+         */
+        boolean put(Picture picture) {
+            Integer rgb = parseColor(picture.getPicColor());
+            if (rgb == null) {
+                return false;
+            }
+            averageIndex.put(picture.getId(), rgb);
+            List<PaletteColor> palette = ColorPaletteUtils.parsePalette(picture.getPicPalette());
+            if (palette.isEmpty()) {
+                palette = Collections.singletonList(new PaletteColor(rgb, 1f));
+            }
+            paletteIndex.put(picture.getId(), palette);
+            return true;
+        }
+
+        void remove(Long pictureId) {
+            averageIndex.remove(pictureId);
+            paletteIndex.remove(pictureId);
+        }
+    }
+}
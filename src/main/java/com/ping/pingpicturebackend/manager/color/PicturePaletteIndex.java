@@ -0,0 +1,196 @@
+package com.ping.pingpicturebackend.manager.color;
+
+import com.ping.pingpicture.infrastructure.utils.CieLabUtils;
+import com.ping.pingpicture.infrastructure.utils.ColorPaletteUtils.PaletteColor;
+import com.ping.pingpicturebackend.manager.search.TopKHeap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 单个空间的图片主色板索引（CIELAB）
+ * <p>
+ * 每张图片固定占用 {@link #SLOTS} 个槽位，L、a、b 分量和占比惩罚分别存放在连续的 float 数组中（SoA），
+ * 查询时对整个数组计算色差，循环体内没有分支和对象，JIT 可以自动向量化。
+ * <p>
+ * 图片对单个查询颜色的距离 = min(色板颜色的 ΔE + (1 - 占比) * {@link #RATIO_PENALTY})，
+ * 多个查询颜色按权重求和，得分越小越相似
+ */
+public class PicturePaletteIndex {
+
+    /**
+     * 每张图片的色板槽位数
+     */
+    public static final int SLOTS = 5;
+
+    /**
+     * 占比惩罚系数：颜色匹配但只占很小面积时，相当于多出约 20 的色差
+     */
+    private static final float RATIO_PENALTY = 20f;
+
+    /**
+     * 空槽位的 L 值，远离所有真实颜色，求最小值时不会被选中
+     */
+    private static final float EMPTY_L = 10000f;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] pictureIds = new long[16];
+
+    private float[] ls = new float[16 * SLOTS];
+
+    private float[] as = new float[16 * SLOTS];
+
+    private float[] bs = new float[16 * SLOTS];
+
+    private float[] penalties = new float[16 * SLOTS];
+
+    private int size;
+
+    /**
+     * 图片 id -> 图片下标
+     */
+    private final Map<Long, Integer> slotMap = new HashMap<>();
+
+    /**
+     * 新增或更新图片的主色板
+     *
+     * @param pictureId 图片 id
+     * @param palette   主色板（至少一个颜色，超过 SLOTS 的部分忽略）
+     */
+    public void put(long pictureId, List<PaletteColor> palette) {
+        if (palette == null || palette.isEmpty()) {
+            remove(pictureId);
+            return;
+        }
+        float[] lab = new float[3];
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotMap.get(pictureId);
+            if (slot == null) {
+                if (size == pictureIds.length) {
+                    grow();
+                }
+                slot = size++;
+                pictureIds[slot] = pictureId;
+                slotMap.put(pictureId, slot);
+            }
+            int base = slot * SLOTS;
+            for (int i = 0; i < SLOTS; i++) {
+                if (i < palette.size()) {
+                    PaletteColor paletteColor = palette.get(i);
+                    CieLabUtils.rgbToLab(paletteColor.getRgb(), lab, 0);
+                    ls[base + i] = lab[0];
+                    as[base + i] = lab[1];
+                    bs[base + i] = lab[2];
+                    penalties[base + i] = (1 - paletteColor.getRatio()) * RATIO_PENALTY;
+                } else {
+                    ls[base + i] = EMPTY_L;
+                    as[base + i] = 0;
+                    bs[base + i] = 0;
+                    penalties[base + i] = 0;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除图片，用最后一张图片填补空位
+     *
+     * @param pictureId 图片 id
+     */
+    public void remove(long pictureId) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotMap.remove(pictureId);
+            if (slot == null) {
+                return;
+            }
+            int last = --size;
+            if (slot != last) {
+                pictureIds[slot] = pictureIds[last];
+                System.arraycopy(ls, last * SLOTS, ls, slot * SLOTS, SLOTS);
+                System.arraycopy(as, last * SLOTS, as, slot * SLOTS, SLOTS);
+                System.arraycopy(bs, last * SLOTS, bs, slot * SLOTS, SLOTS);
+                System.arraycopy(penalties, last * SLOTS, penalties, slot * SLOTS, SLOTS);
+                slotMap.put(pictureIds[slot], slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 按多个颜色查询最相似的图片
+     *
+     * @param queryLabs    查询颜色的 L、a、b，依次排列
+     * @param queryWeights 查询颜色的权重
+     * @param limit        返回数量
+     * @return 图片 id，按相似度从高到低排列
+     */
+    public long[] search(float[] queryLabs, float[] queryWeights, int limit) {
+        lock.readLock().lock();
+        try {
+            int k = Math.min(limit, size);
+            if (k <= 0) {
+                return new long[0];
+            }
+            int n = size * SLOTS;
+            float[] distances = new float[n];
+            float[] scores = new float[size];
+            for (int q = 0; q < queryWeights.length; q++) {
+                float ql = queryLabs[q * 3];
+                float qa = queryLabs[q * 3 + 1];
+                float qb = queryLabs[q * 3 + 2];
+                float weight = queryWeights[q];
+                // 连续数组上的逐元素计算，可以被向量化
+                for (int j = 0; j < n; j++) {
+                    float dl = ls[j] - ql;
+                    float da = as[j] - qa;
+                    float db = bs[j] - qb;
+                    distances[j] = (float) Math.sqrt(dl * dl + da * da + db * db) + penalties[j];
+                }
+                for (int i = 0, base = 0; i < size; i++, base += SLOTS) {
+                    float min = distances[base];
+                    for (int s = 1; s < SLOTS; s++) {
+                        min = Math.min(min, distances[base + s]);
+                    }
+                    scores[i] += weight * min;
+                }
+            }
+            TopKHeap heap = new TopKHeap(k);
+            for (int i = 0; i < size; i++) {
+                heap.offer(pictureIds[i], scores[i]);
+            }
+            return heap.drainAscending();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 图片数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void grow() {
+        int capacity = pictureIds.length * 2;
+        pictureIds = Arrays.copyOf(pictureIds, capacity);
+        ls = Arrays.copyOf(ls, capacity * SLOTS);
+        as = Arrays.copyOf(as, capacity * SLOTS);
+        bs = Arrays.copyOf(bs, capacity * SLOTS);
+        penalties = Arrays.copyOf(penalties, capacity * SLOTS);
+    }
+}
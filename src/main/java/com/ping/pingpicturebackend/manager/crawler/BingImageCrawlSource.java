@@ -0,0 +1,59 @@
+package com.ping.pingpicturebackend.manager.crawler;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 必应图片搜索来源
+ */
+@Slf4j
+@Component
+public class BingImageCrawlSource implements CrawlSource {
+
+    /**
+     * 每页图片数
+     */
+    private static final int PAGE_SIZE = 35;
+
+    private static final int TIMEOUT_MILLIS = 10000;
+
+    @Override
+    public String getHost() {
+        return "cn.bing.com";
+    }
+
+    @Override
+    public List<String> fetchPage(String keyword, int pageIndex) throws IOException {
+        String fetchUrl = String.format("https://cn.bing.com/images/async?q=%s&first=%d&count=%d&mmasync=1",
+                URLEncoder.encode(keyword, "UTF-8"), pageIndex * PAGE_SIZE + 1, PAGE_SIZE);
+        Document document = Jsoup.connect(fetchUrl).timeout(TIMEOUT_MILLIS).get();
+        Element div = document.getElementsByClass("dgControl").first();
+        if (div == null) {
+            return Collections.emptyList();
+        }
+        List<String> urlList = new ArrayList<>();
+        for (Element imgElement : div.select("img.mimg")) {
+            String imgUrl = imgElement.attr("src");
+            if (StrUtil.isBlank(imgUrl)) {
+                continue;
+            }
+            // 去掉缩放参数，防止出现转义问题
+            int questionMarkIndex = imgUrl.indexOf("?");
+            if (questionMarkIndex != -1) {
+                imgUrl = imgUrl.substring(0, questionMarkIndex);
+            }
+            urlList.add(imgUrl);
+        }
+        return urlList;
+    }
+}
@@ -0,0 +1,15 @@
+package com.ping.pingpicturebackend.manager.crawler;
+
+/**
+ * 抓取到的单个图片的处理逻辑（如上传入库），抛出异常视为失败
+ */
+@FunctionalInterface
+public interface CrawlItemHandler {
+
+    /**
+     * 处理图片
+     *
+     * @param url 图片地址
+     */
+    void handle(String url) throws Exception;
+}
@@ -0,0 +1,113 @@
+package com.ping.pingpicturebackend.manager.crawler;
+
+import com.ping.pingpicturebackend.model.enums.CrawlJobStatusEnum;
+import com.ping.pingpicturebackend.model.vo.CrawlJobVO;
+
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 抓取任务及其进度
+ */
+public class CrawlJob {
+
+    private final String jobId;
+
+    private final String keyword;
+
+    private final int targetCount;
+
+    private final Date createTime = new Date();
+
+    final AtomicInteger pageCount = new AtomicInteger();
+
+    final AtomicInteger discoveredCount = new AtomicInteger();
+
+    final AtomicInteger duplicateCount = new AtomicInteger();
+
+    final AtomicInteger succeededCount = new AtomicInteger();
+
+    final AtomicInteger failedCount = new AtomicInteger();
+
+    private volatile String status = CrawlJobStatusEnum.RUNNING.getValue();
+
+    private volatile String message;
+
+    private volatile Date finishTime;
+
+    private final CompletableFuture<CrawlJob> completion = new CompletableFuture<>();
+
+    CrawlJob(String jobId, String keyword, int targetCount) {
+        this.jobId = jobId;
+        this.keyword = keyword;
+        this.targetCount = targetCount;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public int getTargetCount() {
+        return targetCount;
+    }
+
+    public int getSucceededCount() {
+        return succeededCount.get();
+    }
+
+    /**
+     * 失败原因
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * 等待任务结束
+     *
+     * @return 任务本身
+     */
+    public CrawlJob await() {
+        return completion.join();
+    }
+
+    void finish() {
+        complete(CrawlJobStatusEnum.FINISHED, null);
+    }
+
+    void fail(String message) {
+        complete(CrawlJobStatusEnum.FAILED, message);
+    }
+
+    private void complete(CrawlJobStatusEnum statusEnum, String message) {
+        this.message = message;
+        this.finishTime = new Date();
+        this.status = statusEnum.getValue();
+        completion.complete(this);
+    }
+
+    /**
+     * 当前进度
+     */
+    public CrawlJobVO toVO() {
+        CrawlJobVO crawlJobVO = new CrawlJobVO();
+        crawlJobVO.setJobId(jobId);
+        crawlJobVO.setKeyword(keyword);
+        crawlJobVO.setStatus(status);
+        crawlJobVO.setMessage(message);
+        crawlJobVO.setTargetCount(targetCount);
+        crawlJobVO.setPageCount(pageCount.get());
+        crawlJobVO.setDiscoveredCount(discoveredCount.get());
+        crawlJobVO.setDuplicateCount(duplicateCount.get());
+        crawlJobVO.setSucceededCount(succeededCount.get());
+        crawlJobVO.setFailedCount(failedCount.get());
+        crawlJobVO.setCreateTime(createTime);
+        crawlJobVO.setFinishTime(finishTime);
+        return crawlJobVO;
+    }
+}
@@ -0,0 +1,24 @@
+package com.ping.pingpicturebackend.manager.crawler;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 抓取来源：按关键词分页获取图片地址
+ */
+public interface CrawlSource {
+
+    /**
+     * 来源主机，用于按主机限速
+     */
+    String getHost();
+
+    /**
+     * 获取一页图片地址
+     *
+     * @param keyword   关键词
+     * @param pageIndex 页码，从 0 开始
+     * @return 图片地址，没有更多结果时返回空列表
+     */
+    List<String> fetchPage(String keyword, int pageIndex) throws IOException;
+}
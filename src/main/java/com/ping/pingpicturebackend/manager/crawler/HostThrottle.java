@@ -0,0 +1,77 @@
+package com.ping.pingpicturebackend.manager.crawler;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按主机限速：限制同一主机的并发请求数和相邻请求的最小间隔
+ */
+public class HostThrottle {
+
+    private final long minIntervalNanos;
+
+    private final int maxConcurrentPerHost;
+
+    private final Map<String, HostState> hostStates = new ConcurrentHashMap<>();
+
+    /**
+     * @param minIntervalMillis    同一主机相邻请求的最小间隔（毫秒）
+     * @param maxConcurrentPerHost 同一主机的最大并发请求数
+     */
+    public HostThrottle(long minIntervalMillis, int maxConcurrentPerHost) {
+        this.minIntervalNanos = TimeUnit.MILLISECONDS.toNanos(minIntervalMillis);
+        this.maxConcurrentPerHost = maxConcurrentPerHost;
+    }
+
+    /**
+     * 获取请求许可，必要时等待，之后必须调用 release
+     *
+     * @param host 主机
+     */
+    public void acquire(String host) throws InterruptedException {
+        HostState hostState = hostStates.computeIfAbsent(host, key -> new HostState(maxConcurrentPerHost));
+        hostState.semaphore.acquire();
+        long waitNanos;
+        synchronized (hostState) {
+            // 预约下一个时间槽，多个线程依次排开
+            long now = System.nanoTime();
+            long slot = Math.max(now, hostState.nextSlotNanos);
+            hostState.nextSlotNanos = slot + minIntervalNanos;
+            waitNanos = slot - now;
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                hostState.semaphore.release();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 释放请求许可
+     *
+     * @param host 主机
+     */
+    public void release(String host) {
+        HostState hostState = hostStates.get(host);
+        if (hostState != null) {
+            hostState.semaphore.release();
+        }
+    }
+
+    private static class HostState {
+
+        private final Semaphore semaphore;
+
+        private long nextSlotNanos;
+
+        HostState(int permits) {
+            this.semaphore = new Semaphore(permits);
+            this.nextSlotNanos = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.ping.pingpicturebackend.manager.crawler;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.URLUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ping.pingpicture.infrastructure.exception.BusinessException;
+import com.ping.pingpicture.infrastructure.exception.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图片抓取引擎
+ * <p>
+ * 每个任务由一个调度线程分页获取图片地址，去重后交给共享的工作线程池并发处理，
+ * 同一任务同时处理的图片不超过 {@link #JOB_PARALLELISM}，且不会超过剩余目标数量（成功数正好达到目标）；
+ * 所有请求按主机限速，避免对同一站点造成压力。
+ * 抓取来源和单个图片的处理逻辑由调用方传入，可用于手动批量抓取和定时抓取
+ */
+@Slf4j
+@Component
+public class PictureCrawler {
+
+    /**
+     * 单个任务同时处理的图片数
+     */
+    private static final int JOB_PARALLELISM = 4;
+
+    /**
+     * 单个任务最多抓取的页数
+     */
+    private static final int MAX_PAGE_COUNT = 20;
+
+    /**
+     * 已成功处理的图片地址，跨任务去重（重启后清空）
+     */
+    private final UrlBloomFilter processedUrlFilter = new UrlBloomFilter(1_000_000, 0.01);
+
+    /**
+     * 同一主机相邻请求至少间隔 100ms，最多 4 个并发
+     */
+    private final HostThrottle hostThrottle = new HostThrottle(100L, 4);
+
+    /**
+     * 任务进度，结束后保留一段时间供查询
+     */
+    private final Cache<String, CrawlJob> jobCache = Caffeine.newBuilder()
+            .maximumSize(1000L)
+            .expireAfterWrite(1L, TimeUnit.HOURS)
+            .build();
+
+    /**
+     * 调度线程池，每个任务占用一个线程，队列满时拒绝新任务
+     */
+    private final ThreadPoolExecutor jobExecutor = new ThreadPoolExecutor(
+            2, 2, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(8),
+            ThreadFactoryBuilder.create().setNamePrefix("crawlJob-").build(),
+            new ThreadPoolExecutor.AbortPolicy());
+
+    /**
+     * 工作线程池，所有任务共享
+     */
+    private final ThreadPoolExecutor workerExecutor = new ThreadPoolExecutor(
+            8, 8, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(64),
+            ThreadFactoryBuilder.create().setNamePrefix("crawlWorker-").build(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+    /**
+     * 提交抓取任务
+     *
+     * @param source      抓取来源
+     * @param keyword     关键词
+     * @param targetCount 目标成功数量
+     * @param handler     单个图片的处理逻辑
+     * @return 抓取任务
+     */
+    public CrawlJob submit(CrawlSource source, String keyword, int targetCount, CrawlItemHandler handler) {
+        CrawlJob crawlJob = new CrawlJob(IdUtil.fastSimpleUUID(), keyword, targetCount);
+        jobCache.put(crawlJob.getJobId(), crawlJob);
+        try {
+            jobExecutor.execute(() -> runJob(crawlJob, source, handler));
+        } catch (RejectedExecutionException e) {
+            jobCache.invalidate(crawlJob.getJobId());
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "抓取任务过多，请稍后再试");
+        }
+        return crawlJob;
+    }
+
+    /**
+     * 查询抓取任务
+     *
+     * @param jobId 任务 id
+     * @return 抓取任务，不存在或已过期时返回 null
+     */
+    public CrawlJob getJob(String jobId) {
+        return jobCache.getIfPresent(jobId);
+    }
+
+    private void runJob(CrawlJob crawlJob, CrawlSource source, CrawlItemHandler handler) {
+        CompletionService<Boolean> completionService = new ExecutorCompletionService<>(workerExecutor);
+        Set<String> seenUrls = new HashSet<>();
+        int targetCount = crawlJob.getTargetCount();
+        int inFlight = 0;
+        try {
+            pageLoop:
+            for (int pageIndex = 0; pageIndex < MAX_PAGE_COUNT; pageIndex++) {
+                List<String> urlList;
+                try {
+                    urlList = fetchPage(source, crawlJob.getKeyword(), pageIndex);
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    // 第一页就失败时任务失败，否则保留已抓取的结果
+                    if (pageIndex == 0) {
+                        throw e;
+                    }
+                    log.warn("获取第 {} 页失败，停止翻页：{}", pageIndex + 1, e.getMessage());
+                    break;
+                }
+                crawlJob.pageCount.incrementAndGet();
+                if (urlList.isEmpty()) {
+                    break;
+                }
+                for (String url : urlList) {
+                    crawlJob.discoveredCount.incrementAndGet();
+                    // 处理中的图片可能全部成功，先等待结果，避免超过目标数量
+                    while (inFlight > 0 && (inFlight >= JOB_PARALLELISM
+                            || crawlJob.getSucceededCount() + inFlight >= targetCount)) {
+                        completionService.take();
+                        inFlight--;
+                    }
+                    if (crawlJob.getSucceededCount() >= targetCount) {
+                        break pageLoop;
+                    }
+                    if (!seenUrls.add(url) || processedUrlFilter.mightContain(url)) {
+                        crawlJob.duplicateCount.incrementAndGet();
+                        continue;
+                    }
+                    completionService.submit(() -> crawlOne(crawlJob, url, handler));
+                    inFlight++;
+                }
+            }
+            while (inFlight > 0) {
+                completionService.take();
+                inFlight--;
+            }
+            crawlJob.finish();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            crawlJob.fail("抓取任务被中断");
+        } catch (Exception e) {
+            log.error("抓取任务失败，jobId = {}", crawlJob.getJobId(), e);
+            crawlJob.fail(e instanceof BusinessException ? e.getMessage() : "获取页面失败");
+        }
+        log.info("抓取任务结束：{}", crawlJob.toVO());
+    }
+
+    private List<String> fetchPage(CrawlSource source, String keyword, int pageIndex) throws Exception {
+        String host = source.getHost();
+        hostThrottle.acquire(host);
+        try {
+            return source.fetchPage(keyword, pageIndex);
+        } finally {
+            hostThrottle.release(host);
+        }
+    }
+
+    private Boolean crawlOne(CrawlJob crawlJob, String url, CrawlItemHandler handler) {
+        String host;
+        try {
+            host = URLUtil.url(url).getHost();
+        } catch (Exception e) {
+            crawlJob.failedCount.incrementAndGet();
+            return false;
+        }
+        try {
+            hostThrottle.acquire(host);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            crawlJob.failedCount.incrementAndGet();
+            return false;
+        }
+        try {
+            handler.handle(url);
+            processedUrlFilter.put(url);
+            crawlJob.succeededCount.incrementAndGet();
+            return true;
+        } catch (Exception e) { // 防止一个图片处理失败导致整个任务失败
+            log.warn("抓取图片失败，url = {}，原因：{}", url, e.getMessage());
+            crawlJob.failedCount.incrementAndGet();
+            return false;
+        } finally {
+            hostThrottle.release(host);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        jobExecutor.shutdownNow();
+        workerExecutor.shutdownNow();
+    }
+}
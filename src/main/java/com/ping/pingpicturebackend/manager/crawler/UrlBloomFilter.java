@@ -0,0 +1,95 @@
+package com.ping.pingpicturebackend.manager.crawler;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 线程安全的布隆过滤器，用于抓取时过滤已处理过的图片地址
+ * <p>
+ * 存在误判（少量新地址被当作已处理而跳过），但不会漏判，内存占用固定
+ */
+public class UrlBloomFilter {
+
+    private final AtomicLongArray bits;
+
+    private final long bitCount;
+
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions 预计插入数量
+     * @param falsePositiveRate  期望误判率
+     */
+    public UrlBloomFilter(int expectedInsertions, double falsePositiveRate) {
+        long optimalBits = (long) (-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int longCount = (int) Math.max(1, (optimalBits + 63) / 64);
+        this.bits = new AtomicLongArray(longCount);
+        this.bitCount = longCount * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / Math.max(1, expectedInsertions) * Math.log(2)));
+    }
+
+    /**
+     * 是否可能已存在
+     */
+    public boolean mightContain(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1);
+        for (int i = 0; i < hashCount; i++) {
+            long index = index(hash1 + i * hash2);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 加入过滤器
+     *
+     * @return 加入前是否一定不存在
+     */
+    public boolean put(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1);
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++) {
+            long index = index(hash1 + i * hash2);
+            int slot = (int) (index >>> 6);
+            long mask = 1L << index;
+            long old;
+            do {
+                old = bits.get(slot);
+                if ((old & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(slot, old, old | mask));
+            changed |= (old & mask) == 0;
+        }
+        return changed;
+    }
+
+    private long index(long combinedHash) {
+        return (combinedHash & Long.MAX_VALUE) % bitCount;
+    }
+
+    /**
+     * FNV-1a 64 位哈希
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * SplitMix64 混淆，用于派生第二个哈希
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
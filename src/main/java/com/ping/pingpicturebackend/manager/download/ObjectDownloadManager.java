@@ -0,0 +1,265 @@
+package com.ping.pingpicturebackend.manager.download;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.core.util.URLUtil;
+import com.ping.pingpicture.infrastructure.api.storage.ObjectStorage;
+import com.ping.pingpicture.infrastructure.api.storage.StorageObject;
+import com.ping.pingpicture.infrastructure.api.storage.StorageObjectInfo;
+import com.ping.pingpicture.infrastructure.exception.ErrorCode;
+import com.ping.pingpicture.infrastructure.exception.ThrowUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 对象下载
+ * <p>
+ * 按固定大小的缓冲区流式发送，不把整个对象读入内存；支持单段 Range 请求，
+ * 以及 ETag / Last-Modified 条件请求（命中时返回 304，不读取对象内容）。
+ * 本地磁盘存储优先使用 Tomcat 的 sendfile（由容器在内核中直接发送文件），不支持时用 FileChannel.transferTo
+ */
+@Slf4j
+@Component
+public class ObjectDownloadManager {
+
+    /**
+     * 流式发送的缓冲区大小
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+
+    private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+    @Resource
+    private ObjectStorage objectStorage;
+
+    /**
+     * 发送对象
+     *
+     * @param key          对象键
+     * @param request      请求对象
+     * @param response     响应对象
+     * @param attachment   是否作为附件下载
+     * @param cacheControl Cache-Control 响应头，为空时不设置
+     */
+    public void download(String key, HttpServletRequest request, HttpServletResponse response,
+                         boolean attachment, String cacheControl) throws IOException {
+        StorageObjectInfo objectInfo = objectStorage.headObject(key);
+        ThrowUtils.throwIf(objectInfo == null, ErrorCode.NOT_FOUND_ERROR, "文件不存在");
+        String eTag = "\"" + objectInfo.getETag() + "\"";
+        // Last-Modified 只精确到秒
+        long lastModified = objectInfo.getLastModified() >= 0 ? objectInfo.getLastModified() / 1000 * 1000 : -1L;
+        response.setHeader("Accept-Ranges", "bytes");
+        response.setHeader("ETag", eTag);
+        if (lastModified >= 0) {
+            response.setDateHeader("Last-Modified", lastModified);
+        }
+        if (StrUtil.isNotBlank(cacheControl)) {
+            response.setHeader("Cache-Control", cacheControl);
+        }
+        // 1. 条件请求
+        if (isNotModified(request, eTag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        // 2. 范围请求
+        long totalLength = objectInfo.getContentLength();
+        long start = 0;
+        long end = totalLength - 1;
+        String range = request.getHeader("Range");
+        if (range != null && isRangeApplicable(request, eTag, lastModified)) {
+            long[] byteRange = parseRange(range, totalLength);
+            if (byteRange == null) {
+                response.setHeader("Content-Range", "bytes */" + totalLength);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (byteRange.length == 2) {
+                start = byteRange[0];
+                end = byteRange[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", String.format("bytes %d-%d/%d", start, end, totalLength));
+            }
+        }
+        long length = end - start + 1;
+        String mimeType = FileUtil.getMimeType(key);
+        response.setContentType(mimeType != null ? mimeType : "application/octet-stream");
+        if (attachment) {
+            response.setHeader("Content-Disposition",
+                    "attachment;filename=" + URLUtil.encode(FileUtil.getName(key)));
+        }
+        response.setContentLengthLong(length);
+        if (length == 0 || "HEAD".equals(request.getMethod())) {
+            return;
+        }
+        // 3. 发送内容
+        File localFile = objectStorage.getLocalFile(key);
+        if (localFile != null) {
+            sendFile(localFile, start, length, request, response);
+        } else {
+            // 读取整个对象时按整体读取（长度传 -1），远程存储才会把对象填充到本地缓存
+            boolean fullObject = start == 0 && length == totalLength;
+            sendStream(key, start, fullObject ? -1 : length, response);
+        }
+    }
+
+    /**
+     * 协商缓存：If-None-Match 优先，没有时才看 If-Modified-Since
+     */
+    private boolean isNotModified(HttpServletRequest request, String eTag, long lastModified) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            return matchesETag(ifNoneMatch, eTag);
+        }
+        long ifModifiedSince = getDateHeader(request, "If-Modified-Since");
+        return lastModified >= 0 && ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+    }
+
+    /**
+     * If-Range 存在时，只有对象未变化才按范围返回，否则返回整个对象
+     */
+    private boolean isRangeApplicable(HttpServletRequest request, String eTag, long lastModified) {
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.trim().startsWith("\"") || ifRange.trim().startsWith("W/")) {
+            return ifRange.trim().equals(eTag);
+        }
+        long ifRangeDate = getDateHeader(request, "If-Range");
+        return lastModified >= 0 && lastModified == ifRangeDate;
+    }
+
+    private static boolean matchesETag(String header, String eTag) {
+        for (String candidate : header.split(",")) {
+            candidate = candidate.trim();
+            // 弱比较：忽略 W/ 前缀
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if ("*".equals(candidate) || candidate.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long getDateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * 解析 Range 请求头
+     *
+     * @return 单段范围返回 [start, end]；多段范围或格式不支持时返回空数组（按整个对象返回）；范围无法满足时返回 null
+     */
+    static long[] parseRange(String range, long totalLength) {
+        if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = range.substring("bytes=".length()).trim();
+        int dashIndex = spec.indexOf('-');
+        if (dashIndex < 0) {
+            return new long[0];
+        }
+        long start;
+        long end;
+        try {
+            String startPart = spec.substring(0, dashIndex).trim();
+            String endPart = spec.substring(dashIndex + 1).trim();
+            if (startPart.isEmpty()) {
+                // bytes=-n：最后 n 个字节
+                long suffixLength = Long.parseLong(endPart);
+                if (suffixLength <= 0) {
+                    return null;
+                }
+                start = Math.max(0, totalLength - suffixLength);
+                end = totalLength - 1;
+            } else {
+                start = Long.parseLong(startPart);
+                end = endPart.isEmpty() ? totalLength - 1 : Math.min(Long.parseLong(endPart), totalLength - 1);
+            }
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+        if (start < 0 || start >= totalLength || start > end) {
+            return null;
+        }
+        return new long[]{start, end};
+    }
+
+    /**
+     * 发送本地文件
+     */
+    private void sendFile(File file, long start, long length, HttpServletRequest request,
+                          HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE))) {
+            // 由容器在请求处理结束后直接发送文件
+            request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, file.getAbsolutePath());
+            request.setAttribute(SENDFILE_START_ATTRIBUTE, start);
+            request.setAttribute(SENDFILE_END_ATTRIBUTE, start + length);
+            return;
+        }
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long transferred = fileChannel.transferTo(position, remaining, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        } catch (IOException e) {
+            // 客户端中断下载
+            log.debug("发送文件中断：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从对象存储流式发送
+     *
+     * @param length 字节数，小于 0 表示读取整个对象
+     */
+    private void sendStream(String key, long start, long length, HttpServletResponse response) throws IOException {
+        try (StorageObject storageObject = objectStorage.getObject(key, start, length)) {
+            ThrowUtils.throwIf(storageObject == null, ErrorCode.NOT_FOUND_ERROR, "文件不存在");
+            InputStream inputStream = storageObject.getInputStream();
+            OutputStream outputStream = response.getOutputStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            try {
+                while ((n = inputStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, n);
+                }
+                outputStream.flush();
+            } catch (IOException e) {
+                // 客户端中断下载
+                log.debug("发送对象中断：{}", e.getMessage());
+            }
+        }
+    }
+}
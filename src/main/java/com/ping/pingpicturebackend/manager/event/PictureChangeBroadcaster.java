@@ -0,0 +1,88 @@
+package com.ping.pingpicturebackend.manager.event;
+
+import cn.hutool.json.JSONUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 图片变更广播
+ * <p>
+ * 事务提交后把图片变更事件发布到 Redis 频道，所有节点（包括自己）收到后分发给本地的 {@link PictureChangeHandler}
+ */
+@Slf4j
+@Component
+public class PictureChangeBroadcaster implements MessageListener {
+
+    /**
+     * 图片变更广播频道
+     */
+    private static final String PICTURE_CHANGE_CHANNEL = "pingPicture:picture:change";
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired(required = false)
+    private List<PictureChangeHandler> pictureChangeHandlerList = Collections.emptyList();
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(PICTURE_CHANGE_CHANNEL));
+    }
+
+    /**
+     * 事务提交后再广播，保证各节点收到消息时能读到最新数据；不在事务中发布时直接执行
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPictureChange(PictureChangeEvent pictureChangeEvent) {
+        try {
+            stringRedisTemplate.convertAndSend(PICTURE_CHANGE_CHANNEL, JSONUtil.toJsonStr(pictureChangeEvent));
+        } catch (Exception e) {
+            // 广播失败时至少保证本节点的数据是新的
+            log.error("图片变更广播失败，降级为仅本节点处理，event = {}", pictureChangeEvent, e);
+            dispatch(pictureChangeEvent);
+        }
+    }
+
+    /**
+     * 接收图片变更广播
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        PictureChangeEvent pictureChangeEvent;
+        try {
+            pictureChangeEvent = JSONUtil.toBean(body, PictureChangeEvent.class);
+        } catch (Exception e) {
+            log.warn("无法解析的图片变更消息：{}", body);
+            return;
+        }
+        dispatch(pictureChangeEvent);
+    }
+
+    private void dispatch(PictureChangeEvent pictureChangeEvent) {
+        for (PictureChangeHandler pictureChangeHandler : pictureChangeHandlerList) {
+            try {
+                pictureChangeHandler.onPictureChange(pictureChangeEvent);
+            } catch (Exception e) {
+                log.error("图片变更处理失败，handler = {}, event = {}",
+                        pictureChangeHandler.getClass().getSimpleName(), pictureChangeEvent, e);
+            }
+        }
+    }
+}
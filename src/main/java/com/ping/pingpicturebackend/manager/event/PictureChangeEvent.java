@@ -0,0 +1,40 @@
+package com.ping.pingpicturebackend.manager.event;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 图片变更事件
+ * <p>
+ * 图片的上传、编辑、审核、删除都会发布该事件，由缓存失效等订阅方处理
+ */
+@Data
+public class PictureChangeEvent implements Serializable {
+
+    /**
+     * 变更类型，见 PictureChangeTypeEnum
+     */
+    private String changeType;
+
+    /**
+     * 变更的图片 id 列表
+     */
+    private List<Long> pictureIdList = new ArrayList<>();
+
+    /**
+     * 所属空间 id（为空表示公共图库）
+     */
+    private Long spaceId;
+
+    /**
+     * 变更前后涉及到的分类（用于精确失效分类维度的缓存）
+     */
+    private Set<String> categorySet = new HashSet<>();
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,60 @@
+package com.ping.pingpicturebackend.manager.event;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import com.ping.pingpicturebackend.manager.event.model.PictureChangeTypeEnum;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * 图片变更事件发布者
+ * <p>
+ * 在事务中发布时，订阅方会在事务提交后才处理，避免读到未提交的数据
+ */
+@Component
+public class PictureChangeEventPublisher {
+
+    @Resource
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    /**
+     * 发布单张图片的变更事件
+     *
+     * @param changeType 变更类型
+     * @param pictureId  图片 id
+     * @param spaceId    空间 id
+     * @param categories 变更前后涉及到的分类
+     */
+    public void publish(PictureChangeTypeEnum changeType, Long pictureId, Long spaceId, String... categories) {
+        publish(changeType, pictureId == null ? Collections.emptyList() : Collections.singletonList(pictureId),
+                spaceId, CollUtil.newArrayList(categories));
+    }
+
+    /**
+     * 发布批量图片的变更事件
+     *
+     * @param changeType    变更类型
+     * @param pictureIdList 图片 id 列表
+     * @param spaceId       空间 id
+     * @param categories    变更前后涉及到的分类
+     */
+    public void publish(PictureChangeTypeEnum changeType, Collection<Long> pictureIdList, Long spaceId,
+                        Collection<String> categories) {
+        PictureChangeEvent pictureChangeEvent = new PictureChangeEvent();
+        pictureChangeEvent.setChangeType(changeType.getValue());
+        pictureChangeEvent.setSpaceId(spaceId);
+        if (CollUtil.isNotEmpty(pictureIdList)) {
+            pictureChangeEvent.getPictureIdList().addAll(pictureIdList);
+        }
+        if (CollUtil.isNotEmpty(categories)) {
+            categories.stream()
+                    .filter(StrUtil::isNotBlank)
+                    .forEach(pictureChangeEvent.getCategorySet()::add);
+        }
+        applicationEventPublisher.publishEvent(pictureChangeEvent);
+    }
+}
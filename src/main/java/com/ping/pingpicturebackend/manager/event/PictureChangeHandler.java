@@ -0,0 +1,17 @@
+package com.ping.pingpicturebackend.manager.event;
+
+/**
+ * 图片变更处理器
+ * <p>
+ * 用于维护各节点本地的图片索引等内存数据，变更会广播到所有节点（包括发起变更的节点），
+ * 由 {@link PictureChangeBroadcaster} 在事务提交后统一分发。处理器需要保证幂等。
+ */
+public interface PictureChangeHandler {
+
+    /**
+     * 处理图片变更
+     *
+     * @param pictureChangeEvent 图片变更事件
+     */
+    void onPictureChange(PictureChangeEvent pictureChangeEvent);
+}
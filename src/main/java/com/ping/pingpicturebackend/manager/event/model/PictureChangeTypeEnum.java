@@ -0,0 +1,38 @@
+package com.ping.pingpicturebackend.manager.event.model;
+
+import lombok.Getter;
+
+/**
+ * 图片变更类型枚举
+ */
+@Getter
+public enum PictureChangeTypeEnum {
+
+    CREATE("创建图片", "CREATE"),
+    UPDATE("更新图片", "UPDATE"),
+    REVIEW("审核图片", "REVIEW"),
+    DELETE("删除图片", "DELETE");
+
+    private final String text;
+    private final String value;
+
+    PictureChangeTypeEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     */
+    public static PictureChangeTypeEnum getEnumByValue(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        for (PictureChangeTypeEnum changeTypeEnum : PictureChangeTypeEnum.values()) {
+            if (changeTypeEnum.value.equals(value)) {
+                return changeTypeEnum;
+            }
+        }
+        return null;
+    }
+}
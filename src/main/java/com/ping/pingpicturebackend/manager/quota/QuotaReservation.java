@@ -0,0 +1,34 @@
+package com.ping.pingpicturebackend.manager.quota;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 一次预占的额度（入库成功后确认，失败时取消）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuotaReservation {
+
+    /**
+     * 空间 id
+     */
+    private Long spaceId;
+
+    /**
+     * 预占的图片条数
+     */
+    private long countDelta;
+
+    /**
+     * 预占的图片大小
+     */
+    private long sizeDelta;
+
+    /**
+     * 预占时的对账代数，对账只保留当前代的预占
+     */
+    private long generation;
+}
@@ -0,0 +1,572 @@
+package com.ping.pingpicturebackend.manager.quota;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.IdUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.ping.pingpicture.infrastructure.exception.BusinessException;
+import com.ping.pingpicture.infrastructure.exception.ErrorCode;
+import com.ping.pingpicture.infrastructure.mapper.PictureMapper;
+import com.ping.pingpicture.infrastructure.mapper.SpaceMapper;
+import com.ping.pingpicturebackend.model.entity.Space;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 空间额度管理
+ * <p>
+ * 1. 已用额度以 Redis 为准：上传前用 Lua 脚本原子地检查上限并预占，并发上传不会一起超出上限；
+ * 上传、删除都不再更新 space 表的同一行，避免团队批量上传时所有写入排队等待行锁
+ * 2. 额度变化同时累加到待同步增量，定时按批写回 space 表（totalCount = totalCount + 增量），
+ * space 表中的已用额度最多落后一个同步周期
+ * 3. 定时对账：流式聚合图片表得到真实的已用额度，覆盖 space 表和 Redis 中的值。
+ * 已预占但还未入库的额度单独记录（按对账代数），对账时加回到 Redis 的已用额度中，进行中的上传不会丢失预占；
+ * 超过一个对账周期仍未确认或取消的预占视为泄漏（如进程退出），在下次对账时丢弃
+ * <p>
+ * Redis 中没有某个空间时从 space 表加载；增量同步完且一段时间没有变化的空间会自动过期
+ */
+@Slf4j
+@Component
+public class SpaceQuotaManager {
+
+    private static final String QUOTA_KEY_PREFIX = "pingPicture:spaceQuota:";
+
+    /**
+     * 有待同步增量的空间 id 集合
+     */
+    private static final String DIRTY_KEY = "pingPicture:spaceQuotaDirty";
+
+    /**
+     * 同步和对账共用的租约，保证同时只有一个节点写回 space 表
+     */
+    private static final String SYNC_LOCK_KEY = "pingPicture:spaceQuota:syncLock";
+
+    private static final long FLUSH_LOCK_MILLIS = 60 * 1000L;
+
+    private static final long RECONCILE_LOCK_MILLIS = 60 * 60 * 1000L;
+
+    /**
+     * 增量同步完后，空间额度在 Redis 中保留的时间（毫秒）
+     */
+    private static final long IDLE_EXPIRE_MILLIS = 24 * 60 * 60 * 1000L;
+
+    /**
+     * 每批写回的空间数（一个事务）
+     */
+    private static final int FLUSH_BATCH_SIZE = 100;
+
+    /**
+     * 单次同步最多处理的批数，剩余的留给下次同步
+     */
+    private static final int MAX_FLUSH_BATCH_COUNT = 50;
+
+    /**
+     * 对账时每批覆盖的空间数
+     */
+    private static final int RECONCILE_BATCH_SIZE = 500;
+
+    /**
+     * 变更额度，ARGV[5] 为 1 时同时记入当前代的预占
+     * <p>
+     * 返回 {结果, 对账代数}，结果 -1：Redis 中没有该空间；0：条数不足；-2：大小不足；1：成功
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> CHANGE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return {-1, 0} end\n" +
+                    "local countDelta = tonumber(ARGV[1])\n" +
+                    "local sizeDelta = tonumber(ARGV[2])\n" +
+                    "if ARGV[3] == '1' then\n" +
+                    "  local quota = redis.call('hmget', KEYS[1], 'totalCount', 'totalSize', 'maxCount', 'maxSize')\n" +
+                    "  if countDelta > 0 and tonumber(quota[1]) + countDelta > tonumber(quota[3]) then return {0, 0} end\n" +
+                    "  if countDelta > 0 and tonumber(quota[2]) >= tonumber(quota[4]) then return {-2, 0} end\n" +
+                    "  if sizeDelta > 0 and tonumber(quota[2]) + sizeDelta > tonumber(quota[4]) then return {-2, 0} end\n" +
+                    "end\n" +
+                    "local gen = tonumber(redis.call('hget', KEYS[1], 'gen') or '0')\n" +
+                    "redis.call('hincrby', KEYS[1], 'totalCount', countDelta)\n" +
+                    "redis.call('hincrby', KEYS[1], 'totalSize', sizeDelta)\n" +
+                    "redis.call('hincrby', KEYS[1], 'pendingCount', countDelta)\n" +
+                    "redis.call('hincrby', KEYS[1], 'pendingSize', sizeDelta)\n" +
+                    "if ARGV[5] == '1' then\n" +
+                    "  redis.call('hincrby', KEYS[1], 'reservedCount:' .. gen, countDelta)\n" +
+                    "  redis.call('hincrby', KEYS[1], 'reservedSize:' .. gen, sizeDelta)\n" +
+                    "end\n" +
+                    "redis.call('persist', KEYS[1])\n" +
+                    "redis.call('sadd', KEYS[2], ARGV[4])\n" +
+                    "return {1, gen}",
+            List.class);
+
+    /**
+     * 结束一次预占：ARGV[4] 为 1 时取消（同时减去已用额度），否则为确认（已入库，只移除预占记录）
+     * <p>
+     * 只处理当前代和上一代的预占；更早的预占在对账时已被丢弃，没有计入已用额度
+     */
+    private static final DefaultRedisScript<Long> SETTLE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return 0 end\n" +
+                    "local gen = tonumber(redis.call('hget', KEYS[1], 'gen') or '0')\n" +
+                    "local reservedGen = tonumber(ARGV[3])\n" +
+                    "if reservedGen ~= gen and reservedGen ~= gen - 1 then return 0 end\n" +
+                    "local countDelta = tonumber(ARGV[1])\n" +
+                    "local sizeDelta = tonumber(ARGV[2])\n" +
+                    "redis.call('hincrby', KEYS[1], 'reservedCount:' .. reservedGen, -countDelta)\n" +
+                    "redis.call('hincrby', KEYS[1], 'reservedSize:' .. reservedGen, -sizeDelta)\n" +
+                    "if ARGV[4] == '1' then\n" +
+                    "  redis.call('hincrby', KEYS[1], 'totalCount', -countDelta)\n" +
+                    "  redis.call('hincrby', KEYS[1], 'totalSize', -sizeDelta)\n" +
+                    "  redis.call('hincrby', KEYS[1], 'pendingCount', -countDelta)\n" +
+                    "  redis.call('hincrby', KEYS[1], 'pendingSize', -sizeDelta)\n" +
+                    "  redis.call('persist', KEYS[1])\n" +
+                    "  redis.call('sadd', KEYS[2], ARGV[5])\n" +
+                    "end\n" +
+                    "return 1",
+            Long.class);
+
+    /**
+     * 从数据库加载额度（已存在时不覆盖）
+     */
+    private static final DefaultRedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 1 then return 0 end\n" +
+                    "redis.call('hset', KEYS[1], 'totalCount', ARGV[1], 'totalSize', ARGV[2], " +
+                    "'maxCount', ARGV[3], 'maxSize', ARGV[4], 'pendingCount', 0, 'pendingSize', 0)\n" +
+                    "redis.call('pexpire', KEYS[1], ARGV[5])\n" +
+                    "return 1",
+            Long.class);
+
+    /**
+     * 取出待同步增量并清零，清零后开始计算过期时间
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> DRAIN_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return {0, 0} end\n" +
+                    "local pending = redis.call('hmget', KEYS[1], 'pendingCount', 'pendingSize')\n" +
+                    "redis.call('hset', KEYS[1], 'pendingCount', 0, 'pendingSize', 0)\n" +
+                    "redis.call('pexpire', KEYS[1], ARGV[1])\n" +
+                    "return {tonumber(pending[1]) or 0, tonumber(pending[2]) or 0}",
+            List.class);
+
+    /**
+     * 写回失败时归还待同步增量
+     */
+    private static final DefaultRedisScript<Long> RESTORE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return 0 end\n" +
+                    "redis.call('hincrby', KEYS[1], 'pendingCount', ARGV[1])\n" +
+                    "redis.call('hincrby', KEYS[1], 'pendingSize', ARGV[2])\n" +
+                    "redis.call('persist', KEYS[1])\n" +
+                    "redis.call('sadd', KEYS[2], ARGV[3])\n" +
+                    "return 1",
+            Long.class);
+
+    /**
+     * 对账：用真实的已用额度加上当前代还未入库的预占覆盖，丢弃上一代的预占，进入下一代
+     * <p>
+     * space 表同时被修正为真实的已用额度，当前代的预占作为待同步增量保留，下次写回时补上
+     */
+    private static final DefaultRedisScript<Long> RESET_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return 0 end\n" +
+                    "local gen = tonumber(redis.call('hget', KEYS[1], 'gen') or '0')\n" +
+                    "local reserved = redis.call('hmget', KEYS[1], 'reservedCount:' .. gen, 'reservedSize:' .. gen)\n" +
+                    "redis.call('hdel', KEYS[1], 'reservedCount:' .. (gen - 1), 'reservedSize:' .. (gen - 1))\n" +
+                    "local reservedCount = reserved[1] or 0\n" +
+                    "local reservedSize = reserved[2] or 0\n" +
+                    "redis.call('hset', KEYS[1], 'totalCount', ARGV[1], 'totalSize', ARGV[2], " +
+                    "'pendingCount', reservedCount, 'pendingSize', reservedSize, 'gen', gen + 1)\n" +
+                    "redis.call('hincrby', KEYS[1], 'totalCount', reservedCount)\n" +
+                    "redis.call('hincrby', KEYS[1], 'totalSize', reservedSize)\n" +
+                    "if tonumber(reservedCount) ~= 0 or tonumber(reservedSize) ~= 0 then\n" +
+                    "  redis.call('persist', KEYS[1])\n" +
+                    "  redis.call('sadd', KEYS[2], ARGV[3])\n" +
+                    "end\n" +
+                    "return 1",
+            Long.class);
+
+    /**
+     * 更新额度上限（只更新已加载的空间）
+     */
+    private static final DefaultRedisScript<Long> LIMIT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return 0 end\n" +
+                    "redis.call('hset', KEYS[1], 'maxCount', ARGV[1], 'maxSize', ARGV[2])\n" +
+                    "return 1",
+            Long.class);
+
+    /**
+     * 释放租约脚本：只删除自己持有的租约
+     */
+    private static final DefaultRedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private SpaceMapper spaceMapper;
+
+    @Resource
+    private PictureMapper pictureMapper;
+
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 预占额度：原子地检查上限并增加已用额度
+     * <p>
+     * 入库成功后调用 {@link #confirm}，失败时调用 {@link #cancel}
+     *
+     * @param spaceId    空间 id
+     * @param countDelta 增加的图片条数
+     * @param sizeDelta  增加的图片大小（可以为负数，如重新上传了更小的图片）
+     * @return 预占的额度
+     */
+    public QuotaReservation reserve(Long spaceId, long countDelta, long sizeDelta) {
+        long[] result = change(spaceId, countDelta, sizeDelta, true);
+        if (result[0] == -1) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "空间不存在");
+        }
+        if (result[0] == 0) {
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "空间条数不足");
+        }
+        if (result[0] == -2) {
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "空间大小不足");
+        }
+        return new QuotaReservation(spaceId, countDelta, sizeDelta, result[1]);
+    }
+
+    /**
+     * 确认预占：图片已入库，预占的额度转为已用额度
+     * <p>
+     * 确认失败不影响已用额度，只会让下次对账多保留这份预占，再下次对账时丢弃
+     *
+     * @param reservation 预占的额度，为空时忽略
+     */
+    public void confirm(QuotaReservation reservation) {
+        if (reservation == null) {
+            return;
+        }
+        try {
+            settle(reservation, false);
+        } catch (Exception e) {
+            log.warn("确认预占额度失败，spaceId = {}", reservation.getSpaceId(), e);
+        }
+    }
+
+    /**
+     * 取消预占：归还预占的额度
+     *
+     * @param reservation 预占的额度，为空时忽略
+     */
+    public void cancel(QuotaReservation reservation) {
+        if (reservation == null) {
+            return;
+        }
+        settle(reservation, true);
+    }
+
+    /**
+     * 变更额度，不检查上限（用于删除图片、归还预占的额度）
+     *
+     * @param spaceId    空间 id
+     * @param countDelta 图片条数变化
+     * @param sizeDelta  图片大小变化
+     */
+    public void release(Long spaceId, long countDelta, long sizeDelta) {
+        if (spaceId == null || (countDelta == 0 && sizeDelta == 0)) {
+            return;
+        }
+        if (change(spaceId, countDelta, sizeDelta, false)[0] == -1) {
+            log.warn("空间不存在，忽略额度变更，spaceId = {}", spaceId);
+        }
+    }
+
+    /**
+     * 获取实时的已用额度
+     *
+     * @param spaceId 空间 id
+     * @return 已用额度，Redis 中没有该空间时返回 null（以 space 表为准）
+     */
+    public SpaceUsage getUsage(Long spaceId) {
+        List<Object> valueList = stringRedisTemplate.opsForHash()
+                .multiGet(getQuotaKey(spaceId), Arrays.asList("totalCount", "totalSize"));
+        if (valueList.get(0) == null || valueList.get(1) == null) {
+            return null;
+        }
+        return new SpaceUsage(spaceId, Long.parseLong((String) valueList.get(0)),
+                Long.parseLong((String) valueList.get(1)));
+    }
+
+    /**
+     * 空间上限修改后同步到 Redis
+     *
+     * @param spaceId 空间 id
+     */
+    public void refreshLimit(Long spaceId) {
+        Space space = spaceMapper.selectById(spaceId);
+        if (space == null) {
+            return;
+        }
+        stringRedisTemplate.execute(LIMIT_SCRIPT, Collections.singletonList(getQuotaKey(spaceId)),
+                String.valueOf(getMaxCount(space)), String.valueOf(getMaxSize(space)));
+    }
+
+    /**
+     * 删除空间后清除额度
+     *
+     * @param spaceId 空间 id
+     */
+    public void remove(Long spaceId) {
+        stringRedisTemplate.delete(getQuotaKey(spaceId));
+        stringRedisTemplate.opsForSet().remove(DIRTY_KEY, String.valueOf(spaceId));
+    }
+
+    /**
+     * 定时把额度增量写回 space 表
+     */
+    @Scheduled(initialDelay = 10 * 1000L, fixedDelayString = "${picture.quota.flush-interval:5000}")
+    public void flush() {
+        String token = tryLock(FLUSH_LOCK_MILLIS);
+        if (token == null) {
+            return;
+        }
+        try {
+            doFlush();
+        } catch (Exception e) {
+            log.error("同步空间额度失败", e);
+        } finally {
+            unlock(token);
+        }
+    }
+
+    /**
+     * 定时对账
+     */
+    @Scheduled(cron = "${picture.quota.reconcile-cron:0 0 4 * * ?}")
+    public void scheduledReconcile() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.error("空间额度对账失败", e);
+        }
+    }
+
+    /**
+     * 对账：按图片表重建所有空间的已用额度
+     * <p>
+     * 进行中的上传已预占的额度会加回到 Redis 中；读取图片表到覆盖之间提交的上传、删除可能产生少量偏差，
+     * 在下次对账时修正，建议在低峰期执行
+     *
+     * @return 修正的空间数
+     */
+    public int reconcile() {
+        String token = tryLock(RECONCILE_LOCK_MILLIS);
+        if (token == null) {
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "空间额度正在同步，请稍后重试");
+        }
+        try {
+            // 先写回已有的增量，减少被覆盖的部分
+            doFlush();
+            Set<Long> countedSpaceIdSet = new HashSet<>();
+            List<SpaceUsage> usageBatch = new ArrayList<>();
+            int[] correctedCount = {0};
+            // 流式读取聚合结果，不一次性加载到内存
+            pictureMapper.streamSpaceUsage(resultContext -> {
+                SpaceUsage spaceUsage = resultContext.getResultObject();
+                countedSpaceIdSet.add(spaceUsage.getSpaceId());
+                usageBatch.add(spaceUsage);
+                if (usageBatch.size() >= RECONCILE_BATCH_SIZE) {
+                    correctedCount[0] += applyUsage(usageBatch);
+                    usageBatch.clear();
+                }
+            });
+            // 没有图片的空间不在聚合结果中，已用额度应为 0
+            List<Space> nonEmptySpaceList = spaceMapper.selectList(new QueryWrapper<Space>()
+                    .select("id")
+                    .and(wrapper -> wrapper.ne("totalCount", 0).or().ne("totalSize", 0)));
+            for (Space space : nonEmptySpaceList) {
+                if (!countedSpaceIdSet.contains(space.getId())) {
+                    usageBatch.add(new SpaceUsage(space.getId(), 0, 0));
+                    if (usageBatch.size() >= RECONCILE_BATCH_SIZE) {
+                        correctedCount[0] += applyUsage(usageBatch);
+                        usageBatch.clear();
+                    }
+                }
+            }
+            if (!usageBatch.isEmpty()) {
+                correctedCount[0] += applyUsage(usageBatch);
+            }
+            log.info("空间额度对账完成，共 {} 个空间有图片，修正 {} 个空间", countedSpaceIdSet.size(), correctedCount[0]);
+            return correctedCount[0];
+        } finally {
+            unlock(token);
+        }
+    }
+
+    /**
+     * 分批写回待同步增量
+     *
+     * @return 写回的空间数
+     */
+    @SuppressWarnings("unchecked")
+    int doFlush() {
+        int flushedCount = 0;
+        for (int i = 0; i < MAX_FLUSH_BATCH_COUNT; i++) {
+            List<String> spaceIdList = stringRedisTemplate.opsForSet().pop(DIRTY_KEY, FLUSH_BATCH_SIZE);
+            if (CollUtil.isEmpty(spaceIdList)) {
+                break;
+            }
+            List<SpaceUsage> deltaList = new ArrayList<>();
+            for (String spaceId : spaceIdList) {
+                List<Long> pending = stringRedisTemplate.execute(DRAIN_SCRIPT,
+                        Collections.singletonList(QUOTA_KEY_PREFIX + spaceId), String.valueOf(IDLE_EXPIRE_MILLIS));
+                if (pending == null || (pending.get(0) == 0 && pending.get(1) == 0)) {
+                    continue;
+                }
+                deltaList.add(new SpaceUsage(Long.valueOf(spaceId), pending.get(0), pending.get(1)));
+            }
+            if (deltaList.isEmpty()) {
+                continue;
+            }
+            try {
+                // 一批空间在一个事务中写回，每行只更新一次
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (SpaceUsage delta : deltaList) {
+                        spaceMapper.update(null, new UpdateWrapper<Space>()
+                                .eq("id", delta.getSpaceId())
+                                .setSql("totalCount = totalCount + (" + delta.getTotalCount() + ")")
+                                .setSql("totalSize = totalSize + (" + delta.getTotalSize() + ")"));
+                    }
+                });
+            } catch (RuntimeException e) {
+                // 归还增量，下次重试
+                for (SpaceUsage delta : deltaList) {
+                    stringRedisTemplate.execute(RESTORE_SCRIPT,
+                            Arrays.asList(getQuotaKey(delta.getSpaceId()), DIRTY_KEY),
+                            String.valueOf(delta.getTotalCount()), String.valueOf(delta.getTotalSize()),
+                            String.valueOf(delta.getSpaceId()));
+                }
+                throw e;
+            }
+            flushedCount += deltaList.size();
+        }
+        return flushedCount;
+    }
+
+    /**
+     * 用真实的已用额度覆盖 Redis 和 space 表
+     *
+     * @return space 表中修正的空间数
+     */
+    private int applyUsage(List<SpaceUsage> usageList) {
+        List<Long> spaceIdList = usageList.stream().map(SpaceUsage::getSpaceId).collect(Collectors.toList());
+        Map<Long, Space> spaceMap = spaceMapper.selectList(new QueryWrapper<Space>()
+                        .select("id", "totalCount", "totalSize")
+                        .in("id", spaceIdList)).stream()
+                .collect(Collectors.toMap(Space::getId, space -> space));
+        List<SpaceUsage> correctionList = new ArrayList<>();
+        for (SpaceUsage spaceUsage : usageList) {
+            stringRedisTemplate.execute(RESET_SCRIPT, Arrays.asList(getQuotaKey(spaceUsage.getSpaceId()), DIRTY_KEY),
+                    String.valueOf(spaceUsage.getTotalCount()), String.valueOf(spaceUsage.getTotalSize()),
+                    String.valueOf(spaceUsage.getSpaceId()));
+            Space space = spaceMap.get(spaceUsage.getSpaceId());
+            // 已删除的空间不处理
+            if (space != null && (!Long.valueOf(spaceUsage.getTotalCount()).equals(space.getTotalCount())
+                    || !Long.valueOf(spaceUsage.getTotalSize()).equals(space.getTotalSize()))) {
+                correctionList.add(spaceUsage);
+            }
+        }
+        if (correctionList.isEmpty()) {
+            return 0;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            for (SpaceUsage spaceUsage : correctionList) {
+                spaceMapper.update(null, new UpdateWrapper<Space>()
+                        .eq("id", spaceUsage.getSpaceId())
+                        .set("totalCount", spaceUsage.getTotalCount())
+                        .set("totalSize", spaceUsage.getTotalSize()));
+            }
+        });
+        return correctionList.size();
+    }
+
+    /**
+     * 变更额度，Redis 中没有该空间时先从数据库加载
+     *
+     * @param reserve 是否为预占（检查上限并记入预占）
+     * @return {脚本返回值, 对账代数}，空间不存在时返回值为 -1
+     */
+    @SuppressWarnings("unchecked")
+    private long[] change(Long spaceId, long countDelta, long sizeDelta, boolean reserve) {
+        List<String> keyList = Arrays.asList(getQuotaKey(spaceId), DIRTY_KEY);
+        String flag = reserve ? "1" : "0";
+        String[] args = {String.valueOf(countDelta), String.valueOf(sizeDelta), flag, String.valueOf(spaceId), flag};
+        List<Long> result = stringRedisTemplate.execute(CHANGE_SCRIPT, keyList, (Object[]) args);
+        if (result != null && result.get(0) == -1 && load(spaceId)) {
+            result = stringRedisTemplate.execute(CHANGE_SCRIPT, keyList, (Object[]) args);
+        }
+        return result == null ? new long[]{-1, 0} : new long[]{result.get(0), result.get(1)};
+    }
+
+    private void settle(QuotaReservation reservation, boolean cancel) {
+        if (reservation.getCountDelta() == 0 && reservation.getSizeDelta() == 0) {
+            return;
+        }
+        stringRedisTemplate.execute(SETTLE_SCRIPT,
+                Arrays.asList(getQuotaKey(reservation.getSpaceId()), DIRTY_KEY),
+                String.valueOf(reservation.getCountDelta()), String.valueOf(reservation.getSizeDelta()),
+                String.valueOf(reservation.getGeneration()), cancel ? "1" : "0",
+                String.valueOf(reservation.getSpaceId()));
+    }
+
+    /**
+     * 从 space 表加载额度
+     *
+     * @return 空间是否存在
+     */
+    private boolean load(Long spaceId) {
+        Space space = spaceMapper.selectById(spaceId);
+        if (space == null) {
+            return false;
+        }
+        stringRedisTemplate.execute(LOAD_SCRIPT, Collections.singletonList(getQuotaKey(spaceId)),
+                String.valueOf(space.getTotalCount() == null ? 0 : space.getTotalCount()),
+                String.valueOf(space.getTotalSize() == null ? 0 : space.getTotalSize()),
+                String.valueOf(getMaxCount(space)), String.valueOf(getMaxSize(space)),
+                String.valueOf(IDLE_EXPIRE_MILLIS));
+        return true;
+    }
+
+    private static long getMaxCount(Space space) {
+        return space.getMaxCount() == null ? Long.MAX_VALUE : space.getMaxCount();
+    }
+
+    private static long getMaxSize(Space space) {
+        return space.getMaxSize() == null ? Long.MAX_VALUE : space.getMaxSize();
+    }
+
+    private static String getQuotaKey(Long spaceId) {
+        return QUOTA_KEY_PREFIX + spaceId;
+    }
+
+    private String tryLock(long lockMillis) {
+        String token = IdUtil.fastSimpleUUID();
+        Boolean acquired = stringRedisTemplate.opsForValue()
+                .setIfAbsent(SYNC_LOCK_KEY, token, lockMillis, TimeUnit.MILLISECONDS);
+        return Boolean.TRUE.equals(acquired) ? token : null;
+    }
+
+    private void unlock(String token) {
+        stringRedisTemplate.execute(RELEASE_LOCK_SCRIPT, Collections.singletonList(SYNC_LOCK_KEY), token);
+    }
+}
@@ -0,0 +1,29 @@
+package com.ping.pingpicturebackend.manager.quota;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 空间的已用额度
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpaceUsage {
+
+    /**
+     * 空间 id
+     */
+    private Long spaceId;
+
+    /**
+     * 图片条数
+     */
+    private long totalCount;
+
+    /**
+     * 图片总大小
+     */
+    private long totalSize;
+}
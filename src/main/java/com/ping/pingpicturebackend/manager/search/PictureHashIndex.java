@@ -0,0 +1,267 @@
+package com.ping.pingpicturebackend.manager.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 单个作用域（某个空间或公共图库）的感知哈希索引
+ * <p>
+ * 采用多索引哈希（Multi-Index Hashing）：把 64 位 pHash 切成 4 段 16 位，每段建一张 段值 -> 图片 的表。
+ * 根据抽屉原理，汉明距离不超过 r 的两个哈希至少有一段的距离不超过 r / 4，
+ * 因此查询时只需在每张表中枚举距离不超过 r / 4 的段值，再对候选计算完整距离，不需要扫描全部图片
+ */
+public class PictureHashIndex {
+
+    /**
+     * 支持的最大汉明距离（每段最多枚举 3 位翻转）
+     */
+    public static final int MAX_DISTANCE = 15;
+
+    private static final int CHUNKS = 4;
+
+    private static final int CHUNK_BITS = 16;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] pictureIds = new long[16];
+
+    private long[] pHashes = new long[16];
+
+    private long[] dHashes = new long[16];
+
+    private int size;
+
+    /**
+     * 图片 id -> 数组下标
+     */
+    private final Map<Long, Integer> slotMap = new HashMap<>();
+
+    /**
+     * 每段的 段值 -> 数组下标集合
+     */
+    private final List<Map<Integer, IntBag>> chunkTables = new ArrayList<>(CHUNKS);
+
+    public PictureHashIndex() {
+        for (int i = 0; i < CHUNKS; i++) {
+            chunkTables.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * 新增或更新图片的哈希
+     *
+     * @param pictureId 图片 id
+     * @param pHash     pHash
+     * @param dHash     dHash
+     */
+    public void put(long pictureId, long pHash, long dHash) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotMap.get(pictureId);
+            if (slot != null && pHashes[slot] == pHash) {
+                dHashes[slot] = dHash;
+                return;
+            }
+            if (slot != null) {
+                removeInternal(pictureId);
+            }
+            if (size == pictureIds.length) {
+                int capacity = size * 2;
+                pictureIds = Arrays.copyOf(pictureIds, capacity);
+                pHashes = Arrays.copyOf(pHashes, capacity);
+                dHashes = Arrays.copyOf(dHashes, capacity);
+            }
+            int newSlot = size++;
+            pictureIds[newSlot] = pictureId;
+            pHashes[newSlot] = pHash;
+            dHashes[newSlot] = dHash;
+            slotMap.put(pictureId, newSlot);
+            for (int c = 0; c < CHUNKS; c++) {
+                chunkTables.get(c).computeIfAbsent(chunk(pHash, c), key -> new IntBag()).add(newSlot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除图片
+     *
+     * @param pictureId 图片 id
+     */
+    public void remove(long pictureId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(pictureId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查询相似图片
+     *
+     * @param pHash       查询图片的 pHash
+     * @param dHash       查询图片的 dHash（pHash 距离相同时用于排序）
+     * @param maxDistance pHash 最大汉明距离，不超过 {@link #MAX_DISTANCE}
+     * @param limit       返回数量
+     * @param excludeId   需要排除的图片 id（查询图片本身）
+     * @return 图片 id，按相似度从高到低排列
+     */
+    public long[] search(long pHash, long dHash, int maxDistance, int limit, long excludeId) {
+        int distance = Math.min(maxDistance, MAX_DISTANCE);
+        lock.readLock().lock();
+        try {
+            if (size == 0 || limit <= 0) {
+                return new long[0];
+            }
+            SearchContext context = new SearchContext(pHash, dHash, distance, limit, excludeId);
+            int chunkRadius = distance / CHUNKS;
+            for (int c = 0; c < CHUNKS; c++) {
+                probe(c, chunk(pHash, c), 0, chunkRadius, context);
+            }
+            return context.heap.drainAscending();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 图片数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 枚举与 value 距离不超过 remaining 的段值（每个组合只访问一次），检查对应的图片
+     */
+    private void probe(int chunkIndex, int value, int startBit, int remaining, SearchContext context) {
+        IntBag bag = chunkTables.get(chunkIndex).get(value);
+        if (bag != null) {
+            for (int i = 0; i < bag.size; i++) {
+                context.check(bag.values[i]);
+            }
+        }
+        if (remaining == 0) {
+            return;
+        }
+        for (int bit = startBit; bit < CHUNK_BITS; bit++) {
+            probe(chunkIndex, value ^ (1 << bit), bit + 1, remaining - 1, context);
+        }
+    }
+
+    private void removeInternal(long pictureId) {
+        Integer slot = slotMap.remove(pictureId);
+        if (slot == null) {
+            return;
+        }
+        for (int c = 0; c < CHUNKS; c++) {
+            int key = chunk(pHashes[slot], c);
+            IntBag bag = chunkTables.get(c).get(key);
+            bag.remove(slot);
+            if (bag.size == 0) {
+                chunkTables.get(c).remove(key);
+            }
+        }
+        int last = --size;
+        if (slot != last) {
+            // 把最后一张图片移到空出的位置
+            for (int c = 0; c < CHUNKS; c++) {
+                chunkTables.get(c).get(chunk(pHashes[last], c)).replace(last, slot);
+            }
+            pictureIds[slot] = pictureIds[last];
+            pHashes[slot] = pHashes[last];
+            dHashes[slot] = dHashes[last];
+            slotMap.put(pictureIds[slot], slot);
+        }
+    }
+
+    private static int chunk(long hash, int chunkIndex) {
+        return (int) (hash >>> (chunkIndex * CHUNK_BITS)) & 0xFFFF;
+    }
+
+    /**
+     * 一次查询的状态
+     */
+    private class SearchContext {
+
+        private final long pHash;
+
+        private final long dHash;
+
+        private final int maxDistance;
+
+        private final long excludeId;
+
+        private final BitSet checked = new BitSet(size);
+
+        private final TopKHeap heap;
+
+        SearchContext(long pHash, long dHash, int maxDistance, int limit, long excludeId) {
+            this.pHash = pHash;
+            this.dHash = dHash;
+            this.maxDistance = maxDistance;
+            this.excludeId = excludeId;
+            this.heap = new TopKHeap(Math.min(limit, size));
+        }
+
+        void check(int slot) {
+            if (checked.get(slot)) {
+                return;
+            }
+            checked.set(slot);
+            int distance = Long.bitCount(pHashes[slot] ^ pHash);
+            if (distance > maxDistance || pictureIds[slot] == excludeId) {
+                return;
+            }
+            // pHash 距离优先，相同时再比较 dHash 距离
+            heap.offer(pictureIds[slot], distance * 65 + Long.bitCount(dHashes[slot] ^ dHash));
+        }
+    }
+
+    /**
+     * 简单的 int 集合，元素很少，用数组线性查找
+     */
+    private static class IntBag {
+
+        private int[] values = new int[2];
+
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void remove(int value) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value) {
+                    values[i] = values[--size];
+                    return;
+                }
+            }
+        }
+
+        void replace(int oldValue, int newValue) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == oldValue) {
+                    values[i] = newValue;
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.ping.pingpicturebackend.manager.search;
+
+/**
+ * 图片索引字段
+ */
+public enum PictureSearchField {
+
+    NAME,
+
+    INTRODUCTION,
+
+    TAGS,
+
+    CATEGORY
+}
@@ -0,0 +1,197 @@
+package com.ping.pingpicturebackend.manager.search;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.thread.ThreadUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.ping.pingpicture.infrastructure.mapper.PictureMapper;
+import com.ping.pingpicturebackend.manager.event.PictureChangeEvent;
+import com.ping.pingpicturebackend.manager.event.PictureChangeHandler;
+import com.ping.pingpicturebackend.manager.event.model.PictureChangeTypeEnum;
+import com.ping.pingpicturebackend.model.entity.Picture;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 图片文本搜索管理
+ * <p>
+ * 启动后从数据库全量构建 {@link PictureTextIndex}，之后根据图片变更广播增量维护。
+ * 查询时先用索引求出候选图片 id，再交给数据库用 id IN + LIKE 精确过滤，避免全表扫描。
+ * <p>
+ * 索引未就绪、查询词过短或候选过多时返回 null，调用方回退到原来的 LIKE 查询。
+ */
+@Slf4j
+@Component
+public class PictureSearchManager implements PictureChangeHandler {
+
+    /**
+     * 全量构建时每批读取的数量
+     */
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    /**
+     * 候选数量上限，超过后 IN 查询的收益不大，直接回退
+     */
+    private static final int MAX_CANDIDATES = 5000;
+
+    @Resource
+    private PictureMapper pictureMapper;
+
+    @Value("${picture.search.index-enabled:true}")
+    private boolean indexEnabled;
+
+    /**
+     * 当前使用的索引，全量构建完成前为 null
+     */
+    private volatile PictureTextIndex currentIndex;
+
+    /**
+     * 是否正在全量构建
+     */
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    /**
+     * 全量构建期间收到的变更，构建完成后补到新索引上
+     */
+    private List<PictureChangeEvent> pendingEventList;
+
+    private final Object pendingLock = new Object();
+
+    /**
+     * 启动完成后异步构建索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (indexEnabled) {
+            ThreadUtil.execAsync(this::rebuild);
+        }
+    }
+
+    /**
+     * 查询可能包含该文本的图片
+     *
+     * @param text   查询文本
+     * @param fields 查询的字段（任一字段匹配即可）
+     * @return 候选图片 id，无法使用索引时返回 null
+     */
+    public Set<Long> search(String text, PictureSearchField... fields) {
+        PictureTextIndex index = currentIndex;
+        if (index == null) {
+            return null;
+        }
+        return index.search(text, Arrays.asList(fields), MAX_CANDIDATES);
+    }
+
+    /**
+     * 从数据库全量构建索引，构建期间旧索引继续提供服务
+     *
+     * @return 是否执行了构建（已有构建在进行时返回 false）
+     */
+    public boolean rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            synchronized (pendingLock) {
+                pendingEventList = new ArrayList<>();
+            }
+            long startTime = System.currentTimeMillis();
+            PictureTextIndex newIndex = new PictureTextIndex();
+            long lastId = 0;
+            while (true) {
+                List<Picture> pictureList = pictureMapper.selectList(buildIndexQueryWrapper()
+                        .gt("id", lastId)
+                        .orderByAsc("id")
+                        .last("limit " + REBUILD_BATCH_SIZE));
+                for (Picture picture : pictureList) {
+                    newIndex.index(picture.getId(), toFieldText(picture));
+                }
+                if (pictureList.size() < REBUILD_BATCH_SIZE) {
+                    break;
+                }
+                lastId = pictureList.get(pictureList.size() - 1).getId();
+            }
+            newIndex.trim();
+            synchronized (pendingLock) {
+                // 补上构建期间的变更，再切换到新索引
+                for (PictureChangeEvent pictureChangeEvent : pendingEventList) {
+                    apply(newIndex, pictureChangeEvent);
+                }
+                pendingEventList = null;
+                currentIndex = newIndex;
+            }
+            log.info("图片搜索索引构建完成，图片数 = {}，耗时 = {} ms",
+                    newIndex.size(), System.currentTimeMillis() - startTime);
+            return true;
+        } catch (Exception e) {
+            log.error("图片搜索索引构建失败", e);
+            synchronized (pendingLock) {
+                pendingEventList = null;
+            }
+            return false;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    @Override
+    public void onPictureChange(PictureChangeEvent pictureChangeEvent) {
+        PictureTextIndex index;
+        synchronized (pendingLock) {
+            if (pendingEventList != null) {
+                pendingEventList.add(pictureChangeEvent);
+            }
+            index = currentIndex;
+        }
+        if (index != null) {
+            apply(index, pictureChangeEvent);
+        }
+    }
+
+    /**
+     * 把变更应用到索引：删除直接移除，其他变更按数据库中的最新数据重建（幂等）
+     */
+    private void apply(PictureTextIndex index, PictureChangeEvent pictureChangeEvent) {
+        List<Long> pictureIdList = pictureChangeEvent.getPictureIdList();
+        if (CollUtil.isEmpty(pictureIdList)) {
+            return;
+        }
+        if (PictureChangeTypeEnum.DELETE.getValue().equals(pictureChangeEvent.getChangeType())) {
+            pictureIdList.forEach(index::remove);
+            return;
+        }
+        List<Picture> pictureList = pictureMapper.selectList(buildIndexQueryWrapper().in("id", pictureIdList));
+        Set<Long> foundIdSet = new HashSet<>();
+        for (Picture picture : pictureList) {
+            index.index(picture.getId(), toFieldText(picture));
+            foundIdSet.add(picture.getId());
+        }
+        // 查不到说明已经被删除
+        for (Long pictureId : pictureIdList) {
+            if (!foundIdSet.contains(pictureId)) {
+                index.remove(pictureId);
+            }
+        }
+    }
+
+    private QueryWrapper<Picture> buildIndexQueryWrapper() {
+        QueryWrapper<Picture> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("id", "name", "introduction", "tags", "category");
+        return queryWrapper;
+    }
+
+    private Map<PictureSearchField, String> toFieldText(Picture picture) {
+        Map<PictureSearchField, String> fieldText = new EnumMap<>(PictureSearchField.class);
+        fieldText.put(PictureSearchField.NAME, picture.getName());
+        fieldText.put(PictureSearchField.INTRODUCTION, picture.getIntroduction());
+        fieldText.put(PictureSearchField.TAGS, picture.getTags());
+        fieldText.put(PictureSearchField.CATEGORY, picture.getCategory());
+        return fieldText;
+    }
+}
@@ -0,0 +1,252 @@
+package com.ping.pingpicturebackend.manager.search;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.ObjUtil;
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ping.pingpicture.infrastructure.api.storage.ObjectStorage;
+import com.ping.pingpicture.infrastructure.api.storage.StorageObject;
+import com.ping.pingpicture.infrastructure.mapper.PictureMapper;
+import com.ping.pingpicture.infrastructure.utils.ImageHashUtils;
+import com.ping.pingpicture.infrastructure.utils.ImageSampleUtils;
+import com.ping.pingpicturebackend.manager.event.PictureChangeEvent;
+import com.ping.pingpicturebackend.manager.event.PictureChangeEventPublisher;
+import com.ping.pingpicturebackend.manager.event.PictureChangeHandler;
+import com.ping.pingpicturebackend.manager.event.model.PictureChangeTypeEnum;
+import com.ping.pingpicturebackend.model.entity.Picture;
+import com.ping.pingpicturebackend.model.enums.PictureReviewStatusEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.awt.image.BufferedImage;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 以图搜图管理（本地感知哈希）
+ * <p>
+ * 以空间为作用域（公共图库作用域为 0），首次查询时只读取 id、picPHash、picDHash 构建该作用域的 {@link PictureHashIndex}，
+ * 之后根据图片变更广播增量维护。历史图片的哈希通过 {@link #backfill()} 分批回填
+ * <p>
+ * 公共图库的索引只包含已过审的图片（审核通过时加入，驳回或重新待审时移除），查询结果无需再过滤，数量不会因未过审图片而减少
+ */
+@Slf4j
+@Component
+public class PictureSimilarSearchManager implements PictureChangeHandler {
+
+    /**
+     * 公共图库的作用域 key
+     */
+    private static final long PUBLIC_SCOPE = 0L;
+
+    /**
+     * 缓存的作用域数量上限
+     */
+    private static final int MAX_SCOPE_COUNT = 512;
+
+    /**
+     * 加载作用域时每批读取的图片数量
+     */
+    private static final int LOAD_BATCH_SIZE = 5000;
+
+    /**
+     * 回填哈希时每批处理的图片数量
+     */
+    private static final int BACKFILL_BATCH_SIZE = 100;
+
+    @Resource
+    private PictureMapper pictureMapper;
+
+    @Resource
+    private PictureChangeEventPublisher pictureChangeEventPublisher;
+
+    @Resource
+    private ObjectStorage objectStorage;
+
+    /**
+     * 作用域 -> 感知哈希索引
+     */
+    private final Cache<Long, PictureHashIndex> scopeIndexCache = Caffeine.newBuilder()
+            .maximumSize(MAX_SCOPE_COUNT)
+            .expireAfterAccess(30, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * 是否正在回填
+     */
+    private final AtomicBoolean backfilling = new AtomicBoolean(false);
+
+    /**
+     * 查询与指定图片相似的图片（同一作用域内）
+     *
+     * @param picture     查询图片（需要包含 id、spaceId、picPHash、picDHash）
+     * @param maxDistance pHash 最大汉明距离
+     * @param limit       返回数量
+     * @return 图片 id，按相似度从高到低排列；查询图片没有哈希时返回空数组
+     */
+    public long[] searchSimilar(Picture picture, int maxDistance, int limit) {
+        if (picture.getPicPHash() == null) {
+            return new long[0];
+        }
+        long dHash = picture.getPicDHash() == null ? 0L : picture.getPicDHash();
+        return scopeIndexCache.get(toScope(picture.getSpaceId()), this::loadScope)
+                .search(picture.getPicPHash(), dHash, maxDistance, limit, picture.getId());
+    }
+
+    /**
+     * 为没有哈希的历史图片回填哈希：下载缩略图（没有时用原图）计算后写回数据库，并广播变更更新索引
+     *
+     * @return 回填的图片数量，已有回填在进行时返回 -1
+     */
+    public long backfill() {
+        if (!backfilling.compareAndSet(false, true)) {
+            return -1;
+        }
+        try {
+            long total = 0;
+            long lastId = 0;
+            while (true) {
+                List<Picture> pictureList = pictureMapper.selectList(new QueryWrapper<Picture>()
+                        .select("id", "spaceId", "url", "thumbnailUrl")
+                        .isNull("picPHash")
+                        .gt("id", lastId)
+                        .orderByAsc("id")
+                        .last("limit " + BACKFILL_BATCH_SIZE));
+                if (pictureList.isEmpty()) {
+                    break;
+                }
+                Map<Long, List<Long>> spacePictureIdMap = new HashMap<>();
+                for (Picture picture : pictureList) {
+                    if (backfillPicture(picture)) {
+                        // 公共图库的 spaceId 为 null，用作用域 key 分组
+                        spacePictureIdMap.computeIfAbsent(toScope(picture.getSpaceId()), key -> new ArrayList<>())
+                                .add(picture.getId());
+                        total++;
+                    }
+                }
+                spacePictureIdMap.forEach((scope, pictureIdList) -> pictureChangeEventPublisher.publish(
+                        PictureChangeTypeEnum.UPDATE, pictureIdList, scope == PUBLIC_SCOPE ? null : scope,
+                        Collections.emptyList()));
+                lastId = pictureList.get(pictureList.size() - 1).getId();
+            }
+            log.info("图片感知哈希回填完成，图片数 = {}", total);
+            return total;
+        } finally {
+            backfilling.set(false);
+        }
+    }
+
+    @Override
+    public void onPictureChange(PictureChangeEvent pictureChangeEvent) {
+        List<Long> pictureIdList = pictureChangeEvent.getPictureIdList();
+        if (CollUtil.isEmpty(pictureIdList)) {
+            return;
+        }
+        long scope = toScope(pictureChangeEvent.getSpaceId());
+        PictureHashIndex index = scopeIndexCache.getIfPresent(scope);
+        if (index == null) {
+            // 可能正在加载，加载结果不一定包含本次变更，等加载完成后丢弃，下次查询重新加载
+            scopeIndexCache.invalidate(scope);
+            return;
+        }
+        if (PictureChangeTypeEnum.DELETE.getValue().equals(pictureChangeEvent.getChangeType())) {
+            pictureIdList.forEach(index::remove);
+            return;
+        }
+        List<Picture> pictureList = pictureMapper.selectList(new QueryWrapper<Picture>()
+                .select("id", "picPHash", "picDHash", "reviewStatus")
+                .in("id", pictureIdList));
+        Set<Long> indexedIdSet = new HashSet<>();
+        for (Picture picture : pictureList) {
+            if (picture.getPicPHash() != null && (scope != PUBLIC_SCOPE || isReviewPassed(picture))) {
+                index.put(picture.getId(), picture.getPicPHash(),
+                        picture.getPicDHash() == null ? 0L : picture.getPicDHash());
+                indexedIdSet.add(picture.getId());
+            }
+        }
+        // 已删除、没有哈希或公共图库中未过审的图片从索引中移除
+        for (Long pictureId : pictureIdList) {
+            if (!indexedIdSet.contains(pictureId)) {
+                index.remove(pictureId);
+            }
+        }
+    }
+
+    /**
+     * 计算并保存单张图片的哈希
+     *
+     * @return 是否回填成功
+     */
+    private boolean backfillPicture(Picture picture) {
+        String url = StrUtil.isNotBlank(picture.getThumbnailUrl()) ? picture.getThumbnailUrl() : picture.getUrl();
+        if (StrUtil.isBlank(url)) {
+            return false;
+        }
+        try {
+            // 通过对象存储读取，远程存储时经过本地磁盘缓存
+            BufferedImage image;
+            try (StorageObject storageObject = objectStorage.getObject(objectStorage.getKey(url))) {
+                if (storageObject == null) {
+                    log.warn("图片文件不存在，跳过哈希回填，pictureId = {}", picture.getId());
+                    return false;
+                }
+                image = ImageSampleUtils.readSampled(storageObject.getInputStream(),
+                        ImageSampleUtils.DEFAULT_MAX_SAMPLES_PER_AXIS);
+            }
+            if (image == null) {
+                log.warn("无法解码图片，跳过哈希回填，pictureId = {}", picture.getId());
+                return false;
+            }
+            // 只更新哈希字段，不影响编辑时间等业务字段
+            pictureMapper.update(null, new UpdateWrapper<Picture>()
+                    .set("picPHash", ImageHashUtils.pHash(image))
+                    .set("picDHash", ImageHashUtils.dHash(image))
+                    .eq("id", picture.getId()));
+            return true;
+        } catch (Exception e) {
+            log.warn("图片哈希回填失败，pictureId = {}：{}", picture.getId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private PictureHashIndex loadScope(Long scope) {
+        long startTime = System.currentTimeMillis();
+        PictureHashIndex index = new PictureHashIndex();
+        long lastId = 0;
+        while (true) {
+            List<Picture> pictureList = pictureMapper.selectList(new QueryWrapper<Picture>()
+                    .select("id", "picPHash", "picDHash")
+                    .isNull(scope == PUBLIC_SCOPE, "spaceId")
+                    .eq(scope == PUBLIC_SCOPE, "reviewStatus", PictureReviewStatusEnum.PASS.getValue())
+                    .eq(scope != PUBLIC_SCOPE, "spaceId", scope)
+                    .isNotNull("picPHash")
+                    .gt("id", lastId)
+                    .orderByAsc("id")
+                    .last("limit " + LOAD_BATCH_SIZE));
+            for (Picture picture : pictureList) {
+                index.put(picture.getId(), picture.getPicPHash(),
+                        picture.getPicDHash() == null ? 0L : picture.getPicDHash());
+            }
+            if (pictureList.size() < LOAD_BATCH_SIZE) {
+                break;
+            }
+            lastId = pictureList.get(pictureList.size() - 1).getId();
+        }
+        log.info("感知哈希索引加载完成，scope = {}，图片数 = {}，耗时 = {} ms",
+                scope, index.size(), System.currentTimeMillis() - startTime);
+        return index;
+    }
+
+    private static boolean isReviewPassed(Picture picture) {
+        return ObjUtil.equals(PictureReviewStatusEnum.PASS.getValue(), picture.getReviewStatus());
+    }
+
+    private static long toScope(Long spaceId) {
+        return spaceId == null ? PUBLIC_SCOPE : spaceId;
+    }
+}
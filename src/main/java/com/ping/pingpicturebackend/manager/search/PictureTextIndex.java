@@ -0,0 +1,245 @@
+package com.ping.pingpicturebackend.manager.search;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 图片文本倒排索引
+ * <p>
+ * 每张图片对应一个内部文档编号（int，按写入顺序递增），每个字段维护 词 -> 倒排列表。
+ * 图片修改时旧文档标记删除、重新分配编号写入，保证倒排列表始终只需要追加；
+ * 删除的文档过多时整体压缩，重新分配连续编号。
+ * <p>
+ * 读写锁保护，查询之间可以并发。
+ */
+public class PictureTextIndex {
+
+    /**
+     * 已删除文档超过该数量并且超过存活文档数时触发压缩
+     */
+    private static final int COMPACT_MIN_DELETED = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 字段 -> 词 -> 倒排列表
+     */
+    private final Map<PictureSearchField, Map<String, PostingList>> fieldPostingMap = new EnumMap<>(PictureSearchField.class);
+
+    /**
+     * 文档编号 -> 图片 id
+     */
+    private long[] docPictureIds = new long[1024];
+
+    /**
+     * 图片 id -> 当前有效的文档编号
+     */
+    private final Map<Long, Integer> pictureDocIdMap = new HashMap<>();
+
+    /**
+     * 已删除的文档编号
+     */
+    private BitSet deletedDocs = new BitSet();
+
+    private int nextDocId;
+
+    private int deletedCount;
+
+    public PictureTextIndex() {
+        for (PictureSearchField field : PictureSearchField.values()) {
+            fieldPostingMap.put(field, new HashMap<>());
+        }
+    }
+
+    /**
+     * 写入或更新图片
+     *
+     * @param pictureId 图片 id
+     * @param fieldText 字段 -> 文本
+     */
+    public void index(long pictureId, Map<PictureSearchField, String> fieldText) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(pictureId);
+            int docId = nextDocId++;
+            if (docId >= docPictureIds.length) {
+                docPictureIds = Arrays.copyOf(docPictureIds, docPictureIds.length << 1);
+            }
+            docPictureIds[docId] = pictureId;
+            pictureDocIdMap.put(pictureId, docId);
+            for (Map.Entry<PictureSearchField, String> entry : fieldText.entrySet()) {
+                Map<String, PostingList> postingMap = fieldPostingMap.get(entry.getKey());
+                for (String token : TextTokenizer.tokenizeDocument(entry.getValue())) {
+                    postingMap.computeIfAbsent(token, key -> new PostingList()).add(docId);
+                }
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除图片
+     *
+     * @param pictureId 图片 id
+     */
+    public void remove(long pictureId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(pictureId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查询在任意一个字段中可能包含该文本的图片
+     *
+     * @param text          查询文本
+     * @param fields        查询的字段
+     * @param maxCandidates 候选数量上限
+     * @return 候选图片 id（一定包含全部匹配的图片，可能多出不匹配的），
+     * 无法使用索引或候选数量超过上限时返回 null
+     */
+    public Set<Long> search(String text, Collection<PictureSearchField> fields, int maxCandidates) {
+        Set<String> tokens = TextTokenizer.tokenizeQuery(text);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            Set<Long> pictureIdSet = new HashSet<>();
+            for (PictureSearchField field : fields) {
+                int[] docIds = intersect(fieldPostingMap.get(field), tokens);
+                for (int docId : docIds) {
+                    if (deletedDocs.get(docId)) {
+                        continue;
+                    }
+                    pictureIdSet.add(docPictureIds[docId]);
+                    if (pictureIdSet.size() > maxCandidates) {
+                        return null;
+                    }
+                }
+            }
+            return pictureIdSet;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 有效文档数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return pictureDocIdMap.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 批量构建结束后调用，释放倒排列表多余的容量
+     */
+    public void trim() {
+        lock.writeLock().lock();
+        try {
+            for (Map<String, PostingList> postingMap : fieldPostingMap.values()) {
+                for (PostingList postingList : postingMap.values()) {
+                    postingList.trim();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 求多个词的倒排列表交集，从最短的列表开始
+     */
+    private int[] intersect(Map<String, PostingList> postingMap, Set<String> tokens) {
+        List<PostingList> postingLists = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            PostingList postingList = postingMap.get(token);
+            if (postingList == null) {
+                return new int[0];
+            }
+            postingLists.add(postingList);
+        }
+        postingLists.sort(Comparator.comparingInt(PostingList::size));
+        int[] result = postingLists.get(0).toArray();
+        int resultLength = result.length;
+        for (int i = 1; i < postingLists.size() && resultLength > 0; i++) {
+            int[] other = postingLists.get(i).toArray();
+            int newLength = 0;
+            int j = 0;
+            for (int k = 0; k < resultLength && j < other.length; k++) {
+                int docId = result[k];
+                while (j < other.length && other[j] < docId) {
+                    j++;
+                }
+                if (j < other.length && other[j] == docId) {
+                    result[newLength++] = docId;
+                }
+            }
+            resultLength = newLength;
+        }
+        return resultLength == result.length ? result : Arrays.copyOf(result, resultLength);
+    }
+
+    private void removeInternal(long pictureId) {
+        Integer oldDocId = pictureDocIdMap.remove(pictureId);
+        if (oldDocId != null) {
+            deletedDocs.set(oldDocId);
+            deletedCount++;
+        }
+    }
+
+    /**
+     * 删除的文档过多时压缩：去掉已删除的编号，剩余文档重新分配连续编号（保持原有顺序）
+     */
+    private void compactIfNeeded() {
+        if (deletedCount < COMPACT_MIN_DELETED || deletedCount < pictureDocIdMap.size()) {
+            return;
+        }
+        int[] docIdMapping = new int[nextDocId];
+        int liveCount = 0;
+        for (int docId = 0; docId < nextDocId; docId++) {
+            docIdMapping[docId] = deletedDocs.get(docId) ? -1 : liveCount++;
+        }
+        for (Map<String, PostingList> postingMap : fieldPostingMap.values()) {
+            Iterator<Map.Entry<String, PostingList>> iterator = postingMap.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, PostingList> entry = iterator.next();
+                PostingList compacted = new PostingList();
+                for (int docId : entry.getValue().toArray()) {
+                    int newDocId = docIdMapping[docId];
+                    if (newDocId >= 0) {
+                        compacted.add(newDocId);
+                    }
+                }
+                if (compacted.size() == 0) {
+                    iterator.remove();
+                } else {
+                    compacted.trim();
+                    entry.setValue(compacted);
+                }
+            }
+        }
+        long[] newDocPictureIds = new long[Math.max(1024, liveCount * 2)];
+        for (int docId = 0; docId < nextDocId; docId++) {
+            int newDocId = docIdMapping[docId];
+            if (newDocId >= 0) {
+                newDocPictureIds[newDocId] = docPictureIds[docId];
+                pictureDocIdMap.put(docPictureIds[docId], newDocId);
+            }
+        }
+        docPictureIds = newDocPictureIds;
+        deletedDocs = new BitSet();
+        deletedCount = 0;
+        nextDocId = liveCount;
+    }
+}
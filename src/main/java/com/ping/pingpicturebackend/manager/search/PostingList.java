@@ -0,0 +1,75 @@
+package com.ping.pingpicturebackend.manager.search;
+
+import java.util.Arrays;
+
+/**
+ * 倒排列表
+ * <p>
+ * 文档编号严格递增追加，按“与上一个编号的差值”做 varint 编码存放在字节数组中，
+ * 大多数差值只占 1~2 个字节。非线程安全，由 {@link PictureTextIndex} 统一加锁。
+ */
+final class PostingList {
+
+    private byte[] data = new byte[4];
+
+    private int length;
+
+    private int count;
+
+    private int lastDocId = -1;
+
+    /**
+     * 追加文档编号，必须大于已有的最大编号
+     */
+    void add(int docId) {
+        if (docId <= lastDocId) {
+            throw new IllegalArgumentException("文档编号必须递增");
+        }
+        int delta = lastDocId < 0 ? docId : docId - lastDocId;
+        if (length + 5 > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length << 1, length + 5));
+        }
+        while ((delta & ~0x7F) != 0) {
+            data[length++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        data[length++] = (byte) delta;
+        lastDocId = docId;
+        count++;
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * 解码为升序的文档编号数组
+     */
+    int[] toArray() {
+        int[] docIds = new int[count];
+        int position = 0;
+        int docId = 0;
+        for (int i = 0; i < count; i++) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            docId = i == 0 ? delta : docId + delta;
+            docIds[i] = docId;
+        }
+        return docIds;
+    }
+
+    /**
+     * 释放多余的容量
+     */
+    void trim() {
+        if (data.length > length) {
+            data = Arrays.copyOf(data, length);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.ping.pingpicturebackend.manager.search;
+
+import cn.hutool.core.util.StrUtil;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 文本分词器（二元分词）
+ * <p>
+ * 文本先做归一化（全角转半角、去掉重音符号、转小写），再按非字母数字字符切分成若干段，
+ * 每段切成相邻两个字符组成的词（中文、英文、数字统一处理）。
+ * <p>
+ * 这样任意长度不小于 2 的连续子串，它的全部二元词一定都出现在原文的二元词中，
+ * 所以用索引求出的候选集合一定包含 LIKE '%子串%' 能匹配到的全部数据，再用 LIKE 精确过滤即可。
+ */
+public final class TextTokenizer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private TextTokenizer() {
+    }
+
+    /**
+     * 对文档分词，长度为 1 的段保留单字，保证单字内容也能被检索到
+     *
+     * @param text 文本
+     * @return 词集合
+     */
+    public static Set<String> tokenizeDocument(String text) {
+        return tokenize(text, true);
+    }
+
+    /**
+     * 对查询分词，长度为 1 的段无法用二元词定位，直接忽略
+     *
+     * @param text 查询文本
+     * @return 词集合，为空表示无法使用索引
+     */
+    public static Set<String> tokenizeQuery(String text) {
+        return tokenize(text, false);
+    }
+
+    private static Set<String> tokenize(String text, boolean keepSingleChar) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (StrUtil.isBlank(text)) {
+            return tokens;
+        }
+        String normalized = normalize(text);
+        int length = normalized.length();
+        int segmentStart = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar) {
+                if (segmentStart < 0) {
+                    segmentStart = i;
+                }
+                continue;
+            }
+            if (segmentStart >= 0) {
+                addSegment(tokens, normalized, segmentStart, i, keepSingleChar);
+                segmentStart = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static void addSegment(Set<String> tokens, String text, int start, int end, boolean keepSingleChar) {
+        if (end - start == 1) {
+            if (keepSingleChar) {
+                tokens.add(text.substring(start, end));
+            }
+            return;
+        }
+        for (int i = start; i + 1 < end; i++) {
+            tokens.add(text.substring(i, i + 2));
+        }
+    }
+
+    /**
+     * 归一化，与数据库 utf8mb4_unicode_ci 的比较规则保持大致一致（不区分大小写、全半角和重音）
+     */
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,91 @@
+package com.ping.pingpicturebackend.manager.search;
+
+/**
+ * 保留得分最小的 K 个元素的有界最大堆
+ * <p>
+ * 堆顶是当前保留结果中得分最大的元素，新元素只有比堆顶更小时才会替换，整个过程不创建对象
+ */
+public class TopKHeap {
+
+    private final float[] scores;
+
+    private final long[] ids;
+
+    private int size;
+
+    public TopKHeap(int capacity) {
+        scores = new float[capacity];
+        ids = new long[capacity];
+    }
+
+    /**
+     * 尝试加入一个元素
+     *
+     * @param id    元素 id
+     * @param score 得分，越小越好
+     */
+    public void offer(long id, float score) {
+        if (size < scores.length) {
+            scores[size] = score;
+            ids[size] = id;
+            siftUp(size++);
+        } else if (size > 0 && score < scores[0]) {
+            scores[0] = score;
+            ids[0] = id;
+            siftDown(size);
+        }
+    }
+
+    /**
+     * 按得分升序取出全部元素，取出后堆为空
+     *
+     * @return 元素 id
+     */
+    public long[] drainAscending() {
+        long[] result = new long[size];
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = ids[0];
+            scores[0] = scores[i];
+            ids[0] = ids[i];
+            siftDown(i);
+        }
+        size = 0;
+        return result;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (scores[parent] >= scores[index]) {
+                return;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int heapSize) {
+        int index = 0;
+        while (true) {
+            int left = index * 2 + 1;
+            if (left >= heapSize) {
+                return;
+            }
+            int largest = left + 1 < heapSize && scores[left + 1] > scores[left] ? left + 1 : left;
+            if (scores[index] >= scores[largest]) {
+                return;
+            }
+            swap(index, largest);
+            index = largest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        float score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+        long id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+    }
+}
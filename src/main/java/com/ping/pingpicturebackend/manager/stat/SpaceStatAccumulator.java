@@ -0,0 +1,148 @@
+package com.ping.pingpicturebackend.manager.stat;
+
+import com.ping.pingpicturebackend.model.entity.SpaceStat;
+import com.ping.pingpicturebackend.model.entity.SpaceUserDayStat;
+import com.ping.pingpicturebackend.model.enums.SpaceStatTypeEnum;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * 单个空间的统计累加器
+ * <p>
+ * 流式读取按空间排序的图片（或标签）时逐行累加，读完一个空间后与统计表比对，再清空给下一个空间使用，
+ * 任一时刻只持有一个空间的统计项
+ */
+final class SpaceStatAccumulator {
+
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+
+    private static final TimeZone TIME_ZONE = TimeZone.getDefault();
+
+    /**
+     * 统计表中的空间 id，为空表示还没有开始累加
+     */
+    private Long spaceId;
+
+    private final long[] sizeRangeCounts = new long[SpaceStatManager.SIZE_RANGE_LIST.size()];
+
+    private final long[] sizeRangeSizes = new long[SpaceStatManager.SIZE_RANGE_LIST.size()];
+
+    /**
+     * 分类计数（空字符串表示未分类）
+     */
+    private final StatCounter categoryCounter = new StatCounter();
+
+    /**
+     * 标签计数
+     */
+    private final StatCounter tagCounter = new StatCounter();
+
+    /**
+     * 每日上传计数，键为 用户 id:日序号
+     */
+    private final StatCounter dayCounter = new StatCounter();
+
+    Long getSpaceId() {
+        return spaceId;
+    }
+
+    /**
+     * 清空并开始累加另一个空间
+     */
+    void reset(long spaceId) {
+        this.spaceId = spaceId;
+        Arrays.fill(sizeRangeCounts, 0);
+        Arrays.fill(sizeRangeSizes, 0);
+        categoryCounter.clear();
+        tagCounter.clear();
+        dayCounter.clear();
+    }
+
+    /**
+     * 累加一张图片
+     */
+    void addPicture(Long userId, String category, long picSize, Date createTime) {
+        int sizeRangeIndex = SpaceStatManager.getSizeRangeIndex(picSize);
+        sizeRangeCounts[sizeRangeIndex]++;
+        sizeRangeSizes[sizeRangeIndex] += picSize;
+        categoryCounter.add(category == null ? "" : category, 1, picSize);
+        dayCounter.add(getDayKey(userId, createTime), 1, 0);
+    }
+
+    /**
+     * 累加一个图片标签
+     */
+    void addTag(String tag) {
+        tagCounter.add(tag, 1, 0);
+    }
+
+    /**
+     * 分类、大小区间统计是否与累加结果一致
+     *
+     * @param spaceStatList 统计表中该空间数量大于 0 的分类、大小区间统计
+     */
+    boolean matchesPictureStat(List<SpaceStat> spaceStatList) {
+        int categoryCount = 0;
+        int sizeRangeCount = 0;
+        for (SpaceStat spaceStat : spaceStatList) {
+            long pictureCount = spaceStat.getPictureCount();
+            long totalSize = spaceStat.getTotalSize();
+            if (SpaceStatTypeEnum.CATEGORY.getValue() == spaceStat.getStatType()) {
+                if (categoryCounter.getCount(spaceStat.getStatKey()) != pictureCount
+                        || categoryCounter.getSize(spaceStat.getStatKey()) != totalSize) {
+                    return false;
+                }
+                categoryCount++;
+            } else if (SpaceStatTypeEnum.SIZE.getValue() == spaceStat.getStatType()) {
+                int index = SpaceStatManager.SIZE_RANGE_LIST.indexOf(spaceStat.getStatKey());
+                if (index < 0 || sizeRangeCounts[index] != pictureCount || sizeRangeSizes[index] != totalSize) {
+                    return false;
+                }
+                sizeRangeCount++;
+            }
+        }
+        // 统计表中缺少的统计项
+        return categoryCount == categoryCounter.size()
+                && sizeRangeCount == Arrays.stream(sizeRangeCounts).filter(count -> count > 0).count();
+    }
+
+    /**
+     * 每日上传统计是否与累加结果一致
+     *
+     * @param dayStatList 统计表中该空间数量大于 0 的每日上传统计
+     */
+    boolean matchesDayStat(List<SpaceUserDayStat> dayStatList) {
+        for (SpaceUserDayStat dayStat : dayStatList) {
+            if (dayCounter.getCount(getDayKey(dayStat.getUserId(), dayStat.getStatDate())) != dayStat.getPictureCount()) {
+                return false;
+            }
+        }
+        return dayStatList.size() == dayCounter.size();
+    }
+
+    /**
+     * 标签统计是否与累加结果一致（只比对数量）
+     *
+     * @param spaceStatList 统计表中该空间数量大于 0 的标签统计
+     */
+    boolean matchesTagStat(List<SpaceStat> spaceStatList) {
+        for (SpaceStat spaceStat : spaceStatList) {
+            if (tagCounter.getCount(spaceStat.getStatKey()) != spaceStat.getPictureCount()) {
+                return false;
+            }
+        }
+        return spaceStatList.size() == tagCounter.size();
+    }
+
+    /**
+     * 用户和日期组成的键，日期按本地时区取日序号，与统计表中的上传日期一致
+     */
+    private static String getDayKey(Long userId, Date date) {
+        long time = date.getTime();
+        long epochDay = Math.floorDiv(time + TIME_ZONE.getOffset(time), MILLIS_PER_DAY);
+        return userId + ":" + epochDay;
+    }
+}
@@ -0,0 +1,648 @@
+package com.ping.pingpicturebackend.manager.stat;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.ObjUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.ping.pingpicture.infrastructure.exception.BusinessException;
+import com.ping.pingpicture.infrastructure.exception.ErrorCode;
+import com.ping.pingpicture.infrastructure.mapper.PictureMapper;
+import com.ping.pingpicture.infrastructure.mapper.PictureStatStateMapper;
+import com.ping.pingpicture.infrastructure.mapper.PictureTagMapper;
+import com.ping.pingpicture.infrastructure.mapper.SpaceStatMapper;
+import com.ping.pingpicture.infrastructure.mapper.SpaceUserDayStatMapper;
+import com.ping.pingpicturebackend.model.entity.Picture;
+import com.ping.pingpicturebackend.model.entity.PictureStatState;
+import com.ping.pingpicturebackend.model.entity.PictureTag;
+import com.ping.pingpicturebackend.model.entity.SpaceStat;
+import com.ping.pingpicturebackend.model.entity.SpaceUserDayStat;
+import com.ping.pingpicturebackend.model.enums.SpaceStatTypeEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 空间统计管理
+ * <p>
+ * 1. 图片变更提交后只把图片 id 记入 Redis 待同步集合，定时按批同步，写操作不感知统计表
+ * 2. 同步时对比图片当前的取值和 picture_stat_state 中上次计入统计的取值，先减去旧值再加上新值，
+ * 一批图片的增量按统计项合并后用 INSERT ... ON DUPLICATE KEY UPDATE 累加，与状态表在同一个事务中提交
+ * 3. 统计表最多落后一个同步周期；丢失的同步（如提交后进程退出）由定时校验发现并修正：
+ * 按空间顺序流式读取图片表和标签表，逐个空间累加后与统计表比对，只重新比对不一致的空间
+ * <p>
+ * 公共图库在统计表中的空间 id 记为 0
+ */
+@Slf4j
+@Component
+public class SpaceStatManager {
+
+    /**
+     * 公共图库在统计表中的空间 id
+     */
+    public static final long PUBLIC_SPACE_ID = 0L;
+
+    /**
+     * 图片大小区间，按顺序展示
+     */
+    public static final List<String> SIZE_RANGE_LIST = Collections.unmodifiableList(
+            Arrays.asList("<100KB", "100KB-500KB", "500KB-1MB", ">1MB"));
+
+    /**
+     * 待同步的图片 id 集合
+     */
+    private static final String DIRTY_KEY = "pingPicture:spaceStatDirty";
+
+    /**
+     * 同步、校验和重建共用的租约，保证同时只有一个节点写统计表
+     * <p>
+     * 每写一批之前续期，续期失败（租约已过期或被其他节点持有）时中止，不会与其他节点重复累加
+     */
+    private static final String SYNC_LOCK_KEY = "pingPicture:spaceStat:syncLock";
+
+    private static final long SYNC_LOCK_MILLIS = 60 * 1000L;
+
+    /**
+     * 校验和重建等待租约的最长时间，超过一个租约周期，持有租约的节点退出后也能拿到
+     */
+    private static final long LOCK_WAIT_MILLIS = 2 * SYNC_LOCK_MILLIS;
+
+    private static final long LOCK_RETRY_INTERVAL_MILLIS = 200L;
+
+    /**
+     * 每批同步的图片数（一个事务）
+     */
+    private static final int SYNC_BATCH_SIZE = 500;
+
+    /**
+     * 单次同步最多处理的批数，剩余的留给下次同步
+     */
+    private static final int MAX_SYNC_BATCH_COUNT = 20;
+
+    /**
+     * 释放租约脚本：只删除自己持有的租约
+     */
+    private static final DefaultRedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    /**
+     * 续期租约脚本：只续期自己持有的租约
+     */
+    private static final DefaultRedisScript<Long> RENEW_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private PictureMapper pictureMapper;
+
+    @Resource
+    private PictureTagMapper pictureTagMapper;
+
+    @Resource
+    private SpaceStatMapper spaceStatMapper;
+
+    @Resource
+    private SpaceUserDayStatMapper spaceUserDayStatMapper;
+
+    @Resource
+    private PictureStatStateMapper pictureStatStateMapper;
+
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 记录待同步的图片
+     *
+     * @param pictureIds 图片 id 列表
+     */
+    public void markDirty(Collection<Long> pictureIds) {
+        if (CollUtil.isEmpty(pictureIds)) {
+            return;
+        }
+        String[] members = pictureIds.stream().filter(Objects::nonNull).map(String::valueOf).toArray(String[]::new);
+        if (members.length > 0) {
+            stringRedisTemplate.opsForSet().add(DIRTY_KEY, members);
+        }
+    }
+
+    /**
+     * 定时同步待同步的图片
+     */
+    @Scheduled(initialDelay = 10 * 1000L, fixedDelayString = "${picture.stat.sync-interval:2000}")
+    public void sync() {
+        String token = tryLock(SYNC_LOCK_MILLIS);
+        if (token == null) {
+            return;
+        }
+        try {
+            doSync(token);
+        } catch (Exception e) {
+            log.error("同步空间统计失败", e);
+        } finally {
+            unlock(token);
+        }
+    }
+
+    /**
+     * 定时校验
+     */
+    @Scheduled(cron = "${picture.stat.verify-cron:0 30 4 * * ?}")
+    public void scheduledVerify() {
+        try {
+            verify();
+        } catch (Exception e) {
+            log.error("校验空间统计失败", e);
+        }
+    }
+
+    /**
+     * 校验：流式聚合图片表和标签表，与统计表逐个空间比对，重新比对不一致的空间
+     * <p>
+     * 两次读取都按空间排序，累加器只保存当前空间的统计项，内存与图片总数无关；
+     * 读取过程中不断有图片变更时，个别空间可能被误判为不一致，重新比对对一致的图片没有影响。
+     * <p>
+     * 只在写统计表时持有租约：流式读取只读不写，期间释放租约，定时同步照常进行
+     *
+     * @return 修正的图片数
+     */
+    public int verify() {
+        // 先同步已记录的变更，减少误判
+        String token = lock();
+        try {
+            doSync(token);
+        } finally {
+            unlock(token);
+        }
+        Set<Long> mismatchedSpaceIdSet = new HashSet<>();
+        int spaceCount = findMismatchedSpaces(mismatchedSpaceIdSet);
+        // 重新比对不一致的空间
+        int correctedCount = 0;
+        if (!mismatchedSpaceIdSet.isEmpty()) {
+            token = lock();
+            try {
+                for (Long spaceId : mismatchedSpaceIdSet) {
+                    correctedCount += resyncPictures(token, wrapper -> {
+                        if (spaceId == PUBLIC_SPACE_ID) {
+                            wrapper.isNull("spaceId");
+                        } else {
+                            wrapper.eq("spaceId", spaceId);
+                        }
+                    });
+                    correctedCount += resyncStates(token, wrapper -> wrapper.eq("spaceId", spaceId));
+                }
+            } finally {
+                unlock(token);
+            }
+        }
+        log.info("空间统计校验完成，共 {} 个空间，{} 个空间不一致，修正 {} 张图片",
+                spaceCount, mismatchedSpaceIdSet.size(), correctedCount);
+        return correctedCount;
+    }
+
+    /**
+     * 流式聚合图片表和标签表，找出与统计表不一致的空间（只读，不需要租约）
+     *
+     * @param mismatchedSpaceIdSet 不一致的空间
+     * @return 有图片的空间数
+     */
+    private int findMismatchedSpaces(Set<Long> mismatchedSpaceIdSet) {
+        Set<Long> countedSpaceIdSet = new HashSet<>();
+        // 1. 分类、大小区间、每日上传
+        SpaceStatAccumulator accumulator = new SpaceStatAccumulator();
+        pictureMapper.streamStatRows(resultContext -> {
+            Picture picture = resultContext.getResultObject();
+            long spaceId = toStatSpaceId(picture.getSpaceId());
+            if (accumulator.getSpaceId() == null || accumulator.getSpaceId() != spaceId) {
+                verifyPictureStat(accumulator, mismatchedSpaceIdSet);
+                accumulator.reset(spaceId);
+                countedSpaceIdSet.add(spaceId);
+            }
+            accumulator.addPicture(picture.getUserId(), picture.getCategory(),
+                    picture.getPicSize() == null ? 0 : picture.getPicSize(), picture.getCreateTime());
+        });
+        verifyPictureStat(accumulator, mismatchedSpaceIdSet);
+        // 2. 标签
+        SpaceStatAccumulator tagAccumulator = new SpaceStatAccumulator();
+        Set<Long> taggedSpaceIdSet = new HashSet<>();
+        pictureTagMapper.streamSpaceTags(resultContext -> {
+            PictureTag pictureTag = resultContext.getResultObject();
+            long spaceId = toStatSpaceId(pictureTag.getSpaceId());
+            if (tagAccumulator.getSpaceId() == null || tagAccumulator.getSpaceId() != spaceId) {
+                verifyTagStat(tagAccumulator, mismatchedSpaceIdSet);
+                tagAccumulator.reset(spaceId);
+                taggedSpaceIdSet.add(spaceId);
+            }
+            tagAccumulator.addTag(pictureTag.getTag());
+        });
+        verifyTagStat(tagAccumulator, mismatchedSpaceIdSet);
+        // 3. 没有图片或标签，但统计表中仍有数量的空间
+        for (SpaceStat spaceStat : spaceStatMapper.selectList(new QueryWrapper<SpaceStat>()
+                .select("DISTINCT spaceId", "statType")
+                .gt("pictureCount", 0))) {
+            Set<Long> spaceIdSet = SpaceStatTypeEnum.TAG.getValue() == spaceStat.getStatType()
+                    ? taggedSpaceIdSet : countedSpaceIdSet;
+            if (!spaceIdSet.contains(spaceStat.getSpaceId())) {
+                mismatchedSpaceIdSet.add(spaceStat.getSpaceId());
+            }
+        }
+        return countedSpaceIdSet.size();
+    }
+
+    /**
+     * 重建：按 id 顺序重新比对所有图片和统计状态，修正有偏差的图片，最后清理数量为 0 的统计项
+     * <p>
+     * 统计表始终等于统计状态的汇总，所以只需要修正状态与图片不一致的部分，重建期间统计数据一直可读；
+     * 首次上线时统计状态为空，执行一次重建即可生成全部统计
+     *
+     * @return 修正的图片数
+     */
+    public int rebuild() {
+        String token = lock();
+        try {
+            // 现有的图片，以及已删除但仍计入统计的图片
+            int correctedCount = resyncPictures(token, wrapper -> {
+            });
+            correctedCount += resyncStates(token, wrapper -> {
+            });
+            renewLock(token);
+            spaceStatMapper.delete(new QueryWrapper<SpaceStat>().le("pictureCount", 0));
+            spaceUserDayStatMapper.delete(new QueryWrapper<SpaceUserDayStat>().le("pictureCount", 0));
+            log.info("空间统计重建完成，修正 {} 张图片", correctedCount);
+            return correctedCount;
+        } finally {
+            unlock(token);
+        }
+    }
+
+    /**
+     * 统计表中的空间 id
+     *
+     * @param spaceId 图片的空间 id（为空表示公共图库）
+     */
+    public static long toStatSpaceId(Long spaceId) {
+        return spaceId == null ? PUBLIC_SPACE_ID : spaceId;
+    }
+
+    /**
+     * 图片大小所在的区间
+     *
+     * @param picSize 图片大小
+     */
+    public static String getSizeRange(long picSize) {
+        return SIZE_RANGE_LIST.get(getSizeRangeIndex(picSize));
+    }
+
+    /**
+     * 图片大小所在区间的下标（对应 SIZE_RANGE_LIST）
+     *
+     * @param picSize 图片大小
+     */
+    static int getSizeRangeIndex(long picSize) {
+        if (picSize < 100 * 1024) {
+            return 0;
+        }
+        if (picSize < 500 * 1024) {
+            return 1;
+        }
+        if (picSize < 1024 * 1024) {
+            return 2;
+        }
+        return 3;
+    }
+
+    /**
+     * 分批同步待同步的图片
+     *
+     * @param token 持有的租约
+     * @return 同步的图片数
+     */
+    int doSync(String token) {
+        int syncedCount = 0;
+        for (int i = 0; i < MAX_SYNC_BATCH_COUNT; i++) {
+            renewLock(token);
+            List<String> pictureIdList = stringRedisTemplate.opsForSet().pop(DIRTY_KEY, SYNC_BATCH_SIZE);
+            if (CollUtil.isEmpty(pictureIdList)) {
+                break;
+            }
+            try {
+                applyChanges(pictureIdList.stream().map(Long::valueOf).collect(Collectors.toList()));
+            } catch (RuntimeException e) {
+                // 放回集合，下次重试
+                stringRedisTemplate.opsForSet().add(DIRTY_KEY, pictureIdList.toArray(new String[0]));
+                throw e;
+            }
+            syncedCount += pictureIdList.size();
+        }
+        return syncedCount;
+    }
+
+    /**
+     * 比对累加器中空间的分类、大小区间和每日上传统计
+     */
+    private void verifyPictureStat(SpaceStatAccumulator accumulator, Set<Long> mismatchedSpaceIdSet) {
+        Long spaceId = accumulator.getSpaceId();
+        if (spaceId == null) {
+            return;
+        }
+        List<SpaceStat> spaceStatList = spaceStatMapper.selectList(new QueryWrapper<SpaceStat>()
+                .eq("spaceId", spaceId)
+                .in("statType", SpaceStatTypeEnum.CATEGORY.getValue(), SpaceStatTypeEnum.SIZE.getValue())
+                .gt("pictureCount", 0));
+        List<SpaceUserDayStat> dayStatList = spaceUserDayStatMapper.selectList(new QueryWrapper<SpaceUserDayStat>()
+                .eq("spaceId", spaceId)
+                .gt("pictureCount", 0));
+        if (!accumulator.matchesPictureStat(spaceStatList) || !accumulator.matchesDayStat(dayStatList)) {
+            mismatchedSpaceIdSet.add(spaceId);
+        }
+    }
+
+    /**
+     * 比对累加器中空间的标签统计
+     */
+    private void verifyTagStat(SpaceStatAccumulator accumulator, Set<Long> mismatchedSpaceIdSet) {
+        Long spaceId = accumulator.getSpaceId();
+        if (spaceId == null) {
+            return;
+        }
+        List<SpaceStat> spaceStatList = spaceStatMapper.selectList(new QueryWrapper<SpaceStat>()
+                .eq("spaceId", spaceId)
+                .eq("statType", SpaceStatTypeEnum.TAG.getValue())
+                .gt("pictureCount", 0));
+        if (!accumulator.matchesTagStat(spaceStatList)) {
+            mismatchedSpaceIdSet.add(spaceId);
+        }
+    }
+
+    /**
+     * 按 id 顺序分批重新比对范围内的图片
+     *
+     * @param token 持有的租约
+     * @param scope 查询范围
+     * @return 修正的图片数
+     */
+    private int resyncPictures(String token, Consumer<QueryWrapper<Picture>> scope) {
+        int correctedCount = 0;
+        long lastId = 0;
+        while (true) {
+            QueryWrapper<Picture> queryWrapper = new QueryWrapper<Picture>()
+                    .select("id")
+                    .gt("id", lastId);
+            scope.accept(queryWrapper);
+            List<Long> pictureIdList = pictureMapper.selectObjs(queryWrapper
+                            .orderByAsc("id")
+                            .last("LIMIT " + SYNC_BATCH_SIZE)).stream()
+                    .map(id -> ((Number) id).longValue())
+                    .collect(Collectors.toList());
+            if (pictureIdList.isEmpty()) {
+                return correctedCount;
+            }
+            renewLock(token);
+            correctedCount += applyChanges(pictureIdList);
+            lastId = pictureIdList.get(pictureIdList.size() - 1);
+        }
+    }
+
+    /**
+     * 按图片 id 顺序分批重新比对范围内的统计状态（找出已删除但仍计入统计的图片）
+     *
+     * @param token 持有的租约
+     * @param scope 查询范围
+     * @return 修正的图片数
+     */
+    private int resyncStates(String token, Consumer<QueryWrapper<PictureStatState>> scope) {
+        int correctedCount = 0;
+        long lastId = 0;
+        while (true) {
+            QueryWrapper<PictureStatState> queryWrapper = new QueryWrapper<PictureStatState>()
+                    .select("pictureId")
+                    .gt("pictureId", lastId);
+            scope.accept(queryWrapper);
+            List<Long> pictureIdList = pictureStatStateMapper.selectObjs(queryWrapper
+                            .orderByAsc("pictureId")
+                            .last("LIMIT " + SYNC_BATCH_SIZE)).stream()
+                    .map(id -> ((Number) id).longValue())
+                    .collect(Collectors.toList());
+            if (pictureIdList.isEmpty()) {
+                return correctedCount;
+            }
+            renewLock(token);
+            correctedCount += applyChanges(pictureIdList);
+            lastId = pictureIdList.get(pictureIdList.size() - 1);
+        }
+    }
+
+    /**
+     * 比对一批图片的当前取值和统计状态，把差值计入统计表
+     *
+     * @return 有变化的图片数
+     */
+    private int applyChanges(List<Long> pictureIdList) {
+        // 已删除的图片查不到（逻辑删除），视为从统计中移除
+        Map<Long, Picture> pictureMap = pictureMapper.selectList(new QueryWrapper<Picture>()
+                        .select("id", "spaceId", "userId", "category", "picSize", "createTime")
+                        .in("id", pictureIdList)).stream()
+                .collect(Collectors.toMap(Picture::getId, Function.identity()));
+        // 标签以 picture_tag 为准，已在图片事务提交前同步
+        Map<Long, TreeSet<String>> tagMap = new HashMap<>();
+        if (!pictureMap.isEmpty()) {
+            for (PictureTag pictureTag : pictureTagMapper.selectList(new QueryWrapper<PictureTag>()
+                    .select("pictureId", "tag")
+                    .in("pictureId", pictureMap.keySet()))) {
+                tagMap.computeIfAbsent(pictureTag.getPictureId(), key -> new TreeSet<>()).add(pictureTag.getTag());
+            }
+        }
+        Map<Long, PictureStatState> oldStateMap = pictureStatStateMapper.selectList(new QueryWrapper<PictureStatState>()
+                        .in("pictureId", pictureIdList)).stream()
+                .collect(Collectors.toMap(PictureStatState::getPictureId, Function.identity()));
+        // 合并同一批中相同统计项的增量，每行只写一次
+        Map<String, SpaceStat> spaceStatDeltaMap = new LinkedHashMap<>();
+        Map<String, SpaceUserDayStat> dayStatDeltaMap = new LinkedHashMap<>();
+        List<PictureStatState> upsertStateList = new ArrayList<>();
+        List<Long> removedPictureIdList = new ArrayList<>();
+        for (Long pictureId : pictureIdList) {
+            PictureStatState oldState = oldStateMap.get(pictureId);
+            Picture picture = pictureMap.get(pictureId);
+            PictureStatState newState = picture == null ? null : buildState(picture, tagMap.get(pictureId));
+            if (isSameState(oldState, newState)) {
+                continue;
+            }
+            if (oldState != null) {
+                accumulate(spaceStatDeltaMap, dayStatDeltaMap, oldState, -1);
+            }
+            if (newState != null) {
+                accumulate(spaceStatDeltaMap, dayStatDeltaMap, newState, 1);
+                upsertStateList.add(newState);
+            } else {
+                removedPictureIdList.add(pictureId);
+            }
+        }
+        List<SpaceStat> spaceStatList = spaceStatDeltaMap.values().stream()
+                .filter(delta -> delta.getPictureCount() != 0 || delta.getTotalSize() != 0)
+                .collect(Collectors.toList());
+        List<SpaceUserDayStat> dayStatList = dayStatDeltaMap.values().stream()
+                .filter(delta -> delta.getPictureCount() != 0)
+                .collect(Collectors.toList());
+        if (upsertStateList.isEmpty() && removedPictureIdList.isEmpty()) {
+            return 0;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!spaceStatList.isEmpty()) {
+                spaceStatMapper.incrementBatch(spaceStatList);
+            }
+            if (!dayStatList.isEmpty()) {
+                spaceUserDayStatMapper.incrementBatch(dayStatList);
+            }
+            if (!upsertStateList.isEmpty()) {
+                pictureStatStateMapper.upsertBatch(upsertStateList);
+            }
+            if (!removedPictureIdList.isEmpty()) {
+                pictureStatStateMapper.delete(new QueryWrapper<PictureStatState>()
+                        .in("pictureId", removedPictureIdList));
+            }
+        });
+        return upsertStateList.size() + removedPictureIdList.size();
+    }
+
+    static PictureStatState buildState(Picture picture, TreeSet<String> tagSet) {
+        PictureStatState state = new PictureStatState();
+        state.setPictureId(picture.getId());
+        state.setSpaceId(toStatSpaceId(picture.getSpaceId()));
+        state.setUserId(picture.getUserId());
+        state.setCategory(StrUtil.nullToEmpty(picture.getCategory()));
+        state.setTags(CollUtil.isEmpty(tagSet) ? null : JSONUtil.toJsonStr(tagSet));
+        state.setPicSize(picture.getPicSize() == null ? 0 : picture.getPicSize());
+        state.setStatDate(DateUtil.beginOfDay(picture.getCreateTime()).toJdkDate());
+        return state;
+    }
+
+    static boolean isSameState(PictureStatState oldState, PictureStatState newState) {
+        if (oldState == null || newState == null) {
+            return oldState == newState;
+        }
+        return Objects.equals(oldState.getSpaceId(), newState.getSpaceId())
+                && Objects.equals(oldState.getUserId(), newState.getUserId())
+                && Objects.equals(oldState.getCategory(), newState.getCategory())
+                && Objects.equals(oldState.getTags(), newState.getTags())
+                && Objects.equals(oldState.getPicSize(), newState.getPicSize())
+                && isSameDay(oldState.getStatDate(), newState.getStatDate());
+    }
+
+    private static boolean isSameDay(Date date1, Date date2) {
+        return date1 != null && date2 != null && DateUtil.isSameDay(date1, date2);
+    }
+
+    /**
+     * 把一张图片的取值按符号计入各统计项
+     *
+     * @param sign 1 表示计入，-1 表示移除
+     */
+    static void accumulate(Map<String, SpaceStat> spaceStatDeltaMap,
+                           Map<String, SpaceUserDayStat> dayStatDeltaMap,
+                           PictureStatState state, int sign) {
+        long picSize = ObjUtil.defaultIfNull(state.getPicSize(), 0L);
+        addSpaceStat(spaceStatDeltaMap, state.getSpaceId(), SpaceStatTypeEnum.CATEGORY,
+                StrUtil.nullToEmpty(state.getCategory()), sign, sign * picSize);
+        addSpaceStat(spaceStatDeltaMap, state.getSpaceId(), SpaceStatTypeEnum.SIZE,
+                getSizeRange(picSize), sign, sign * picSize);
+        if (StrUtil.isNotBlank(state.getTags())) {
+            for (String tag : JSONUtil.toList(state.getTags(), String.class)) {
+                addSpaceStat(spaceStatDeltaMap, state.getSpaceId(), SpaceStatTypeEnum.TAG, tag, sign, sign * picSize);
+            }
+        }
+        String dayKey = state.getSpaceId() + ":" + state.getUserId() + ":" + DateUtil.formatDate(state.getStatDate());
+        SpaceUserDayStat dayStat = dayStatDeltaMap.computeIfAbsent(dayKey, key -> {
+            SpaceUserDayStat spaceUserDayStat = new SpaceUserDayStat();
+            spaceUserDayStat.setSpaceId(state.getSpaceId());
+            spaceUserDayStat.setUserId(state.getUserId());
+            spaceUserDayStat.setStatDate(state.getStatDate());
+            spaceUserDayStat.setPictureCount(0L);
+            return spaceUserDayStat;
+        });
+        dayStat.setPictureCount(dayStat.getPictureCount() + sign);
+    }
+
+    private static void addSpaceStat(Map<String, SpaceStat> spaceStatDeltaMap, Long spaceId,
+                                     SpaceStatTypeEnum statTypeEnum, String statKey,
+                                     long countDelta, long sizeDelta) {
+        String key = spaceId + ":" + statTypeEnum.getValue() + ":" + statKey;
+        SpaceStat spaceStat = spaceStatDeltaMap.computeIfAbsent(key, k -> {
+            SpaceStat delta = new SpaceStat();
+            delta.setSpaceId(spaceId);
+            delta.setStatType(statTypeEnum.getValue());
+            delta.setStatKey(statKey);
+            delta.setPictureCount(0L);
+            delta.setTotalSize(0L);
+            return delta;
+        });
+        spaceStat.setPictureCount(spaceStat.getPictureCount() + countDelta);
+        spaceStat.setTotalSize(spaceStat.getTotalSize() + sizeDelta);
+    }
+
+    private String tryLock(long lockMillis) {
+        String token = IdUtil.fastSimpleUUID();
+        Boolean acquired = stringRedisTemplate.opsForValue()
+                .setIfAbsent(SYNC_LOCK_KEY, token, lockMillis, TimeUnit.MILLISECONDS);
+        return Boolean.TRUE.equals(acquired) ? token : null;
+    }
+
+    /**
+     * 等待获取租约（定时同步只短暂持有租约，校验和重建不应因为撞上同步而被跳过）
+     */
+    private String lock() {
+        long deadline = System.currentTimeMillis() + LOCK_WAIT_MILLIS;
+        while (true) {
+            String token = tryLock(SYNC_LOCK_MILLIS);
+            if (token != null) {
+                return token;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                throw new BusinessException(ErrorCode.OPERATION_ERROR, "空间统计正在同步，请稍后重试");
+            }
+            ThreadUtil.sleep(LOCK_RETRY_INTERVAL_MILLIS);
+        }
+    }
+
+    /**
+     * 续期租约，租约已不属于自己时中止，避免与新的持有者重复写统计表
+     */
+    private void renewLock(String token) {
+        Long renewed = stringRedisTemplate.execute(RENEW_LOCK_SCRIPT, Collections.singletonList(SYNC_LOCK_KEY),
+                token, String.valueOf(SYNC_LOCK_MILLIS));
+        if (renewed == null || renewed == 0) {
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "空间统计租约已失效");
+        }
+    }
+
+    private void unlock(String token) {
+        stringRedisTemplate.execute(RELEASE_LOCK_SCRIPT, Collections.singletonList(SYNC_LOCK_KEY), token);
+    }
+}
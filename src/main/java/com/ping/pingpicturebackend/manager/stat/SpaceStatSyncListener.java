@@ -0,0 +1,25 @@
+package com.ping.pingpicturebackend.manager.stat;
+
+import com.ping.pingpicturebackend.manager.event.PictureChangeEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.Resource;
+
+/**
+ * 空间统计同步
+ * <p>
+ * 图片写操作提交后记录待同步的图片，由 SpaceStatManager 定时按批计入统计表；
+ * 回滚的写操作不会记录，不在事务中发布时直接记录
+ */
+@Component
+public class SpaceStatSyncListener {
+
+    @Resource
+    private SpaceStatManager spaceStatManager;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPictureChange(PictureChangeEvent pictureChangeEvent) {
+        spaceStatManager.markDirty(pictureChangeEvent.getPictureIdList());
+    }
+}
@@ -0,0 +1,109 @@
+package com.ping.pingpicturebackend.manager.stat;
+
+import java.util.Arrays;
+
+/**
+ * 统计项计数器（开放寻址）
+ * <p>
+ * 键、数量、大小分别放在数组中，线性探测，累加时不创建 Map.Entry 和 Long 对象；
+ * 内存只与不同统计项的数量有关，与累加的行数无关
+ */
+final class StatCounter {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * 键数组，长度为 2 的幂，空位为 null
+     */
+    private String[] keys = new String[INITIAL_CAPACITY];
+
+    private long[] counts = new long[INITIAL_CAPACITY];
+
+    private long[] sizes = new long[INITIAL_CAPACITY];
+
+    private int size;
+
+    /**
+     * 累加统计项
+     *
+     * @param key       统计项
+     * @param count     数量增量
+     * @param sizeDelta 大小增量
+     */
+    void add(String key, long count, long sizeDelta) {
+        // 负载因子不超过 0.5，探测链保持很短
+        if ((size + 1) * 2 > keys.length) {
+            resize();
+        }
+        int index = indexOf(keys, key);
+        if (keys[index] == null) {
+            keys[index] = key;
+            size++;
+        }
+        counts[index] += count;
+        sizes[index] += sizeDelta;
+    }
+
+    long getCount(String key) {
+        int index = indexOf(keys, key);
+        return keys[index] == null ? 0 : counts[index];
+    }
+
+    long getSize(String key) {
+        int index = indexOf(keys, key);
+        return keys[index] == null ? 0 : sizes[index];
+    }
+
+    /**
+     * 不同统计项的数量
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * 清空，容量过大时缩回初始大小，避免一个大空间之后一直占用内存
+     */
+    void clear() {
+        if (keys.length > INITIAL_CAPACITY * 64) {
+            keys = new String[INITIAL_CAPACITY];
+            counts = new long[INITIAL_CAPACITY];
+            sizes = new long[INITIAL_CAPACITY];
+        } else {
+            Arrays.fill(keys, null);
+            Arrays.fill(counts, 0);
+            Arrays.fill(sizes, 0);
+        }
+        size = 0;
+    }
+
+    private void resize() {
+        String[] oldKeys = keys;
+        long[] oldCounts = counts;
+        long[] oldSizes = sizes;
+        keys = new String[oldKeys.length * 2];
+        counts = new long[keys.length];
+        sizes = new long[keys.length];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int index = indexOf(keys, oldKeys[i]);
+                keys[index] = oldKeys[i];
+                counts[index] = oldCounts[i];
+                sizes[index] = oldSizes[i];
+            }
+        }
+    }
+
+    /**
+     * 键所在的位置，不存在时返回应插入的空位
+     */
+    private static int indexOf(String[] keys, String key) {
+        int hash = key.hashCode();
+        int mask = keys.length - 1;
+        int index = (hash ^ (hash >>> 16)) & mask;
+        while (keys[index] != null && !keys[index].equals(key)) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+}
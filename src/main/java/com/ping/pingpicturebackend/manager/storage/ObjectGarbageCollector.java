@@ -0,0 +1,347 @@
+package com.ping.pingpicturebackend.manager.storage;
+
+import cn.hutool.core.lang.hash.MurmurHash;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.ping.pingpicture.infrastructure.api.storage.ObjectStorage;
+import com.ping.pingpicture.infrastructure.api.storage.StorageObjectListing;
+import com.ping.pingpicture.infrastructure.api.storage.StorageObjectSummary;
+import com.ping.pingpicture.infrastructure.exception.BusinessException;
+import com.ping.pingpicture.infrastructure.exception.ErrorCode;
+import com.ping.pingpicturebackend.model.entity.ObjectDeleteTask;
+import com.ping.pingpicturebackend.model.entity.Picture;
+import com.ping.pingpicturebackend.model.entity.PictureBlob;
+import com.ping.pingpicturebackend.model.entity.PictureVariant;
+import com.ping.pingpicturebackend.service.ObjectDeleteTaskService;
+import com.ping.pingpicturebackend.service.PictureBlobService;
+import com.ping.pingpicturebackend.service.PictureService;
+import com.ping.pingpicturebackend.service.PictureVariantService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 对象存储垃圾回收
+ * <p>
+ * 1. 定时拉取到期的删除任务（object_delete_task），每批最多 1000 个对象，调用一次批量删除；
+ * 删除失败的对象按指数退避重试，成功的任务直接删除记录
+ * 2. 孤儿文件清理：分页列出存储中的图片文件，与数据库中仍被引用的文件比对，
+ * 超过保护期仍未被引用的文件登记为删除任务（默认关闭，可由管理员手动触发）
+ * <p>
+ * 两个任务都用 Redis 租约保证集群内同时只有一个节点执行
+ */
+@Slf4j
+@Component
+public class ObjectGarbageCollector {
+
+    /**
+     * 每批删除的对象数（与批量删除接口的上限一致）
+     */
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    /**
+     * 单次执行最多处理的批数，剩余任务留给下次执行
+     */
+    private static final int MAX_BATCH_COUNT_PER_RUN = 20;
+
+    /**
+     * 孤儿文件清理的目录（图片上传目录）
+     */
+    private static final List<String> SWEEP_PREFIX_LIST = Arrays.asList("public/", "space/");
+
+    /**
+     * 孤儿文件保护期（毫秒），刚上传还没保存到数据库的文件不会被清理
+     */
+    private static final long SWEEP_GRACE_MILLIS = 24 * 60 * 60 * 1000L;
+
+    /**
+     * 加载数据库引用时每页的记录数
+     */
+    private static final int REFERENCE_PAGE_SIZE = 1000;
+
+    private static final String COLLECT_LOCK_KEY = "pingPicture:objectGc:collectLock";
+
+    private static final String SWEEP_LOCK_KEY = "pingPicture:objectGc:sweepLock";
+
+    /**
+     * 租约时长（毫秒），执行节点宕机后其他节点最迟在租约过期后接手
+     */
+    private static final long COLLECT_LOCK_MILLIS = 10 * 60 * 1000L;
+
+    private static final long SWEEP_LOCK_MILLIS = 2 * 60 * 60 * 1000L;
+
+    /**
+     * 释放租约脚本：只删除自己持有的租约
+     */
+    private static final DefaultRedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    @Resource
+    private ObjectStorage objectStorage;
+
+    @Resource
+    private ObjectDeleteTaskService objectDeleteTaskService;
+
+    @Resource
+    private PictureService pictureService;
+
+    @Resource
+    private PictureBlobService pictureBlobService;
+
+    @Resource
+    private PictureVariantService pictureVariantService;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 是否定时清理孤儿文件
+     */
+    @Value("${picture.storage.gc.sweep-enabled:false}")
+    private boolean sweepEnabled;
+
+    /**
+     * 定时执行删除任务
+     */
+    @Scheduled(initialDelay = 60 * 1000L, fixedDelayString = "${picture.storage.gc.collect-interval:60000}")
+    public void collect() {
+        String token = tryLock(COLLECT_LOCK_KEY, COLLECT_LOCK_MILLIS);
+        if (token == null) {
+            return;
+        }
+        try {
+            int deletedCount = doCollect();
+            if (deletedCount > 0) {
+                log.info("对象存储垃圾回收完成，删除 {} 个对象", deletedCount);
+            }
+        } catch (Exception e) {
+            log.error("对象存储垃圾回收失败", e);
+        } finally {
+            unlock(COLLECT_LOCK_KEY, token);
+        }
+    }
+
+    /**
+     * 定时清理孤儿文件
+     */
+    @Scheduled(cron = "${picture.storage.gc.sweep-cron:0 30 3 * * ?}")
+    public void scheduledSweep() {
+        if (!sweepEnabled) {
+            return;
+        }
+        try {
+            sweepOrphans();
+        } catch (Exception e) {
+            log.error("孤儿文件清理失败", e);
+        }
+    }
+
+    /**
+     * 清理孤儿文件：登记超过保护期且未被数据库引用的图片文件
+     *
+     * @return 登记删除的文件数
+     */
+    public int sweepOrphans() {
+        String token = tryLock(SWEEP_LOCK_KEY, SWEEP_LOCK_MILLIS);
+        if (token == null) {
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "孤儿文件清理正在执行");
+        }
+        try {
+            // 先加载引用再列出文件：加载期间新增的引用只会指向保护期内的新文件
+            long cutoffTime = System.currentTimeMillis() - SWEEP_GRACE_MILLIS;
+            long[] referenceHashes = loadReferenceHashes();
+            int orphanCount = 0;
+            for (String prefix : SWEEP_PREFIX_LIST) {
+                orphanCount += sweepPrefix(prefix, referenceHashes, cutoffTime);
+            }
+            log.info("孤儿文件清理完成，数据库引用 {} 个文件，登记删除 {} 个文件", referenceHashes.length, orphanCount);
+            return orphanCount;
+        } catch (IOException e) {
+            log.error("列出存储文件失败", e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "列出存储文件失败");
+        } finally {
+            unlock(SWEEP_LOCK_KEY, token);
+        }
+    }
+
+    /**
+     * 分批执行到期的删除任务
+     *
+     * @return 删除成功的对象数
+     */
+    int doCollect() {
+        int deletedCount = 0;
+        for (int i = 0; i < MAX_BATCH_COUNT_PER_RUN; i++) {
+            List<ObjectDeleteTask> taskList = objectDeleteTaskService.listDueTasks(DELETE_BATCH_SIZE);
+            if (taskList.isEmpty()) {
+                break;
+            }
+            Set<String> failedKeySet;
+            try {
+                failedKeySet = new HashSet<>(objectStorage.deleteObjects(taskList.stream()
+                        .map(ObjectDeleteTask::getObjectKey)
+                        .distinct()
+                        .collect(Collectors.toList())));
+            } catch (Exception e) {
+                // 整批失败（如网络异常），整批推迟重试，本次不再继续
+                log.warn("批量删除对象失败，{} 个任务推迟重试", taskList.size(), e);
+                objectDeleteTaskService.delayRetry(taskList, e.getMessage());
+                break;
+            }
+            List<Long> succeededIdList = new ArrayList<>();
+            List<ObjectDeleteTask> failedTaskList = new ArrayList<>();
+            for (ObjectDeleteTask task : taskList) {
+                if (failedKeySet.contains(task.getObjectKey())) {
+                    failedTaskList.add(task);
+                } else {
+                    succeededIdList.add(task.getId());
+                }
+            }
+            if (!succeededIdList.isEmpty()) {
+                objectDeleteTaskService.removeByIds(succeededIdList);
+                deletedCount += succeededIdList.size();
+            }
+            objectDeleteTaskService.delayRetry(failedTaskList, "删除对象失败");
+            if (taskList.size() < DELETE_BATCH_SIZE) {
+                break;
+            }
+        }
+        return deletedCount;
+    }
+
+    /**
+     * 分页列出目录下的文件，登记未被引用的文件
+     */
+    private int sweepPrefix(String prefix, long[] referenceHashes, long cutoffTime) throws IOException {
+        int orphanCount = 0;
+        String marker = null;
+        while (true) {
+            StorageObjectListing objectListing = objectStorage.listObjects(prefix, marker, DELETE_BATCH_SIZE);
+            List<String> orphanKeyList = new ArrayList<>();
+            for (StorageObjectSummary objectSummary : objectListing.getObjectList()) {
+                if (objectSummary.getLastModified() < 0 || objectSummary.getLastModified() > cutoffTime) {
+                    continue;
+                }
+                if (Arrays.binarySearch(referenceHashes, hashKey(objectSummary.getKey())) < 0) {
+                    orphanKeyList.add(objectSummary.getKey());
+                }
+            }
+            objectDeleteTaskService.enqueue(orphanKeyList);
+            orphanCount += orphanKeyList.size();
+            marker = objectListing.getNextMarker();
+            if (!objectListing.isTruncated() || StrUtil.isEmpty(marker)) {
+                return orphanCount;
+            }
+        }
+    }
+
+    /**
+     * 按 id 分页加载所有被引用文件的对象键哈希（排序后用于二分查找）
+     * <p>
+     * 只保存 64 位哈希，百万级文件只占用几十 MB 内存；哈希冲突只会导致少清理文件，不会误删
+     */
+    private long[] loadReferenceHashes() {
+        ReferenceHashes referenceHashes = new ReferenceHashes();
+        loadReferences(pictureService, Picture::getId,
+                Arrays.<SFunction<Picture, String>>asList(Picture::getUrl, Picture::getThumbnailUrl,
+                        Picture::getOriginalUrl),
+                referenceHashes);
+        loadReferences(pictureBlobService, PictureBlob::getId,
+                Arrays.<SFunction<PictureBlob, String>>asList(PictureBlob::getUrl, PictureBlob::getThumbnailUrl,
+                        PictureBlob::getOriginalUrl),
+                referenceHashes);
+        loadReferences(pictureVariantService, PictureVariant::getId,
+                Collections.<SFunction<PictureVariant, String>>singletonList(PictureVariant::getUrl),
+                referenceHashes);
+        return referenceHashes.toSortedArray();
+    }
+
+    private <T> void loadReferences(IService<T> service, SFunction<T, Long> idColumn,
+                                    List<SFunction<T, String>> urlColumnList, ReferenceHashes referenceHashes) {
+        List<SFunction<T, ?>> selectColumnList = new ArrayList<>(urlColumnList);
+        selectColumnList.add(idColumn);
+        Long lastId = 0L;
+        while (true) {
+            LambdaQueryWrapper<T> queryWrapper = new LambdaQueryWrapper<T>()
+                    .select(true, selectColumnList)
+                    .gt(idColumn, lastId)
+                    .orderByAsc(idColumn)
+                    .last("limit " + REFERENCE_PAGE_SIZE);
+            List<T> recordList = service.list(queryWrapper);
+            for (T record : recordList) {
+                for (Function<T, String> urlColumn : urlColumnList) {
+                    String url = urlColumn.apply(record);
+                    if (StrUtil.isNotBlank(url)) {
+                        referenceHashes.add(hashKey(objectStorage.getKey(url)));
+                    }
+                }
+            }
+            if (recordList.size() < REFERENCE_PAGE_SIZE) {
+                return;
+            }
+            lastId = idColumn.apply(recordList.get(recordList.size() - 1));
+        }
+    }
+
+    private static long hashKey(String key) {
+        return MurmurHash.hash64(key);
+    }
+
+    /**
+     * 获取租约
+     *
+     * @return 租约令牌，其他节点持有租约时返回 null
+     */
+    private String tryLock(String lockKey, long lockMillis) {
+        String token = IdUtil.fastSimpleUUID();
+        Boolean acquired = stringRedisTemplate.opsForValue()
+                .setIfAbsent(lockKey, token, lockMillis, TimeUnit.MILLISECONDS);
+        return Boolean.TRUE.equals(acquired) ? token : null;
+    }
+
+    private void unlock(String lockKey, String token) {
+        stringRedisTemplate.execute(RELEASE_LOCK_SCRIPT, Collections.singletonList(lockKey), token);
+    }
+
+    /**
+     * 可扩容的 long 数组
+     */
+    private static class ReferenceHashes {
+
+        private long[] hashes = new long[1024];
+
+        private int size;
+
+        void add(long hash) {
+            if (size == hashes.length) {
+                hashes = Arrays.copyOf(hashes, size * 2);
+            }
+            hashes[size++] = hash;
+        }
+
+        long[] toSortedArray() {
+            long[] sortedHashes = Arrays.copyOf(hashes, size);
+            Arrays.sort(sortedHashes);
+            return sortedHashes;
+        }
+    }
+}
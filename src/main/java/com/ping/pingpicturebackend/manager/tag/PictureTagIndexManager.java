@@ -0,0 +1,206 @@
+package com.ping.pingpicturebackend.manager.tag;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.thread.ThreadUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ping.pingpicture.infrastructure.mapper.PictureMapper;
+import com.ping.pingpicturebackend.manager.event.PictureChangeEvent;
+import com.ping.pingpicturebackend.manager.event.PictureChangeHandler;
+import com.ping.pingpicturebackend.manager.event.model.PictureChangeTypeEnum;
+import com.ping.pingpicturebackend.model.entity.PictureTag;
+import com.ping.pingpicturebackend.service.PictureTagService;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图片标签位图索引管理
+ * <p>
+ * 以空间为作用域（公共图库作用域为 0），首次查询时从 picture_tag 懒加载该作用域的 {@link TagBitmapIndex}，
+ * 之后根据图片变更广播增量维护。多标签筛选和标签统计都直接在位图上完成，不再对 tags JSON 做 LIKE。
+ */
+@Slf4j
+@Component
+public class PictureTagIndexManager implements PictureChangeHandler {
+
+    /**
+     * 公共图库的作用域 key
+     */
+    private static final long PUBLIC_SCOPE = 0L;
+
+    /**
+     * 缓存的作用域数量上限
+     */
+    private static final int MAX_SCOPE_COUNT = 256;
+
+    /**
+     * 加载作用域时每批读取的关联数量
+     */
+    private static final int LOAD_BATCH_SIZE = 5000;
+
+    @Resource
+    private PictureTagService pictureTagService;
+
+    @Resource
+    private PictureMapper pictureMapper;
+
+    @Value("${picture.tag.index-enabled:true}")
+    private boolean indexEnabled;
+
+    /**
+     * 作用域 -> 标签位图索引
+     */
+    private final Cache<Long, TagBitmapIndex> scopeIndexCache = Caffeine.newBuilder()
+            .maximumSize(MAX_SCOPE_COUNT)
+            .expireAfterAccess(30, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * 启动完成后，如果关联表还是空的（刚升级），异步从 picture 表回填
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        ThreadUtil.execAsync(() -> {
+            try {
+                if (pictureTagService.count() == 0 && pictureMapper.selectCount(null) > 0) {
+                    log.info("图片标签关联为空，开始回填");
+                    pictureTagService.rebuildAll();
+                    invalidateAll();
+                }
+            } catch (Exception e) {
+                log.error("图片标签关联回填失败", e);
+            }
+        });
+    }
+
+    /**
+     * 按标签筛选作用域内的图片
+     *
+     * @param spaceId       空间 id，为空表示公共图库
+     * @param tags          标签
+     * @param matchAll      true-包含全部标签 false-包含任一标签
+     * @param maxCandidates 候选数量上限
+     * @return 图片 id，索引不可用或超过上限时返回 null
+     */
+    public Set<Long> match(Long spaceId, Collection<String> tags, boolean matchAll, int maxCandidates) {
+        TagBitmapIndex index = getScopeIndex(spaceId);
+        if (index == null) {
+            return null;
+        }
+        Roaring64NavigableMap bitmap = index.match(tags, matchAll);
+        if (bitmap.getLongCardinality() > maxCandidates) {
+            return null;
+        }
+        Set<Long> pictureIdSet = new HashSet<>();
+        LongIterator iterator = bitmap.getLongIterator();
+        while (iterator.hasNext()) {
+            pictureIdSet.add(iterator.next());
+        }
+        return pictureIdSet;
+    }
+
+    /**
+     * 统计作用域内每个标签的图片数
+     *
+     * @param spaceId 空间 id，为空表示公共图库
+     * @return 标签 -> 图片数，索引不可用时返回 null
+     */
+    public Map<String, Long> countByTag(Long spaceId) {
+        TagBitmapIndex index = getScopeIndex(spaceId);
+        return index == null ? null : index.countByTag();
+    }
+
+    /**
+     * 清空所有作用域，下次查询时重新加载
+     */
+    public void invalidateAll() {
+        scopeIndexCache.invalidateAll();
+    }
+
+    @Override
+    public void onPictureChange(PictureChangeEvent pictureChangeEvent) {
+        List<Long> pictureIdList = pictureChangeEvent.getPictureIdList();
+        if (CollUtil.isEmpty(pictureIdList)) {
+            return;
+        }
+        long scope = toScope(pictureChangeEvent.getSpaceId());
+        TagBitmapIndex index = scopeIndexCache.getIfPresent(scope);
+        if (index == null) {
+            // 可能正在加载，加载结果不一定包含本次变更，等加载完成后丢弃，下次查询重新加载
+            scopeIndexCache.invalidate(scope);
+            return;
+        }
+        if (PictureChangeTypeEnum.DELETE.getValue().equals(pictureChangeEvent.getChangeType())) {
+            pictureIdList.forEach(index::remove);
+            return;
+        }
+        // 关联已在事务提交前同步，这里按最新关联覆盖（幂等）
+        Map<Long, Set<String>> pictureTagMap = new HashMap<>();
+        List<PictureTag> pictureTagList = pictureTagService.list(new QueryWrapper<PictureTag>()
+                .select("pictureId", "tag")
+                .in("pictureId", pictureIdList));
+        for (PictureTag pictureTag : pictureTagList) {
+            pictureTagMap.computeIfAbsent(pictureTag.getPictureId(), key -> new HashSet<>()).add(pictureTag.getTag());
+        }
+        for (Long pictureId : pictureIdList) {
+            index.put(pictureId, pictureTagMap.get(pictureId));
+        }
+    }
+
+    private TagBitmapIndex getScopeIndex(Long spaceId) {
+        if (!indexEnabled) {
+            return null;
+        }
+        try {
+            return scopeIndexCache.get(toScope(spaceId), this::loadScope);
+        } catch (Exception e) {
+            log.error("加载标签索引失败，spaceId = {}", spaceId, e);
+            return null;
+        }
+    }
+
+    /**
+     * 从 picture_tag 加载作用域的索引，按 id 分批读取
+     */
+    private TagBitmapIndex loadScope(Long scope) {
+        long startTime = System.currentTimeMillis();
+        Map<Long, Set<String>> pictureTagMap = new HashMap<>();
+        long lastId = 0;
+        while (true) {
+            QueryWrapper<PictureTag> queryWrapper = new QueryWrapper<>();
+            queryWrapper.select("id", "pictureId", "tag")
+                    .isNull(scope == PUBLIC_SCOPE, "spaceId")
+                    .eq(scope != PUBLIC_SCOPE, "spaceId", scope)
+                    .gt("id", lastId)
+                    .orderByAsc("id")
+                    .last("limit " + LOAD_BATCH_SIZE);
+            List<PictureTag> pictureTagList = pictureTagService.list(queryWrapper);
+            for (PictureTag pictureTag : pictureTagList) {
+                pictureTagMap.computeIfAbsent(pictureTag.getPictureId(), key -> new HashSet<>()).add(pictureTag.getTag());
+            }
+            if (pictureTagList.size() < LOAD_BATCH_SIZE) {
+                break;
+            }
+            lastId = pictureTagList.get(pictureTagList.size() - 1).getId();
+        }
+        TagBitmapIndex index = new TagBitmapIndex();
+        pictureTagMap.forEach(index::put);
+        log.info("标签索引加载完成，scope = {}，图片数 = {}，耗时 = {} ms",
+                scope, index.pictureCount(), System.currentTimeMillis() - startTime);
+        return index;
+    }
+
+    private static long toScope(Long spaceId) {
+        return spaceId == null ? PUBLIC_SCOPE : spaceId;
+    }
+}
@@ -0,0 +1,35 @@
+package com.ping.pingpicturebackend.manager.tag;
+
+import com.ping.pingpicturebackend.manager.event.PictureChangeEvent;
+import com.ping.pingpicturebackend.manager.event.model.PictureChangeTypeEnum;
+import com.ping.pingpicturebackend.service.PictureTagService;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.Resource;
+
+/**
+ * 图片标签关联同步
+ * <p>
+ * 在图片写操作的事务提交前同步 picture_tag，与图片数据一起提交或回滚；
+ * 不在事务中发布时直接执行，并且排在其他监听器之前，保证广播出去时关联数据已经写好
+ */
+@Component
+public class PictureTagSyncListener {
+
+    @Resource
+    private PictureTagService pictureTagService;
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onPictureChange(PictureChangeEvent pictureChangeEvent) {
+        if (PictureChangeTypeEnum.DELETE.getValue().equals(pictureChangeEvent.getChangeType())) {
+            pictureTagService.removeByPictureIds(pictureChangeEvent.getPictureIdList());
+        } else {
+            pictureTagService.syncPictureTags(pictureChangeEvent.getPictureIdList());
+        }
+    }
+}
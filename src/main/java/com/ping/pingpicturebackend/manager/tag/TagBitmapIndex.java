@@ -0,0 +1,141 @@
+package com.ping.pingpicturebackend.manager.tag;
+
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 单个作用域（某个空间或公共图库）的标签位图索引
+ * <p>
+ * 每个标签对应一个图片 id 位图，多标签筛选就是位图求交 / 并，标签的图片数就是位图基数
+ */
+public class TagBitmapIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 标签 -> 图片 id 位图
+     */
+    private final Map<String, Roaring64NavigableMap> tagBitmapMap = new HashMap<>();
+
+    /**
+     * 图片 id -> 当前标签，修改标签时用于移除旧的位
+     */
+    private final Map<Long, Set<String>> pictureTagMap = new HashMap<>();
+
+    /**
+     * 设置图片的标签（覆盖原有标签）
+     *
+     * @param pictureId 图片 id
+     * @param tags      标签，为空表示没有标签
+     */
+    public void put(long pictureId, Set<String> tags) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(pictureId);
+            if (tags == null || tags.isEmpty()) {
+                return;
+            }
+            for (String tag : tags) {
+                tagBitmapMap.computeIfAbsent(tag, key -> new Roaring64NavigableMap()).addLong(pictureId);
+            }
+            pictureTagMap.put(pictureId, new HashSet<>(tags));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除图片
+     *
+     * @param pictureId 图片 id
+     */
+    public void remove(long pictureId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(pictureId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 按标签筛选图片
+     *
+     * @param tags     标签
+     * @param matchAll true-包含全部标签 false-包含任一标签
+     * @return 图片 id 位图（新对象，可以自由修改）
+     */
+    public Roaring64NavigableMap match(Collection<String> tags, boolean matchAll) {
+        Roaring64NavigableMap result = new Roaring64NavigableMap();
+        lock.readLock().lock();
+        try {
+            boolean first = true;
+            for (String tag : tags) {
+                Roaring64NavigableMap bitmap = tagBitmapMap.get(tag);
+                if (matchAll) {
+                    if (bitmap == null) {
+                        return new Roaring64NavigableMap();
+                    }
+                    if (first) {
+                        result.or(bitmap);
+                    } else {
+                        result.and(bitmap);
+                    }
+                } else if (bitmap != null) {
+                    result.or(bitmap);
+                }
+                first = false;
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 统计每个标签的图片数
+     *
+     * @return 标签 -> 图片数
+     */
+    public Map<String, Long> countByTag() {
+        lock.readLock().lock();
+        try {
+            Map<String, Long> tagCountMap = new HashMap<>(tagBitmapMap.size());
+            tagBitmapMap.forEach((tag, bitmap) -> tagCountMap.put(tag, bitmap.getLongCardinality()));
+            return tagCountMap;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 图片数量（只统计有标签的图片），用于控制缓存容量
+     */
+    public int pictureCount() {
+        lock.readLock().lock();
+        try {
+            return pictureTagMap.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeInternal(long pictureId) {
+        Set<String> oldTags = pictureTagMap.remove(pictureId);
+        if (oldTags == null) {
+            return;
+        }
+        for (String tag : oldTags) {
+            Roaring64NavigableMap bitmap = tagBitmapMap.get(tag);
+            if (bitmap == null) {
+                continue;
+            }
+            bitmap.removeLong(pictureId);
+            if (bitmap.isEmpty()) {
+                tagBitmapMap.remove(tag);
+            }
+        }
+    }
+}
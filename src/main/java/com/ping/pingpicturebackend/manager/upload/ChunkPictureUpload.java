@@ -0,0 +1,99 @@
+package com.ping.pingpicturebackend.manager.upload;
+
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import com.ping.pingpicture.infrastructure.api.storage.ObjectStorage;
+import com.ping.pingpicture.infrastructure.api.storage.StorageObject;
+import com.ping.pingpicture.infrastructure.exception.BusinessException;
+import com.ping.pingpicture.infrastructure.exception.ErrorCode;
+import com.ping.pingpicture.infrastructure.exception.ThrowUtils;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分片上传的图片
+ * <p>
+ * 输入源为已上传完所有分片的会话，读取时并行下载各个分片，按序号拼接后交给模板处理
+ */
+@Service
+public class ChunkPictureUpload extends PictureUploadTemplate {
+
+    @Resource
+    private ObjectStorage objectStorage;
+
+    /**
+     * 分片下载线程池，队列满时由调用线程下载
+     */
+    private final ThreadPoolExecutor chunkExecutor = new ThreadPoolExecutor(
+            4, 8, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(256),
+            ThreadFactoryBuilder.create().setNamePrefix("chunkFetch-").build(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+    @Override
+    protected void validPicture(Object inputSource) {
+        PictureChunkUploadSession session = (PictureChunkUploadSession) inputSource;
+        ThrowUtils.throwIf(session == null, ErrorCode.PARAMS_ERROR, "上传会话不存在");
+        ThrowUtils.throwIf(session.getFileSize() > MAX_PICTURE_SIZE, ErrorCode.PARAMS_ERROR,
+                "上传文件大小不能超过5MB");
+    }
+
+    @Override
+    protected String getOriginalFilename(Object inputSource) {
+        return ((PictureChunkUploadSession) inputSource).getFileName();
+    }
+
+    @Override
+    protected InputStream openInputStream(Object inputSource) throws Exception {
+        PictureChunkUploadSession session = (PictureChunkUploadSession) inputSource;
+        List<CompletableFuture<byte[]>> chunkFutureList = new ArrayList<>(session.getChunkCount());
+        for (int i = 0; i < session.getChunkCount(); i++) {
+            int chunkIndex = i;
+            chunkFutureList.add(CompletableFuture.supplyAsync(() -> fetchChunk(session, chunkIndex), chunkExecutor));
+        }
+        List<InputStream> chunkStreamList = new ArrayList<>(chunkFutureList.size());
+        try {
+            for (CompletableFuture<byte[]> chunkFuture : chunkFutureList) {
+                chunkStreamList.add(new ByteArrayInputStream(chunkFuture.join()));
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof BusinessException) {
+                throw (BusinessException) e.getCause();
+            }
+            throw new IOException("读取分片失败", e.getCause());
+        }
+        return new SequenceInputStream(Collections.enumeration(chunkStreamList));
+    }
+
+    private byte[] fetchChunk(PictureChunkUploadSession session, int chunkIndex) {
+        try (StorageObject storageObject = objectStorage.getObject(session.chunkKey(chunkIndex))) {
+            ThrowUtils.throwIf(storageObject == null, ErrorCode.PARAMS_ERROR, "分片" + chunkIndex + "不存在，请重新上传");
+            byte[] bytes = IoUtil.readBytes(storageObject.getInputStream());
+            ThrowUtils.throwIf(bytes.length != session.chunkLength(chunkIndex), ErrorCode.PARAMS_ERROR,
+                    "分片" + chunkIndex + "大小不一致，请重新上传");
+            return bytes;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        chunkExecutor.shutdown();
+    }
+}
@@ -6,7 +6,7 @@ import com.ping.pingpicture.infrastructure.exception.ThrowUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.List;
 
@@ -38,8 +38,8 @@ public class FilePictureUpload extends PictureUploadTemplate {
     }
 
     @Override
-    protected void processFile(Object inputSource, File file) throws Exception {
+    protected InputStream openInputStream(Object inputSource) throws Exception {
         MultipartFile multipartFile = (MultipartFile) inputSource;
-        multipartFile.transferTo(file);
+        return multipartFile.getInputStream();
     }
 }
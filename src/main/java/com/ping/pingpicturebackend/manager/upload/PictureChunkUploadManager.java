@@ -0,0 +1,336 @@
+package com.ping.pingpicturebackend.manager.upload;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import com.ping.pingpicture.infrastructure.api.storage.ObjectStorage;
+import com.ping.pingpicture.infrastructure.exception.BusinessException;
+import com.ping.pingpicture.infrastructure.exception.ErrorCode;
+import com.ping.pingpicture.infrastructure.exception.ThrowUtils;
+import com.ping.pingpicturebackend.model.dto.picture.PictureChunkUploadInitRequest;
+import com.ping.pingpicturebackend.model.dto.picture.PictureUploadRequest;
+import com.ping.pingpicturebackend.model.entity.User;
+import com.ping.pingpicturebackend.model.vo.PictureChunkUploadVO;
+import com.ping.pingpicturebackend.model.vo.PictureVO;
+import com.ping.pingpicturebackend.service.ObjectDeleteTaskService;
+import com.ping.pingpicturebackend.service.PictureService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分片上传（断点续传）
+ * <p>
+ * 1. 初始化：校验权限和额度，按文件大小切分，会话保存在 Redis 中
+ * 2. 上传分片：每个分片单独请求，直接写入对象存储，失败时只需重传该分片；已上传的分片序号记录在 Redis 集合中
+ * 3. 完成：并行下载所有分片并拼接，之后与普通上传一样秒传或上传到对象存储、入库，分片登记为删除任务；
+ * 会话标记为已完成并保留一段时间，重复提交（如客户端没收到响应后重试）直接返回已保存的图片
+ * <p>
+ * 过期未完成的会话由定时任务清理分片
+ */
+@Slf4j
+@Component
+public class PictureChunkUploadManager {
+
+    private static final String SESSION_KEY_PREFIX = "pingPicture:chunkUpload:session:";
+
+    private static final String CHUNKS_KEY_PREFIX = "pingPicture:chunkUpload:chunks:";
+
+    private static final String COMPLETE_LOCK_KEY_PREFIX = "pingPicture:chunkUpload:completeLock:";
+
+    /**
+     * 按过期时间排序的会话（成员为 上传 id:分片数），用于清理过期会话的分片
+     */
+    private static final String EXPIRY_KEY = "pingPicture:chunkUpload:expiry";
+
+    /**
+     * 会话有效期（毫秒）
+     */
+    private static final long SESSION_EXPIRE_MILLIS = 24 * 60 * 60 * 1000L;
+
+    /**
+     * 完成请求的租约时长（毫秒），避免同一会话被并发完成
+     */
+    private static final long COMPLETE_LOCK_MILLIS = 5 * 60 * 1000L;
+
+    /**
+     * 已完成会话的保留时长（毫秒），期间重复提交完成请求返回已保存的图片
+     */
+    private static final long COMPLETED_SESSION_EXPIRE_MILLIS = 30 * 60 * 1000L;
+
+    private static final long MIN_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * 单次清理的过期会话数
+     */
+    private static final int CLEAN_BATCH_SIZE = 100;
+
+    /**
+     * 释放租约脚本：只删除自己持有的租约
+     */
+    private static final DefaultRedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    /**
+     * 允许上传的文件后缀
+     */
+    private static final List<String> ALLOW_FORMAT_LIST = Arrays.asList("jpg", "png", "jpeg", "gif", "bmp", "webp");
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private ObjectStorage objectStorage;
+
+    @Resource
+    private PictureService pictureService;
+
+    @Resource
+    private ObjectDeleteTaskService objectDeleteTaskService;
+
+    /**
+     * 分片字节数
+     */
+    @Value("${picture.upload.chunk-size:1048576}")
+    private long chunkSize;
+
+    /**
+     * 初始化分片上传
+     *
+     * @param initRequest 初始化请求
+     * @param loginUser   登录用户
+     * @return 上传状态
+     */
+    public PictureChunkUploadVO init(PictureChunkUploadInitRequest initRequest, User loginUser) {
+        ThrowUtils.throwIf(initRequest == null, ErrorCode.PARAMS_ERROR);
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
+        Long fileSize = initRequest.getFileSize();
+        ThrowUtils.throwIf(fileSize == null || fileSize <= 0, ErrorCode.PARAMS_ERROR, "文件大小错误");
+        ThrowUtils.throwIf(fileSize > PictureUploadTemplate.MAX_PICTURE_SIZE, ErrorCode.PARAMS_ERROR,
+                "上传文件大小不能超过5MB");
+        String fileName = initRequest.getFileName();
+        ThrowUtils.throwIf(StrUtil.isBlank(fileName) || fileName.length() > 256, ErrorCode.PARAMS_ERROR, "文件名错误");
+        ThrowUtils.throwIf(!ALLOW_FORMAT_LIST.contains(FileUtil.getSuffix(fileName)), ErrorCode.PARAMS_ERROR,
+                "上传文件类型错误");
+        // 提前校验空间权限和额度，完成时还会再校验一次
+        pictureService.prepareUpload(toPictureUploadRequest(initRequest.getId(), initRequest.getSpaceId(),
+                initRequest.getPicName()), loginUser, false);
+        PictureChunkUploadSession session = new PictureChunkUploadSession();
+        session.setUploadId(IdUtil.fastSimpleUUID());
+        session.setUserId(loginUser.getId());
+        session.setPictureId(initRequest.getId());
+        session.setSpaceId(initRequest.getSpaceId());
+        session.setPicName(initRequest.getPicName());
+        session.setFileName(fileName);
+        session.setFileSize(fileSize);
+        long sessionChunkSize = Math.max(chunkSize, MIN_CHUNK_SIZE);
+        session.setChunkSize(sessionChunkSize);
+        session.setChunkCount((int) ((fileSize + sessionChunkSize - 1) / sessionChunkSize));
+        session.setExpireTime(new Date(System.currentTimeMillis() + SESSION_EXPIRE_MILLIS));
+        stringRedisTemplate.opsForValue().set(SESSION_KEY_PREFIX + session.getUploadId(),
+                JSONUtil.toJsonStr(session), SESSION_EXPIRE_MILLIS, TimeUnit.MILLISECONDS);
+        stringRedisTemplate.opsForZSet().add(EXPIRY_KEY, getExpiryMember(session),
+                session.getExpireTime().getTime());
+        return toVO(session, Collections.emptySet());
+    }
+
+    /**
+     * 上传分片，同一分片可以重复上传（覆盖）
+     *
+     * @param uploadId      上传 id
+     * @param chunkIndex    分片序号（从 0 开始）
+     * @param inputStream   分片内容（由调用方关闭）
+     * @param contentLength 分片字节数
+     * @param loginUser     登录用户
+     */
+    public void uploadChunk(String uploadId, int chunkIndex, InputStream inputStream, long contentLength,
+                            User loginUser) {
+        PictureChunkUploadSession session = getSession(uploadId, loginUser);
+        ThrowUtils.throwIf(session.getPicture() != null, ErrorCode.OPERATION_ERROR, "上传已完成");
+        ThrowUtils.throwIf(chunkIndex < 0 || chunkIndex >= session.getChunkCount(), ErrorCode.PARAMS_ERROR,
+                "分片序号错误");
+        ThrowUtils.throwIf(contentLength != session.chunkLength(chunkIndex), ErrorCode.PARAMS_ERROR,
+                "分片大小错误");
+        try {
+            objectStorage.putObject(session.chunkKey(chunkIndex), inputStream, contentLength);
+        } catch (IOException e) {
+            log.warn("上传分片失败，uploadId = {}，chunkIndex = {}，原因：{}", uploadId, chunkIndex, e.getMessage());
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传分片失败，请重试");
+        }
+        String chunksKey = CHUNKS_KEY_PREFIX + uploadId;
+        stringRedisTemplate.opsForSet().add(chunksKey, String.valueOf(chunkIndex));
+        stringRedisTemplate.expireAt(chunksKey, session.getExpireTime());
+    }
+
+    /**
+     * 查询上传状态，用于断点续传
+     *
+     * @param uploadId  上传 id
+     * @param loginUser 登录用户
+     * @return 上传状态
+     */
+    public PictureChunkUploadVO getStatus(String uploadId, User loginUser) {
+        PictureChunkUploadSession session = getSession(uploadId, loginUser);
+        if (session.getPicture() != null) {
+            // 已完成的会话不再保留分片记录，视为全部已上传
+            Set<String> uploadedChunks = new HashSet<>();
+            for (int i = 0; i < session.getChunkCount(); i++) {
+                uploadedChunks.add(String.valueOf(i));
+            }
+            return toVO(session, uploadedChunks);
+        }
+        return toVO(session, getUploadedChunks(uploadId));
+    }
+
+    /**
+     * 完成上传：拼接分片并保存图片，已完成时直接返回已保存的图片
+     *
+     * @param uploadId  上传 id
+     * @param loginUser 登录用户
+     * @return 图片
+     */
+    public PictureVO complete(String uploadId, User loginUser) {
+        PictureChunkUploadSession session = getSession(uploadId, loginUser);
+        if (session.getPicture() != null) {
+            return session.getPicture();
+        }
+        Set<String> uploadedChunks = getUploadedChunks(uploadId);
+        if (uploadedChunks.size() < session.getChunkCount()) {
+            List<Integer> missingChunkList = new ArrayList<>();
+            for (int i = 0; i < session.getChunkCount(); i++) {
+                if (!uploadedChunks.contains(String.valueOf(i))) {
+                    missingChunkList.add(i);
+                }
+            }
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "分片未上传完成，缺少分片：" + missingChunkList);
+        }
+        String lockKey = COMPLETE_LOCK_KEY_PREFIX + uploadId;
+        String token = IdUtil.fastSimpleUUID();
+        Boolean acquired = stringRedisTemplate.opsForValue()
+                .setIfAbsent(lockKey, token, COMPLETE_LOCK_MILLIS, TimeUnit.MILLISECONDS);
+        ThrowUtils.throwIf(!Boolean.TRUE.equals(acquired), ErrorCode.OPERATION_ERROR, "上传正在完成，请勿重复提交");
+        try {
+            // 拿到租约后重新读取会话，前一个完成请求可能在本次检查之后刚释放租约
+            session = getSession(uploadId, loginUser);
+            if (session.getPicture() != null) {
+                return session.getPicture();
+            }
+            PictureUploadRequest pictureUploadRequest = toPictureUploadRequest(session.getPictureId(),
+                    session.getSpaceId(), session.getPicName());
+            PictureVO pictureVO = pictureService.uploadPicture(session, pictureUploadRequest, loginUser);
+            // 图片已保存，记录结果并清理分片
+            completeSession(session, pictureVO);
+            return pictureVO;
+        } finally {
+            stringRedisTemplate.execute(RELEASE_LOCK_SCRIPT, Collections.singletonList(lockKey), token);
+        }
+    }
+
+    /**
+     * 定时清理过期会话的分片
+     */
+    @Scheduled(initialDelay = 5 * 60 * 1000L, fixedDelay = 10 * 60 * 1000L)
+    public void cleanExpiredSessions() {
+        try {
+            Set<String> memberSet;
+            do {
+                memberSet = stringRedisTemplate.opsForZSet().rangeByScore(EXPIRY_KEY, 0,
+                        System.currentTimeMillis(), 0, CLEAN_BATCH_SIZE);
+                if (memberSet == null || memberSet.isEmpty()) {
+                    break;
+                }
+                List<String> chunkKeyList = new ArrayList<>();
+                for (String member : memberSet) {
+                    // 删除成功的节点负责清理，多个节点不会重复登记
+                    Long removed = stringRedisTemplate.opsForZSet().remove(EXPIRY_KEY, member);
+                    if (removed == null || removed == 0) {
+                        continue;
+                    }
+                    String uploadId = StrUtil.subBefore(member, ":", true);
+                    int chunkCount = Integer.parseInt(StrUtil.subAfter(member, ":", true));
+                    PictureChunkUploadSession session = new PictureChunkUploadSession();
+                    session.setUploadId(uploadId);
+                    for (int i = 0; i < chunkCount; i++) {
+                        chunkKeyList.add(session.chunkKey(i));
+                    }
+                }
+                objectDeleteTaskService.enqueue(chunkKeyList);
+            } while (memberSet.size() >= CLEAN_BATCH_SIZE);
+        } catch (Exception e) {
+            log.error("清理过期分片上传失败", e);
+        }
+    }
+
+    private PictureChunkUploadSession getSession(String uploadId, User loginUser) {
+        ThrowUtils.throwIf(StrUtil.isBlank(uploadId), ErrorCode.PARAMS_ERROR, "上传 id 不能为空");
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
+        String sessionJson = stringRedisTemplate.opsForValue().get(SESSION_KEY_PREFIX + uploadId);
+        ThrowUtils.throwIf(sessionJson == null, ErrorCode.NOT_FOUND_ERROR, "上传会话不存在或已过期");
+        PictureChunkUploadSession session = JSONUtil.toBean(sessionJson, PictureChunkUploadSession.class);
+        // 仅创建者可操作
+        ThrowUtils.throwIf(!loginUser.getId().equals(session.getUserId()), ErrorCode.NO_AUTH_ERROR);
+        return session;
+    }
+
+    private Set<String> getUploadedChunks(String uploadId) {
+        Set<String> uploadedChunks = stringRedisTemplate.opsForSet().members(CHUNKS_KEY_PREFIX + uploadId);
+        return uploadedChunks == null ? Collections.emptySet() : uploadedChunks;
+    }
+
+    private void completeSession(PictureChunkUploadSession session, PictureVO pictureVO) {
+        session.setPicture(pictureVO);
+        stringRedisTemplate.opsForValue().set(SESSION_KEY_PREFIX + session.getUploadId(),
+                JSONUtil.toJsonStr(session), COMPLETED_SESSION_EXPIRE_MILLIS, TimeUnit.MILLISECONDS);
+        stringRedisTemplate.delete(CHUNKS_KEY_PREFIX + session.getUploadId());
+        stringRedisTemplate.opsForZSet().remove(EXPIRY_KEY, getExpiryMember(session));
+        List<String> chunkKeyList = new ArrayList<>(session.getChunkCount());
+        for (int i = 0; i < session.getChunkCount(); i++) {
+            chunkKeyList.add(session.chunkKey(i));
+        }
+        objectDeleteTaskService.enqueue(chunkKeyList);
+    }
+
+    private static String getExpiryMember(PictureChunkUploadSession session) {
+        return session.getUploadId() + ":" + session.getChunkCount();
+    }
+
+    private static PictureUploadRequest toPictureUploadRequest(Long pictureId, Long spaceId, String picName) {
+        PictureUploadRequest pictureUploadRequest = new PictureUploadRequest();
+        pictureUploadRequest.setId(pictureId);
+        pictureUploadRequest.setSpaceId(spaceId);
+        pictureUploadRequest.setPicName(picName);
+        return pictureUploadRequest;
+    }
+
+    private static PictureChunkUploadVO toVO(PictureChunkUploadSession session, Set<String> uploadedChunks) {
+        PictureChunkUploadVO pictureChunkUploadVO = new PictureChunkUploadVO();
+        pictureChunkUploadVO.setUploadId(session.getUploadId());
+        pictureChunkUploadVO.setChunkSize(session.getChunkSize());
+        pictureChunkUploadVO.setChunkCount(session.getChunkCount());
+        List<Integer> uploadedChunkList = new ArrayList<>(uploadedChunks.size());
+        for (String chunkIndex : uploadedChunks) {
+            uploadedChunkList.add(Integer.valueOf(chunkIndex));
+        }
+        Collections.sort(uploadedChunkList);
+        pictureChunkUploadVO.setUploadedChunkList(uploadedChunkList);
+        pictureChunkUploadVO.setExpireTime(session.getExpireTime());
+        return pictureChunkUploadVO;
+    }
+}
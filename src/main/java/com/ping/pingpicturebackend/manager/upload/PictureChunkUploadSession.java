@@ -0,0 +1,91 @@
+package com.ping.pingpicturebackend.manager.upload;
+
+import com.ping.pingpicturebackend.model.vo.PictureVO;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 分片上传会话（保存在 Redis 中，任意节点都可以接收分片）
+ */
+@Data
+public class PictureChunkUploadSession implements Serializable {
+
+    private static final long serialVersionUID = 5521379934875217043L;
+
+    /**
+     * 上传 id
+     */
+    private String uploadId;
+
+    /**
+     * 创建者 id
+     */
+    private Long userId;
+
+    /**
+     * 图片 id（重新上传时不为空）
+     */
+    private Long pictureId;
+
+    /**
+     * 空间 id
+     */
+    private Long spaceId;
+
+    /**
+     * 图片名
+     */
+    private String picName;
+
+    /**
+     * 源文件名
+     */
+    private String fileName;
+
+    /**
+     * 文件字节数
+     */
+    private Long fileSize;
+
+    /**
+     * 分片字节数
+     */
+    private Long chunkSize;
+
+    /**
+     * 分片数
+     */
+    private Integer chunkCount;
+
+    /**
+     * 过期时间
+     */
+    private Date expireTime;
+
+    /**
+     * 完成后保存的图片（不为空表示已完成，重复提交完成请求时直接返回）
+     */
+    private PictureVO picture;
+
+    /**
+     * 分片在对象存储中的键
+     *
+     * @param chunkIndex 分片序号
+     * @return 对象键
+     */
+    public String chunkKey(int chunkIndex) {
+        return String.format("upload/chunk/%s/%d", uploadId, chunkIndex);
+    }
+
+    /**
+     * 分片的字节数
+     *
+     * @param chunkIndex 分片序号
+     * @return 字节数
+     */
+    public long chunkLength(int chunkIndex) {
+        return Math.min(chunkSize, fileSize - chunkIndex * chunkSize);
+    }
+}
@@ -0,0 +1,47 @@
+package com.ping.pingpicturebackend.manager.upload;
+
+import lombok.Data;
+
+/**
+ * 本地解析的图片元数据
+ * <p>
+ * 格式和宽高来自文件头，颜色和感知哈希来自降采样解码；解析失败的字段为空
+ */
+@Data
+public class PictureMetadata {
+
+    /**
+     * 图片格式
+     */
+    private String format;
+
+    /**
+     * 图片宽度
+     */
+    private Integer width;
+
+    /**
+     * 图片高度
+     */
+    private Integer height;
+
+    /**
+     * 主色调（占比最高的颜色，0xRRGGBB）
+     */
+    private String picColor;
+
+    /**
+     * 主色板
+     */
+    private String picPalette;
+
+    /**
+     * 感知哈希
+     */
+    private Long picPHash;
+
+    /**
+     * 差异哈希
+     */
+    private Long picDHash;
+}
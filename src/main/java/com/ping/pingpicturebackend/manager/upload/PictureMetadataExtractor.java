@@ -0,0 +1,92 @@
+package com.ping.pingpicturebackend.manager.upload;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import com.ping.pingpicture.infrastructure.utils.ColorPaletteUtils;
+import com.ping.pingpicture.infrastructure.utils.ImageHashUtils;
+import com.ping.pingpicture.infrastructure.utils.ImageHeaderUtils;
+import com.ping.pingpicture.infrastructure.utils.ImageSampleUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图片元数据本地解析
+ * <p>
+ * 格式和宽高只解析文件头，主色调、主色板和感知哈希共用一次降采样解码，不依赖对象存储的数据处理结果。
+ * 解码是 CPU 密集型操作，在独立的有界线程池中执行，可与上传到对象存储并行；线程池满时由调用方线程执行
+ */
+@Slf4j
+@Component
+public class PictureMetadataExtractor {
+
+    /**
+     * 解析线程池，线程数与 CPU 核数一致
+     */
+    private final ThreadPoolExecutor extractExecutor = new ThreadPoolExecutor(
+            Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().availableProcessors(),
+            60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(64),
+            ThreadFactoryBuilder.create().setNamePrefix("pictureMetadata-").build(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+    /**
+     * 异步解析图片元数据
+     *
+     * @param content 图片内容（解析完成前调用方不能关闭）
+     * @return 图片元数据，不会以异常结束
+     */
+    public CompletableFuture<PictureMetadata> extractAsync(PictureUploadContent content) {
+        return CompletableFuture.supplyAsync(() -> extract(content), extractExecutor);
+    }
+
+    /**
+     * 解析图片元数据
+     *
+     * @param content 图片内容
+     * @return 图片元数据，解析失败的字段为空
+     */
+    public PictureMetadata extract(PictureUploadContent content) {
+        PictureMetadata pictureMetadata = new PictureMetadata();
+        // 1. 文件头：格式和宽高
+        try (InputStream inputStream = content.openStream()) {
+            ImageHeaderUtils.ImageHeader imageHeader = ImageHeaderUtils.readHeader(inputStream);
+            if (imageHeader != null) {
+                pictureMetadata.setFormat(imageHeader.getFormat());
+                pictureMetadata.setWidth(imageHeader.getWidth());
+                pictureMetadata.setHeight(imageHeader.getHeight());
+            }
+        } catch (Exception e) {
+            log.warn("解析图片文件头失败：{}", e.getMessage());
+        }
+        // 2. 降采样解码：主色调、主色板和感知哈希
+        try {
+            BufferedImage sampledImage = content.readSampled(ImageSampleUtils.DEFAULT_MAX_SAMPLES_PER_AXIS);
+            if (sampledImage != null) {
+                List<ColorPaletteUtils.PaletteColor> palette = ColorPaletteUtils.extractPalette(sampledImage,
+                        ColorPaletteUtils.DEFAULT_PALETTE_SIZE);
+                if (!palette.isEmpty()) {
+                    pictureMetadata.setPicColor(String.format("0x%06x", palette.get(0).getRgb()));
+                }
+                pictureMetadata.setPicPalette(ColorPaletteUtils.formatPalette(palette));
+                pictureMetadata.setPicPHash(ImageHashUtils.pHash(sampledImage));
+                pictureMetadata.setPicDHash(ImageHashUtils.dHash(sampledImage));
+            }
+        } catch (Exception e) {
+            log.warn("解码图片失败：{}", e.getMessage());
+        }
+        return pictureMetadata;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        extractExecutor.shutdown();
+    }
+}
@@ -0,0 +1,211 @@
+package com.ping.pingpicturebackend.manager.upload;
+
+import cn.hutool.core.util.HexUtil;
+import com.ping.pingpicture.infrastructure.exception.BusinessException;
+import com.ping.pingpicture.infrastructure.exception.ErrorCode;
+import com.ping.pingpicture.infrastructure.utils.ImageFormatUtils;
+import com.ping.pingpicture.infrastructure.utils.ImageSampleUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * 待上传的图片内容
+ * <p>
+ * 读取输入流时一次性完成大小限制、文件头识别和 SHA-256 计算；
+ * 不超过内存阈值的内容直接保存在内存中上传，超过阈值时才溢出到临时文件
+ */
+@Slf4j
+public class PictureUploadContent implements Closeable {
+
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+    private static final int INITIAL_MEMORY_SIZE = 64 * 1024;
+
+    /**
+     * 内存中的内容（溢出到临时文件后为 null）
+     */
+    private byte[] data;
+
+    /**
+     * 临时文件（内容在内存中时为 null）
+     */
+    private File file;
+
+    private long size;
+
+    private String sha256;
+
+    private String format;
+
+    private String originalFilename;
+
+    private PictureUploadContent() {
+    }
+
+    /**
+     * 读取输入流
+     *
+     * @param inputStream     输入流（由调用方关闭）
+     * @param maxSize         允许的最大字节数，超过时立即停止读取
+     * @param memoryThreshold 内存阈值，超过后写入临时文件；小于等于 0 时始终使用临时文件
+     * @return 图片内容
+     */
+    public static PictureUploadContent read(InputStream inputStream, long maxSize, int memoryThreshold)
+            throws IOException {
+        PictureUploadContent content = new PictureUploadContent();
+        try {
+            content.readFrom(inputStream, maxSize, memoryThreshold);
+            return content;
+        } catch (IOException | RuntimeException e) {
+            content.close();
+            throw e;
+        }
+    }
+
+    private void readFrom(InputStream inputStream, long maxSize, int memoryThreshold) throws IOException {
+        MessageDigest messageDigest = newSha256Digest();
+        byte[] header = new byte[ImageFormatUtils.HEADER_LENGTH];
+        int headerLength = 0;
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        if (memoryThreshold > 0) {
+            data = new byte[(int) Math.min(INITIAL_MEMORY_SIZE, Math.min(memoryThreshold, maxSize))];
+        }
+        OutputStream fileOutputStream = null;
+        try {
+            int n;
+            while ((n = inputStream.read(buffer)) != -1) {
+                if (size + n > maxSize) {
+                    throw new BusinessException(ErrorCode.PARAMS_ERROR,
+                            String.format("上传文件大小不能超过%sMB", maxSize / (1024 * 1024)));
+                }
+                messageDigest.update(buffer, 0, n);
+                if (headerLength < header.length) {
+                    int copy = Math.min(n, header.length - headerLength);
+                    System.arraycopy(buffer, 0, header, headerLength, copy);
+                    headerLength += copy;
+                }
+                if (fileOutputStream == null && size + n > Math.max(memoryThreshold, 0)) {
+                    // 超过内存阈值，已读内容转存到临时文件
+                    file = File.createTempFile("picture_upload_", null);
+                    fileOutputStream = Files.newOutputStream(file.toPath());
+                    if (data != null) {
+                        fileOutputStream.write(data, 0, (int) size);
+                        data = null;
+                    }
+                }
+                if (fileOutputStream != null) {
+                    fileOutputStream.write(buffer, 0, n);
+                } else {
+                    if (size + n > data.length) {
+                        data = Arrays.copyOf(data, (int) Math.min(Math.max(data.length * 2L, size + n), memoryThreshold));
+                    }
+                    System.arraycopy(buffer, 0, data, (int) size, n);
+                }
+                size += n;
+            }
+        } finally {
+            if (fileOutputStream != null) {
+                fileOutputStream.close();
+            }
+        }
+        sha256 = HexUtil.encodeHexStr(messageDigest.digest());
+        format = ImageFormatUtils.sniffFormat(header, headerLength);
+    }
+
+    /**
+     * 打开内容的输入流，可重复打开
+     */
+    public InputStream openStream() throws IOException {
+        if (file != null) {
+            return Files.newInputStream(file.toPath());
+        }
+        return new ByteArrayInputStream(data, 0, (int) size);
+    }
+
+    /**
+     * 降采样解码图片
+     *
+     * @param maxSamplesPerAxis 每个方向大约保留的像素数
+     * @return 降采样后的图片，不支持的格式或解码失败时返回 null
+     */
+    public BufferedImage readSampled(int maxSamplesPerAxis) {
+        if (file != null) {
+            return ImageSampleUtils.readSampled(file, maxSamplesPerAxis);
+        }
+        return ImageSampleUtils.readSampled(new ByteArrayInputStream(data, 0, (int) size), maxSamplesPerAxis);
+    }
+
+    /**
+     * 内容字节数
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * 内容 SHA-256（小写十六进制）
+     */
+    public String getSha256() {
+        return sha256;
+    }
+
+    /**
+     * 根据文件头识别出的图片格式，无法识别时为 null
+     */
+    public String getFormat() {
+        return format;
+    }
+
+    /**
+     * 源文件名称
+     */
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    public void setOriginalFilename(String originalFilename) {
+        this.originalFilename = originalFilename;
+    }
+
+    /**
+     * 内容是否保存在内存中
+     */
+    public boolean isInMemory() {
+        return file == null;
+    }
+
+    /**
+     * 释放内容，删除临时文件
+     */
+    @Override
+    public void close() {
+        data = null;
+        if (file == null) {
+            return;
+        }
+        boolean deleteResult = file.delete();
+        if (!deleteResult && file.exists()) {
+            log.error("删除临时文件失败，文件路径：{}", file.getAbsolutePath());
+        }
+        file = null;
+    }
+
+    private static MessageDigest newSha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
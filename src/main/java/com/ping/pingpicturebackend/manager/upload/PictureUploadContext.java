@@ -0,0 +1,51 @@
+package com.ping.pingpicturebackend.manager.upload;
+
+import com.ping.pingpicturebackend.manager.quota.QuotaReservation;
+import com.ping.pingpicturebackend.model.dto.picture.PictureUploadRequest;
+import com.ping.pingpicturebackend.model.entity.Picture;
+import com.ping.pingpicturebackend.model.entity.User;
+import lombok.Data;
+
+/**
+ * 一次图片上传的上下文
+ * <p>
+ * 由校验阶段生成，后续的存储、入库阶段（可能在其他线程执行）只依赖该对象，不再读取请求
+ */
+@Data
+public class PictureUploadContext {
+
+    /**
+     * 上传请求
+     */
+    private PictureUploadRequest pictureUploadRequest;
+
+    /**
+     * 登录用户
+     */
+    private User loginUser;
+
+    /**
+     * 图片 id（重新上传时不为空）
+     */
+    private Long pictureId;
+
+    /**
+     * 空间 id（公共图库为空）
+     */
+    private Long spaceId;
+
+    /**
+     * 重新上传时的旧图片
+     */
+    private Picture oldPicture;
+
+    /**
+     * 上传文件前缀
+     */
+    private String uploadPathPrefix;
+
+    /**
+     * 已预占的空间图片条数额度（入库成功后确认，取消上传时归还）
+     */
+    private QuotaReservation quotaReservation;
+}
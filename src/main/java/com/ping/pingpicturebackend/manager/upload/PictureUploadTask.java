@@ -0,0 +1,63 @@
+package com.ping.pingpicturebackend.manager.upload;
+
+import com.ping.pingpicturebackend.model.vo.PictureUploadTaskVO;
+import com.ping.pingpicturebackend.model.vo.PictureVO;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 异步上传任务状态（保存在 Redis 中，任意节点都可以查询）
+ */
+@Data
+public class PictureUploadTask implements Serializable {
+
+    private static final long serialVersionUID = 2871935603519380215L;
+
+    /**
+     * 任务 id
+     */
+    private String taskId;
+
+    /**
+     * 创建者 id
+     */
+    private Long userId;
+
+    /**
+     * 任务状态
+     */
+    private String status;
+
+    /**
+     * 失败原因
+     */
+    private String message;
+
+    /**
+     * 上传成功后的图片
+     */
+    private PictureVO picture;
+
+    /**
+     * 创建时间
+     */
+    private Date createTime;
+
+    /**
+     * 更新时间
+     */
+    private Date updateTime;
+
+    public PictureUploadTaskVO toVO() {
+        PictureUploadTaskVO taskVO = new PictureUploadTaskVO();
+        taskVO.setTaskId(taskId);
+        taskVO.setStatus(status);
+        taskVO.setMessage(message);
+        taskVO.setPicture(picture);
+        taskVO.setCreateTime(createTime);
+        taskVO.setUpdateTime(updateTime);
+        return taskVO;
+    }
+}
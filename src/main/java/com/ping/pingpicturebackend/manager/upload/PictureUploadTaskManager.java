@@ -0,0 +1,261 @@
+package com.ping.pingpicturebackend.manager.upload;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.ObjUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import com.ping.pingpicture.infrastructure.exception.BusinessException;
+import com.ping.pingpicture.infrastructure.exception.ErrorCode;
+import com.ping.pingpicture.infrastructure.exception.ThrowUtils;
+import com.ping.pingpicturebackend.model.dto.file.UploadPictureResult;
+import com.ping.pingpicturebackend.model.dto.picture.PictureUploadRequest;
+import com.ping.pingpicturebackend.model.entity.User;
+import com.ping.pingpicturebackend.model.enums.PictureUploadTaskStatusEnum;
+import com.ping.pingpicturebackend.model.vo.PictureUploadTaskVO;
+import com.ping.pingpicturebackend.model.vo.PictureVO;
+import com.ping.pingpicturebackend.service.PictureService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步上传任务管理
+ * <p>
+ * 请求线程只做校验、预占额度和提交任务，之后按 获取 → 存储 → 入库 三个阶段在各自的线程池中执行：
+ * 获取阶段等待源站（IO），存储阶段等待对象存储处理，入库阶段很短，分开后慢源站不会占满存储和入库的线程。
+ * 队列满时拒绝新提交的任务，已在流水线中的任务由上一阶段的线程继续执行（反压），任务结果通过轮询接口获取。
+ * 任务状态保存在 Redis 中，轮询请求落到任意节点都能查到
+ */
+@Slf4j
+@Component
+public class PictureUploadTaskManager {
+
+    private static final String TASK_KEY_PREFIX = "pingPicture:uploadTask:";
+
+    /**
+     * 任务状态的保留时间（毫秒），每次更新状态时重新计时，完成后保留一段时间供轮询
+     */
+    private static final long TASK_EXPIRE_MILLIS = 30 * 60 * 1000L;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private PictureService pictureService;
+
+    @Resource
+    private FilePictureUpload filePictureUpload;
+
+    @Resource
+    private URLPictureUpload urlPictureUpload;
+
+    /**
+     * 获取阶段线程池（下载 URL 图片）
+     */
+    private final ThreadPoolExecutor fetchExecutor = new ThreadPoolExecutor(
+            8, 8, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(256),
+            ThreadFactoryBuilder.create().setNamePrefix("uploadFetch-").build(),
+            new ThreadPoolExecutor.AbortPolicy());
+
+    /**
+     * 存储阶段线程池（秒传或上传到对象存储）
+     */
+    private final ThreadPoolExecutor storeExecutor = new ThreadPoolExecutor(
+            4, 4, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(64),
+            ThreadFactoryBuilder.create().setNamePrefix("uploadStore-").build(),
+            new ThreadPoolExecutor.AbortPolicy());
+
+    /**
+     * 入库阶段线程池
+     */
+    private final ThreadPoolExecutor persistExecutor = new ThreadPoolExecutor(
+            2, 2, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(64),
+            ThreadFactoryBuilder.create().setNamePrefix("uploadPersist-").build(),
+            new ThreadPoolExecutor.AbortPolicy());
+
+    /**
+     * 提交异步上传任务
+     *
+     * @param inputSource          输入源（文件或 URL）
+     * @param pictureUploadRequest 上传请求
+     * @param loginUser            登录用户
+     * @return 任务 id
+     */
+    public String submit(Object inputSource, PictureUploadRequest pictureUploadRequest, User loginUser) {
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
+        ThrowUtils.throwIf(inputSource == null, ErrorCode.PARAMS_ERROR, "上传文件不能为空");
+        PictureUploadContext uploadContext = pictureService.prepareUpload(pictureUploadRequest, loginUser, true);
+        PictureUploadTask task = new PictureUploadTask();
+        task.setTaskId(IdUtil.fastSimpleUUID());
+        task.setUserId(loginUser.getId());
+        task.setCreateTime(new Date());
+        PictureUploadContent content = null;
+        try {
+            if (inputSource instanceof MultipartFile) {
+                // 请求结束后上传的文件会被清理，需要在请求线程内读取（已限制为 5MB 以内的内存读取）
+                content = filePictureUpload.fetchPicture(inputSource);
+                PictureUploadContent fetchedContent = content;
+                updateTask(task, PictureUploadTaskStatusEnum.STORING);
+                storeExecutor.execute(() -> store(task, uploadContext, fetchedContent));
+            } else {
+                updateTask(task, PictureUploadTaskStatusEnum.PENDING);
+                fetchExecutor.execute(() -> fetch(task, uploadContext, inputSource));
+            }
+        } catch (RuntimeException e) {
+            if (content != null) {
+                content.close();
+            }
+            pictureService.cancelUpload(uploadContext);
+            stringRedisTemplate.delete(TASK_KEY_PREFIX + task.getTaskId());
+            if (e instanceof RejectedExecutionException) {
+                throw new BusinessException(ErrorCode.OPERATION_ERROR, "上传任务过多，请稍后再试");
+            }
+            throw e;
+        }
+        return task.getTaskId();
+    }
+
+    /**
+     * 查询任务状态，仅任务创建者可查询
+     *
+     * @param taskId    任务 id
+     * @param loginUser 登录用户
+     * @return 任务视图
+     */
+    public PictureUploadTaskVO getTask(String taskId, User loginUser) {
+        ThrowUtils.throwIf(taskId == null, ErrorCode.PARAMS_ERROR);
+        String taskJson = stringRedisTemplate.opsForValue().get(TASK_KEY_PREFIX + taskId);
+        ThrowUtils.throwIf(StrUtil.isBlank(taskJson), ErrorCode.NOT_FOUND_ERROR, "任务不存在或已过期");
+        PictureUploadTask task = JSONUtil.toBean(taskJson, PictureUploadTask.class);
+        ThrowUtils.throwIf(!ObjUtil.equals(task.getUserId(), loginUser.getId()), ErrorCode.NO_AUTH_ERROR);
+        return task.toVO();
+    }
+
+    /**
+     * 获取阶段
+     */
+    private void fetch(PictureUploadTask task, PictureUploadContext uploadContext, Object inputSource) {
+        PictureUploadContent content;
+        try {
+            updateStage(task, PictureUploadTaskStatusEnum.FETCHING);
+            content = urlPictureUpload.fetchPicture(inputSource);
+        } catch (Exception e) {
+            fail(task, uploadContext, e);
+            return;
+        }
+        updateStage(task, PictureUploadTaskStatusEnum.STORING);
+        handOff(storeExecutor, () -> store(task, uploadContext, content));
+    }
+
+    /**
+     * 存储阶段
+     */
+    private void store(PictureUploadTask task, PictureUploadContext uploadContext, PictureUploadContent content) {
+        UploadPictureResult uploadPictureResult;
+        try {
+            uploadPictureResult = filePictureUpload.storePicture(uploadContext.getUploadPathPrefix(), content);
+        } catch (Exception e) {
+            fail(task, uploadContext, e);
+            return;
+        } finally {
+            content.close();
+        }
+        updateStage(task, PictureUploadTaskStatusEnum.PERSISTING);
+        handOff(persistExecutor, () -> persist(task, uploadContext, uploadPictureResult));
+    }
+
+    /**
+     * 入库阶段
+     */
+    private void persist(PictureUploadTask task, PictureUploadContext uploadContext,
+                         UploadPictureResult uploadPictureResult) {
+        PictureVO pictureVO;
+        try {
+            pictureVO = pictureService.savePicture(uploadContext, uploadPictureResult);
+        } catch (Exception e) {
+            fail(task, uploadContext, e);
+            return;
+        }
+        // 图片已经入库，状态写入失败时不能再归还额度
+        task.setPicture(pictureVO);
+        try {
+            updateTask(task, PictureUploadTaskStatusEnum.SUCCEEDED);
+        } catch (Exception e) {
+            log.error("更新上传任务状态失败，taskId = {}, pictureId = {}", task.getTaskId(), pictureVO.getId(), e);
+        }
+    }
+
+    /**
+     * 交给下一阶段，下一阶段队列已满时在当前线程执行，使上游阶段放慢
+     */
+    private void handOff(ThreadPoolExecutor nextStageExecutor, Runnable stage) {
+        try {
+            nextStageExecutor.execute(stage);
+        } catch (RejectedExecutionException e) {
+            stage.run();
+        }
+    }
+
+    private void fail(PictureUploadTask task, PictureUploadContext uploadContext, Exception e) {
+        String message = "上传图片失败";
+        if (e instanceof BusinessException) {
+            message = e.getMessage();
+        } else {
+            log.error("异步上传图片失败，taskId = {}", task.getTaskId(), e);
+        }
+        try {
+            pictureService.cancelUpload(uploadContext);
+        } catch (Exception cancelException) {
+            log.error("归还空间额度失败，spaceId = {}", uploadContext.getSpaceId(), cancelException);
+        }
+        task.setMessage(message);
+        try {
+            updateTask(task, PictureUploadTaskStatusEnum.FAILED);
+        } catch (Exception updateException) {
+            log.error("更新上传任务状态失败，taskId = {}", task.getTaskId(), updateException);
+        }
+    }
+
+    /**
+     * 更新中间阶段的状态，写入失败只影响轮询看到的进度，不中断任务
+     */
+    private void updateStage(PictureUploadTask task, PictureUploadTaskStatusEnum statusEnum) {
+        try {
+            updateTask(task, statusEnum);
+        } catch (Exception e) {
+            log.warn("更新上传任务状态失败，taskId = {}, status = {}", task.getTaskId(), statusEnum.getValue(), e);
+        }
+    }
+
+    /**
+     * 更新任务状态并写入 Redis
+     * <p>
+     * 同一任务的各阶段依次执行，写入不会乱序
+     */
+    private void updateTask(PictureUploadTask task, PictureUploadTaskStatusEnum statusEnum) {
+        task.setStatus(statusEnum.getValue());
+        task.setUpdateTime(new Date());
+        stringRedisTemplate.opsForValue().set(TASK_KEY_PREFIX + task.getTaskId(), JSONUtil.toJsonStr(task),
+                TASK_EXPIRE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        fetchExecutor.shutdown();
+        storeExecutor.shutdown();
+        persistExecutor.shutdown();
+    }
+}
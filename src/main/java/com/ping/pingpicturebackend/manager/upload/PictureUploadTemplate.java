@@ -1,25 +1,26 @@
 package com.ping.pingpicturebackend.manager.upload;
 
-import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.NumberUtil;
 import cn.hutool.core.util.RandomUtil;
-import com.ping.pingpicture.infrastructure.config.CosClientConfig;
 import com.ping.pingpicture.infrastructure.exception.BusinessException;
 import com.ping.pingpicture.infrastructure.exception.ErrorCode;
-import com.ping.pingpicture.infrastructure.api.CosManager;
+import com.ping.pingpicture.infrastructure.exception.ThrowUtils;
+import com.ping.pingpicture.infrastructure.api.storage.ObjectStorage;
+import com.ping.pingpicture.infrastructure.api.storage.StoredPicture;
+import com.ping.pingpicture.infrastructure.api.storage.StoredVariant;
 import com.ping.pingpicturebackend.model.dto.file.UploadPictureResult;
-import com.qcloud.cos.model.PutObjectResult;
-import com.qcloud.cos.model.ciModel.persistence.CIObject;
-import com.qcloud.cos.model.ciModel.persistence.ImageInfo;
-import com.qcloud.cos.model.ciModel.persistence.ProcessResults;
+import com.ping.pingpicturebackend.model.entity.PictureBlob;
+import com.ping.pingpicturebackend.service.PictureBlobService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 
 import javax.annotation.Resource;
-import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Date;
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 上传图片抽象模板
@@ -28,61 +29,98 @@ import java.util.List;
 public abstract class PictureUploadTemplate {
 
     @Resource
-    private CosManager cosManager;
+    private ObjectStorage objectStorage;
 
     @Resource
-    private CosClientConfig cosClientConfig;
+    private PictureBlobService pictureBlobService;
+
+    @Resource
+    private PictureMetadataExtractor pictureMetadataExtractor;
+
+    /**
+     * 图片大小上限
+     */
+    protected static final long MAX_PICTURE_SIZE = 5 * 1024 * 1024;
+
+    /**
+     * 内存中缓冲上传内容的上限，超过后溢出到临时文件；配置为 0 时始终使用临时文件
+     */
+    @Value("${picture.upload.memory-threshold:5242880}")
+    private int memoryThreshold;
 
     /**
      * 上传图片
      *
      * @param uploadFilePrefix 上传文件前缀
      * @param inputSource      输入源
-     * @return 接收图片解析信息包装体
+     * @return 接收图片解析信息包装体（blobId 为占用了一次引用的图片文件）
      */
     public UploadPictureResult uploadPicture(String uploadFilePrefix,
                                              Object inputSource) {
+        try (PictureUploadContent content = fetchPicture(inputSource)) {
+            return storePicture(uploadFilePrefix, content);
+        }
+    }
+
+    /**
+     * 获取阶段：校验输入源并读取内容，读取时同时限制大小、识别文件头并计算内容哈希
+     *
+     * @param inputSource 输入源
+     * @return 图片内容，由调用方关闭
+     */
+    public PictureUploadContent fetchPicture(Object inputSource) {
         // 1. 校验图片
         validPicture(inputSource);
-        // 2. 构造图片上传地址
-        String uuid = RandomUtil.randomString(6);
-        // 获取源文件名称
+        // 2. 获取源文件名称
         String originalFilename = getOriginalFilename(inputSource);
+        // 3. 读取输入源
+        PictureUploadContent content = null;
+        try (InputStream inputStream = openInputStream(inputSource)) {
+            content = PictureUploadContent.read(inputStream, MAX_PICTURE_SIZE, memoryThreshold);
+            content.setOriginalFilename(originalFilename);
+            ThrowUtils.throwIf(content.getFormat() == null, ErrorCode.PARAMS_ERROR, "上传文件类型错误");
+            return content;
+        } catch (BusinessException e) {
+            closeQuietly(content);
+            throw e;
+        } catch (Exception e) {
+            closeQuietly(content);
+            log.error("读取上传图片失败", e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传图片失败");
+        }
+    }
+
+    /**
+     * 存储阶段：秒传或上传到对象存储
+     *
+     * @param uploadFilePrefix 上传文件前缀
+     * @param content          获取阶段读取的图片内容（由调用方关闭）
+     * @return 接收图片解析信息包装体（blobId 为占用了一次引用的图片文件）
+     */
+    public UploadPictureResult storePicture(String uploadFilePrefix, PictureUploadContent content) {
+        String originalFilename = content.getOriginalFilename();
+        // 1. 构造图片上传地址
+        String uuid = RandomUtil.randomString(6);
+        // 后缀以文件头识别出的格式为准，不信任源文件名
         String uploadFilename = String.format("%s_%s.%s",
-                DateUtil.formatDate(new Date()), uuid, FileUtil.getSuffix(originalFilename));
+                DateUtil.formatDate(new Date()), uuid, content.getFormat());
         String uploadPath = String.format("%s/%s", uploadFilePrefix, uploadFilename);
-        // 上传图片
-        File file = null;
         try {
-            // 3. 创建临时文件
-            file = File.createTempFile(uploadPath, null);
-            // 处理文件来源（本地或 URL）
-            processFile(inputSource, file);
-            // 4. 上传到COS
-            PutObjectResult putObjectResult = cosManager.putPictureObject(uploadPath, file);
-            // 5. 获取图片信息对象
-            ImageInfo imageInfo = putObjectResult.getCiUploadResult().getOriginalInfo().getImageInfo();
-            // 6. 获取压缩图片信息并封装
-            ProcessResults processResults = putObjectResult.getCiUploadResult().getProcessResults();
-            List<CIObject> objectList = processResults.getObjectList();
-            if (CollUtil.isNotEmpty(objectList)) {
-                CIObject compressedCiObject = objectList.get(0);
-                CIObject thumbnailCiObject = compressedCiObject;
-                // 有生成缩略图，才得到缩略图
-                if (objectList.size() > 1) {
-                    thumbnailCiObject = objectList.get(1);
-                }
-                // 封装压缩图返回结果
-                return buildResult(originalFilename, compressedCiObject, thumbnailCiObject,
-                        uploadPath, imageInfo);
+            // 2. 秒传：相同内容的文件已存在时直接复用，不再上传
+            PictureBlob pictureBlob = pictureBlobService.acquire(content.getSha256());
+            if (pictureBlob == null) {
+                // 3. 上传到对象存储并登记文件
+                pictureBlob = pictureBlobService.register(content.getSha256(),
+                        putPicture(uploadPath, originalFilename, content));
             }
-            return buildResult(imageInfo, uploadPath, originalFilename, file);
+            UploadPictureResult uploadPictureResult = pictureBlobService.toUploadPictureResult(pictureBlob);
+            uploadPictureResult.setPicName(FileUtil.mainName(originalFilename));
+            return uploadPictureResult;
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
             log.error("图片上传到对象存储失败", e);
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传图片失败");
-        } finally {
-            // 7. 删除临时文件
-            deleteTempFile(file);
         }
     }
 
@@ -97,75 +135,89 @@ public abstract class PictureUploadTemplate {
     protected abstract String getOriginalFilename(Object inputSource);
 
     /**
-     * 处理输入源并生成本地临时文件
+     * 打开输入源的内容流（由模板读取并关闭）
      */
-    protected abstract void processFile(Object inputSource, File file) throws Exception;
+    protected abstract InputStream openInputStream(Object inputSource) throws Exception;
+
+    private void closeQuietly(PictureUploadContent content) {
+        if (content != null) {
+            content.close();
+        }
+    }
 
     /**
-     * 封装返回规则处理结果（ webp & thumbnail）
+     * 上传到对象存储，同时在本地解析图片信息
      */
-    private UploadPictureResult buildResult(String originalFilename,
-                                            CIObject compressedCiObject,
-                                            CIObject thumbnailCiObject,
-                                            String uploadPath,
-                                            ImageInfo imageInfo) {
-        UploadPictureResult uploadPictureResult = new UploadPictureResult();
-        // 计算宽高
-        int picWidth = compressedCiObject.getWidth();
-        int picHeight = compressedCiObject.getHeight();
-        double picScale = NumberUtil.round(picWidth * 1.0 / picHeight, 2).doubleValue();
-        // 封装返回结果
-        uploadPictureResult.setPicName(FileUtil.mainName(originalFilename));
-        uploadPictureResult.setPicSize(compressedCiObject.getSize().longValue());
-        uploadPictureResult.setPicWidth(picWidth);
-        uploadPictureResult.setPicHeight(picHeight);
-        uploadPictureResult.setPicScale(picScale);
-        uploadPictureResult.setPicFormat(compressedCiObject.getFormat());
-        // 设置图片为压缩后的地址
-        uploadPictureResult.setUrl(cosClientConfig.getHost() + "/" + compressedCiObject.getKey());
-        // 设置缩略图地址
-        uploadPictureResult.setThumbnailUrl(cosClientConfig.getHost() + "/" + thumbnailCiObject.getKey());
-        // 设置初始原图地址
-        uploadPictureResult.setOriginalUrl(cosClientConfig.getHost() + "/" + uploadPath);
-        // 设置图片颜色
-        uploadPictureResult.setPicColor(imageInfo.getAve());
-        return uploadPictureResult;
+    private UploadPictureResult putPicture(String uploadPath, String originalFilename,
+                                          PictureUploadContent content) throws IOException {
+        // 解析与上传并行，上传结束后再等待解析结果（解析不会抛出异常）
+        CompletableFuture<PictureMetadata> metadataFuture = pictureMetadataExtractor.extractAsync(content);
+        StoredPicture storedPicture;
+        PictureMetadata pictureMetadata;
+        try (InputStream inputStream = content.openStream()) {
+            storedPicture = objectStorage.putPicture(uploadPath, inputStream, content.getSize());
+        } finally {
+            // 上传失败时也要等解析结束，之后调用方才能释放图片内容
+            pictureMetadata = metadataFuture.join();
+        }
+        return buildResult(originalFilename, content, pictureMetadata, storedPicture);
     }
 
     /**
      * 封装返回结果
+     * <p>
+     * 宽高、格式、颜色和哈希以本地解析结果为准，本地无法解析时才使用存储端解析的原图信息；
+     * 有派生图时，图片地址、大小和格式使用压缩图
      */
-    private UploadPictureResult buildResult(ImageInfo imageInfo, String uploadPath,
-                                            String originalFilename, File file) {
+    private UploadPictureResult buildResult(String originalFilename, PictureUploadContent content,
+                                            PictureMetadata pictureMetadata, StoredPicture storedPicture) {
         UploadPictureResult uploadPictureResult = new UploadPictureResult();
         // 计算宽高
-        int picWidth = imageInfo.getWidth();
-        int picHeight = imageInfo.getHeight();
+        int picWidth;
+        int picHeight;
+        String picFormat;
+        if (pictureMetadata.getWidth() != null) {
+            picWidth = pictureMetadata.getWidth();
+            picHeight = pictureMetadata.getHeight();
+            picFormat = pictureMetadata.getFormat();
+        } else {
+            ThrowUtils.throwIf(storedPicture.getWidth() == null, ErrorCode.PARAMS_ERROR, "图片文件已损坏");
+            picWidth = storedPicture.getWidth();
+            picHeight = storedPicture.getHeight();
+            picFormat = storedPicture.getFormat();
+        }
         double picScale = NumberUtil.round(picWidth * 1.0 / picHeight, 2).doubleValue();
         // 封装返回结果
         uploadPictureResult.setPicName(FileUtil.mainName(originalFilename));
-        uploadPictureResult.setPicSize(FileUtil.size(file));
+        uploadPictureResult.setPicSize(content.getSize());
         uploadPictureResult.setPicWidth(picWidth);
         uploadPictureResult.setPicHeight(picHeight);
         uploadPictureResult.setPicScale(picScale);
-        uploadPictureResult.setPicFormat(imageInfo.getFormat());
-        uploadPictureResult.setUrl(cosClientConfig.getHost() + "/" + uploadPath);
-        uploadPictureResult.setPicColor(imageInfo.getAve());
+        uploadPictureResult.setPicFormat(picFormat);
+        uploadPictureResult.setUrl(objectStorage.getUrl(storedPicture.getKey()));
+        // 设置图片颜色、主色板和感知哈希（用于按颜色搜索和以图搜图）
+        uploadPictureResult.setPicColor(pictureMetadata.getPicColor() != null
+                ? pictureMetadata.getPicColor() : storedPicture.getColor());
+        uploadPictureResult.setPicPalette(pictureMetadata.getPicPalette());
+        uploadPictureResult.setPicPHash(pictureMetadata.getPicPHash());
+        uploadPictureResult.setPicDHash(pictureMetadata.getPicDHash());
+        // 封装派生图
+        StoredVariant compressed = storedPicture.getCompressed();
+        if (compressed != null) {
+            // 没有生成缩略图时使用压缩图
+            StoredVariant thumbnail = storedPicture.getThumbnail() != null ? storedPicture.getThumbnail() : compressed;
+            uploadPictureResult.setPicSize(compressed.getSize());
+            uploadPictureResult.setPicFormat(compressed.getFormat());
+            // 设置图片为压缩后的地址
+            uploadPictureResult.setUrl(objectStorage.getUrl(compressed.getKey()));
+            // 设置缩略图地址
+            uploadPictureResult.setThumbnailUrl(objectStorage.getUrl(thumbnail.getKey()));
+            // 设置初始原图地址
+            uploadPictureResult.setOriginalUrl(objectStorage.getUrl(storedPicture.getKey()));
+        } else if (storedPicture.getThumbnail() != null) {
+            uploadPictureResult.setThumbnailUrl(objectStorage.getUrl(storedPicture.getThumbnail().getKey()));
+        }
         return uploadPictureResult;
     }
 
-    /**
-     * 删除临时文件
-     *
-     * @param file 临时文件
-     */
-    private void deleteTempFile(File file) {
-        if (file == null) {
-            return;
-        }
-        boolean deleteResult = file.delete();
-        if (!deleteResult) {
-            log.error("删除临时文件失败，文件路径：{}", file.getAbsolutePath());
-        }
-    }
 }
@@ -2,25 +2,36 @@ package com.ping.pingpicturebackend.manager.upload;
 
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.http.HttpResponse;
-import cn.hutool.http.HttpStatus;
-import cn.hutool.http.HttpUtil;
-import cn.hutool.http.Method;
+import cn.hutool.core.util.URLUtil;
 import com.ping.pingpicture.infrastructure.exception.BusinessException;
 import com.ping.pingpicture.infrastructure.exception.ErrorCode;
 import com.ping.pingpicture.infrastructure.exception.ThrowUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
+import javax.annotation.Resource;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.Arrays;
-import java.util.List;
 
+/**
+ * URL 图片上传
+ * <p>
+ * 只发送一次 GET 请求：响应头用于提前拒绝明显不合规的文件，真正的大小限制和类型识别在读取响应体时完成，
+ * 不再依赖 HEAD 请求和可以伪造的 Content-Length / Content-Type
+ */
 @Service
 public class URLPictureUpload extends PictureUploadTemplate {
 
-    String urlSuffix;
+    @Resource
+    private CloseableHttpClient pictureHttpClient;
 
     @Override
     protected void validPicture(Object inputSource) {
@@ -35,48 +46,79 @@ public class URLPictureUpload extends PictureUploadTemplate {
         // 2. 校验 URL 协议
         ThrowUtils.throwIf(!(fileUrl.startsWith("http://") || fileUrl.startsWith("https://")),
                 ErrorCode.PARAMS_ERROR, "文件地址协议错误");
-        // 3. 发送 HEAD 请求验证文件是否存在
-        try (HttpResponse response = HttpUtil.createRequest(Method.HEAD, fileUrl).execute()) {
-            // 未正常返回，无需执行其他判断
-            if (response.getStatus() != HttpStatus.HTTP_OK) {
-                return;
-            }
-            // 4. 校验文件类型
-            String contentType = response.header("Content-Type");
-            urlSuffix = contentType.substring(6);
-            if (StrUtil.isNotBlank(contentType)) {
-                // 允许的图片类型
-                final List<String> ALLOW_FORMAT_TYPES = Arrays.asList("image/jpeg",
-                        "image/jpg", "image/png", "image/gif", "image/bmp", "image/webp");
-                ThrowUtils.throwIf(!ALLOW_FORMAT_TYPES.contains(contentType.toLowerCase()),
-                        ErrorCode.PARAMS_ERROR, "上传文件类型错误");
-            }
-            // 5. 校验文件大小
-            String contentLengthStr = response.header("Content-Length");
-            if (StrUtil.isNotBlank(contentLengthStr)) {
-                try {
-                    long contentLength = Long.parseLong(contentLengthStr);
-                    final long FIVE_MB = 5 * 1024 * 1024;  // 限制文件大小为 5MB
-                    ThrowUtils.throwIf(contentLength > FIVE_MB, ErrorCode.PARAMS_ERROR,
-                            "上传文件大小不能超过5MB");
-                } catch (NumberFormatException e) {
-                    throw new BusinessException(ErrorCode.PARAMS_ERROR, "文件大小格式错误");
-                }
-            }
-        }
     }
 
     @Override
     protected String getOriginalFilename(Object inputSource) {
         String fileUrl = (String) inputSource;
-        // 从 URL 中获取文件名
-        return FileUtil.mainName(fileUrl) + "." + urlSuffix;
+        // 从 URL 路径中获取文件名（不含查询参数），实际格式以文件头为准
+        return FileUtil.getName(URLUtil.getPath(fileUrl));
     }
 
     @Override
-    protected void processFile(Object inputSource, File file) throws Exception {
+    protected InputStream openInputStream(Object inputSource) throws Exception {
         String fileUrl = (String) inputSource;
-        // 下载到临时文件
-        HttpUtil.downloadFile(fileUrl, file);
+        CloseableHttpResponse response = pictureHttpClient.execute(new HttpGet(fileUrl));
+        try {
+            // 1. 校验响应状态
+            ThrowUtils.throwIf(response.getStatusLine().getStatusCode() != HttpStatus.SC_OK,
+                    ErrorCode.PARAMS_ERROR, "文件地址无法访问");
+            HttpEntity entity = response.getEntity();
+            ThrowUtils.throwIf(entity == null, ErrorCode.PARAMS_ERROR, "文件内容为空");
+            // 2. 响应头声明的类型和大小明显不合规时提前拒绝，不读取响应体
+            Header contentType = entity.getContentType();
+            if (contentType != null && StrUtil.isNotBlank(contentType.getValue())) {
+                ThrowUtils.throwIf(!StrUtil.startWithIgnoreCase(contentType.getValue(), "image/")
+                                && !StrUtil.startWithIgnoreCase(contentType.getValue(), "application/octet-stream"),
+                        ErrorCode.PARAMS_ERROR, "上传文件类型错误");
+            }
+            ThrowUtils.throwIf(entity.getContentLength() > MAX_PICTURE_SIZE, ErrorCode.PARAMS_ERROR,
+                    "上传文件大小不能超过5MB");
+            return new ResponseInputStream(response, entity.getContent());
+        } catch (Exception e) {
+            response.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 响应体输入流：读完后关闭时归还连接，未读完（如超过大小限制）时直接断开连接，不再下载剩余内容
+     */
+    private static class ResponseInputStream extends FilterInputStream {
+
+        private final CloseableHttpResponse response;
+
+        private boolean eof;
+
+        ResponseInputStream(CloseableHttpResponse response, InputStream inputStream) {
+            super(inputStream);
+            this.response = response;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            eof |= b == -1;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            eof |= n == -1;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (eof) {
+                    // 已读完，关闭内容流后连接可被复用
+                    super.close();
+                }
+            } finally {
+                response.close();
+            }
+        }
     }
 }
@@ -57,4 +57,24 @@ public class UploadPictureResult {
      * 图片主色调
      */
     private String picColor;
+
+    /**
+     * 图片主色板
+     */
+    private String picPalette;
+
+    /**
+     * 图片感知哈希 pHash
+     */
+    private Long picPHash;
+
+    /**
+     * 图片差异哈希 dHash
+     */
+    private Long picDHash;
+
+    /**
+     * 图片文件 id（已占用一次引用）
+     */
+    private Long blobId;
 }
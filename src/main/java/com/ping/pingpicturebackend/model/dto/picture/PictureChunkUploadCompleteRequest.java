@@ -0,0 +1,19 @@
+package com.ping.pingpicturebackend.model.dto.picture;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 分片上传完成请求
+ */
+@Data
+public class PictureChunkUploadCompleteRequest implements Serializable {
+
+    private static final long serialVersionUID = -3580195826174029374L;
+
+    /**
+     * 上传 id
+     */
+    private String uploadId;
+}
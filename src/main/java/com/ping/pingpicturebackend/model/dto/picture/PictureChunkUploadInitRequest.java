@@ -0,0 +1,39 @@
+package com.ping.pingpicturebackend.model.dto.picture;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 分片上传初始化请求
+ */
+@Data
+public class PictureChunkUploadInitRequest implements Serializable {
+
+    private static final long serialVersionUID = 2714398513746803652L;
+
+    /**
+     * 图片 id（用于修改）
+     */
+    private Long id;
+
+    /**
+     * 所属空间 id
+     */
+    private Long spaceId;
+
+    /**
+     * 图片名
+     */
+    private String picName;
+
+    /**
+     * 源文件名
+     */
+    private String fileName;
+
+    /**
+     * 文件字节数
+     */
+    private Long fileSize;
+}
@@ -0,0 +1,68 @@
+package com.ping.pingpicturebackend.model.dto.picture;
+
+import cn.hutool.core.codec.Base64;
+import cn.hutool.json.JSONUtil;
+import com.ping.pingpicture.infrastructure.exception.BusinessException;
+import com.ping.pingpicture.infrastructure.exception.ErrorCode;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 图片分页游标，记录翻页位置上的排序值和 id
+ * <p>
+ * 对外以 URL 安全的 Base64 字符串传递，客户端不需要关心内部结构
+ */
+@Data
+public class PictureCursor implements Serializable {
+
+    /**
+     * 排序字段
+     */
+    private String sortField;
+
+    /**
+     * 排序顺序
+     */
+    private String sortOrder;
+
+    /**
+     * 排序字段的值（时间字段为毫秒时间戳）
+     */
+    private Long sortValue;
+
+    /**
+     * 图片 id
+     */
+    private Long id;
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 编码为字符串
+     */
+    public String encode() {
+        return Base64.encodeUrlSafe(JSONUtil.toJsonStr(this), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 从字符串解码
+     *
+     * @param cursor 游标字符串
+     * @return 游标
+     */
+    public static PictureCursor decode(String cursor) {
+        try {
+            PictureCursor pictureCursor = JSONUtil.toBean(Base64.decodeStr(cursor, StandardCharsets.UTF_8), PictureCursor.class);
+            if (pictureCursor.getId() == null || pictureCursor.getSortValue() == null) {
+                throw new BusinessException(ErrorCode.PARAMS_ERROR, "游标不合法");
+            }
+            return pictureCursor;
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "游标不合法");
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.ping.pingpicturebackend.model.dto.picture;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.io.Serializable;
+
+/**
+ * 图片游标查询请求
+ * <p>
+ * 复用图片查询的全部筛选条件，current 字段不生效，排序字段仅支持 id、createTime、editTime
+ */
+@EqualsAndHashCode(callSuper = true)
+@Data
+public class PictureCursorQueryRequest extends PictureQueryRequest implements Serializable {
+
+    /**
+     * 游标（为空表示从第一页开始）
+     */
+    private String cursor;
+
+    /**
+     * 翻页方向：next-下一页 prev-上一页
+     */
+    private String direction = "next";
+
+    /**
+     * 是否需要查询总数（深度翻页时建议关闭）
+     */
+    private Boolean needTotal = false;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -40,6 +40,11 @@ public class PictureQueryRequest extends PageRequest implements Serializable {
      */
     private List<String> tags;
 
+    /**
+     * 标签匹配方式：and-包含全部标签（默认） or-包含任一标签
+     */
+    private String tagMatchMode;
+
     /**
      * 文件体积
      */
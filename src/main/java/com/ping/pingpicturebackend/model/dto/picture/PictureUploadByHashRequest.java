@@ -0,0 +1,19 @@
+package com.ping.pingpicturebackend.model.dto.picture;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * 按内容哈希上传图片（秒传）请求体
+ */
+@EqualsAndHashCode(callSuper = true)
+@Data
+public class PictureUploadByHashRequest extends PictureUploadRequest {
+
+    private static final long serialVersionUID = -3185727043567145926L;
+
+    /**
+     * 原图内容 SHA-256（小写十六进制）
+     */
+    private String sha256;
+}
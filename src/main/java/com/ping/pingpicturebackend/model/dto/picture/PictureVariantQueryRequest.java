@@ -0,0 +1,35 @@
+package com.ping.pingpicturebackend.model.dto.picture;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 批量获取图片变体请求（列表页按网格尺寸加载图片）
+ */
+@Data
+public class PictureVariantQueryRequest implements Serializable {
+
+    /**
+     * 空间 id，为空表示公共图库
+     */
+    private Long spaceId;
+
+    /**
+     * 图片 id 列表，最多 50 个
+     */
+    private List<Long> pictureIdList;
+
+    /**
+     * 期望宽度（像素），向上取到最近的档位
+     */
+    private Integer width;
+
+    /**
+     * 期望格式：auto（默认）、jpg、png、webp
+     */
+    private String format;
+
+    private static final long serialVersionUID = 1L;
+}
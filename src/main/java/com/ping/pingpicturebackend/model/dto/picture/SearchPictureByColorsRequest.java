@@ -0,0 +1,35 @@
+package com.ping.pingpicturebackend.model.dto.picture;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 多颜色搜索图片请求
+ */
+@Data
+public class SearchPictureByColorsRequest implements Serializable {
+
+    /**
+     * 查询颜色（如 0xFF0000），最多 5 个
+     */
+    private List<String> colors;
+
+    /**
+     * 每个颜色的权重，为空表示等权重
+     */
+    private List<Double> weights;
+
+    /**
+     * 空间 id
+     */
+    private Long spaceId;
+
+    /**
+     * 返回数量，默认 10，最多 50
+     */
+    private Integer limit;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,29 @@
+package com.ping.pingpicturebackend.model.dto.picture;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 相似图片搜索请求
+ */
+@Data
+public class SearchSimilarPictureRequest implements Serializable {
+
+    /**
+     * 图片 id
+     */
+    private Long pictureId;
+
+    /**
+     * 返回数量，默认 20，最多 50
+     */
+    private Integer limit;
+
+    /**
+     * 最大汉明距离（0-15），越小越严格，默认 10
+     */
+    private Integer maxDistance;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,61 @@
+package com.ping.pingpicturebackend.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import java.io.Serializable;
+import java.util.Date;
+import lombok.Data;
+
+/**
+ * 对象删除任务
+ * @TableName object_delete_task
+ */
+@TableName(value ="object_delete_task")
+@Data
+public class ObjectDeleteTask implements Serializable {
+    /**
+     * id
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 对象键
+     */
+    private String objectKey;
+
+    /**
+     * 状态：0-待删除 1-多次重试后失败
+     */
+    private Integer status;
+
+    /**
+     * 已重试次数
+     */
+    private Integer retryCount;
+
+    /**
+     * 下次执行时间
+     */
+    private Date nextRetryTime;
+
+    /**
+     * 最近一次失败原因
+     */
+    private String lastError;
+
+    /**
+     * 创建时间
+     */
+    private Date createTime;
+
+    /**
+     * 更新时间
+     */
+    private Date updateTime;
+
+    @TableField(exist = false)
+    private static final long serialVersionUID = 1L;
+}
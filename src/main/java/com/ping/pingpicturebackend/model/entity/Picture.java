@@ -132,6 +132,26 @@ public class Picture implements Serializable {
      */
     private String picColor;
 
+    /**
+     * 图片主色板，格式：0xRRGGBB:占比,...
+     */
+    private String picPalette;
+
+    /**
+     * 图片感知哈希 pHash
+     */
+    private Long picPHash;
+
+    /**
+     * 图片差异哈希 dHash
+     */
+    private Long picDHash;
+
+    /**
+     * 图片文件 id（为空表示历史图片，文件未去重）
+     */
+    private Long blobId;
+
     /**
      * 是否删除
      */
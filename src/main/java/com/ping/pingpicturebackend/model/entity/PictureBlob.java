@@ -0,0 +1,106 @@
+package com.ping.pingpicturebackend.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import java.io.Serializable;
+import java.util.Date;
+import lombok.Data;
+
+/**
+ * 图片文件（按内容去重）
+ * @TableName picture_blob
+ */
+@TableName(value ="picture_blob")
+@Data
+public class PictureBlob implements Serializable {
+    /**
+     * id
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 原图内容 SHA-256
+     */
+    private String sha256;
+
+    /**
+     * 图片 url（压缩图）
+     */
+    private String url;
+
+    /**
+     * 缩略图 url
+     */
+    private String thumbnailUrl;
+
+    /**
+     * 原图 url
+     */
+    private String originalUrl;
+
+    /**
+     * 图片体积
+     */
+    private Long picSize;
+
+    /**
+     * 图片宽度
+     */
+    private Integer picWidth;
+
+    /**
+     * 图片高度
+     */
+    private Integer picHeight;
+
+    /**
+     * 图片宽高比例
+     */
+    private Double picScale;
+
+    /**
+     * 图片格式
+     */
+    private String picFormat;
+
+    /**
+     * 图片主色调
+     */
+    private String picColor;
+
+    /**
+     * 图片主色板
+     */
+    private String picPalette;
+
+    /**
+     * 图片感知哈希 pHash
+     */
+    private Long picPHash;
+
+    /**
+     * 图片差异哈希 dHash
+     */
+    private Long picDHash;
+
+    /**
+     * 引用该文件的图片数
+     */
+    private Integer refCount;
+
+    /**
+     * 创建时间
+     */
+    private Date createTime;
+
+    /**
+     * 更新时间
+     */
+    private Date updateTime;
+
+    @TableField(exist = false)
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,66 @@
+package com.ping.pingpicturebackend.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import java.io.Serializable;
+import java.util.Date;
+import lombok.Data;
+
+/**
+ * 图片统计状态（每张图片最近一次计入统计时的取值）
+ * @TableName picture_stat_state
+ */
+@TableName(value ="picture_stat_state")
+@Data
+public class PictureStatState implements Serializable {
+    /**
+     * id
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 图片 id
+     */
+    private Long pictureId;
+
+    /**
+     * 空间 id（0 表示公共图库）
+     */
+    private Long spaceId;
+
+    /**
+     * 用户 id
+     */
+    private Long userId;
+
+    /**
+     * 分类（空字符串表示未分类）
+     */
+    private String category;
+
+    /**
+     * 标签（JSON 数组，已去重排序）
+     */
+    private String tags;
+
+    /**
+     * 图片大小
+     */
+    private Long picSize;
+
+    /**
+     * 上传日期
+     */
+    private Date statDate;
+
+    /**
+     * 更新时间
+     */
+    private Date updateTime;
+
+    @TableField(exist = false)
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,81 @@
+package com.ping.pingpicturebackend.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import java.io.Serializable;
+import java.util.Date;
+import lombok.Data;
+
+/**
+ * 图片变体（按需生成的不同尺寸、格式的图片）
+ * @TableName picture_variant
+ */
+@TableName(value ="picture_variant")
+@Data
+public class PictureVariant implements Serializable {
+    /**
+     * id
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 图片 id
+     */
+    private Long pictureId;
+
+    /**
+     * 请求的宽度档位
+     */
+    private Integer width;
+
+    /**
+     * 请求的格式（auto、jpg、png、webp）
+     */
+    private String format;
+
+    /**
+     * 变体 url
+     */
+    private String url;
+
+    /**
+     * 生成变体时使用的源图 url（源图变化后重新生成）
+     */
+    private String sourceUrl;
+
+    /**
+     * 变体实际宽度
+     */
+    private Integer variantWidth;
+
+    /**
+     * 变体实际高度
+     */
+    private Integer variantHeight;
+
+    /**
+     * 变体体积
+     */
+    private Long variantSize;
+
+    /**
+     * 变体实际格式
+     */
+    private String variantFormat;
+
+    /**
+     * 创建时间
+     */
+    private Date createTime;
+
+    /**
+     * 更新时间
+     */
+    private Date updateTime;
+
+    @TableField(exist = false)
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,56 @@
+package com.ping.pingpicturebackend.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import java.io.Serializable;
+import java.util.Date;
+import lombok.Data;
+
+/**
+ * 空间统计（按空间预聚合的分类、标签、大小区间统计）
+ * @TableName space_stat
+ */
+@TableName(value ="space_stat")
+@Data
+public class SpaceStat implements Serializable {
+    /**
+     * id
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 空间 id（0 表示公共图库）
+     */
+    private Long spaceId;
+
+    /**
+     * 统计类型，见 SpaceStatTypeEnum
+     */
+    private Integer statType;
+
+    /**
+     * 统计项（分类名、标签名、大小区间，空字符串表示未分类）
+     */
+    private String statKey;
+
+    /**
+     * 图片数量
+     */
+    private Long pictureCount;
+
+    /**
+     * 图片总大小
+     */
+    private Long totalSize;
+
+    /**
+     * 更新时间
+     */
+    private Date updateTime;
+
+    @TableField(exist = false)
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,51 @@
+package com.ping.pingpicturebackend.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import java.io.Serializable;
+import java.util.Date;
+import lombok.Data;
+
+/**
+ * 空间用户每日上传统计
+ * @TableName space_user_day_stat
+ */
+@TableName(value ="space_user_day_stat")
+@Data
+public class SpaceUserDayStat implements Serializable {
+    /**
+     * id
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 空间 id（0 表示公共图库）
+     */
+    private Long spaceId;
+
+    /**
+     * 用户 id
+     */
+    private Long userId;
+
+    /**
+     * 上传日期
+     */
+    private Date statDate;
+
+    /**
+     * 图片数量
+     */
+    private Long pictureCount;
+
+    /**
+     * 更新时间
+     */
+    private Date updateTime;
+
+    @TableField(exist = false)
+    private static final long serialVersionUID = 1L;
+}
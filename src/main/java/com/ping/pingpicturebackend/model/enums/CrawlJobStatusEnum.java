@@ -0,0 +1,43 @@
+package com.ping.pingpicturebackend.model.enums;
+
+import cn.hutool.core.util.ObjUtil;
+import lombok.Getter;
+
+/**
+ * 抓取任务状态枚举
+ */
+@Getter
+public enum CrawlJobStatusEnum {
+
+    RUNNING("抓取中", "running"),
+    FINISHED("已完成", "finished"),
+    FAILED("失败", "failed");
+
+    private final String text;
+
+    private final String value;
+
+    /**
+     * @param text  文本
+     * @param value 值
+     */
+    CrawlJobStatusEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     */
+    public static CrawlJobStatusEnum getEnumByValue(String value) {
+        if (ObjUtil.isEmpty(value)) {
+            return null;
+        }
+        for (CrawlJobStatusEnum statusEnum : CrawlJobStatusEnum.values()) {
+            if (statusEnum.value.equals(value)) {
+                return statusEnum;
+            }
+        }
+        return null;
+    }
+}
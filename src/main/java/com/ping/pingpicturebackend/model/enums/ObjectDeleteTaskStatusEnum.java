@@ -0,0 +1,40 @@
+package com.ping.pingpicturebackend.model.enums;
+
+import cn.hutool.core.util.ObjUtil;
+import lombok.Getter;
+
+/**
+ * 对象删除任务状态枚举
+ */
+@Getter
+public enum ObjectDeleteTaskStatusEnum {
+
+    PENDING("待删除", 0),
+    FAILED("失败", 1);
+
+    private final String text;
+    private final int value;
+
+    ObjectDeleteTaskStatusEnum(String text, int value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value 枚举值的 value
+     * @return 枚举值
+     */
+    public static ObjectDeleteTaskStatusEnum getEnumByValue(Integer value) {
+        if (ObjUtil.isEmpty(value)) {
+            return null;
+        }
+        for (ObjectDeleteTaskStatusEnum objectDeleteTaskStatusEnum : ObjectDeleteTaskStatusEnum.values()) {
+            if (objectDeleteTaskStatusEnum.value == value) {
+                return objectDeleteTaskStatusEnum;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,46 @@
+package com.ping.pingpicturebackend.model.enums;
+
+import cn.hutool.core.util.ObjUtil;
+import lombok.Getter;
+
+/**
+ * 异步上传任务状态枚举
+ */
+@Getter
+public enum PictureUploadTaskStatusEnum {
+
+    PENDING("排队中", "pending"),
+    FETCHING("获取图片中", "fetching"),
+    STORING("存储中", "storing"),
+    PERSISTING("保存中", "persisting"),
+    SUCCEEDED("成功", "succeeded"),
+    FAILED("失败", "failed");
+
+    private final String text;
+
+    private final String value;
+
+    /**
+     * @param text  文本
+     * @param value 值
+     */
+    PictureUploadTaskStatusEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     */
+    public static PictureUploadTaskStatusEnum getEnumByValue(String value) {
+        if (ObjUtil.isEmpty(value)) {
+            return null;
+        }
+        for (PictureUploadTaskStatusEnum statusEnum : PictureUploadTaskStatusEnum.values()) {
+            if (statusEnum.value.equals(value)) {
+                return statusEnum;
+            }
+        }
+        return null;
+    }
+}
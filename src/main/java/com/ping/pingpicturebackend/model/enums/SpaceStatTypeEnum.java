@@ -0,0 +1,41 @@
+package com.ping.pingpicturebackend.model.enums;
+
+import cn.hutool.core.util.ObjUtil;
+import lombok.Getter;
+
+/**
+ * 空间统计类型枚举
+ */
+@Getter
+public enum SpaceStatTypeEnum {
+
+    CATEGORY("分类", 0),
+    TAG("标签", 1),
+    SIZE("大小区间", 2);
+
+    private final String text;
+    private final int value;
+
+    SpaceStatTypeEnum(String text, int value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value 枚举值的 value
+     * @return 枚举值
+     */
+    public static SpaceStatTypeEnum getEnumByValue(Integer value) {
+        if (ObjUtil.isEmpty(value)) {
+            return null;
+        }
+        for (SpaceStatTypeEnum spaceStatTypeEnum : SpaceStatTypeEnum.values()) {
+            if (spaceStatTypeEnum.value == value) {
+                return spaceStatTypeEnum;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,75 @@
+package com.ping.pingpicturebackend.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 抓取任务进度视图
+ */
+@Data
+public class CrawlJobVO implements Serializable {
+
+    private static final long serialVersionUID = -6409862416128537719L;
+
+    /**
+     * 任务 id
+     */
+    private String jobId;
+
+    /**
+     * 关键词
+     */
+    private String keyword;
+
+    /**
+     * 任务状态（running、finished、failed）
+     */
+    private String status;
+
+    /**
+     * 失败原因
+     */
+    private String message;
+
+    /**
+     * 目标数量
+     */
+    private Integer targetCount;
+
+    /**
+     * 已抓取页数
+     */
+    private Integer pageCount;
+
+    /**
+     * 发现的图片地址数（去重前）
+     */
+    private Integer discoveredCount;
+
+    /**
+     * 重复跳过的地址数
+     */
+    private Integer duplicateCount;
+
+    /**
+     * 处理成功数
+     */
+    private Integer succeededCount;
+
+    /**
+     * 处理失败数
+     */
+    private Integer failedCount;
+
+    /**
+     * 创建时间
+     */
+    private Date createTime;
+
+    /**
+     * 结束时间
+     */
+    private Date finishTime;
+}
@@ -0,0 +1,51 @@
+package com.ping.pingpicturebackend.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 游标分页结果
+ */
+@Data
+public class CursorPage<T> implements Serializable {
+
+    /**
+     * 当前页数据
+     */
+    private List<T> records = new ArrayList<>();
+
+    /**
+     * 页面大小
+     */
+    private long size;
+
+    /**
+     * 总数（未要求查询总数时为空）
+     */
+    private Long total;
+
+    /**
+     * 是否有下一页
+     */
+    private boolean hasNext;
+
+    /**
+     * 是否有上一页
+     */
+    private boolean hasPrev;
+
+    /**
+     * 下一页游标
+     */
+    private String nextCursor;
+
+    /**
+     * 上一页游标
+     */
+    private String prevCursor;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,41 @@
+package com.ping.pingpicturebackend.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 分片上传状态视图
+ */
+@Data
+public class PictureChunkUploadVO implements Serializable {
+
+    private static final long serialVersionUID = -6231504962710493158L;
+
+    /**
+     * 上传 id
+     */
+    private String uploadId;
+
+    /**
+     * 分片字节数（最后一片可以更小）
+     */
+    private Long chunkSize;
+
+    /**
+     * 分片数
+     */
+    private Integer chunkCount;
+
+    /**
+     * 已上传的分片序号（从 0 开始），断点续传时只需上传缺少的分片
+     */
+    private List<Integer> uploadedChunkList;
+
+    /**
+     * 过期时间，过期后已上传的分片会被清理
+     */
+    private Date expireTime;
+}
@@ -0,0 +1,45 @@
+package com.ping.pingpicturebackend.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 异步上传任务视图
+ */
+@Data
+public class PictureUploadTaskVO implements Serializable {
+
+    private static final long serialVersionUID = 4417395626405912371L;
+
+    /**
+     * 任务 id
+     */
+    private String taskId;
+
+    /**
+     * 任务状态（pending、fetching、storing、persisting、succeeded、failed）
+     */
+    private String status;
+
+    /**
+     * 失败原因
+     */
+    private String message;
+
+    /**
+     * 上传成功后的图片
+     */
+    private PictureVO picture;
+
+    /**
+     * 创建时间
+     */
+    private Date createTime;
+
+    /**
+     * 更新时间
+     */
+    private Date updateTime;
+}
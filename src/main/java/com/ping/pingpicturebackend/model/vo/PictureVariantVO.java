@@ -0,0 +1,77 @@
+package com.ping.pingpicturebackend.model.vo;
+
+import com.ping.pingpicturebackend.model.entity.Picture;
+import com.ping.pingpicturebackend.model.entity.PictureVariant;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 图片变体视图
+ */
+@Data
+public class PictureVariantVO implements Serializable {
+
+    /**
+     * 图片 id
+     */
+    private Long pictureId;
+
+    /**
+     * 变体 url
+     */
+    private String url;
+
+    /**
+     * 宽度
+     */
+    private Integer width;
+
+    /**
+     * 高度
+     */
+    private Integer height;
+
+    /**
+     * 体积
+     */
+    private Long size;
+
+    /**
+     * 格式
+     */
+    private String format;
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 变体转封装类
+     */
+    public static PictureVariantVO objToVo(PictureVariant pictureVariant) {
+        if (pictureVariant == null) {
+            return null;
+        }
+        PictureVariantVO pictureVariantVO = new PictureVariantVO();
+        pictureVariantVO.setPictureId(pictureVariant.getPictureId());
+        pictureVariantVO.setUrl(pictureVariant.getUrl());
+        pictureVariantVO.setWidth(pictureVariant.getVariantWidth());
+        pictureVariantVO.setHeight(pictureVariant.getVariantHeight());
+        pictureVariantVO.setSize(pictureVariant.getVariantSize());
+        pictureVariantVO.setFormat(pictureVariant.getVariantFormat());
+        return pictureVariantVO;
+    }
+
+    /**
+     * 图片本身已经不大于请求的尺寸时，直接使用图片
+     */
+    public static PictureVariantVO ofPicture(Picture picture) {
+        PictureVariantVO pictureVariantVO = new PictureVariantVO();
+        pictureVariantVO.setPictureId(picture.getId());
+        pictureVariantVO.setUrl(picture.getUrl());
+        pictureVariantVO.setWidth(picture.getPicWidth());
+        pictureVariantVO.setHeight(picture.getPicHeight());
+        pictureVariantVO.setSize(picture.getPicSize());
+        pictureVariantVO.setFormat(picture.getPicFormat());
+        return pictureVariantVO;
+    }
+}
@@ -0,0 +1,55 @@
+package com.ping.pingpicturebackend.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.ping.pingpicturebackend.model.entity.ObjectDeleteTask;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @description 针对表【object_delete_task(对象删除任务)】的数据库操作Service
+ */
+public interface ObjectDeleteTaskService extends IService<ObjectDeleteTask> {
+
+    /**
+     * 登记待删除的对象
+     * <p>
+     * 在业务事务中调用时与业务数据一起提交，事务回滚时不会删除文件；实际删除由定时任务批量执行
+     *
+     * @param keys 对象键，空值和重复值会被忽略
+     */
+    void enqueue(Collection<String> keys);
+
+    /**
+     * 按地址登记待删除的对象
+     *
+     * @param urls 对象地址，空值和重复值会被忽略
+     */
+    void enqueueByUrls(Collection<String> urls);
+
+    /**
+     * 按地址登记延迟删除的对象
+     * <p>
+     * 用于被替换但仍可能被 CDN、浏览器缓存或旧响应引用的对象，到期后才会被定时任务删除
+     *
+     * @param urls        对象地址，空值和重复值会被忽略
+     * @param delayMillis 延迟删除的时间（毫秒）
+     */
+    void enqueueByUrls(Collection<String> urls, long delayMillis);
+
+    /**
+     * 拉取到期的待删除任务
+     *
+     * @param limit 最多拉取的数量
+     * @return 按 id 升序的任务列表
+     */
+    List<ObjectDeleteTask> listDueTasks(int limit);
+
+    /**
+     * 删除失败的任务按指数退避推迟重试，超过最大重试次数后标记为失败
+     *
+     * @param taskList 删除失败的任务
+     * @param error    失败原因
+     */
+    void delayRetry(List<ObjectDeleteTask> taskList, String error);
+}
@@ -0,0 +1,57 @@
+package com.ping.pingpicturebackend.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.ping.pingpicturebackend.model.dto.file.UploadPictureResult;
+import com.ping.pingpicturebackend.model.entity.PictureBlob;
+
+/**
+ * @description 针对表【picture_blob(图片文件)】的数据库操作Service
+ */
+public interface PictureBlobService extends IService<PictureBlob> {
+
+    /**
+     * 按内容哈希查找已有文件并占用一次引用（秒传）
+     *
+     * @param sha256 原图内容 SHA-256
+     * @return 图片文件，不存在时返回 null
+     */
+    PictureBlob acquire(String sha256);
+
+    /**
+     * 按内容哈希查找调用方已引用的文件并占用一次引用（仅凭哈希的秒传）
+     * <p>
+     * 只复用本人图片或目标空间中图片引用的文件，其他用户的文件视为不存在，避免凭哈希获取他人的私有文件
+     *
+     * @param sha256  原图内容 SHA-256
+     * @param userId  调用方 id
+     * @param spaceId 目标空间 id（公共图库为空）
+     * @return 图片文件，不存在或调用方未引用时返回 null
+     */
+    PictureBlob acquireReferenced(String sha256, Long userId, Long spaceId);
+
+    /**
+     * 登记新上传的文件并占用一次引用
+     * <p>
+     * 并发上传相同内容时，后登记的一方复用已有文件，并删除自己刚上传的文件
+     *
+     * @param sha256              原图内容 SHA-256
+     * @param uploadPictureResult 上传结果
+     * @return 最终使用的图片文件
+     */
+    PictureBlob register(String sha256, UploadPictureResult uploadPictureResult);
+
+    /**
+     * 释放一次引用，没有图片引用时删除文件
+     *
+     * @param blobId 图片文件 id
+     */
+    void release(Long blobId);
+
+    /**
+     * 图片文件转为上传结果
+     *
+     * @param pictureBlob 图片文件
+     * @return 上传结果（不含图片名称）
+     */
+    UploadPictureResult toUploadPictureResult(PictureBlob pictureBlob);
+}
@@ -3,10 +3,14 @@ package com.ping.pingpicturebackend.service;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.ping.pingpicture.infrastructure.api.aliyunai.model.CreateOutPaintingTaskResponse;
+import com.ping.pingpicturebackend.manager.crawler.CrawlJob;
+import com.ping.pingpicturebackend.manager.upload.PictureUploadContext;
+import com.ping.pingpicturebackend.model.dto.file.UploadPictureResult;
 import com.ping.pingpicturebackend.model.dto.picture.*;
 import com.ping.pingpicturebackend.model.entity.Picture;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.ping.pingpicturebackend.model.entity.User;
+import com.ping.pingpicturebackend.model.vo.CursorPage;
 import com.ping.pingpicturebackend.model.vo.PictureVO;
 
 import java.util.List;
@@ -28,15 +32,41 @@ public interface PictureService extends IService<Picture> {
     /**
      * 上传图片
      *
-     * @param inputSource          输入源
+     * @param inputSource          输入源（文件、URL、秒传请求或分片上传会话）
      * @param pictureUploadRequest pictureId
      * @param loginUser            登录用户
-     * @return PictureVO
+     * @return PictureVO，秒传时文件不存在返回 null
      */
     PictureVO uploadPicture(Object inputSource,
                             PictureUploadRequest pictureUploadRequest,
                             User loginUser);
 
+    /**
+     * 上传前校验：空间权限、额度和重新上传的旧图片
+     *
+     * @param pictureUploadRequest 上传请求
+     * @param loginUser            登录用户
+     * @param reserveQuota         是否预占空间的图片条数额度（异步上传时使用，失败需调用 cancelUpload 归还）
+     * @return 上传上下文
+     */
+    PictureUploadContext prepareUpload(PictureUploadRequest pictureUploadRequest, User loginUser, boolean reserveQuota);
+
+    /**
+     * 入库阶段：保存图片信息并更新空间额度
+     *
+     * @param uploadContext       上传上下文
+     * @param uploadPictureResult 存储阶段的结果（占用了一次文件引用，入库失败时归还）
+     * @return PictureVO
+     */
+    PictureVO savePicture(PictureUploadContext uploadContext, UploadPictureResult uploadPictureResult);
+
+    /**
+     * 取消上传：归还预占的空间额度
+     *
+     * @param uploadContext 上传上下文
+     */
+    void cancelUpload(PictureUploadContext uploadContext);
+
     /**
      * 构造查询 QueryWrapper
      *
@@ -61,6 +91,22 @@ public interface PictureService extends IService<Picture> {
      */
     Page<PictureVO> getPictureVOPage(Page<Picture> picturePage);
 
+    /**
+     * 游标分页查询图片
+     *
+     * @param pictureCursorQueryRequest 游标查询请求
+     * @return 游标分页结果
+     */
+    CursorPage<Picture> listPictureByCursor(PictureCursorQueryRequest pictureCursorQueryRequest);
+
+    /**
+     * 获取游标分页图片封装
+     *
+     * @param pictureCursorPage 图片游标分页
+     * @return PictureVO游标分页
+     */
+    CursorPage<PictureVO> getPictureVOCursorPage(CursorPage<Picture> pictureCursorPage);
+
     /**
      * 图片审核
      *
@@ -87,7 +133,16 @@ public interface PictureService extends IService<Picture> {
     int uploadPictureByBatch(PictureUploadByBatchRequest pictureUploadByBatchRequest, User loginUser);
 
     /**
-     * 清除图片文件
+     * 提交批量抓取任务，立即返回
+     *
+     * @param pictureUploadByBatchRequest 批量上传请求
+     * @param loginUser                   登录用户
+     * @return 抓取任务，可查询进度
+     */
+    CrawlJob submitUploadPictureByBatch(PictureUploadByBatchRequest pictureUploadByBatchRequest, User loginUser);
+
+    /**
+     * 清除图片文件（登记删除任务，由对象存储垃圾回收批量删除）
      *
      * @param oldPicture 旧图片
      */
@@ -124,6 +179,14 @@ public interface PictureService extends IService<Picture> {
      */
     void editPicture(PictureEditRequest pictureEditRequest, User loginUser);
 
+    /**
+     * 更新图片（仅管理员可用）
+     *
+     * @param pictureUpdateRequest 更新请求
+     * @param loginUser            登录用户
+     */
+    void updatePicture(PictureUpdateRequest pictureUpdateRequest, User loginUser);
+
     /**
      * 批量编辑图片
      *
@@ -142,6 +205,23 @@ public interface PictureService extends IService<Picture> {
      */
     List<PictureVO> searchPictureByColor(String picColor, Long spaceId, User loginUser);
 
+    /**
+     * 根据多个颜色搜索图片
+     *
+     * @param searchPictureByColorsRequest 多颜色搜索请求
+     * @param loginUser                    登录用户
+     * @return List<PictureVO>
+     */
+    List<PictureVO> searchPictureByColors(SearchPictureByColorsRequest searchPictureByColorsRequest, User loginUser);
+
+    /**
+     * 搜索相似图片（同一空间或公共图库内）
+     *
+     * @param searchSimilarPictureRequest 相似图片搜索请求
+     * @return List<PictureVO>
+     */
+    List<PictureVO> searchSimilarPicture(SearchSimilarPictureRequest searchSimilarPictureRequest);
+
     /**
      * 扩图
      *
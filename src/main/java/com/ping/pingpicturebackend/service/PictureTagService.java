@@ -0,0 +1,33 @@
+package com.ping.pingpicturebackend.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.ping.pingpicturebackend.model.entity.PictureTag;
+
+import java.util.Collection;
+
+/**
+ * @description 针对表【picture_tag(图片标签关联)】的数据库操作Service
+ */
+public interface PictureTagService extends IService<PictureTag> {
+
+    /**
+     * 按图片当前的标签重建关联关系（图片已删除时清除关联）
+     *
+     * @param pictureIdList 图片 id 列表
+     */
+    void syncPictureTags(Collection<Long> pictureIdList);
+
+    /**
+     * 删除图片的标签关联
+     *
+     * @param pictureIdList 图片 id 列表
+     */
+    void removeByPictureIds(Collection<Long> pictureIdList);
+
+    /**
+     * 根据 picture 表全量重建标签关联
+     *
+     * @return 处理的图片数量
+     */
+    long rebuildAll();
+}
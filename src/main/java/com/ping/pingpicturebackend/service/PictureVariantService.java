@@ -0,0 +1,44 @@
+package com.ping.pingpicturebackend.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.ping.pingpicturebackend.model.entity.Picture;
+import com.ping.pingpicturebackend.model.entity.PictureVariant;
+import com.ping.pingpicturebackend.model.vo.PictureVariantVO;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @description 针对表【picture_variant(图片变体)】的数据库操作Service
+ */
+public interface PictureVariantService extends IService<PictureVariant> {
+
+    /**
+     * 获取图片变体，不存在时生成（同一变体并发请求只生成一次）
+     *
+     * @param picture   图片
+     * @param width     期望宽度，向上取到最近的档位
+     * @param format    期望格式：auto（默认）、jpg、png、webp
+     * @param createNow 变体不存在时是否同步生成，为 false 时提交到后台生成并返回图片本身
+     * @return 图片变体，图片本身不大于期望尺寸或变体还未生成时返回图片本身
+     */
+    PictureVariantVO getPictureVariant(Picture picture, Integer width, String format, boolean createNow);
+
+    /**
+     * 批量获取已生成的图片变体，未生成的提交到后台生成，不等待结果
+     *
+     * @param pictureList 图片列表
+     * @param width       期望宽度，向上取到最近的档位
+     * @param format      期望格式：auto（默认）、jpg、png、webp
+     * @return 图片 id => 图片变体（不包含还未生成的变体）
+     */
+    Map<Long, PictureVariantVO> getPictureVariantMap(List<Picture> pictureList, Integer width, String format);
+
+    /**
+     * 删除图片的所有变体记录，并登记文件删除任务
+     *
+     * @param pictureIds 图片 id 列表
+     */
+    void removeByPictureIds(Collection<Long> pictureIds);
+}
@@ -0,0 +1,135 @@
+package com.ping.pingpicturebackend.service.impl;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.ping.pingpicture.infrastructure.api.storage.ObjectStorage;
+import com.ping.pingpicture.infrastructure.mapper.ObjectDeleteTaskMapper;
+import com.ping.pingpicturebackend.model.entity.ObjectDeleteTask;
+import com.ping.pingpicturebackend.model.enums.ObjectDeleteTaskStatusEnum;
+import com.ping.pingpicturebackend.service.ObjectDeleteTaskService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * @description 针对表【object_delete_task(对象删除任务)】的数据库操作Service实现
+ */
+@Slf4j
+@Service
+public class ObjectDeleteTaskServiceImpl extends ServiceImpl<ObjectDeleteTaskMapper, ObjectDeleteTask>
+        implements ObjectDeleteTaskService {
+
+    /**
+     * 最大重试次数，超过后标记为失败，需要人工处理
+     */
+    private static final int MAX_RETRY_COUNT = 10;
+
+    /**
+     * 第一次重试的间隔（毫秒），之后每次翻倍
+     */
+    private static final long BASE_RETRY_DELAY_MILLIS = 60 * 1000L;
+
+    /**
+     * 重试间隔上限（毫秒）
+     */
+    private static final long MAX_RETRY_DELAY_MILLIS = 6 * 60 * 60 * 1000L;
+
+    /**
+     * 失败原因的最大长度
+     */
+    private static final int MAX_ERROR_LENGTH = 512;
+
+    @Resource
+    private ObjectStorage objectStorage;
+
+    @Override
+    public void enqueue(Collection<String> keys) {
+        enqueue(keys, 0);
+    }
+
+    /**
+     * 登记待删除的对象，延迟为 0 时使用数据库默认的下次执行时间（立即）
+     */
+    private void enqueue(Collection<String> keys, long delayMillis) {
+        if (CollUtil.isEmpty(keys)) {
+            return;
+        }
+        Set<String> keySet = keys.stream()
+                .filter(StrUtil::isNotBlank)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (keySet.isEmpty()) {
+            return;
+        }
+        Date nextRetryTime = delayMillis > 0 ? new Date(System.currentTimeMillis() + delayMillis) : null;
+        List<ObjectDeleteTask> taskList = new ArrayList<>(keySet.size());
+        for (String key : keySet) {
+            ObjectDeleteTask objectDeleteTask = new ObjectDeleteTask();
+            objectDeleteTask.setObjectKey(key);
+            objectDeleteTask.setNextRetryTime(nextRetryTime);
+            taskList.add(objectDeleteTask);
+        }
+        this.saveBatch(taskList);
+    }
+
+    @Override
+    public void enqueueByUrls(Collection<String> urls) {
+        enqueueByUrls(urls, 0);
+    }
+
+    @Override
+    public void enqueueByUrls(Collection<String> urls, long delayMillis) {
+        if (CollUtil.isEmpty(urls)) {
+            return;
+        }
+        enqueue(urls.stream()
+                .filter(StrUtil::isNotBlank)
+                .map(objectStorage::getKey)
+                .collect(Collectors.toList()), delayMillis);
+    }
+
+    @Override
+    public List<ObjectDeleteTask> listDueTasks(int limit) {
+        return this.lambdaQuery()
+                .eq(ObjectDeleteTask::getStatus, ObjectDeleteTaskStatusEnum.PENDING.getValue())
+                .le(ObjectDeleteTask::getNextRetryTime, new Date())
+                .orderByAsc(ObjectDeleteTask::getId)
+                .last("limit " + limit)
+                .list();
+    }
+
+    @Override
+    public void delayRetry(List<ObjectDeleteTask> taskList, String error) {
+        if (CollUtil.isEmpty(taskList)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        String lastError = StrUtil.maxLength(StrUtil.nullToEmpty(error), MAX_ERROR_LENGTH - 3);
+        List<ObjectDeleteTask> updateList = new ArrayList<>(taskList.size());
+        for (ObjectDeleteTask task : taskList) {
+            int retryCount = task.getRetryCount() + 1;
+            ObjectDeleteTask updateTask = new ObjectDeleteTask();
+            updateTask.setId(task.getId());
+            updateTask.setRetryCount(retryCount);
+            updateTask.setLastError(lastError);
+            if (retryCount > MAX_RETRY_COUNT) {
+                updateTask.setStatus(ObjectDeleteTaskStatusEnum.FAILED.getValue());
+                log.error("对象多次删除失败，需要人工处理，key = {}, error = {}", task.getObjectKey(), lastError);
+            } else {
+                // 1 分钟、2 分钟、4 分钟……最长 6 小时
+                long delay = Math.min(BASE_RETRY_DELAY_MILLIS << (retryCount - 1), MAX_RETRY_DELAY_MILLIS);
+                updateTask.setNextRetryTime(new Date(now + delay));
+            }
+            updateList.add(updateTask);
+        }
+        this.updateBatchById(updateList);
+    }
+}
@@ -0,0 +1,141 @@
+package com.ping.pingpicturebackend.service.impl;
+
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.ping.pingpicture.infrastructure.exception.BusinessException;
+import com.ping.pingpicture.infrastructure.exception.ErrorCode;
+import com.ping.pingpicture.infrastructure.mapper.PictureBlobMapper;
+import com.ping.pingpicture.infrastructure.mapper.PictureMapper;
+import com.ping.pingpicturebackend.model.dto.file.UploadPictureResult;
+import com.ping.pingpicturebackend.model.entity.Picture;
+import com.ping.pingpicturebackend.model.entity.PictureBlob;
+import com.ping.pingpicturebackend.service.ObjectDeleteTaskService;
+import com.ping.pingpicturebackend.service.PictureBlobService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+import java.util.Arrays;
+
+/**
+ * @description 针对表【picture_blob(图片文件)】的数据库操作Service实现
+ * <p>
+ * 引用计数的增减都是单条 UPDATE，删除文件前用 refCount = 0 作为条件删除记录，
+ * 保证与并发的秒传（refCount + 1）之间只有一方成功
+ */
+@Slf4j
+@Service
+public class PictureBlobServiceImpl extends ServiceImpl<PictureBlobMapper, PictureBlob>
+        implements PictureBlobService {
+
+    @Resource
+    private ObjectDeleteTaskService objectDeleteTaskService;
+
+    @Resource
+    private PictureMapper pictureMapper;
+
+    @Override
+    public PictureBlob acquire(String sha256) {
+        if (StrUtil.isBlank(sha256)) {
+            return null;
+        }
+        boolean acquired = this.update(new UpdateWrapper<PictureBlob>()
+                .setSql("refCount = refCount + 1")
+                .eq("sha256", sha256));
+        if (!acquired) {
+            return null;
+        }
+        // 已占用引用，记录不会被删除
+        return this.getOne(new QueryWrapper<PictureBlob>().eq("sha256", sha256));
+    }
+
+    @Override
+    public PictureBlob acquireReferenced(String sha256, Long userId, Long spaceId) {
+        if (StrUtil.isBlank(sha256) || userId == null) {
+            return null;
+        }
+        PictureBlob existBlob = this.getOne(new QueryWrapper<PictureBlob>().select("id").eq("sha256", sha256));
+        if (existBlob == null) {
+            return null;
+        }
+        Long blobId = existBlob.getId();
+        boolean referenced = pictureMapper.exists(new QueryWrapper<Picture>()
+                .eq("blobId", blobId)
+                .and(wrapper -> {
+                    wrapper.eq("userId", userId);
+                    if (spaceId != null) {
+                        wrapper.or().eq("spaceId", spaceId);
+                    }
+                }));
+        if (!referenced) {
+            return null;
+        }
+        // 按 id 占用，期间文件被删除后重新登记的其他文件不会被复用
+        boolean acquired = this.update(new UpdateWrapper<PictureBlob>()
+                .setSql("refCount = refCount + 1")
+                .eq("id", blobId));
+        return acquired ? this.getById(blobId) : null;
+    }
+
+    @Override
+    public PictureBlob register(String sha256, UploadPictureResult uploadPictureResult) {
+        PictureBlob pictureBlob = BeanUtil.copyProperties(uploadPictureResult, PictureBlob.class);
+        pictureBlob.setSha256(sha256);
+        pictureBlob.setRefCount(1);
+        // 最多尝试两次：第一次冲突后已有文件恰好被删除时重新登记
+        for (int i = 0; i < 2; i++) {
+            try {
+                this.save(pictureBlob);
+                return pictureBlob;
+            } catch (DuplicateKeyException e) {
+                PictureBlob existBlob = acquire(sha256);
+                if (existBlob != null) {
+                    deleteFiles(pictureBlob);
+                    return existBlob;
+                }
+            }
+        }
+        throw new BusinessException(ErrorCode.SYSTEM_ERROR, "登记图片文件失败");
+    }
+
+    @Override
+    public void release(Long blobId) {
+        if (blobId == null) {
+            return;
+        }
+        this.update(new UpdateWrapper<PictureBlob>()
+                .setSql("refCount = refCount - 1")
+                .eq("id", blobId)
+                .gt("refCount", 0));
+        PictureBlob pictureBlob = this.getById(blobId);
+        if (pictureBlob == null || pictureBlob.getRefCount() > 0) {
+            return;
+        }
+        // 条件删除成功才清理文件，期间被秒传重新引用时不会删除
+        boolean removed = this.remove(new QueryWrapper<PictureBlob>()
+                .eq("id", blobId)
+                .eq("refCount", 0));
+        if (removed) {
+            deleteFiles(pictureBlob);
+        }
+    }
+
+    @Override
+    public UploadPictureResult toUploadPictureResult(PictureBlob pictureBlob) {
+        UploadPictureResult uploadPictureResult = BeanUtil.copyProperties(pictureBlob, UploadPictureResult.class);
+        uploadPictureResult.setBlobId(pictureBlob.getId());
+        return uploadPictureResult;
+    }
+
+    /**
+     * 登记删除压缩图、缩略图和原图
+     */
+    private void deleteFiles(PictureBlob pictureBlob) {
+        objectDeleteTaskService.enqueueByUrls(Arrays.asList(pictureBlob.getUrl(), pictureBlob.getThumbnailUrl(),
+                pictureBlob.getOriginalUrl()));
+    }
+}
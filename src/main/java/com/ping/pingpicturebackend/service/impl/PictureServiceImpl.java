@@ -1,7 +1,8 @@
 package com.ping.pingpicturebackend.service.impl;
 
 import cn.hutool.core.collection.CollUtil;
-import cn.hutool.core.net.url.UrlBuilder;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.CharUtil;
 import cn.hutool.core.util.ObjUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONUtil;
@@ -14,41 +15,58 @@ import com.ping.pingpicture.infrastructure.api.aliyunai.model.CreateOutPaintingT
 import com.ping.pingpicture.infrastructure.exception.BusinessException;
 import com.ping.pingpicture.infrastructure.exception.ErrorCode;
 import com.ping.pingpicture.infrastructure.exception.ThrowUtils;
-import com.ping.pingpicture.infrastructure.api.CosManager;
+import com.ping.pingpicture.infrastructure.api.storage.ObjectStorage;
+import com.ping.pingpicturebackend.manager.cache.UserVOLoader;
+import com.ping.pingpicturebackend.manager.color.PictureColorIndexManager;
+import com.ping.pingpicturebackend.manager.crawler.BingImageCrawlSource;
+import com.ping.pingpicturebackend.manager.crawler.CrawlJob;
+import com.ping.pingpicturebackend.manager.crawler.PictureCrawler;
+import com.ping.pingpicturebackend.manager.event.PictureChangeEventPublisher;
+import com.ping.pingpicturebackend.manager.event.model.PictureChangeTypeEnum;
+import com.ping.pingpicturebackend.manager.quota.QuotaReservation;
+import com.ping.pingpicturebackend.manager.quota.SpaceQuotaManager;
+import com.ping.pingpicturebackend.manager.quota.SpaceUsage;
+import com.ping.pingpicturebackend.manager.search.PictureHashIndex;
+import com.ping.pingpicturebackend.manager.search.PictureSearchField;
+import com.ping.pingpicturebackend.manager.search.PictureSearchManager;
+import com.ping.pingpicturebackend.manager.search.PictureSimilarSearchManager;
+import com.ping.pingpicturebackend.manager.tag.PictureTagIndexManager;
+import com.ping.pingpicturebackend.manager.upload.ChunkPictureUpload;
 import com.ping.pingpicturebackend.manager.upload.FilePictureUpload;
+import com.ping.pingpicturebackend.manager.upload.PictureChunkUploadSession;
+import com.ping.pingpicturebackend.manager.upload.PictureUploadContent;
+import com.ping.pingpicturebackend.manager.upload.PictureUploadContext;
 import com.ping.pingpicturebackend.manager.upload.PictureUploadTemplate;
 import com.ping.pingpicturebackend.manager.upload.URLPictureUpload;
 import com.ping.pingpicture.infrastructure.mapper.PictureMapper;
 import com.ping.pingpicturebackend.model.dto.file.UploadPictureResult;
 import com.ping.pingpicturebackend.model.dto.picture.*;
 import com.ping.pingpicturebackend.model.entity.Picture;
+import com.ping.pingpicturebackend.model.entity.PictureBlob;
 import com.ping.pingpicturebackend.model.entity.Space;
 import com.ping.pingpicturebackend.model.entity.User;
 import com.ping.pingpicturebackend.model.enums.PictureReviewStatusEnum;
+import com.ping.pingpicturebackend.model.vo.CursorPage;
 import com.ping.pingpicturebackend.model.vo.PictureVO;
 import com.ping.pingpicturebackend.model.vo.UserVO;
+import com.ping.pingpicturebackend.service.ObjectDeleteTaskService;
+import com.ping.pingpicturebackend.service.PictureBlobService;
+import com.ping.pingpicturebackend.service.PictureVariantService;
 import com.ping.pingpicturebackend.service.PictureService;
 import com.ping.pingpicturebackend.service.SpaceService;
 import com.ping.pingpicturebackend.service.UserService;
-import com.ping.pingpicture.infrastructure.utils.ColorSimilarUtils;
 import com.ping.pingpicture.infrastructure.utils.ColorTransformUtils;
 import lombok.extern.slf4j.Slf4j;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.annotation.Resource;
-import java.awt.*;
-import java.io.IOException;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -70,17 +88,66 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
     @Resource
     private URLPictureUpload urlPictureUpload;
 
+    @Resource
+    private ChunkPictureUpload chunkPictureUpload;
+
     @Autowired
-    private CosManager cosManager;
+    private ObjectStorage objectStorage;
 
     @Resource
     private SpaceService spaceService;
 
+    @Resource
+    private SpaceQuotaManager spaceQuotaManager;
+
     @Resource
     private TransactionTemplate transactionTemplate;
     @Autowired
     private AliYunAiApi aliYunAiApi;
 
+    @Resource
+    private PictureChangeEventPublisher pictureChangeEventPublisher;
+
+    @Resource
+    private UserVOLoader userVOLoader;
+
+    @Resource
+    private PictureSearchManager pictureSearchManager;
+
+    @Resource
+    private PictureTagIndexManager pictureTagIndexManager;
+
+    @Resource
+    private PictureColorIndexManager pictureColorIndexManager;
+
+    @Resource
+    private PictureSimilarSearchManager pictureSimilarSearchManager;
+
+    @Resource
+    private PictureBlobService pictureBlobService;
+
+    @Resource
+    private PictureVariantService pictureVariantService;
+
+    @Resource
+    private ObjectDeleteTaskService objectDeleteTaskService;
+
+    @Resource
+    private PictureCrawler pictureCrawler;
+
+    @Resource
+    private BingImageCrawlSource bingImageCrawlSource;
+
+    /**
+     * 标签位图筛选的候选数量上限，超过后改用 picture_tag 子查询
+     */
+    private static final int MAX_TAG_CANDIDATES = 5000;
+
+    /**
+     * 批量抓取的最大数量
+     */
+    private static final int MAX_BATCH_UPLOAD_COUNT = 300;
+
     /**
      * 验证图片
      *
@@ -107,15 +174,54 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
     /**
      * 上传图片
      *
-     * @param inputSource          输入源
+     * @param inputSource          输入源（文件、URL、秒传请求或分片上传会话）
      * @param pictureUploadRequest pictureId
      * @param loginUser            登录用户
-     * @return PictureVO
+     * @return PictureVO，秒传时文件不存在返回 null
      */
     @Override
     public PictureVO uploadPicture(Object inputSource, PictureUploadRequest pictureUploadRequest, User loginUser) {
         ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
         ThrowUtils.throwIf(inputSource == null, ErrorCode.PARAMS_ERROR, "上传文件不能为空");
+        PictureUploadContext uploadContext = prepareUpload(pictureUploadRequest, loginUser, false);
+        UploadPictureResult uploadPictureResult;
+        if (inputSource instanceof PictureUploadByHashRequest) {
+            // 秒传：按内容哈希复用本人或目标空间已引用的文件，文件不存在时由客户端再上传文件
+            String sha256 = ((PictureUploadByHashRequest) inputSource).getSha256();
+            ThrowUtils.throwIf(StrUtil.length(sha256) != 64 || !StrUtil.isAllCharMatch(sha256, CharUtil::isHexChar),
+                    ErrorCode.PARAMS_ERROR, "文件哈希格式错误");
+            PictureBlob pictureBlob = pictureBlobService.acquireReferenced(sha256.toLowerCase(), loginUser.getId(),
+                    uploadContext.getSpaceId());
+            if (pictureBlob == null) {
+                return null;
+            }
+            uploadPictureResult = pictureBlobService.toUploadPictureResult(pictureBlob);
+            uploadPictureResult.setPicName(FileUtil.mainName(this.getKeyFromUrl(pictureBlob.getUrl())));
+        } else {
+            // 根据 inputSource 类型判断上传方式
+            PictureUploadTemplate pictureUploadTemplate = filePictureUpload;
+            if (inputSource instanceof String) {
+                pictureUploadTemplate = urlPictureUpload;
+            } else if (inputSource instanceof PictureChunkUploadSession) {
+                pictureUploadTemplate = chunkPictureUpload;
+            }
+            uploadPictureResult = pictureUploadTemplate.uploadPicture(uploadContext.getUploadPathPrefix(), inputSource);
+        }
+        return savePicture(uploadContext, uploadPictureResult);
+    }
+
+    /**
+     * 上传前校验：空间权限、额度和重新上传的旧图片
+     *
+     * @param pictureUploadRequest 上传请求
+     * @param loginUser            登录用户
+     * @param reserveQuota         是否预占空间的图片条数额度（异步上传时使用，失败需调用 cancelUpload 归还）
+     * @return 上传上下文
+     */
+    @Override
+    public PictureUploadContext prepareUpload(PictureUploadRequest pictureUploadRequest, User loginUser,
+                                              boolean reserveQuota) {
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
         // 用于判断是新增还是更新图片
         Long pictureId = null;
         Long spaceId = null;
@@ -124,32 +230,24 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
             spaceId = pictureUploadRequest.getSpaceId();
         }
         // 校验是否指定空间
+        Space space = null;
         if (spaceId != null) {   // 指定空间id，则为非默认公共空间
-            Space space = spaceService.getById(spaceId);
+            space = spaceService.getById(spaceId);
             ThrowUtils.throwIf(space == null, ErrorCode.PARAMS_ERROR, "空间不存在");
             // 仅本人可编辑
             if (!loginUser.getId().equals(space.getUserId())) {
                 throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "没有空间权限");
             }
-            // 校验空间是否超出最大图片数量
-            if (space.getTotalCount() >= space.getMaxCount()) {
-                throw new BusinessException(ErrorCode.OPERATION_ERROR, "空间条数不足");
-            }
-            // 校验空间是否超出最大图片大小
-            if (space.getTotalSize() >= space.getMaxSize()) {
-                throw new BusinessException(ErrorCode.OPERATION_ERROR, "空间大小不足");
-            }
         }
         // 如果是更新图片，需要校验图片是否存在
+        Picture oldPicture = null;
         if (pictureId != null) {
-            Picture oldPicture = this.getById(pictureId);
+            oldPicture = this.getById(pictureId);
             ThrowUtils.throwIf(oldPicture == null, ErrorCode.PARAMS_ERROR, "图片不存在");
             // 仅本人或管理员可编辑
             if (!oldPicture.getUserId().equals(loginUser.getId()) && !userService.isAdmin(loginUser)) {
                 throw new BusinessException(ErrorCode.NO_AUTH_ERROR);
             }
-            // 异步清理图片
-            this.clearPictureFile(oldPicture);
             // 校验空间，没传 spaceId 则使用旧图片的 spaceId
             if (spaceId == null) {
                 if (oldPicture.getSpaceId() != null) {
@@ -170,12 +268,47 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
             // 指定空间就按空间 id 划分目录
             uploadPathPrefix = String.format("space/%s", spaceId);
         }
-        // 根据 inputSource 类型判断上传方式
-        PictureUploadTemplate pictureUploadTemplate = filePictureUpload;
-        if (inputSource instanceof String) {
-            pictureUploadTemplate = urlPictureUpload;
+        PictureUploadContext uploadContext = new PictureUploadContext();
+        uploadContext.setPictureUploadRequest(pictureUploadRequest);
+        uploadContext.setLoginUser(loginUser);
+        uploadContext.setPictureId(pictureId);
+        uploadContext.setSpaceId(spaceId);
+        uploadContext.setOldPicture(oldPicture);
+        uploadContext.setUploadPathPrefix(uploadPathPrefix);
+        if (spaceId != null && pictureId == null) {
+            if (reserveQuota) {
+                // 原子地预占一条额度，并发的异步上传不会一起超出上限
+                uploadContext.setQuotaReservation(spaceQuotaManager.reserve(spaceId, 1, 0));
+            } else {
+                // 同步上传只做预检查，入库前再原子地预占
+                SpaceUsage spaceUsage = spaceQuotaManager.getUsage(spaceId);
+                if (spaceUsage != null) {
+                    space.setTotalCount(spaceUsage.getTotalCount());
+                    space.setTotalSize(spaceUsage.getTotalSize());
+                }
+                ThrowUtils.throwIf(space.getTotalCount() >= space.getMaxCount(),
+                        ErrorCode.OPERATION_ERROR, "空间条数不足");
+                ThrowUtils.throwIf(space.getTotalSize() >= space.getMaxSize(),
+                        ErrorCode.OPERATION_ERROR, "空间大小不足");
+            }
         }
-        UploadPictureResult uploadPictureResult = pictureUploadTemplate.uploadPicture(uploadPathPrefix, inputSource);
+        return uploadContext;
+    }
+
+    /**
+     * 入库阶段：保存图片信息并更新空间额度
+     *
+     * @param uploadContext       上传上下文
+     * @param uploadPictureResult 存储阶段的结果（占用了一次文件引用，入库失败时归还）
+     * @return PictureVO
+     */
+    @Override
+    public PictureVO savePicture(PictureUploadContext uploadContext, UploadPictureResult uploadPictureResult) {
+        PictureUploadRequest pictureUploadRequest = uploadContext.getPictureUploadRequest();
+        User loginUser = uploadContext.getLoginUser();
+        Long pictureId = uploadContext.getPictureId();
+        Long spaceId = uploadContext.getSpaceId();
+        Picture oldPicture = uploadContext.getOldPicture();
         // 构造图片的入库信息
         Picture picture = new Picture();
         picture.setUrl(uploadPictureResult.getUrl());
@@ -193,7 +326,13 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         picture.setPicFormat(uploadPictureResult.getPicFormat());
         picture.setUserId(loginUser.getId());
         picture.setSpaceId(spaceId);
-        picture.setPicColor(ColorTransformUtils.getStandardColor(uploadPictureResult.getPicColor()));
+        // 无法解码的图片（如本地不支持的 webp 且未开启数据万象）没有主色调
+        picture.setPicColor(StrUtil.isBlank(uploadPictureResult.getPicColor()) ? null
+                : ColorTransformUtils.getStandardColor(uploadPictureResult.getPicColor()));
+        picture.setPicPalette(uploadPictureResult.getPicPalette());
+        picture.setPicPHash(uploadPictureResult.getPicPHash());
+        picture.setPicDHash(uploadPictureResult.getPicDHash());
+        picture.setBlobId(uploadPictureResult.getBlobId());
         // 补充审核参数
         fillReviewParams(picture, loginUser);
         // 如果 pictureId 不为空，则更新图片
@@ -202,25 +341,64 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
             picture.setId(pictureId);
             picture.setEditTime(new Date());
         }
-        // 开启事务 - 更新空间额度
-        Long finalSpaceId = spaceId;
-        transactionTemplate.execute(status -> {
-            // 保存图片信息
-            boolean result = this.saveOrUpdate(picture);
-            ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "上传图片失败");
-            if (finalSpaceId != null) {
-                boolean updateResult = spaceService.lambdaUpdate()
-                        .eq(Space::getId, finalSpaceId)
-                        .setSql("totalCount = totalCount + 1")
-                        .setSql("totalSize = totalSize + " + picture.getPicSize())
-                        .update();
-                ThrowUtils.throwIf(!updateResult, ErrorCode.OPERATION_ERROR, "额度更新失败");
+        // 预占空间额度：新图片占一条（已预占时只需补上大小），重新上传只计算大小的变化
+        QuotaReservation quotaReservation = null;
+        if (spaceId != null) {
+            long countDelta = pictureId == null && uploadContext.getQuotaReservation() == null ? 1 : 0;
+            long sizeDelta = ObjUtil.defaultIfNull(picture.getPicSize(), 0L);
+            if (oldPicture != null) {
+                sizeDelta -= ObjUtil.defaultIfNull(oldPicture.getPicSize(), 0L);
             }
-            return picture; // 此处返回图片信息，saveOrUpdate 会更新 picture 对象（比如设置 ID）
-        });
+            try {
+                quotaReservation = spaceQuotaManager.reserve(spaceId, countDelta, sizeDelta);
+            } catch (RuntimeException e) {
+                pictureBlobService.release(picture.getBlobId());
+                throw e;
+            }
+        }
+        // 开启事务 - 保存图片信息（空间额度由 SpaceQuotaManager 异步写回 space 表）
+        PictureChangeTypeEnum changeType = pictureId == null ? PictureChangeTypeEnum.CREATE : PictureChangeTypeEnum.UPDATE;
+        try {
+            transactionTemplate.execute(status -> {
+                // 保存图片信息
+                boolean result = this.saveOrUpdate(picture);
+                ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "上传图片失败");
+                // 旧图片文件的删除任务与图片信息一起提交
+                if (oldPicture != null) {
+                    this.clearPictureFile(oldPicture);
+                }
+                // 发布图片变更事件（在事务中发布，标签关联与图片信息一起提交；变更前后的分类都要失效）
+                pictureChangeEventPublisher.publish(changeType, picture.getId(), spaceId,
+                        oldPicture == null ? null : oldPicture.getCategory(), picture.getCategory());
+                return picture; // 此处返回图片信息，saveOrUpdate 会更新 picture 对象（比如设置 ID）
+            });
+        } catch (RuntimeException e) {
+            // 入库失败，归还上传时占用的文件引用和刚预占的额度
+            pictureBlobService.release(picture.getBlobId());
+            spaceQuotaManager.cancel(quotaReservation);
+            throw e;
+        }
+        // 已入库，预占的额度转为已用额度
+        spaceQuotaManager.confirm(quotaReservation);
+        spaceQuotaManager.confirm(uploadContext.getQuotaReservation());
+        uploadContext.setQuotaReservation(null);
         return PictureVO.objToVo(picture);
     }
 
+    /**
+     * 取消上传：归还预占的空间额度
+     *
+     * @param uploadContext 上传上下文
+     */
+    @Override
+    public void cancelUpload(PictureUploadContext uploadContext) {
+        if (uploadContext == null || uploadContext.getQuotaReservation() == null) {
+            return;
+        }
+        spaceQuotaManager.cancel(uploadContext.getQuotaReservation());
+        uploadContext.setQuotaReservation(null);
+    }
+
     /**
      * 构造查询 QueryWrapper
      *
@@ -230,6 +408,24 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
     @Override
     public QueryWrapper<Picture> getQueryWrapper(PictureQueryRequest
                                                          pictureQueryRequest) {
+        QueryWrapper<Picture> queryWrapper = getFilterQueryWrapper(pictureQueryRequest);
+        if (pictureQueryRequest == null) {
+            return queryWrapper;
+        }
+        String sortField = pictureQueryRequest.getSortField();
+        String sortOrder = pictureQueryRequest.getSortOrder();
+        // 排序
+        queryWrapper.orderBy(StrUtil.isNotEmpty(sortField), sortOrder.equals("ascend"), sortField);
+        return queryWrapper;
+    }
+
+    /**
+     * 构造只包含筛选条件（不含排序）的 QueryWrapper
+     *
+     * @param pictureQueryRequest 查询请求
+     * @return 查询 QueryWrapper
+     */
+    private QueryWrapper<Picture> getFilterQueryWrapper(PictureQueryRequest pictureQueryRequest) {
         QueryWrapper<Picture> queryWrapper = new QueryWrapper<>();
         if (pictureQueryRequest == null) {
             return queryWrapper;
@@ -253,15 +449,50 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         Boolean nullSpaceId = pictureQueryRequest.getNullSpaceId();
         Date startEditTime = pictureQueryRequest.getStartEditTime();
         Date endEditTime = pictureQueryRequest.getEndEditTime();
-        String sortField = pictureQueryRequest.getSortField();
-        String sortOrder = pictureQueryRequest.getSortOrder();
 
+        // 先用倒排索引缩小范围，再由 LIKE 精确过滤（索引不可用时只走 LIKE）
+        Set<Long> candidateIdSet = null;
+        if (StrUtil.isNotBlank(searchText)) {
+            candidateIdSet = intersectCandidates(candidateIdSet, pictureSearchManager.search(searchText,
+                    PictureSearchField.NAME, PictureSearchField.INTRODUCTION,
+                    PictureSearchField.TAGS, PictureSearchField.CATEGORY));
+        }
+        if (StrUtil.isNotBlank(name)) {
+            candidateIdSet = intersectCandidates(candidateIdSet, pictureSearchManager.search(name, PictureSearchField.NAME));
+        }
+        if (StrUtil.isNotBlank(introduction)) {
+            candidateIdSet = intersectCandidates(candidateIdSet,
+                    pictureSearchManager.search(introduction, PictureSearchField.INTRODUCTION));
+        }
+        // 标签精确匹配，作用域确定时直接用位图求出结果，否则走 picture_tag 子查询
+        List<String> tagList = normalizeTags(tags);
+        boolean matchAllTags = !"or".equals(pictureQueryRequest.getTagMatchMode());
+        boolean tagMatched = false;
+        if (!tagList.isEmpty() && (spaceId != null || Boolean.TRUE.equals(nullSpaceId))) {
+            Set<Long> tagIdSet = pictureTagIndexManager.match(spaceId, tagList, matchAllTags, MAX_TAG_CANDIDATES);
+            if (tagIdSet != null) {
+                candidateIdSet = intersectCandidates(candidateIdSet, tagIdSet);
+                tagMatched = true;
+            }
+        }
+        if (candidateIdSet != null) {
+            if (candidateIdSet.isEmpty()) {
+                // 索引确认没有匹配的数据
+                queryWrapper.apply("1 = 0");
+            } else {
+                queryWrapper.in("id", candidateIdSet);
+            }
+        }
         // 从多字段中搜索
         if (StrUtil.isNotBlank(searchText)) {
             queryWrapper.and(qw -> qw
                     .like("name", searchText)
                     .or()
                     .like("introduction", searchText)
+                    .or()
+                    .like("tags", searchText)
+                    .or()
+                    .like("category", searchText)
             );
         }
         // 单字段搜索
@@ -285,16 +516,154 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
                 // < endEditTime
                 .lt(ObjUtil.isNotEmpty(endEditTime), "editTime", endEditTime);
         // 标签搜索
-        if (CollUtil.isNotEmpty(tags)) {
-            for (String tag : tags) {
-                queryWrapper.like("tags", "\"" + tag + "\"");
+        if (!tagList.isEmpty() && !tagMatched) {
+            StringBuilder tagSql = new StringBuilder("id IN (SELECT pictureId FROM picture_tag WHERE tag IN (");
+            for (int i = 0; i < tagList.size(); i++) {
+                tagSql.append(i == 0 ? "" : ",").append("{").append(i).append("}");
+            }
+            tagSql.append(")");
+            if (matchAllTags) {
+                tagSql.append(" GROUP BY pictureId HAVING COUNT(*) = ").append(tagList.size());
             }
+            tagSql.append(")");
+            queryWrapper.apply(tagSql.toString(), tagList.toArray());
         }
-        // 排序
-        queryWrapper.orderBy(StrUtil.isNotEmpty(sortField), sortOrder.equals("ascend"), sortField);
         return queryWrapper;
     }
 
+    /**
+     * 标签去掉首尾空白、空值和重复值，与 picture_tag 中的存储格式一致
+     */
+    private List<String> normalizeTags(List<String> tags) {
+        if (CollUtil.isEmpty(tags)) {
+            return Collections.emptyList();
+        }
+        Set<String> tagSet = new LinkedHashSet<>();
+        for (String tag : tags) {
+            if (StrUtil.isNotBlank(tag)) {
+                tagSet.add(tag.trim());
+            }
+        }
+        return new ArrayList<>(tagSet);
+    }
+
+    /**
+     * 求两组候选图片 id 的交集，null 表示该条件无法使用索引（不限制）
+     */
+    private Set<Long> intersectCandidates(Set<Long> candidateIdSet, Set<Long> otherIdSet) {
+        if (candidateIdSet == null) {
+            return otherIdSet;
+        }
+        if (otherIdSet == null) {
+            return candidateIdSet;
+        }
+        Set<Long> resultIdSet = new HashSet<>(candidateIdSet);
+        resultIdSet.retainAll(otherIdSet);
+        return resultIdSet;
+    }
+
+    /**
+     * 游标分页支持的排序字段
+     */
+    private static final List<String> CURSOR_SORT_FIELD_LIST = Arrays.asList("id", "createTime", "editTime");
+
+    /**
+     * 游标分页查询图片
+     * <p>
+     * 按 (排序字段, id) 定位上一页的边界，只扫描需要返回的行，翻页深度不影响查询耗时
+     *
+     * @param pictureCursorQueryRequest 游标查询请求
+     * @return 游标分页结果
+     */
+    @Override
+    public CursorPage<Picture> listPictureByCursor(PictureCursorQueryRequest pictureCursorQueryRequest) {
+        ThrowUtils.throwIf(pictureCursorQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        int size = pictureCursorQueryRequest.getPageSize();
+        ThrowUtils.throwIf(size <= 0, ErrorCode.PARAMS_ERROR, "页面大小不合法");
+        String sortField = StrUtil.blankToDefault(pictureCursorQueryRequest.getSortField(), "id");
+        ThrowUtils.throwIf(!CURSOR_SORT_FIELD_LIST.contains(sortField), ErrorCode.PARAMS_ERROR, "不支持的排序字段");
+        boolean ascend = "ascend".equals(pictureCursorQueryRequest.getSortOrder());
+        boolean prev = "prev".equals(pictureCursorQueryRequest.getDirection());
+        // 解析游标，游标必须与本次查询的排序方式一致
+        PictureCursor pictureCursor = null;
+        if (StrUtil.isNotBlank(pictureCursorQueryRequest.getCursor())) {
+            pictureCursor = PictureCursor.decode(pictureCursorQueryRequest.getCursor());
+            ThrowUtils.throwIf(!sortField.equals(pictureCursor.getSortField())
+                            || !StrUtil.equals(pictureCursorQueryRequest.getSortOrder(), pictureCursor.getSortOrder()),
+                    ErrorCode.PARAMS_ERROR, "游标与排序方式不匹配");
+        }
+        ThrowUtils.throwIf(prev && pictureCursor == null, ErrorCode.PARAMS_ERROR, "向前翻页需要传入游标");
+        // 向前翻页时反向扫描，查询完再把结果倒过来
+        boolean scanAscend = ascend != prev;
+        QueryWrapper<Picture> queryWrapper = getFilterQueryWrapper(pictureCursorQueryRequest);
+        if (pictureCursor != null) {
+            Object sortValue = "id".equals(sortField) ? pictureCursor.getSortValue() : new Date(pictureCursor.getSortValue());
+            Long cursorId = pictureCursor.getId();
+            if ("id".equals(sortField)) {
+                queryWrapper.gt(scanAscend, "id", cursorId).lt(!scanAscend, "id", cursorId);
+            } else if (scanAscend) {
+                queryWrapper.and(qw -> qw.gt(sortField, sortValue)
+                        .or(sub -> sub.eq(sortField, sortValue).gt("id", cursorId)));
+            } else {
+                queryWrapper.and(qw -> qw.lt(sortField, sortValue)
+                        .or(sub -> sub.eq(sortField, sortValue).lt("id", cursorId)));
+            }
+        }
+        queryWrapper.orderBy(!"id".equals(sortField), scanAscend, sortField)
+                .orderBy(true, scanAscend, "id")
+                // 多查一条用来判断是否还有更多数据
+                .last("limit " + (size + 1));
+        List<Picture> pictureList = this.list(queryWrapper);
+        boolean hasMore = pictureList.size() > size;
+        if (hasMore) {
+            pictureList = new ArrayList<>(pictureList.subList(0, size));
+        }
+        if (prev) {
+            Collections.reverse(pictureList);
+        }
+        CursorPage<Picture> cursorPage = new CursorPage<>();
+        cursorPage.setRecords(pictureList);
+        cursorPage.setSize(size);
+        // 向后翻页：来自游标说明前面还有数据；向前翻页：来源页一定还在后面
+        cursorPage.setHasNext(prev || hasMore);
+        cursorPage.setHasPrev(prev ? hasMore : pictureCursor != null);
+        if (!pictureList.isEmpty()) {
+            String sortOrder = pictureCursorQueryRequest.getSortOrder();
+            if (cursorPage.isHasNext()) {
+                cursorPage.setNextCursor(buildPictureCursor(pictureList.get(pictureList.size() - 1), sortField, sortOrder));
+            }
+            if (cursorPage.isHasPrev()) {
+                cursorPage.setPrevCursor(buildPictureCursor(pictureList.get(0), sortField, sortOrder));
+            }
+        }
+        // 按需查询总数
+        if (Boolean.TRUE.equals(pictureCursorQueryRequest.getNeedTotal())) {
+            cursorPage.setTotal(this.count(getFilterQueryWrapper(pictureCursorQueryRequest)));
+        }
+        return cursorPage;
+    }
+
+    /**
+     * 根据图片构造游标
+     */
+    private String buildPictureCursor(Picture picture, String sortField, String sortOrder) {
+        PictureCursor pictureCursor = new PictureCursor();
+        pictureCursor.setSortField(sortField);
+        pictureCursor.setSortOrder(sortOrder);
+        pictureCursor.setId(picture.getId());
+        switch (sortField) {
+            case "createTime":
+                pictureCursor.setSortValue(picture.getCreateTime().getTime());
+                break;
+            case "editTime":
+                pictureCursor.setSortValue(picture.getEditTime().getTime());
+                break;
+            default:
+                pictureCursor.setSortValue(picture.getId());
+        }
+        return pictureCursor.encode();
+    }
+
     /**
      * 获取单个图片封装
      *
@@ -310,8 +679,7 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         // 关联查询用户信息
         Long userId = picture.getUserId();
         if (userId != null && userId > 0) {
-            User user = userService.getById(userId);
-            UserVO userVO = userService.getUserVO(user);
+            UserVO userVO = userVOLoader.load(userId);
             pictureVO.setUser(userVO);
         }
         return pictureVO;
@@ -325,12 +693,35 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
      */
     @Override
     public Page<PictureVO> getPictureVOPage(Page<Picture> picturePage) {
-        // 拿到当前页数据
-        List<Picture> pictureList = picturePage.getRecords();
         Page<PictureVO> pictureVOPage = new Page<>
                 (picturePage.getCurrent(), picturePage.getSize(), picturePage.getTotal());
+        pictureVOPage.setRecords(getPictureVOList(picturePage.getRecords()));
+        return pictureVOPage;
+    }
+
+    /**
+     * 获取游标分页图片封装
+     *
+     * @param pictureCursorPage 图片游标分页
+     * @return PictureVO游标分页
+     */
+    @Override
+    public CursorPage<PictureVO> getPictureVOCursorPage(CursorPage<Picture> pictureCursorPage) {
+        CursorPage<PictureVO> pictureVOCursorPage = new CursorPage<>();
+        BeanUtils.copyProperties(pictureCursorPage, pictureVOCursorPage, "records");
+        pictureVOCursorPage.setRecords(getPictureVOList(pictureCursorPage.getRecords()));
+        return pictureVOCursorPage;
+    }
+
+    /**
+     * 批量转换图片封装，并关联用户信息
+     *
+     * @param pictureList 图片列表
+     * @return PictureVO列表
+     */
+    private List<PictureVO> getPictureVOList(List<Picture> pictureList) {
         if (CollUtil.isEmpty(pictureList)) {
-            return pictureVOPage;
+            return new ArrayList<>();
         }
         // 1. 转换为VO
         List<PictureVO> pictureVOList = pictureList.stream()
@@ -341,21 +732,11 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
                 .map(Picture::getUserId)
                 .filter(Objects::nonNull)  // 过滤null值
                 .collect(Collectors.toSet());
-        // 3. 批量查询用户
-        Map<Long, List<User>> userIdUserListMap = userService.listByIds(userIdSet)
-                .stream()
-                .collect(Collectors.groupingBy(User::getId));
+        // 3. 批量查询用户（优先走缓存）
+        Map<Long, UserVO> userIdUserVOMap = userVOLoader.loadAll(userIdSet);
         // 4. 填充用户信息
-        pictureVOList.forEach(pictureVO -> {
-            Long userId = pictureVO.getUserId();
-            User user = null;
-            if (userIdUserListMap.containsKey(userId)) {
-                user = userIdUserListMap.get(userId).get(0);
-            }
-            pictureVO.setUser(userService.getUserVO(user));
-        });
-        pictureVOPage.setRecords(pictureVOList);
-        return pictureVOPage;
+        pictureVOList.forEach(pictureVO -> pictureVO.setUser(userIdUserVOMap.get(pictureVO.getUserId())));
+        return pictureVOList;
     }
 
     /**
@@ -390,8 +771,13 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         BeanUtils.copyProperties(pictureReviewRequest, updatePicture);
         updatePicture.setReviewerId(loginUser.getId());
         updatePicture.setReviewTime(new Date());
-        boolean result = this.updateById(updatePicture);
-        ThrowUtils.throwIf(!result, ErrorCode.SYSTEM_ERROR, "审核失败");
+        transactionTemplate.executeWithoutResult(status -> {
+            boolean result = this.updateById(updatePicture);
+            ThrowUtils.throwIf(!result, ErrorCode.SYSTEM_ERROR, "审核失败");
+            // 发布图片变更事件
+            pictureChangeEventPublisher.publish(PictureChangeTypeEnum.REVIEW, picId, oldPicture.getSpaceId(),
+                    oldPicture.getCategory());
+        });
     }
 
     /**
@@ -425,6 +811,23 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
     @Override
     public int uploadPictureByBatch(PictureUploadByBatchRequest
                                             pictureUploadByBatchRequest, User loginUser) {
+        CrawlJob crawlJob = submitUploadPictureByBatch(pictureUploadByBatchRequest, loginUser).await();
+        // 一张都没有成功且任务失败时（如获取页面失败）返回失败原因
+        ThrowUtils.throwIf(crawlJob.getSucceededCount() == 0 && crawlJob.getMessage() != null,
+                ErrorCode.OPERATION_ERROR, crawlJob.getMessage());
+        return crawlJob.getSucceededCount();
+    }
+
+    /**
+     * 提交批量抓取任务：分页抓取必应图片，并发上传，序号按入库顺序连续递增
+     *
+     * @param pictureUploadByBatchRequest 批量上传请求
+     * @param loginUser                   登录用户
+     * @return 抓取任务，可查询进度
+     */
+    @Override
+    public CrawlJob submitUploadPictureByBatch(PictureUploadByBatchRequest pictureUploadByBatchRequest,
+                                               User loginUser) {
         ThrowUtils.throwIf(StrUtil.isBlank(pictureUploadByBatchRequest.getSearchText()) ||
                 pictureUploadByBatchRequest.getCount() == null, ErrorCode.PARAMS_ERROR, "搜索内容不能为空");
         // 1. 格式化数量
@@ -434,80 +837,43 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
             namePrefix = searchText;
         }
         int count = pictureUploadByBatchRequest.getCount();
-        ThrowUtils.throwIf(count > 30, ErrorCode.PARAMS_ERROR, "一次最多抓取30张图片");
-        // 2. 从抓取地址获取页面
-        String fetchUrl = String.format("https://cn.bing.com/images/async?q=%s&mmasync=1", searchText);
-        Document document;
-        try {
-            document = Jsoup.connect(fetchUrl).get();
-        } catch (IOException e) {
-            log.error("获取页面失败", e);
-            throw new BusinessException(ErrorCode.OPERATION_ERROR, "获取页面失败");
-        }
-        // 3. 获取元素
-        Element div = document.getElementsByClass("dgControl").first();
-        if (ObjUtil.isNull(div)) {
-            throw new BusinessException(ErrorCode.OPERATION_ERROR, "获取元素失败");
-        }
-        Elements imgElementList = div.select("img.mimg");
-        // 4. 处理图片上传地址，防止出现转义问题
-        int uploadCount = 0;
-        for (Element imgElement : imgElementList) {
-            String imgUrl = imgElement.attr("src");
-            if (StrUtil.isBlank(imgUrl)) {
-                log.info("当前链接为空，已跳过：{}", imgUrl);
-                continue;
-            }
-            int questionMarkIndex = imgUrl.indexOf("?");
-            if (questionMarkIndex != -1) {
-                imgUrl = imgUrl.substring(0, questionMarkIndex);
-            }
-            // 5. 上传图片
-            try {
-                PictureUploadRequest pictureUploadRequest = new PictureUploadRequest();
-                if (StrUtil.isNotBlank(namePrefix)) {
-                    // 设置图片名称，序号连续递增
-                    pictureUploadRequest.setPicName(namePrefix + (uploadCount + 1));
-                }
-                PictureVO pictureVO = this.uploadPicture(imgUrl, pictureUploadRequest, loginUser);
-                log.info("成功上传图片：id = {}", pictureVO.getId());
-                uploadCount++;
-            } catch (Exception e) { // 防止一个图片上传 COS 失败导致整个流程失败
-                log.error("上传图片失败", e);
-                continue;
+        ThrowUtils.throwIf(count <= 0 || count > MAX_BATCH_UPLOAD_COUNT, ErrorCode.PARAMS_ERROR,
+                "一次最多抓取" + MAX_BATCH_UPLOAD_COUNT + "张图片");
+        // 2. 单张图片：获取、存储、入库（只有入库前才分配序号，失败的图片不占用序号）
+        String finalNamePrefix = namePrefix;
+        AtomicInteger nameSequence = new AtomicInteger();
+        return pictureCrawler.submit(bingImageCrawlSource, searchText, count, imgUrl -> {
+            PictureUploadRequest pictureUploadRequest = new PictureUploadRequest();
+            PictureUploadContext uploadContext = prepareUpload(pictureUploadRequest, loginUser, false);
+            UploadPictureResult uploadPictureResult;
+            try (PictureUploadContent content = urlPictureUpload.fetchPicture(imgUrl)) {
+                uploadPictureResult = urlPictureUpload.storePicture(uploadContext.getUploadPathPrefix(), content);
             }
-            if (uploadCount >= count) {
-                break;
-            }
-        }
-        return uploadCount;
+            pictureUploadRequest.setPicName(finalNamePrefix + nameSequence.incrementAndGet());
+            PictureVO pictureVO = savePicture(uploadContext, uploadPictureResult);
+            log.info("成功上传图片：id = {}", pictureVO.getId());
+        });
     }
 
     /**
-     * 清除图片文件
+     * 清除图片文件：登记删除任务，由对象存储垃圾回收批量删除
+     * <p>
+     * 只写数据库，在事务中调用时与图片的删除一起提交
      *
      * @param oldPicture 旧图片
      */
-    @Async
     @Override
     public void clearPictureFile(Picture oldPicture) {
-        // 判断该图片是否被多条记录使用
-        String pictureUrl = oldPicture.getUrl();
-        long count = this.lambdaQuery()
-                .eq(Picture::getUrl, pictureUrl)
-                .count();
-        // 有不止一条记录用到了该图片，不清理
-        if (count > 1) {
+        // 按需生成的变体只属于这张图片，直接删除
+        pictureVariantService.removeByPictureIds(Collections.singletonList(oldPicture.getId()));
+        // 按内容去重的图片：释放一次文件引用，最后一个引用释放时删除文件
+        if (oldPicture.getBlobId() != null) {
+            pictureBlobService.release(oldPicture.getBlobId());
             return;
         }
-        // 删除图片文件
-        // 解析 key
-        cosManager.deleteObject(this.getKeyFromUrl(pictureUrl));
-        // 清理缩略图
-        String thumbnailUrl = oldPicture.getThumbnailUrl();
-        if (StrUtil.isNotBlank(thumbnailUrl)) {
-            cosManager.deleteObject(this.getKeyFromUrl(thumbnailUrl));
-        }
+        // 历史图片：上传路径带随机串，文件不会被其他图片共用，直接删除压缩图、缩略图和原图
+        objectDeleteTaskService.enqueueByUrls(Arrays.asList(oldPicture.getUrl(), oldPicture.getThumbnailUrl(),
+                oldPicture.getOriginalUrl()));
     }
 
     /**
@@ -517,14 +883,7 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
      */
     @Override
     public String getKeyFromUrl(String url) {
-        // 解析 key
-        UrlBuilder urlBuilder = UrlBuilder.ofHttp(url);
-        String key = urlBuilder.getPathStr(); // 获取路径部分
-        // 去掉开头的斜杠
-        if (key.startsWith("/")) {
-            key = key.substring(1);
-        }
-        return key;
+        return objectStorage.getKey(url);
     }
 
     /**
@@ -564,24 +923,20 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         // 校验操作权限
         // 已经改为使用注解鉴权
 //        this.checkPictureAuth(loginUser, oldPicture);
-        // 开启事务 - 更新空间额度
+        // 开启事务 - 删除图片信息
         transactionTemplate.executeWithoutResult(status -> {
             // 操作数据库 - 删除图片信息
             boolean result = removeById(picId);
             ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "删除失败");
-            // 释放额度
-            Long finalSpaceId = oldPicture.getSpaceId();
-            if (finalSpaceId != null) {
-                boolean updateResult = spaceService.lambdaUpdate()
-                        .eq(Space::getId, finalSpaceId)
-                        .setSql("totalCount = totalCount - 1")
-                        .setSql("totalSize = totalSize - " + oldPicture.getPicSize())
-                        .update();
-                ThrowUtils.throwIf(!updateResult, ErrorCode.OPERATION_ERROR, "额度更新失败");
-            }
+            // 登记文件删除任务（与图片信息一起提交）
+            this.clearPictureFile(oldPicture);
+            // 发布图片变更事件（标签关联在提交前删除）
+            pictureChangeEventPublisher.publish(PictureChangeTypeEnum.DELETE, picId, oldPicture.getSpaceId(),
+                    oldPicture.getCategory());
         });
-        // 异步清理文件
-        this.clearPictureFile(oldPicture);
+        // 释放额度（提交后执行，中途失败的偏差由对账修正）
+        spaceQuotaManager.release(oldPicture.getSpaceId(), -1,
+                -ObjUtil.defaultIfNull(oldPicture.getPicSize(), 0L));
     }
 
     /**
@@ -614,8 +969,45 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         // 补充审核参数
         this.fillReviewParams(picture, loginUser);
         // 操作数据库
-        boolean result = updateById(picture);
-        ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "更新失败");
+        updatePictureInfo(oldPicture, picture);
+    }
+
+    /**
+     * 更新图片信息（仅管理员可用）
+     *
+     * @param pictureUpdateRequest 更新请求
+     * @param loginUser            登录用户
+     */
+    @Override
+    public void updatePicture(PictureUpdateRequest pictureUpdateRequest, User loginUser) {
+        ThrowUtils.throwIf(pictureUpdateRequest == null || pictureUpdateRequest.getId() <= 0,
+                ErrorCode.PARAMS_ERROR);
+        // 判断图片是否存在
+        Picture oldPicture = getById(pictureUpdateRequest.getId());
+        ThrowUtils.throwIf(oldPicture == null, ErrorCode.NOT_FOUND_ERROR, "图片不存在");
+        // 将实体类和 DTO 进行转换
+        Picture picture = new Picture();
+        BeanUtils.copyProperties(pictureUpdateRequest, picture);
+        // tag 类型转换
+        picture.setTags(JSONUtil.toJsonStr(pictureUpdateRequest.getTags()));
+        // 图片校验
+        this.validPicture(picture);
+        // 补充审核参数
+        this.fillReviewParams(picture, loginUser);
+        updatePictureInfo(oldPicture, picture);
+    }
+
+    /**
+     * 更新图片信息并在同一事务中发布变更事件，标签关联与图片信息一起提交
+     */
+    private void updatePictureInfo(Picture oldPicture, Picture picture) {
+        transactionTemplate.executeWithoutResult(status -> {
+            boolean result = updateById(picture);
+            ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "更新失败");
+            // 发布图片变更事件
+            pictureChangeEventPublisher.publish(PictureChangeTypeEnum.UPDATE, oldPicture.getId(),
+                    oldPicture.getSpaceId(), oldPicture.getCategory(), picture.getCategory());
+        });
     }
 
     /**
@@ -645,13 +1037,19 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         }
         // 3. 查询指定图片，仅选择需要的字段
         List<Picture> pictureList = this.lambdaQuery()
-                .select(Picture::getId, Picture::getSpaceId) // 提高查询效率
+                .select(Picture::getId, Picture::getSpaceId, Picture::getCategory) // 提高查询效率
                 .eq(Picture::getSpaceId, spaceId)
                 .in(Picture::getId, pictureIdList)
                 .list();
         if (CollUtil.isEmpty(pictureList)) {
             return;
         }
+        // 记录变更前的分类，用于缓存失效
+        Set<String> categorySet = pictureList.stream()
+                .map(Picture::getCategory)
+                .filter(StrUtil::isNotBlank)
+                .collect(Collectors.toSet());
+        categorySet.add(category);
         // 4.1. 批量更新分类和标签
         pictureList.forEach(picture -> {
             if (StrUtil.isNotBlank(category)) {
@@ -666,6 +1064,9 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         // 5. 操作数据库批量更新
         boolean result = this.updateBatchById(pictureList);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "批量更新失败");
+        // 发布图片变更事件（事务提交后生效）
+        List<Long> changedIdList = pictureList.stream().map(Picture::getId).collect(Collectors.toList());
+        pictureChangeEventPublisher.publish(PictureChangeTypeEnum.UPDATE, changedIdList, spaceId, categorySet);
     }
 
     /**
@@ -703,44 +1104,129 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
     public List<PictureVO> searchPictureByColor(String picColor, Long spaceId, User loginUser) {
         // 1. 校验参数
         ThrowUtils.throwIf(picColor == null || picColor.isEmpty(), ErrorCode.PARAMS_ERROR);
-        ThrowUtils.throwIf(spaceId <= 0, ErrorCode.PARAMS_ERROR);
+        ThrowUtils.throwIf(spaceId == null || spaceId <= 0, ErrorCode.PARAMS_ERROR);
         ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
+        Integer targetRgb = PictureColorIndexManager.parseColor(picColor);
+        ThrowUtils.throwIf(targetRgb == null, ErrorCode.PARAMS_ERROR, "颜色格式错误");
         // 2. 校验空间权限
+        checkColorSearchAuth(spaceId, loginUser);
+        // 3. 在主色调索引中找出最相似的 10 张图片（距离越小越相似）
+        long[] pictureIds = pictureColorIndexManager.searchSimilar(spaceId, targetRgb, 10);
+        // 4. 只查询命中的图片，并按相似度顺序返回
+        return listPictureVOByIds(pictureIds);
+    }
+
+    /**
+     * 根据多个颜色搜索图片（按主色板的 CIELAB 色差排序）
+     *
+     * @param searchPictureByColorsRequest 多颜色搜索请求
+     * @param loginUser                    登录用户
+     * @return 图片列表，按相似度从高到低排列
+     */
+    @Override
+    public List<PictureVO> searchPictureByColors(SearchPictureByColorsRequest searchPictureByColorsRequest, User loginUser) {
+        // 1. 校验参数
+        ThrowUtils.throwIf(searchPictureByColorsRequest == null, ErrorCode.PARAMS_ERROR);
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
+        Long spaceId = searchPictureByColorsRequest.getSpaceId();
+        List<String> colors = searchPictureByColorsRequest.getColors();
+        List<Double> weights = searchPictureByColorsRequest.getWeights();
+        ThrowUtils.throwIf(spaceId == null || spaceId <= 0, ErrorCode.PARAMS_ERROR);
+        ThrowUtils.throwIf(CollUtil.isEmpty(colors) || colors.size() > 5, ErrorCode.PARAMS_ERROR, "颜色数量为 1-5 个");
+        ThrowUtils.throwIf(CollUtil.isNotEmpty(weights) && weights.size() != colors.size(),
+                ErrorCode.PARAMS_ERROR, "权重数量与颜色数量不一致");
+        int limit = ObjUtil.defaultIfNull(searchPictureByColorsRequest.getLimit(), 10);
+        ThrowUtils.throwIf(limit <= 0 || limit > 50, ErrorCode.PARAMS_ERROR, "返回数量为 1-50");
+        int[] rgbs = new int[colors.size()];
+        float[] queryWeights = new float[colors.size()];
+        for (int i = 0; i < colors.size(); i++) {
+            Integer rgb = PictureColorIndexManager.parseColor(colors.get(i));
+            ThrowUtils.throwIf(rgb == null, ErrorCode.PARAMS_ERROR, "颜色格式错误");
+            rgbs[i] = rgb;
+            Double weight = CollUtil.isEmpty(weights) ? Double.valueOf(1) : weights.get(i);
+            ThrowUtils.throwIf(weight == null || weight < 0, ErrorCode.PARAMS_ERROR, "权重不能为负数");
+            queryWeights[i] = weight.floatValue();
+        }
+        // 2. 校验空间权限
+        checkColorSearchAuth(spaceId, loginUser);
+        // 3. 在主色板索引中找出最相似的图片
+        long[] pictureIds = pictureColorIndexManager.searchByPalette(spaceId, rgbs, queryWeights, limit);
+        // 4. 只查询命中的图片，并按相似度顺序返回
+        return listPictureVOByIds(pictureIds);
+    }
+
+    /**
+     * 搜索相似图片（同一空间或公共图库内，按感知哈希距离排序）
+     * <p>
+     * 查询图片的访问权限由接口上的空间权限注解校验
+     *
+     * @param searchSimilarPictureRequest 相似图片搜索请求
+     * @return 图片列表，按相似度从高到低排列
+     */
+    @Override
+    public List<PictureVO> searchSimilarPicture(SearchSimilarPictureRequest searchSimilarPictureRequest) {
+        // 1. 校验参数
+        ThrowUtils.throwIf(searchSimilarPictureRequest == null, ErrorCode.PARAMS_ERROR);
+        Long pictureId = searchSimilarPictureRequest.getPictureId();
+        ThrowUtils.throwIf(pictureId == null || pictureId <= 0, ErrorCode.PARAMS_ERROR);
+        int limit = ObjUtil.defaultIfNull(searchSimilarPictureRequest.getLimit(), 20);
+        ThrowUtils.throwIf(limit <= 0 || limit > 50, ErrorCode.PARAMS_ERROR, "返回数量为 1-50");
+        int maxDistance = ObjUtil.defaultIfNull(searchSimilarPictureRequest.getMaxDistance(), 10);
+        ThrowUtils.throwIf(maxDistance < 0 || maxDistance > PictureHashIndex.MAX_DISTANCE,
+                ErrorCode.PARAMS_ERROR, "最大距离为 0-" + PictureHashIndex.MAX_DISTANCE);
+        Picture picture = this.getById(pictureId);
+        ThrowUtils.throwIf(picture == null, ErrorCode.NOT_FOUND_ERROR, "图片不存在");
+        // 2. 在感知哈希索引中查找相似图片（公共图库的索引只包含已过审的图片）
+        boolean publicScope = picture.getSpaceId() == null;
+        long[] pictureIds = pictureSimilarSearchManager.searchSimilar(picture, maxDistance, limit);
+        if (pictureIds.length == 0) {
+            return Collections.emptyList();
+        }
+        // 3. 查询命中的图片，按相似度顺序返回
+        List<Long> pictureIdList = new ArrayList<>(pictureIds.length);
+        for (long id : pictureIds) {
+            pictureIdList.add(id);
+        }
+        Map<Long, Picture> pictureMap = this.listByIds(pictureIdList).stream()
+                .collect(Collectors.toMap(Picture::getId, item -> item));
+        List<Picture> pictureList = pictureIdList.stream()
+                .map(pictureMap::get)
+                .filter(Objects::nonNull)
+                // 索引的增量更新是异步的，刚被驳回的图片可能还在索引中
+                .filter(item -> !publicScope || ObjUtil.equals(PictureReviewStatusEnum.PASS.getValue(), item.getReviewStatus()))
+                .collect(Collectors.toList());
+        return getPictureVOList(pictureList);
+    }
+
+    /**
+     * 校验颜色搜索的空间权限（仅空间创建人可用）
+     */
+    private void checkColorSearchAuth(Long spaceId, User loginUser) {
         Space space = spaceService.getById(spaceId);
         ThrowUtils.throwIf(space == null, ErrorCode.NOT_FOUND_ERROR, "空间不存在");
         if (!space.getUserId().equals(loginUser.getId())) {
             throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "没有权限");
         }
-        // 3. 查询该空间下所有图片（必须有主色调）
-        List<Picture> pictureList = this.lambdaQuery()
-                .eq(Picture::getSpaceId, spaceId)
-                .isNotNull(Picture::getPicColor)
-                .list();
-        if (CollUtil.isEmpty(pictureList)) {
+    }
+
+    /**
+     * 按给定的 id 顺序查询图片，已删除的图片会被跳过
+     */
+    private List<PictureVO> listPictureVOByIds(long[] pictureIds) {
+        if (pictureIds.length == 0) {
             return Collections.emptyList();
         }
-        // 将目标颜色转为 Color 对象
-        Color targetColor = Color.decode(picColor);
-        // 4. 计算相似度并排序
-        List<PictureVO> pictureVOList = pictureList.stream()
-                .sorted(Comparator.comparingDouble(picture -> {
-                    // 获取图片主色调
-                    String hexColor = picture.getPicColor();
-                    // 没有主色调的放到最后
-                    if (hexColor == null) {
-                        return Double.MAX_VALUE;
-                    }
-                    // 转为 Color 对象
-                    Color pictureColor = Color.decode(hexColor);
-                    // 计算相似度 - 越大越相似
-                    return ColorSimilarUtils.calculateSimilarity(targetColor, pictureColor);
-                }))
-                // 取前 10 个
-                .limit(10)
-                // 转换为 PictureVO
+        List<Long> pictureIdList = new ArrayList<>(pictureIds.length);
+        for (long pictureId : pictureIds) {
+            pictureIdList.add(pictureId);
+        }
+        Map<Long, Picture> pictureMap = this.listByIds(pictureIdList).stream()
+                .collect(Collectors.toMap(Picture::getId, picture -> picture));
+        return pictureIdList.stream()
+                .map(pictureMap::get)
+                .filter(Objects::nonNull)
                 .map(PictureVO::objToVo)
                 .collect(Collectors.toList());
-        return pictureVOList;
     }
 
     /**
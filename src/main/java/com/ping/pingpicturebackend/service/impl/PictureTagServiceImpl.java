@@ -0,0 +1,128 @@
+package com.ping.pingpicturebackend.service.impl;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.ping.pingpicture.infrastructure.mapper.PictureMapper;
+import com.ping.pingpicture.infrastructure.mapper.PictureTagMapper;
+import com.ping.pingpicturebackend.model.entity.Picture;
+import com.ping.pingpicturebackend.model.entity.PictureTag;
+import com.ping.pingpicturebackend.service.PictureTagService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.framework.AopContext;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.Resource;
+import java.util.*;
+
+/**
+ * @description 针对表【picture_tag(图片标签关联)】的数据库操作Service实现
+ */
+@Slf4j
+@Service
+public class PictureTagServiceImpl extends ServiceImpl<PictureTagMapper, PictureTag>
+        implements PictureTagService {
+
+    /**
+     * 标签最大长度，与表结构保持一致
+     */
+    private static final int MAX_TAG_LENGTH = 256;
+
+    /**
+     * 全量重建时每批处理的图片数量
+     */
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    @Resource
+    private PictureMapper pictureMapper;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void syncPictureTags(Collection<Long> pictureIdList) {
+        if (CollUtil.isEmpty(pictureIdList)) {
+            return;
+        }
+        QueryWrapper<Picture> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("id", "spaceId", "tags").in("id", pictureIdList);
+        List<Picture> pictureList = pictureMapper.selectList(queryWrapper);
+        // 先删后插，图片已删除时只删不插
+        removeByPictureIds(pictureIdList);
+        List<PictureTag> pictureTagList = buildPictureTagList(pictureList);
+        if (!pictureTagList.isEmpty()) {
+            this.saveBatch(pictureTagList);
+        }
+    }
+
+    @Override
+    public void removeByPictureIds(Collection<Long> pictureIdList) {
+        if (CollUtil.isEmpty(pictureIdList)) {
+            return;
+        }
+        this.remove(new QueryWrapper<PictureTag>().in("pictureId", pictureIdList));
+    }
+
+    @Override
+    public long rebuildAll() {
+        long total = 0;
+        long lastId = 0;
+        while (true) {
+            QueryWrapper<Picture> queryWrapper = new QueryWrapper<>();
+            queryWrapper.select("id").gt("id", lastId).orderByAsc("id").last("limit " + REBUILD_BATCH_SIZE);
+            List<Long> pictureIdList = new ArrayList<>();
+            for (Object pictureId : pictureMapper.selectObjs(queryWrapper)) {
+                pictureIdList.add(((Number) pictureId).longValue());
+            }
+            if (pictureIdList.isEmpty()) {
+                break;
+            }
+            // 每批一个事务，避免长事务
+            ((PictureTagService) AopContext.currentProxy()).syncPictureTags(pictureIdList);
+            total += pictureIdList.size();
+            lastId = pictureIdList.get(pictureIdList.size() - 1);
+            if (pictureIdList.size() < REBUILD_BATCH_SIZE) {
+                break;
+            }
+        }
+        // 清理已删除图片遗留的关联
+        this.remove(new QueryWrapper<PictureTag>()
+                .notInSql("pictureId", "SELECT id FROM picture WHERE isDelete = 0"));
+        log.info("图片标签关联重建完成，图片数 = {}", total);
+        return total;
+    }
+
+    /**
+     * 解析图片的 JSON 标签，去掉空白、重复和超长的标签
+     */
+    private List<PictureTag> buildPictureTagList(List<Picture> pictureList) {
+        List<PictureTag> pictureTagList = new ArrayList<>();
+        for (Picture picture : pictureList) {
+            if (StrUtil.isBlank(picture.getTags())) {
+                continue;
+            }
+            List<String> tagList;
+            try {
+                tagList = JSONUtil.toList(picture.getTags(), String.class);
+            } catch (Exception e) {
+                log.warn("图片标签格式错误，pictureId = {}, tags = {}", picture.getId(), picture.getTags());
+                continue;
+            }
+            Set<String> tagSet = new LinkedHashSet<>();
+            for (String tag : tagList) {
+                if (StrUtil.isNotBlank(tag) && tag.trim().length() <= MAX_TAG_LENGTH) {
+                    tagSet.add(tag.trim());
+                }
+            }
+            for (String tag : tagSet) {
+                PictureTag pictureTag = new PictureTag();
+                pictureTag.setPictureId(picture.getId());
+                pictureTag.setSpaceId(picture.getSpaceId());
+                pictureTag.setTag(tag);
+                pictureTagList.add(pictureTag);
+            }
+        }
+        return pictureTagList;
+    }
+}
@@ -0,0 +1,371 @@
+package com.ping.pingpicturebackend.service.impl;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.ping.pingpicture.infrastructure.api.storage.ObjectStorage;
+import com.ping.pingpicture.infrastructure.api.storage.StoredVariant;
+import com.ping.pingpicture.infrastructure.exception.BusinessException;
+import com.ping.pingpicture.infrastructure.exception.ErrorCode;
+import com.ping.pingpicture.infrastructure.exception.ThrowUtils;
+import com.ping.pingpicture.infrastructure.mapper.PictureMapper;
+import com.ping.pingpicture.infrastructure.mapper.PictureVariantMapper;
+import com.ping.pingpicturebackend.model.entity.Picture;
+import com.ping.pingpicturebackend.model.entity.PictureVariant;
+import com.ping.pingpicturebackend.model.vo.PictureVariantVO;
+import com.ping.pingpicturebackend.service.ObjectDeleteTaskService;
+import com.ping.pingpicturebackend.service.PictureVariantService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * @description 针对表【picture_variant(图片变体)】的数据库操作Service实现
+ * <p>
+ * 变体在第一次请求时由存储层解码源图生成并写回存储，按（图片 id、宽度档位、格式）唯一。
+ * 同一 JVM 内同一变体只生成一次，多个节点同时生成时由唯一索引决定保留哪一份
+ */
+@Slf4j
+@Service
+public class PictureVariantServiceImpl extends ServiceImpl<PictureVariantMapper, PictureVariant>
+        implements PictureVariantService {
+
+    /**
+     * 宽度档位，请求的宽度向上取到最近的档位，限制每张图片的变体数量
+     */
+    private static final int[] WIDTH_STEPS = {128, 256, 384, 512, 768, 1024, 1536, 2048};
+
+    /**
+     * 支持的格式（webp 无法在本地编码，按是否透明生成 png 或 jpg）
+     */
+    private static final List<String> FORMAT_LIST = Arrays.asList("auto", "jpg", "png", "webp");
+
+    /**
+     * 变体高度上限相对宽度的倍数，避免超长图按宽度缩放后仍然很大
+     */
+    private static final int MAX_HEIGHT_RATIO = 4;
+
+    /**
+     * 被替换的旧变体文件延迟删除的时间（毫秒），长于对象地址的缓存时间（30 天），
+     * 替换前返回的地址在 CDN、浏览器缓存中过期之前文件仍然可用
+     */
+    static final long REPLACED_VARIANT_DELETE_DELAY_MILLIS = 31 * 24 * 60 * 60 * 1000L;
+
+    @Resource
+    private ObjectStorage objectStorage;
+
+    @Resource
+    private ObjectDeleteTaskService objectDeleteTaskService;
+
+    @Resource
+    private PictureMapper pictureMapper;
+
+    /**
+     * 正在生成的变体
+     */
+    private final Map<String, CompletableFuture<PictureVariant>> inFlightVariants = new ConcurrentHashMap<>();
+
+    /**
+     * 后台生成线程池，队列满时直接丢弃（下次请求时会再次提交）
+     */
+    private final ThreadPoolExecutor variantExecutor = new ThreadPoolExecutor(
+            2, 4, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(256),
+            ThreadFactoryBuilder.create().setNamePrefix("pictureVariant-").build(),
+            new ThreadPoolExecutor.DiscardPolicy());
+
+    @Override
+    public PictureVariantVO getPictureVariant(Picture picture, Integer width, String format, boolean createNow) {
+        ThrowUtils.throwIf(picture == null, ErrorCode.PARAMS_ERROR);
+        int widthStep = resolveWidth(width);
+        String variantFormat = resolveFormat(format);
+        // 图片本身不大于请求的档位，不需要变体
+        if (!needVariant(picture, widthStep)) {
+            return PictureVariantVO.ofPicture(picture);
+        }
+        PictureVariant pictureVariant = getVariant(picture.getId(), widthStep, variantFormat);
+        if (isUpToDate(pictureVariant, picture)) {
+            return PictureVariantVO.objToVo(pictureVariant);
+        }
+        if (!createNow) {
+            // 不允许同步生成时提交到后台，本次先使用原图
+            submitVariant(picture, widthStep, variantFormat);
+            return PictureVariantVO.ofPicture(picture);
+        }
+        return PictureVariantVO.objToVo(createVariantCoalesced(picture, widthStep, variantFormat));
+    }
+
+    @Override
+    public Map<Long, PictureVariantVO> getPictureVariantMap(List<Picture> pictureList, Integer width, String format) {
+        Map<Long, PictureVariantVO> pictureVariantVOMap = new HashMap<>();
+        if (CollUtil.isEmpty(pictureList)) {
+            return pictureVariantVOMap;
+        }
+        int widthStep = resolveWidth(width);
+        String variantFormat = resolveFormat(format);
+        List<Picture> variantPictureList = pictureList.stream()
+                .filter(picture -> {
+                    if (needVariant(picture, widthStep)) {
+                        return true;
+                    }
+                    pictureVariantVOMap.put(picture.getId(), PictureVariantVO.ofPicture(picture));
+                    return false;
+                })
+                .collect(Collectors.toList());
+        if (variantPictureList.isEmpty()) {
+            return pictureVariantVOMap;
+        }
+        // 批量查询已生成的变体
+        Map<Long, PictureVariant> pictureVariantMap = this.lambdaQuery()
+                .in(PictureVariant::getPictureId, variantPictureList.stream()
+                        .map(Picture::getId).collect(Collectors.toList()))
+                .eq(PictureVariant::getWidth, widthStep)
+                .eq(PictureVariant::getFormat, variantFormat)
+                .list()
+                .stream()
+                .collect(Collectors.toMap(PictureVariant::getPictureId, Function.identity(), (a, b) -> a));
+        for (Picture picture : variantPictureList) {
+            PictureVariant pictureVariant = pictureVariantMap.get(picture.getId());
+            if (isUpToDate(pictureVariant, picture)) {
+                pictureVariantVOMap.put(picture.getId(), PictureVariantVO.objToVo(pictureVariant));
+            } else {
+                // 未生成的变体在后台生成，本次先使用缩略图或原图
+                submitVariant(picture, widthStep, variantFormat);
+            }
+        }
+        return pictureVariantVOMap;
+    }
+
+    @Override
+    public void removeByPictureIds(Collection<Long> pictureIds) {
+        if (CollUtil.isEmpty(pictureIds)) {
+            return;
+        }
+        List<PictureVariant> pictureVariantList = this.lambdaQuery()
+                .in(PictureVariant::getPictureId, pictureIds)
+                .select(PictureVariant::getId, PictureVariant::getUrl)
+                .list();
+        if (pictureVariantList.isEmpty()) {
+            return;
+        }
+        objectDeleteTaskService.enqueueByUrls(pictureVariantList.stream()
+                .map(PictureVariant::getUrl)
+                .collect(Collectors.toList()));
+        this.removeByIds(pictureVariantList.stream().map(PictureVariant::getId).collect(Collectors.toList()));
+    }
+
+    /**
+     * 宽度向上取到最近的档位，超过最大档位时取最大档位
+     */
+    static int resolveWidth(Integer width) {
+        ThrowUtils.throwIf(width == null || width <= 0, ErrorCode.PARAMS_ERROR, "图片宽度错误");
+        for (int widthStep : WIDTH_STEPS) {
+            if (width <= widthStep) {
+                return widthStep;
+            }
+        }
+        return WIDTH_STEPS[WIDTH_STEPS.length - 1];
+    }
+
+    static String resolveFormat(String format) {
+        if (StrUtil.isBlank(format)) {
+            return "auto";
+        }
+        format = format.toLowerCase();
+        if ("jpeg".equals(format)) {
+            return "jpg";
+        }
+        ThrowUtils.throwIf(!FORMAT_LIST.contains(format), ErrorCode.PARAMS_ERROR, "不支持的图片格式");
+        return format;
+    }
+
+    /**
+     * 查询已保存的变体记录
+     */
+    PictureVariant getVariant(Long pictureId, int widthStep, String variantFormat) {
+        return this.lambdaQuery()
+                .eq(PictureVariant::getPictureId, pictureId)
+                .eq(PictureVariant::getWidth, widthStep)
+                .eq(PictureVariant::getFormat, variantFormat)
+                .one();
+    }
+
+    /**
+     * 宽度未知的历史图片也生成变体，由存储层保证不放大
+     */
+    private static boolean needVariant(Picture picture, int widthStep) {
+        return picture.getPicWidth() == null || picture.getPicWidth() > widthStep;
+    }
+
+    /**
+     * 变体存在且基于当前的源图生成
+     */
+    private static boolean isUpToDate(PictureVariant pictureVariant, Picture picture) {
+        return pictureVariant != null && pictureVariant.getSourceUrl().equals(getSourceUrl(picture));
+    }
+
+    /**
+     * 优先使用原图生成，历史图片没有原图时使用压缩图
+     */
+    private static String getSourceUrl(Picture picture) {
+        return StrUtil.blankToDefault(picture.getOriginalUrl(), picture.getUrl());
+    }
+
+    /**
+     * 提交到后台生成，已在生成中的变体不重复提交
+     */
+    private void submitVariant(Picture picture, int widthStep, String variantFormat) {
+        if (inFlightVariants.containsKey(buildVariantKey(picture.getId(), widthStep, variantFormat))) {
+            return;
+        }
+        try {
+            variantExecutor.execute(() -> {
+                try {
+                    createVariantCoalesced(picture, widthStep, variantFormat);
+                } catch (Exception e) {
+                    log.warn("后台生成图片变体失败，pictureId = {}, width = {}, format = {}",
+                            picture.getId(), widthStep, variantFormat, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 线程池已关闭
+        }
+    }
+
+    /**
+     * 同 JVM 内合并生成：同一变体只有第一个线程真正生成，其他线程等待并共享结果
+     * <p>
+     * 拿到生成资格后重新查询一次：调用方查询之后、拿到资格之前，可能已有其他线程（或节点）生成完毕并释放了资格
+     */
+    PictureVariant createVariantCoalesced(Picture picture, int widthStep, String variantFormat) {
+        String variantKey = buildVariantKey(picture.getId(), widthStep, variantFormat);
+        CompletableFuture<PictureVariant> newFuture = new CompletableFuture<>();
+        CompletableFuture<PictureVariant> existingFuture = inFlightVariants.putIfAbsent(variantKey, newFuture);
+        if (existingFuture != null) {
+            try {
+                return existingFuture.join();
+            } catch (Exception e) {
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "生成图片变体失败");
+            }
+        }
+        try {
+            PictureVariant pictureVariant = getVariant(picture.getId(), widthStep, variantFormat);
+            if (!isUpToDate(pictureVariant, picture)) {
+                pictureVariant = createVariant(picture, widthStep, variantFormat);
+            }
+            newFuture.complete(pictureVariant);
+            return pictureVariant;
+        } catch (RuntimeException e) {
+            newFuture.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightVariants.remove(variantKey, newFuture);
+        }
+    }
+
+    /**
+     * 生成变体文件并保存记录
+     */
+    private PictureVariant createVariant(Picture picture, int widthStep, String variantFormat) {
+        String sourceUrl = getSourceUrl(picture);
+        String sourceKey = objectStorage.getKey(sourceUrl);
+        // 变体和源图放在同一目录，文件名带随机串，重新生成时不会命中 CDN 上的旧文件
+        String targetKeyPrefix = String.format("%s/variant/%s_%d_%s",
+                StrUtil.subBefore(sourceKey, "/", true), picture.getId(), widthStep, RandomUtil.randomString(8));
+        StoredVariant storedVariant;
+        try {
+            storedVariant = objectStorage.createVariant(sourceKey, targetKeyPrefix, widthStep,
+                    widthStep * MAX_HEIGHT_RATIO, variantFormat);
+        } catch (IOException e) {
+            log.error("生成图片变体失败，pictureId = {}", picture.getId(), e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "生成图片变体失败");
+        }
+        ThrowUtils.throwIf(storedVariant == null, ErrorCode.OPERATION_ERROR, "源图不存在或格式不支持");
+        PictureVariant pictureVariant = new PictureVariant();
+        pictureVariant.setPictureId(picture.getId());
+        pictureVariant.setWidth(widthStep);
+        pictureVariant.setFormat(variantFormat);
+        pictureVariant.setUrl(objectStorage.getUrl(storedVariant.getKey()));
+        pictureVariant.setSourceUrl(sourceUrl);
+        pictureVariant.setVariantWidth(storedVariant.getWidth());
+        pictureVariant.setVariantHeight(storedVariant.getHeight());
+        pictureVariant.setVariantSize(storedVariant.getSize());
+        pictureVariant.setVariantFormat(storedVariant.getFormat());
+        // 生成期间图片可能已被删除，不再保存记录
+        if (!isPictureExist(picture.getId())) {
+            deleteVariantFile(pictureVariant);
+            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "图片不存在");
+        }
+        // 源图变化后覆盖旧记录；旧地址可能已经返回给其他请求或缓存在 CDN 上，旧文件延迟删除
+        PictureVariant oldVariant = getVariant(picture.getId(), widthStep, variantFormat);
+        if (oldVariant != null) {
+            pictureVariant.setId(oldVariant.getId());
+            // 旧记录已随图片删除时更新不到任何行
+            if (!this.updateById(pictureVariant)) {
+                deleteVariantFile(pictureVariant);
+                throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "图片不存在");
+            }
+            objectDeleteTaskService.enqueueByUrls(Collections.singletonList(oldVariant.getUrl()),
+                    REPLACED_VARIANT_DELETE_DELAY_MILLIS);
+            return pictureVariant;
+        }
+        try {
+            this.save(pictureVariant);
+        } catch (DuplicateKeyException e) {
+            // 其他节点同时生成了同一变体，使用已保存的记录
+            deleteVariantFile(pictureVariant);
+            return getVariant(picture.getId(), widthStep, variantFormat);
+        }
+        // 检查与保存之间图片被删除时，删除图片的事务清理不到刚保存的记录，由这里清理
+        if (!isPictureExist(picture.getId())) {
+            this.removeById(pictureVariant.getId());
+            deleteVariantFile(pictureVariant);
+            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "图片不存在");
+        }
+        return pictureVariant;
+    }
+
+    private boolean isPictureExist(Long pictureId) {
+        return pictureMapper.exists(new QueryWrapper<Picture>().eq("id", pictureId));
+    }
+
+    /**
+     * 删除刚生成、还没有返回给任何请求的变体文件（不需要延迟）
+     */
+    private void deleteVariantFile(PictureVariant pictureVariant) {
+        objectDeleteTaskService.enqueueByUrls(Collections.singletonList(pictureVariant.getUrl()));
+    }
+
+    private static String buildVariantKey(Long pictureId, int widthStep, String variantFormat) {
+        return pictureId + ":" + widthStep + ":" + variantFormat;
+    }
+
+    /**
+     * 优雅停机
+     */
+    @PreDestroy
+    public void close() {
+        variantExecutor.shutdown();
+    }
+}
@@ -2,19 +2,26 @@ package com.ping.pingpicturebackend.service.impl;
 
 import cn.hutool.core.util.NumberUtil;
 import cn.hutool.core.util.ObjUtil;
-import cn.hutool.json.JSONUtil;
+import cn.hutool.core.util.StrUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.ping.pingpicture.infrastructure.exception.BusinessException;
 import com.ping.pingpicture.infrastructure.exception.ErrorCode;
 import com.ping.pingpicture.infrastructure.exception.ThrowUtils;
 import com.ping.pingpicture.infrastructure.mapper.SpaceMapper;
+import com.ping.pingpicture.infrastructure.mapper.SpaceStatMapper;
+import com.ping.pingpicture.infrastructure.mapper.SpaceUserDayStatMapper;
+import com.ping.pingpicturebackend.manager.quota.SpaceQuotaManager;
+import com.ping.pingpicturebackend.manager.quota.SpaceUsage;
+import com.ping.pingpicturebackend.manager.stat.SpaceStatManager;
+import com.ping.pingpicturebackend.manager.tag.PictureTagIndexManager;
 import com.ping.pingpicturebackend.model.dto.space.analyze.*;
-import com.ping.pingpicturebackend.model.entity.Picture;
 import com.ping.pingpicturebackend.model.entity.Space;
+import com.ping.pingpicturebackend.model.entity.SpaceStat;
+import com.ping.pingpicturebackend.model.entity.SpaceUserDayStat;
 import com.ping.pingpicturebackend.model.entity.User;
+import com.ping.pingpicturebackend.model.enums.SpaceStatTypeEnum;
 import com.ping.pingpicturebackend.model.vo.space.analyze.*;
-import com.ping.pingpicturebackend.service.PictureService;
 import com.ping.pingpicturebackend.service.SpaceAnalyzeService;
 import com.ping.pingpicturebackend.service.SpaceService;
 import com.ping.pingpicturebackend.service.UserService;
@@ -27,6 +34,8 @@ import java.util.stream.Collectors;
 
 /**
  * 空间分析服务接口实现
+ * <p>
+ * 分类、标签、大小区间和上传趋势读取 SpaceStatManager 维护的预聚合统计表，不再扫描图片表
  */
 @Slf4j
 @Service
@@ -40,7 +49,16 @@ public class SpaceAnalyzeServiceImpl extends ServiceImpl<SpaceMapper, Space>
     private SpaceService spaceService;
 
     @Resource
-    private PictureService pictureService;
+    private SpaceStatMapper spaceStatMapper;
+
+    @Resource
+    private SpaceUserDayStatMapper spaceUserDayStatMapper;
+
+    @Resource
+    private PictureTagIndexManager pictureTagIndexManager;
+
+    @Resource
+    private SpaceQuotaManager spaceQuotaManager;
 
     /**
      * 获取空间使用分析数据
@@ -59,17 +77,13 @@ public class SpaceAnalyzeServiceImpl extends ServiceImpl<SpaceMapper, Space>
         if (queryAll || queryPublic) {
             // 查询全部空间或公共图库：仅系统管理员可访问
             checkSpaceAnalyzeAuth(spaceUsageAnalyzeRequest, loginUser);
-            // 统计公共图库的资源使用
-            QueryWrapper<Picture> queryWrapper = new QueryWrapper<>();
-            queryWrapper.select("picSize");
-            // 补充查询范围
-            fillAnalyzeQueryWrapper(spaceUsageAnalyzeRequest, queryWrapper);
-            // 直接返回 Object 对象提高性能
-            List<Object> pictureObjList = pictureService.getBaseMapper().selectObjs(queryWrapper);
-            long usedSize = pictureObjList.stream()
-                    .mapToLong(obj -> obj instanceof Long ? (Long) obj : 0)
-                    .sum();
-            long usedCount = pictureObjList.size();
+            // 每张图片恰好计入一个分类，汇总分类统计即为资源使用
+            long usedSize = 0;
+            long usedCount = 0;
+            for (SpaceStat spaceStat : listSpaceStat(spaceUsageAnalyzeRequest, SpaceStatTypeEnum.CATEGORY)) {
+                usedSize += spaceStat.getTotalSize();
+                usedCount += spaceStat.getPictureCount();
+            }
             // 封装返回结果
             SpaceUsageAnalyzeResponse spaceUsageAnalyzeResponse = new SpaceUsageAnalyzeResponse();
             spaceUsageAnalyzeResponse.setUsedSize(usedSize);
@@ -88,6 +102,12 @@ public class SpaceAnalyzeServiceImpl extends ServiceImpl<SpaceMapper, Space>
             ThrowUtils.throwIf(space == null, ErrorCode.NOT_FOUND_ERROR, "空间不存在");
             // 仅空间管理员可访问
             checkSpaceAnalyzeAuth(spaceUsageAnalyzeRequest, loginUser);
+            // space 表中的已用额度异步写回，优先使用实时值
+            SpaceUsage spaceUsage = spaceQuotaManager.getUsage(spaceId);
+            if (spaceUsage != null) {
+                space.setTotalCount(spaceUsage.getTotalCount());
+                space.setTotalSize(spaceUsage.getTotalSize());
+            }
             // 构造返回结果
             SpaceUsageAnalyzeResponse spaceUsageAnalyzeResponse = new SpaceUsageAnalyzeResponse();
             spaceUsageAnalyzeResponse.setUsedSize(space.getTotalSize());
@@ -117,27 +137,12 @@ public class SpaceAnalyzeServiceImpl extends ServiceImpl<SpaceMapper, Space>
         ThrowUtils.throwIf(spaceCategoryAnalyzeRequest == null, ErrorCode.PARAMS_ERROR);
         // 2. 校验权限
         checkSpaceAnalyzeAuth(spaceCategoryAnalyzeRequest, loginUser);
-        // 3. 构造查询条件
-        QueryWrapper<Picture> queryWrapper = new QueryWrapper<>();
-        fillAnalyzeQueryWrapper(spaceCategoryAnalyzeRequest, queryWrapper);
-        // 使用 MyBatis-Plus 分组查询
-        queryWrapper.select("category",
-                        "count(*) as count",
-                        "sum(picSize) as totalSize")
-                .groupBy("category");
-        // 4. 查询并转换结果
-        return pictureService.getBaseMapper().selectMaps(queryWrapper)
+        // 3. 读取分类统计并转换结果
+        return listSpaceStat(spaceCategoryAnalyzeRequest, SpaceStatTypeEnum.CATEGORY)
                 .stream()
-                .map(result -> {
-                    String category = result.get("category") != null ? result.get("category").toString() : "未分类";
-                    // 计数和大小：确保非null，否则给0
-                    Long count = Optional.ofNullable(result.get("count"))
-                            .map(num -> ((Number) num).longValue())
-                            .orElse(0L);
-                    Long totalSize = Optional.ofNullable(result.get("totalSize"))
-                            .map(num -> ((Number) num).longValue())
-                            .orElse(0L);
-                    return new SpaceCategoryAnalyzeResponse(category, count, totalSize);
+                .map(spaceStat -> {
+                    String category = StrUtil.isNotEmpty(spaceStat.getStatKey()) ? spaceStat.getStatKey() : "未分类";
+                    return new SpaceCategoryAnalyzeResponse(category, spaceStat.getPictureCount(), spaceStat.getTotalSize());
                 })
                 .collect(Collectors.toList());
     }
@@ -155,24 +160,19 @@ public class SpaceAnalyzeServiceImpl extends ServiceImpl<SpaceMapper, Space>
         ThrowUtils.throwIf(spaceTagAnalyzeRequest == null, ErrorCode.PARAMS_ERROR);
         // 2. 校验权限
         checkSpaceAnalyzeAuth(spaceTagAnalyzeRequest, loginUser);
-        // 3. 构造查询条件
-        QueryWrapper<Picture> queryWrapper = new QueryWrapper<>();
-        fillAnalyzeQueryWrapper(spaceTagAnalyzeRequest, queryWrapper);
-        // 4. 查询所有符合条件的结果 - 标签
-        queryWrapper.select("tags");
-        List<String> tagsJsonList = pictureService.getBaseMapper().selectObjs(queryWrapper)
-                .stream()
-                .filter(ObjUtil::isNotNull)
-                .map(Object::toString)
-                // 进一步过滤空的 JSON 数组字符串 "[]" 或空字符串 " "
-                .filter(tag -> !tag.trim().isEmpty())
-                .filter(tag -> !"[]".equals(tag.trim()))
-                .collect(Collectors.toList());
-        // 5. 合并所有标签并统计使用次数
-        Map<String, Long> tagCountMap = tagsJsonList.stream()
-                .flatMap(tagsJson -> JSONUtil.toList(tagsJson, String.class).stream())
-                .collect(Collectors.groupingBy(tag -> tag, Collectors.counting()));
-        // 6. 根据使用次数降序排序标签
+        // 3. 统计标签使用次数：单个作用域直接读位图基数，全空间或索引不可用时读取标签统计
+        Map<String, Long> tagCountMap = null;
+        if (!spaceTagAnalyzeRequest.isQueryAll()) {
+            Long spaceId = spaceTagAnalyzeRequest.isQueryPublic() ? null : spaceTagAnalyzeRequest.getSpaceId();
+            tagCountMap = pictureTagIndexManager.countByTag(spaceId);
+        }
+        if (tagCountMap == null) {
+            tagCountMap = new HashMap<>();
+            for (SpaceStat spaceStat : listSpaceStat(spaceTagAnalyzeRequest, SpaceStatTypeEnum.TAG)) {
+                tagCountMap.put(spaceStat.getStatKey(), spaceStat.getPictureCount());
+            }
+        }
+        // 4. 根据使用次数降序排序标签
         return tagCountMap.entrySet().stream()
                 // 降序排列
                 .sorted((e1, e2) -> Long.compare(e2.getValue(), e1.getValue()))
@@ -193,37 +193,16 @@ public class SpaceAnalyzeServiceImpl extends ServiceImpl<SpaceMapper, Space>
         ThrowUtils.throwIf(spaceSizeAnalyzeRequest == null, ErrorCode.PARAMS_ERROR);
         // 2. 校验权限
         checkSpaceAnalyzeAuth(spaceSizeAnalyzeRequest, loginUser);
-        // 3. 构造查询条件
-        QueryWrapper<Picture> queryWrapper = new QueryWrapper<>();
-        fillAnalyzeQueryWrapper(spaceSizeAnalyzeRequest, queryWrapper);
-        // 4. 查询所有符合条件的结果 - 图片大小
-        queryWrapper.select("picSize");
-        List<Long> picSizeList = pictureService.getBaseMapper().selectObjs(queryWrapper)
-                .stream()
-                .filter(ObjUtil::isNotNull)
-                .map(size -> ((Number) size).longValue())
-                .collect(Collectors.toList());
-        // 5. 使用有序 Map 按图片范围大小分段统计数量："<100KB"、"100KB-500KB"、"500KB-1MB"、">1MB"
-        // 一次遍历统计所有范围
-        long[] counts = new long[4];
-        // 0:<100KB, 1:100-500KB, 2:500KB-1MB, 3:>1MB
-        for (Long size : picSizeList) {
-            if (size < 100 * 1024) {
-                counts[0]++;
-            } else if (size < 500 * 1024) {
-                counts[1]++;
-            } else if (size < 1024 * 1024) {
-                counts[2]++;
-            } else {
-                counts[3]++;
-            }
-        }
+        // 3. 使用有序 Map 按图片范围大小分段统计数量："<100KB"、"100KB-500KB"、"500KB-1MB"、">1MB"
         LinkedHashMap<String, Long> sizeRangesMap = new LinkedHashMap<>();
-        sizeRangesMap.put("<100KB", counts[0]);
-        sizeRangesMap.put("100KB-500KB", counts[1]);
-        sizeRangesMap.put("500KB-1MB", counts[2]);
-        sizeRangesMap.put(">1MB", counts[3]);
-        // 6. 返回分段统计
+        for (String sizeRange : SpaceStatManager.SIZE_RANGE_LIST) {
+            sizeRangesMap.put(sizeRange, 0L);
+        }
+        // 4. 读取大小区间统计
+        for (SpaceStat spaceStat : listSpaceStat(spaceSizeAnalyzeRequest, SpaceStatTypeEnum.SIZE)) {
+            sizeRangesMap.computeIfPresent(spaceStat.getStatKey(), (key, count) -> count + spaceStat.getPictureCount());
+        }
+        // 5. 返回分段统计
         return sizeRangesMap.entrySet().stream()
                 .map(entry -> new SpaceSizeAnalyzeResponse(entry.getKey(), entry.getValue()))
                 .collect(Collectors.toList());
@@ -242,8 +221,8 @@ public class SpaceAnalyzeServiceImpl extends ServiceImpl<SpaceMapper, Space>
         ThrowUtils.throwIf(spaceUserAnalyzeRequest == null, ErrorCode.PARAMS_ERROR);
         // 2. 校验权限
         checkSpaceAnalyzeAuth(spaceUserAnalyzeRequest, loginUser);
-        // 3. 构造查询条件
-        QueryWrapper<Picture> queryWrapper = new QueryWrapper<>();
+        // 3. 构造查询条件（按天预聚合的上传统计）
+        QueryWrapper<SpaceUserDayStat> queryWrapper = new QueryWrapper<>();
         fillAnalyzeQueryWrapper(spaceUserAnalyzeRequest, queryWrapper);
         // 4. 指定查询用户
         Long userId = spaceUserAnalyzeRequest.getUserId();
@@ -252,20 +231,20 @@ public class SpaceAnalyzeServiceImpl extends ServiceImpl<SpaceMapper, Space>
         String timeDimension = spaceUserAnalyzeRequest.getTimeDimension();
         switch (timeDimension) {
             case "day":
-                queryWrapper.select("DATE_FORMAT(createTime, '%Y-%m-%d') AS period", "COUNT(*) AS count");
+                queryWrapper.select("DATE_FORMAT(statDate, '%Y-%m-%d') AS period", "SUM(pictureCount) AS count");
                 break;
             case "week":
-                queryWrapper.select("YEARWEEK(createTime) AS period", "COUNT(*) AS count");
+                queryWrapper.select("YEARWEEK(statDate) AS period", "SUM(pictureCount) AS count");
                 break;
             case "month":
-                queryWrapper.select("DATE_FORMAT(createTime, '%Y-%m') AS period", "COUNT(*) AS count");
+                queryWrapper.select("DATE_FORMAT(statDate, '%Y-%m') AS period", "SUM(pictureCount) AS count");
                 break;
             default:
                 throw new BusinessException(ErrorCode.PARAMS_ERROR, "不支持的时间维度");
         }
         // 6. 按时间维度分组统计上传数量
-        queryWrapper.groupBy("period").orderByAsc("period");
-        List<Map<String, Object>> queryResult = pictureService.getBaseMapper().selectMaps(queryWrapper);
+        queryWrapper.gt("pictureCount", 0).groupBy("period").orderByAsc("period");
+        List<Map<String, Object>> queryResult = spaceUserDayStatMapper.selectMaps(queryWrapper);
         return queryResult.stream()
                 .map(result -> {
                     String period = result.get("period").toString();
@@ -298,14 +277,31 @@ public class SpaceAnalyzeServiceImpl extends ServiceImpl<SpaceMapper, Space>
         return spaceService.list(queryWrapper);
     }
 
+    /**
+     * 读取分析范围内某一类型的统计，全空间分析时按统计项汇总各空间
+     *
+     * @param spaceAnalyzeRequest 分析请求
+     * @param statTypeEnum        统计类型
+     * @return 统计列表（只包含数量大于 0 的统计项）
+     */
+    private List<SpaceStat> listSpaceStat(SpaceAnalyzeRequest spaceAnalyzeRequest, SpaceStatTypeEnum statTypeEnum) {
+        QueryWrapper<SpaceStat> queryWrapper = new QueryWrapper<>();
+        fillAnalyzeQueryWrapper(spaceAnalyzeRequest, queryWrapper);
+        queryWrapper.select("statKey", "SUM(pictureCount) AS pictureCount", "SUM(totalSize) AS totalSize")
+                .eq("statType", statTypeEnum.getValue())
+                .gt("pictureCount", 0)
+                .groupBy("statKey");
+        return spaceStatMapper.selectList(queryWrapper);
+    }
+
     /**
      * 根据分析范围填充查询对象
      *
      * @param spaceAnalyzeRequest 分析请求
-     * @param queryWrapper        查询对象 - 图片
+     * @param queryWrapper        查询对象 - 统计表
      */
     private void fillAnalyzeQueryWrapper(SpaceAnalyzeRequest spaceAnalyzeRequest,
-                                         QueryWrapper<Picture> queryWrapper) {
+                                         QueryWrapper<?> queryWrapper) {
         // 全空间分析
         boolean queryAll = spaceAnalyzeRequest.isQueryAll();
         if (queryAll) {
@@ -314,7 +310,7 @@ public class SpaceAnalyzeServiceImpl extends ServiceImpl<SpaceMapper, Space>
         // 公共图库分析
         boolean queryPublic = spaceAnalyzeRequest.isQueryPublic();
         if (queryPublic) {
-            queryWrapper.isNull("spaceId");
+            queryWrapper.eq("spaceId", SpaceStatManager.PUBLIC_SPACE_ID);
             return;
         }
         // 指定空间分析
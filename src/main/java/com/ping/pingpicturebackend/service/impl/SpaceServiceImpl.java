@@ -13,6 +13,11 @@ import com.ping.pingpicture.infrastructure.exception.ThrowUtils;
 import com.ping.pingpicture.infrastructure.mapper.PictureMapper;
 import com.ping.pingpicture.infrastructure.mapper.SpaceMapper;
 import com.ping.pingpicture.infrastructure.mapper.SpaceUserMapper;
+import com.ping.pingpicturebackend.manager.cache.UserVOLoader;
+import com.ping.pingpicturebackend.manager.event.PictureChangeEventPublisher;
+import com.ping.pingpicturebackend.manager.event.model.PictureChangeTypeEnum;
+import com.ping.pingpicturebackend.manager.quota.SpaceQuotaManager;
+import com.ping.pingpicturebackend.manager.quota.SpaceUsage;
 import com.ping.pingpicturebackend.model.dto.space.SpaceAddRequest;
 import com.ping.pingpicturebackend.model.dto.space.SpaceEditRequest;
 import com.ping.pingpicturebackend.model.dto.space.SpaceQueryRequest;
@@ -25,6 +30,9 @@ import com.ping.pingpicturebackend.model.enums.SpaceRoleEnum;
 import com.ping.pingpicturebackend.model.enums.SpaceTypeEnum;
 import com.ping.pingpicturebackend.model.vo.SpaceVO;
 import com.ping.pingpicturebackend.model.vo.UserVO;
+import com.ping.pingpicturebackend.service.ObjectDeleteTaskService;
+import com.ping.pingpicturebackend.service.PictureBlobService;
+import com.ping.pingpicturebackend.service.PictureVariantService;
 import com.ping.pingpicturebackend.service.SpaceService;
 import com.ping.pingpicturebackend.service.UserService;
 import lombok.extern.slf4j.Slf4j;
@@ -58,6 +66,24 @@ public class SpaceServiceImpl extends ServiceImpl<SpaceMapper, Space>
     @Resource
     private TransactionTemplate transactionTemplate;
 
+    @Resource
+    private PictureChangeEventPublisher pictureChangeEventPublisher;
+
+    @Resource
+    private UserVOLoader userVOLoader;
+
+    @Resource
+    private PictureBlobService pictureBlobService;
+
+    @Resource
+    private PictureVariantService pictureVariantService;
+
+    @Resource
+    private ObjectDeleteTaskService objectDeleteTaskService;
+
+    @Resource
+    private SpaceQuotaManager spaceQuotaManager;
+
     /**
      * 添加空间
      *
@@ -201,11 +227,16 @@ public class SpaceServiceImpl extends ServiceImpl<SpaceMapper, Space>
         if (spaceVO == null) {
             return null;
         }
+        // space 表中的已用额度异步写回，优先使用实时值
+        SpaceUsage spaceUsage = spaceQuotaManager.getUsage(space.getId());
+        if (spaceUsage != null) {
+            spaceVO.setTotalCount(spaceUsage.getTotalCount());
+            spaceVO.setTotalSize(spaceUsage.getTotalSize());
+        }
         // 关联查询用户信息
         Long userId = space.getUserId();
         if (userId != null && userId > 0) {
-            User user = userService.getById(userId);
-            UserVO userVO = userService.getUserVO(user);
+            UserVO userVO = userVOLoader.load(userId);
             spaceVO.setUser(userVO);
         }
         return spaceVO;
@@ -235,19 +266,10 @@ public class SpaceServiceImpl extends ServiceImpl<SpaceMapper, Space>
                 .map(Space::getUserId)
                 .filter(Objects::nonNull)  // 过滤null值
                 .collect(Collectors.toSet());
-        // 3. 批量查询用户
-        Map<Long, List<User>> userIdUserListMap = userService.listByIds(userIdSet)
-                .stream()
-                .collect(Collectors.groupingBy(User::getId));
+        // 3. 批量查询用户（优先走缓存）
+        Map<Long, UserVO> userIdUserVOMap = userVOLoader.loadAll(userIdSet);
         // 4. 填充用户信息
-        spaceVOList.forEach(spaceVO -> {
-            Long userId = spaceVO.getUserId();
-            User user = null;
-            if (userIdUserListMap.containsKey(userId)) {
-                user = userIdUserListMap.get(userId).get(0);
-            }
-            spaceVO.setUser(userService.getUserVO(user));
-        });
+        spaceVOList.forEach(spaceVO -> spaceVO.setUser(userIdUserVOMap.get(spaceVO.getUserId())));
         spaceVOPage.setRecords(spaceVOList);
         return spaceVOPage;
     }
@@ -318,16 +340,41 @@ public class SpaceServiceImpl extends ServiceImpl<SpaceMapper, Space>
         ThrowUtils.throwIf(oldSpace == null, ErrorCode.NOT_FOUND_ERROR, "空间不存在");
         // 仅本人或管理员可删除
         checkSpaceAuth(oldSpace, loginUser);
-        // 删除空间 - 添加事务同时删除空间下的图片
+        // 删除空间 - 添加事务同时删除空间下的图片，图片文件的删除任务一起提交
         transactionTemplate.executeWithoutResult(status -> {
             boolean result = removeById(spaceId);
             ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "删除空间失败");
             // 删除空间下的图片
             QueryWrapper<Picture> queryWrapper = new QueryWrapper<>();
             queryWrapper.eq("spaceId", spaceId);
+            List<Picture> pictureList = pictureMapper.selectList(new QueryWrapper<Picture>()
+                    .select("id", "blobId", "url", "thumbnailUrl", "originalUrl")
+                    .eq("spaceId", spaceId));
+            List<Long> pictureIdList = pictureList.stream()
+                    .map(Picture::getId)
+                    .collect(Collectors.toList());
             int deletedCount = pictureMapper.delete(queryWrapper);
             log.info("删除空间时删除了 {} 张图片，spaceId: {}", deletedCount, spaceId);
+            // 按需生成的变体
+            pictureVariantService.removeByPictureIds(pictureIdList);
+            List<String> legacyUrlList = new ArrayList<>();
+            for (Picture picture : pictureList) {
+                if (picture.getBlobId() != null) {
+                    // 按内容去重的图片：每张图片释放一次文件引用，最后一个引用释放时删除文件
+                    pictureBlobService.release(picture.getBlobId());
+                } else {
+                    // 历史图片：文件不会被其他图片共用，直接删除
+                    legacyUrlList.add(picture.getUrl());
+                    legacyUrlList.add(picture.getThumbnailUrl());
+                    legacyUrlList.add(picture.getOriginalUrl());
+                }
+            }
+            objectDeleteTaskService.enqueueByUrls(legacyUrlList);
+            // 发布图片变更事件（事务提交后生效）
+            pictureChangeEventPublisher.publish(PictureChangeTypeEnum.DELETE, pictureIdList, spaceId, null);
         });
+        // 清除空间额度
+        spaceQuotaManager.remove(spaceId);
     }
 
     /**
@@ -11,6 +11,7 @@ import com.ping.pingpicture.infrastructure.exception.BusinessException;
 import com.ping.pingpicture.infrastructure.exception.ErrorCode;
 import com.ping.pingpicture.infrastructure.exception.ThrowUtils;
 import com.ping.pingpicture.infrastructure.mapper.SpaceUserMapper;
+import com.ping.pingpicturebackend.manager.cache.UserVOLoader;
 import com.ping.pingpicturebackend.model.dto.spaceuser.SpaceUserAddRequest;
 import com.ping.pingpicturebackend.model.dto.spaceuser.SpaceUserEditRequest;
 import com.ping.pingpicturebackend.model.dto.spaceuser.SpaceUserQueryRequest;
@@ -49,6 +50,9 @@ public class SpaceUserServiceImpl extends ServiceImpl<SpaceUserMapper, SpaceUser
     @Resource
     private UserService userService;
 
+    @Resource
+    private UserVOLoader userVOLoader;
+
     /**
      * 创建空间成员
      *
@@ -139,8 +143,7 @@ public class SpaceUserServiceImpl extends ServiceImpl<SpaceUserMapper, SpaceUser
         // 关联查询用户信息
         Long userId = spaceUser.getUserId();
         if (userId != null && userId > 0) {
-            User user = userService.getById(userId);
-            UserVO userVO = userService.getUserVO(user);
+            UserVO userVO = userVOLoader.load(userId);
             spaceUserVO.setUser(userVO);
         }
         // 关联查询空间信息
@@ -178,9 +181,8 @@ public class SpaceUserServiceImpl extends ServiceImpl<SpaceUserMapper, SpaceUser
                 .map(SpaceUser::getSpaceId)
                 .filter(ObjUtil::isNotEmpty)
                 .collect(Collectors.toSet());
-        // 查询用户信息
-        Map<Long, List<User>> userIdUserListMap = userService.listByIds(userIdSet).stream()
-                .collect(Collectors.groupingBy(User::getId));
+        // 查询用户信息（优先走缓存）
+        Map<Long, UserVO> userIdUserVOMap = userVOLoader.loadAll(userIdSet);
         // 查询空间信息
         Map<Long, List<Space>> spaceIdSpaceListMap = spaceService.listByIds(spaceIdSet).stream()
                 .collect(Collectors.groupingBy(Space::getId));
@@ -189,11 +191,7 @@ public class SpaceUserServiceImpl extends ServiceImpl<SpaceUserMapper, SpaceUser
             Long userId = spaceUserVO.getUserId();
             Long spaceId = spaceUserVO.getSpaceId();
             // 填充用户信息
-            User user = null;
-            if (userIdUserListMap.containsKey(userId)) {
-                user = userIdUserListMap.get(userId).get(0);
-            }
-            spaceUserVO.setUser(userService.getUserVO(user));
+            spaceUserVO.setUser(userIdUserVOMap.get(userId));
             // 填充空间信息
             Space space = null;
             if (spaceIdSpaceListMap.containsKey(spaceId)) {
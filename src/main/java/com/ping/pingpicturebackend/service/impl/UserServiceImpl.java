@@ -15,6 +15,7 @@ import com.ping.pingpicturebackend.model.enums.UserRoleEnum;
 import com.ping.pingpicturebackend.model.vo.LoginUserVO;
 import com.ping.pingpicturebackend.model.vo.UserVO;
 import com.ping.pingpicturebackend.manager.auth.satoken.DeviceUtils;
+import com.ping.pingpicturebackend.manager.cache.UserVOLoader;
 import com.ping.pingpicturebackend.service.UserService;
 import com.ping.pingpicture.infrastructure.mapper.UserMapper;
 import lombok.extern.slf4j.Slf4j;
@@ -44,6 +45,9 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User>
     @Resource
     private UserNameGenerator userNameGenerator;
 
+    @Resource
+    private UserVOLoader userVOLoader;
+
     /**
      * 用户注册
      *
@@ -129,6 +133,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User>
         // Sa-token 登录，并指定设备，同端登录互斥
         StpUtil.login(user.getId(), DeviceUtils.getRequestDevice(request));
         StpUtil.getSession().set(USER_LOGIN_STATE, user);
+        // 登录时刷新用户信息缓存，保证展示的是最新资料
+        userVOLoader.invalidate(user.getId());
         return this.getLoginUserVO(user);
     }
 
@@ -0,0 +1,144 @@
+package com.ping.pingpicture.infrastructure.api.storage;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.IoUtil;
+import com.ping.pingpicture.infrastructure.config.LocalStorageConfig;
+import com.ping.pingpicture.infrastructure.exception.BusinessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalObjectStorageTest {
+
+    private File rootDir;
+
+    private LocalObjectStorage localObjectStorage;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        rootDir = Files.createTempDirectory("local_storage_").toFile();
+        LocalStorageConfig localStorageConfig = new LocalStorageConfig();
+        localStorageConfig.setRootPath(rootDir.getAbsolutePath());
+        localStorageConfig.setHost("http://localhost:8123/api/file/object/");
+        localObjectStorage = new LocalObjectStorage();
+        ReflectionTestUtils.setField(localObjectStorage, "localStorageConfig", localStorageConfig);
+        localObjectStorage.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        FileUtil.del(rootDir);
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    private byte[] read(String key, long offset, long length) throws Exception {
+        try (StorageObject storageObject = localObjectStorage.getObject(key, offset, length)) {
+            return IoUtil.readBytes(storageObject.getInputStream());
+        }
+    }
+
+    @Test
+    void putGetAndDelete() throws Exception {
+        byte[] bytes = randomBytes(3 * 1024 * 1024 + 17);
+        String key = "public/1/a.bin";
+        localObjectStorage.putObject(key, new ByteArrayInputStream(bytes), bytes.length);
+        assertArrayEquals(bytes, read(key, 0, -1));
+        assertArrayEquals(Arrays.copyOfRange(bytes, 100, 200), read(key, 100, 100));
+        assertArrayEquals(Arrays.copyOfRange(bytes, bytes.length - 10, bytes.length), read(key, bytes.length - 10, 100));
+        try (StorageObject storageObject = localObjectStorage.getObject(key, 100, 100)) {
+            assertEquals(100, storageObject.getContentLength());
+            assertEquals(bytes.length, storageObject.getTotalLength());
+        }
+        localObjectStorage.deleteObject(key);
+        assertNull(localObjectStorage.getObject(key));
+    }
+
+    @Test
+    void rejectWrongContentLength() {
+        byte[] bytes = randomBytes(100);
+        assertThrows(Exception.class, () ->
+                localObjectStorage.putObject("a.bin", new ByteArrayInputStream(bytes), 200));
+        assertThrows(BusinessException.class, () -> localObjectStorage.getObject("../../../etc/passwd"));
+    }
+
+    @Test
+    void convertBetweenUrlAndKey() {
+        String url = localObjectStorage.getUrl("space/1/a.png");
+        assertEquals("http://localhost:8123/api/file/object/space/1/a.png", url);
+        assertEquals("space/1/a.png", localObjectStorage.getKey(url));
+    }
+
+    @Test
+    void putPictureWithVariants() throws Exception {
+        BufferedImage image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt(0xFFFFFF));
+            }
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", outputStream);
+        byte[] bytes = outputStream.toByteArray();
+        StoredPicture storedPicture = localObjectStorage.putPicture("public/1/b.png",
+                new ByteArrayInputStream(bytes), bytes.length);
+        assertEquals("public/1/b.png", storedPicture.getKey());
+        StoredVariant compressed = storedPicture.getCompressed();
+        assertNotNull(compressed);
+        assertEquals("public/1/b_compressed.jpg", compressed.getKey());
+        assertTrue(compressed.getSize() < bytes.length);
+        StoredVariant thumbnail = storedPicture.getThumbnail();
+        assertNotNull(thumbnail);
+        assertEquals("public/1/b_thumbnail.png", thumbnail.getKey());
+        assertEquals(256, thumbnail.getWidth());
+        assertEquals(192, thumbnail.getHeight());
+        try (StorageObject storageObject = localObjectStorage.getObject(thumbnail.getKey())) {
+            assertEquals(thumbnail.getSize(), storageObject.getTotalLength());
+        }
+    }
+
+    @Test
+    void listObjectsPagesThroughShards() throws Exception {
+        Set<String> expectedKeySet = new HashSet<>();
+        for (int i = 0; i < 300; i++) {
+            String key = "public/1/p" + i + ".png";
+            localObjectStorage.putObject(key, new ByteArrayInputStream(new byte[]{1}), 1);
+            expectedKeySet.add(key);
+        }
+        localObjectStorage.putObject("space/2/s.png", new ByteArrayInputStream(new byte[]{1}), 1);
+        List<String> keyList = new ArrayList<>();
+        String marker = null;
+        StorageObjectListing storageObjectListing;
+        do {
+            storageObjectListing = localObjectStorage.listObjects("public/", marker, 7);
+            assertTrue(storageObjectListing.getObjectList().size() <= 7);
+            storageObjectListing.getObjectList().forEach(objectSummary -> keyList.add(objectSummary.getKey()));
+            marker = storageObjectListing.getNextMarker();
+        } while (storageObjectListing.isTruncated());
+        // 每个对象恰好列出一次，不包含其他前缀
+        assertEquals(expectedKeySet.size(), keyList.size());
+        assertEquals(expectedKeySet, new HashSet<>(keyList));
+        assertThrows(BusinessException.class, () -> localObjectStorage.listObjects("public/", "public/1/p1.png", 7));
+    }
+}
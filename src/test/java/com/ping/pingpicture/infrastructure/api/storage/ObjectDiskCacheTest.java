@@ -0,0 +1,126 @@
+package com.ping.pingpicture.infrastructure.api.storage;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.IoUtil;
+import com.ping.pingpicture.infrastructure.config.ObjectCacheConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObjectDiskCacheTest {
+
+    private static final String KEY = "public/1/a.png";
+
+    private File rootDir;
+
+    private final byte[] content = randomBytes(200 * 1024);
+
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    private final ObjectDiskCache.ObjectLoader loader = key -> {
+        loadCount.incrementAndGet();
+        return new StorageObject(new ByteArrayInputStream(content), content.length, content.length, null);
+    };
+
+    @BeforeEach
+    void setUp() throws Exception {
+        rootDir = Files.createTempDirectory("object_cache_").toFile();
+    }
+
+    @AfterEach
+    void tearDown() {
+        FileUtil.del(rootDir);
+    }
+
+    private ObjectDiskCache newCache() throws Exception {
+        ObjectCacheConfig objectCacheConfig = new ObjectCacheConfig();
+        objectCacheConfig.setPath(rootDir.getAbsolutePath());
+        objectCacheConfig.setMaxSize(10L * 1024 * 1024);
+        ObjectDiskCache objectDiskCache = new ObjectDiskCache();
+        ReflectionTestUtils.setField(objectDiskCache, "objectCacheConfig", objectCacheConfig);
+        objectDiskCache.init();
+        return objectDiskCache;
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] read(StorageObject storageObject) throws Exception {
+        try (StorageObject object = storageObject) {
+            return IoUtil.readBytes(object.getInputStream());
+        }
+    }
+
+    private List<File> cacheFiles() {
+        return FileUtil.loopFiles(rootDir).stream()
+                .filter(file -> file.getName().endsWith(".obj"))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void admitOnSecondMissAndServeFromDisk() throws Exception {
+        ObjectDiskCache objectDiskCache = newCache();
+        assertNull(objectDiskCache.open(KEY, 0, -1));
+        assertFalse(objectDiskCache.admit(KEY));
+        assertNull(objectDiskCache.open(KEY, 0, -1));
+        assertTrue(objectDiskCache.admit(KEY));
+        StorageObjectInfo objectInfo = new StorageObjectInfo(content.length, 1000L, "abc");
+        assertArrayEquals(content, read(objectDiskCache.load(KEY, objectInfo, loader)));
+        assertEquals(1, loadCount.get());
+        assertEquals(1, cacheFiles().size());
+        // 命中后不再回源
+        assertArrayEquals(content, read(objectDiskCache.open(KEY, 0, -1)));
+        assertArrayEquals(Arrays.copyOfRange(content, 100, 300), read(objectDiskCache.open(KEY, 100, 200)));
+        assertEquals("abc", objectDiskCache.getInfo(KEY).getETag());
+        assertEquals(1, loadCount.get());
+        ObjectCacheStats stats = objectDiskCache.getStats();
+        assertEquals(2, stats.getHitCount());
+        assertEquals(2, stats.getMissCount());
+        assertEquals(1, stats.getEntryCount());
+    }
+
+    @Test
+    void restoreAndValidateChecksum() throws Exception {
+        ObjectDiskCache objectDiskCache = newCache();
+        objectDiskCache.load(KEY, new StorageObjectInfo(content.length, 1000L, "abc"), loader).close();
+        // 重启后恢复索引
+        ObjectDiskCache restoredCache = newCache();
+        assertEquals(content.length, restoredCache.getInfo(KEY).getContentLength());
+        assertArrayEquals(content, read(restoredCache.open(KEY, 0, -1)));
+        // 内容损坏时丢弃缓存
+        File cacheFile = cacheFiles().get(0);
+        try (RandomAccessFile file = new RandomAccessFile(cacheFile, "rw")) {
+            file.seek(10);
+            file.write(content[10] ^ 0xFF);
+        }
+        ObjectDiskCache corruptedCache = newCache();
+        assertNull(corruptedCache.open(KEY, 0, -1));
+        assertNull(corruptedCache.getInfo(KEY));
+        assertFalse(cacheFile.exists());
+    }
+
+    @Test
+    void invalidateDeletesFile() throws Exception {
+        ObjectDiskCache objectDiskCache = newCache();
+        objectDiskCache.load(KEY, new StorageObjectInfo(content.length, 1000L, "abc"), loader).close();
+        objectDiskCache.invalidate(KEY);
+        assertNull(objectDiskCache.open(KEY, 0, -1));
+        assertTrue(cacheFiles().isEmpty());
+    }
+}
@@ -0,0 +1,99 @@
+package com.ping.pingpicturebackend.benchmark;
+
+import com.ping.pingpicture.infrastructure.utils.CieLabUtils;
+import com.ping.pingpicture.infrastructure.utils.ColorPaletteUtils.PaletteColor;
+import com.ping.pingpicture.infrastructure.utils.ColorSimilarUtils;
+import com.ping.pingpicturebackend.manager.color.PicturePaletteIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 颜色搜索基准测试：原有方式（每次比较都 Color.decode + RGB 距离 + 全量排序）vs CIELAB 主色板索引
+ * <p>
+ * 图片数量取旗舰版空间上限 10000，每张图片 5 个主色板颜色
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ColorSearchBenchmark {
+
+    @Param({"10000"})
+    private int pictureCount;
+
+    private List<String> picColorList;
+
+    private PicturePaletteIndex paletteIndex;
+
+    private final Color targetColor = Color.decode("0x4a6f8c");
+
+    private float[] singleQueryLab;
+
+    private final float[] singleQueryWeight = {1f};
+
+    private float[] multiQueryLab;
+
+    private final float[] multiQueryWeight = {0.5f, 0.3f, 0.2f};
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        picColorList = new ArrayList<>(pictureCount);
+        paletteIndex = new PicturePaletteIndex();
+        for (int i = 0; i < pictureCount; i++) {
+            List<PaletteColor> palette = new ArrayList<>();
+            float remaining = 1f;
+            for (int j = 0; j < PicturePaletteIndex.SLOTS; j++) {
+                float ratio = j == PicturePaletteIndex.SLOTS - 1 ? remaining : remaining * 0.5f;
+                palette.add(new PaletteColor(random.nextInt(0x1000000), ratio));
+                remaining -= ratio;
+            }
+            picColorList.add(String.format("0x%06x", palette.get(0).getRgb()));
+            paletteIndex.put(i, palette);
+        }
+        singleQueryLab = CieLabUtils.rgbToLab(0x4a6f8c);
+        multiQueryLab = new float[9];
+        CieLabUtils.rgbToLab(0x4a6f8c, multiQueryLab, 0);
+        CieLabUtils.rgbToLab(0xf2e6d0, multiQueryLab, 3);
+        CieLabUtils.rgbToLab(0x2d4a1e, multiQueryLab, 6);
+    }
+
+    @Benchmark
+    public List<String> colorSimilarUtils() {
+        return picColorList.stream()
+                .sorted(Comparator.comparingDouble(hexColor ->
+                        -ColorSimilarUtils.calculateSimilarity(targetColor, Color.decode(hexColor))))
+                .limit(10)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public long[] paletteIndexSingleColor() {
+        return paletteIndex.search(singleQueryLab, singleQueryWeight, 10);
+    }
+
+    @Benchmark
+    public long[] paletteIndexThreeColors() {
+        return paletteIndex.search(multiQueryLab, multiQueryWeight, 10);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ColorSearchBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,136 @@
+package com.ping.pingpicturebackend.benchmark;
+
+import cn.hutool.json.JSONUtil;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.ping.pingpicturebackend.manager.cache.codec.CacheValueCodec;
+import com.ping.pingpicturebackend.manager.cache.codec.Lz4CacheValueCodec;
+import com.ping.pingpicturebackend.manager.cache.codec.PictureVOPageCodec;
+import com.ping.pingpicturebackend.model.vo.PictureVO;
+import com.ping.pingpicturebackend.model.vo.UserVO;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图片分页缓存编解码基准测试：JSON（原有方式） vs 二进制 vs 二进制 + LZ4
+ * <p>
+ * 运行 main 方法即可，加上 -prof gc 可以对比每次操作的内存分配
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PictureVOPageCodecBenchmark {
+
+    private final CacheValueCodec<Page<PictureVO>> binaryCodec = new PictureVOPageCodec();
+
+    private final CacheValueCodec<Page<PictureVO>> lz4Codec = new Lz4CacheValueCodec<>(new PictureVOPageCodec(), 1024);
+
+    private Page<PictureVO> page;
+
+    private String json;
+
+    private byte[] binary;
+
+    private byte[] binaryLz4;
+
+    @Setup
+    public void setUp() {
+        page = buildPage(20);
+        json = JSONUtil.toJsonStr(page);
+        binary = binaryCodec.encode(page);
+        binaryLz4 = lz4Codec.encode(page);
+        System.out.printf("%n编码后大小：json = %d, binary = %d, binary + lz4 = %d%n",
+                json.getBytes(StandardCharsets.UTF_8).length, binary.length, binaryLz4.length);
+    }
+
+    @Benchmark
+    public String jsonEncode() {
+        return JSONUtil.toJsonStr(page);
+    }
+
+    @Benchmark
+    public Page<?> jsonDecode() {
+        return JSONUtil.toBean(json, Page.class);
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+        return binaryCodec.encode(page);
+    }
+
+    @Benchmark
+    public Page<PictureVO> binaryDecode() {
+        return binaryCodec.decode(binary);
+    }
+
+    @Benchmark
+    public byte[] binaryLz4Encode() {
+        return lz4Codec.encode(page);
+    }
+
+    @Benchmark
+    public Page<PictureVO> binaryLz4Decode() {
+        return lz4Codec.decode(binaryLz4);
+    }
+
+    static Page<PictureVO> buildPage(int size) {
+        List<UserVO> users = new ArrayList<>();
+        for (long i = 1; i <= 4; i++) {
+            UserVO userVO = new UserVO();
+            userVO.setId(1880000000000000000L + i);
+            userVO.setUserAccount("user" + i);
+            userVO.setUserName("用户" + i);
+            userVO.setUserAvatar("https://ping-picture-1300000000.cos.ap-shanghai.myqcloud.com/avatar/" + i + ".png");
+            userVO.setUserProfile("这个人很懒，什么都没有写");
+            userVO.setUserRole("user");
+            userVO.setCreateTime(new Date());
+            users.add(userVO);
+        }
+        List<PictureVO> records = new ArrayList<>();
+        for (long i = 0; i < size; i++) {
+            PictureVO pictureVO = new PictureVO();
+            pictureVO.setId(1890000000000000000L + i);
+            pictureVO.setUrl("https://ping-picture-1300000000.cos.ap-shanghai.myqcloud.com/public/1880000000000000001/2025-01-01_abcdefgh" + i + ".webp");
+            pictureVO.setThumbnailUrl("https://ping-picture-1300000000.cos.ap-shanghai.myqcloud.com/public/1880000000000000001/2025-01-01_abcdefgh" + i + "_thumbnail.png");
+            pictureVO.setName("风景图片" + i);
+            pictureVO.setIntroduction("一张好看的风景图片");
+            pictureVO.setCategory("素材");
+            pictureVO.setTags(Arrays.asList("风景", "高清", "壁纸"));
+            pictureVO.setPicSize(123456L + i);
+            pictureVO.setPicWidth(1920);
+            pictureVO.setPicHeight(1080);
+            pictureVO.setPicScale(1.78);
+            pictureVO.setPicFormat("webp");
+            UserVO userVO = users.get((int) (i % users.size()));
+            pictureVO.setUserId(userVO.getId());
+            pictureVO.setCreateTime(new Date());
+            pictureVO.setEditTime(new Date());
+            pictureVO.setUpdateTime(new Date());
+            pictureVO.setUser(userVO);
+            pictureVO.setPicColor("0x4a6f8c");
+            records.add(pictureVO);
+        }
+        Page<PictureVO> page = new Page<>(1, size, 1000);
+        page.setRecords(records);
+        return page;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PictureVOPageCodecBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,54 @@
+package com.ping.pingpicturebackend.manager.cache.codec;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.ping.pingpicturebackend.model.vo.PictureVO;
+import com.ping.pingpicturebackend.model.vo.UserVO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PictureVOPageCodecTest {
+
+    @Test
+    void roundTrip() {
+        UserVO userVO = new UserVO();
+        userVO.setId(10L);
+        userVO.setUserName("测试用户");
+        userVO.setCreateTime(new Date(1700000000000L));
+        List<PictureVO> records = new ArrayList<>();
+        for (long i = 1; i <= 3; i++) {
+            PictureVO pictureVO = new PictureVO();
+            pictureVO.setId(i);
+            pictureVO.setUrl("https://example.com/" + i + ".webp");
+            pictureVO.setTags(Arrays.asList("风景", "高清"));
+            pictureVO.setPicScale(1.5);
+            pictureVO.setPicWidth(300);
+            pictureVO.setUser(userVO);
+            records.add(pictureVO);
+        }
+        // 没有关联用户、没有权限列表的记录
+        PictureVO emptyPicture = new PictureVO();
+        emptyPicture.setPermissionList(null);
+        records.add(emptyPicture);
+        Page<PictureVO> page = new Page<>(2, 10, 34);
+        page.setRecords(records);
+
+        CacheValueCodec<Page<PictureVO>> codec = new Lz4CacheValueCodec<>(new PictureVOPageCodec(), 16);
+        Page<PictureVO> decoded = codec.decode(codec.encode(page));
+
+        assertEquals(2, decoded.getCurrent());
+        assertEquals(10, decoded.getSize());
+        assertEquals(34, decoded.getTotal());
+        assertEquals(records, decoded.getRecords());
+    }
+
+    @Test
+    void rejectUnknownFormat() {
+        assertThrows(IllegalArgumentException.class, () -> new PictureVOPageCodec().decode(new byte[]{99}));
+    }
+}
@@ -0,0 +1,39 @@
+package com.ping.pingpicturebackend.manager.color;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PictureColorIndexTest {
+
+    @Test
+    void topKOrderedByDistance() {
+        PictureColorIndex index = new PictureColorIndex();
+        index.put(1L, 0xFF0000);
+        index.put(2L, 0x00FF00);
+        index.put(3L, 0xFE0101);
+        index.put(4L, 0x800000);
+        index.put(5L, 0x0000FF);
+
+        assertArrayEquals(new long[]{1L, 3L, 4L}, index.topK(0xFF0000, 3));
+        assertEquals(5, index.topK(0xFF0000, 10).length);
+    }
+
+    @Test
+    void updateAndRemove() {
+        PictureColorIndex index = new PictureColorIndex();
+        for (long i = 1; i <= 40; i++) {
+            index.put(i, 0x000000);
+        }
+        index.put(7L, 0xFFFFFF);
+        assertArrayEquals(new long[]{7L}, index.topK(0xFFFFFF, 1));
+
+        index.remove(7L);
+        index.remove(1L);
+        assertEquals(38, index.size());
+        for (long pictureId : index.topK(0xFFFFFF, 38)) {
+            assertNotEquals(7L, pictureId);
+            assertNotEquals(1L, pictureId);
+        }
+    }
+}
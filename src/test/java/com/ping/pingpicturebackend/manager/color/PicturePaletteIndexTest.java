@@ -0,0 +1,48 @@
+package com.ping.pingpicturebackend.manager.color;
+
+import com.ping.pingpicture.infrastructure.utils.CieLabUtils;
+import com.ping.pingpicture.infrastructure.utils.ColorPaletteUtils;
+import com.ping.pingpicture.infrastructure.utils.ColorPaletteUtils.PaletteColor;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PicturePaletteIndexTest {
+
+    @Test
+    void multiColorSearch() {
+        PicturePaletteIndex index = new PicturePaletteIndex();
+        // 红 + 白
+        index.put(1L, Arrays.asList(new PaletteColor(0xFF0000, 0.6f), new PaletteColor(0xFFFFFF, 0.4f)));
+        // 红 + 黑
+        index.put(2L, Arrays.asList(new PaletteColor(0xFF0000, 0.6f), new PaletteColor(0x000000, 0.4f)));
+        // 蓝
+        index.put(3L, Collections.singletonList(new PaletteColor(0x0000FF, 1f)));
+
+        float[] queryLabs = new float[6];
+        CieLabUtils.rgbToLab(0xFE0000, queryLabs, 0);
+        CieLabUtils.rgbToLab(0x000000, queryLabs, 3);
+        assertArrayEquals(new long[]{2L, 1L, 3L}, index.search(queryLabs, new float[]{1f, 1f}, 10));
+        // 黑色权重为 0 时两张红色图片得分相同，蓝色图片仍然排在最后
+        assertEquals(3L, index.search(queryLabs, new float[]{1f, 0f}, 10)[2]);
+
+        index.remove(2L);
+        assertArrayEquals(new long[]{1L}, index.search(queryLabs, new float[]{1f, 1f}, 1));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void paletteFormatRoundTrip() {
+        List<PaletteColor> palette = Arrays.asList(new PaletteColor(0x4a6f8c, 0.55f), new PaletteColor(0x0000ff, 0.12f));
+        String text = ColorPaletteUtils.formatPalette(palette);
+        assertEquals("0x4a6f8c:0.55,0x0000ff:0.12", text);
+        List<PaletteColor> parsed = ColorPaletteUtils.parsePalette(text);
+        assertEquals(2, parsed.size());
+        assertEquals(0x4a6f8c, parsed.get(0).getRgb());
+        assertEquals(0.12f, parsed.get(1).getRatio(), 1e-6);
+    }
+}
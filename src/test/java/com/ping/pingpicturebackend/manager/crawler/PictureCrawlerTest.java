@@ -0,0 +1,92 @@
+package com.ping.pingpicturebackend.manager.crawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PictureCrawlerTest {
+
+    /**
+     * 每页 10 个地址，分布在 5 个主机上，每页包含一个与上一页重复的地址
+     */
+    private static final CrawlSource FAKE_SOURCE = new CrawlSource() {
+        @Override
+        public String getHost() {
+            return "search.example";
+        }
+
+        @Override
+        public List<String> fetchPage(String keyword, int pageIndex) {
+            if (pageIndex >= 8) {
+                return Collections.emptyList();
+            }
+            List<String> urlList = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                int n = pageIndex * 9 + i;
+                urlList.add(String.format("https://img%d.example/%s/%d.jpg", n % 5, keyword, n));
+            }
+            return urlList;
+        }
+    };
+
+    @Test
+    void stopExactlyAtTargetAcrossPages() {
+        PictureCrawler pictureCrawler = new PictureCrawler();
+        Set<String> handledUrls = ConcurrentHashMap.newKeySet();
+        // 处理函数在抓取线程中执行，重复的地址收集起来在测试线程中断言
+        List<String> duplicateUrls = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger attempts = new AtomicInteger();
+        CrawlJob crawlJob = pictureCrawler.submit(FAKE_SOURCE, "cat", 25, url -> {
+            // 每 4 个失败一个
+            if (attempts.incrementAndGet() % 4 == 0) {
+                throw new IllegalStateException("download failed");
+            }
+            if (!handledUrls.add(url)) {
+                duplicateUrls.add(url);
+            }
+        }).await();
+
+        assertTrue(duplicateUrls.isEmpty(), "重复处理：" + duplicateUrls);
+        assertEquals(25, crawlJob.getSucceededCount());
+        assertEquals(25, handledUrls.size());
+        assertEquals("finished", crawlJob.toVO().getStatus());
+        assertTrue(crawlJob.toVO().getPageCount() > 2);
+        pictureCrawler.destroy();
+    }
+
+    @Test
+    void skipUrlsProcessedByEarlierJobs() {
+        PictureCrawler pictureCrawler = new PictureCrawler();
+        pictureCrawler.submit(FAKE_SOURCE, "dog", 5, url -> {
+        }).await();
+        Set<String> handledUrls = ConcurrentHashMap.newKeySet();
+        CrawlJob crawlJob = pictureCrawler.submit(FAKE_SOURCE, "dog", 5, handledUrls::add).await();
+
+        assertEquals(5, crawlJob.getSucceededCount());
+        assertTrue(crawlJob.toVO().getDuplicateCount() >= 5);
+        pictureCrawler.destroy();
+    }
+
+    @Test
+    void bloomFilterHasNoFalseNegatives() {
+        UrlBloomFilter urlBloomFilter = new UrlBloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            urlBloomFilter.put("https://example.com/" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(urlBloomFilter.mightContain("https://example.com/" + i));
+            if (urlBloomFilter.mightContain("https://other.com/" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "误判过多：" + falsePositives);
+    }
+}
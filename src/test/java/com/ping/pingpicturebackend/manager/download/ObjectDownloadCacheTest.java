@@ -0,0 +1,121 @@
+package com.ping.pingpicturebackend.manager.download;
+
+import cn.hutool.core.io.FileUtil;
+import com.ping.pingpicture.infrastructure.api.CosManager;
+import com.ping.pingpicture.infrastructure.api.storage.CosObjectStorage;
+import com.ping.pingpicture.infrastructure.api.storage.ObjectDiskCache;
+import com.ping.pingpicture.infrastructure.config.ObjectCacheConfig;
+import com.qcloud.cos.model.COSObject;
+import com.qcloud.cos.model.ObjectMetadata;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 腾讯云存储下载经过本地磁盘缓存
+ */
+class ObjectDownloadCacheTest {
+
+    private static final String KEY = "public/1/a.png";
+
+    private final byte[] content = new byte[100 * 1024];
+
+    private File rootDir;
+
+    private CosManager cosManager;
+
+    private ObjectDownloadManager objectDownloadManager;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        new Random(1).nextBytes(content);
+        rootDir = Files.createTempDirectory("object_download_").toFile();
+        ObjectCacheConfig objectCacheConfig = new ObjectCacheConfig();
+        objectCacheConfig.setPath(rootDir.getAbsolutePath());
+        ObjectDiskCache objectDiskCache = new ObjectDiskCache();
+        ReflectionTestUtils.setField(objectDiskCache, "objectCacheConfig", objectCacheConfig);
+        objectDiskCache.init();
+
+        cosManager = mock(CosManager.class);
+        when(cosManager.getObjectMetadata(KEY)).thenAnswer(invocation -> newMetadata());
+        when(cosManager.getObject(KEY)).thenAnswer(invocation -> {
+            COSObject cosObject = new COSObject();
+            cosObject.setObjectContent(new ByteArrayInputStream(content));
+            cosObject.setObjectMetadata(newMetadata());
+            return cosObject;
+        });
+        CosObjectStorage cosObjectStorage = new CosObjectStorage();
+        ReflectionTestUtils.setField(cosObjectStorage, "cosManager", cosManager);
+        ReflectionTestUtils.setField(cosObjectStorage, "objectDiskCache", objectDiskCache);
+
+        objectDownloadManager = new ObjectDownloadManager();
+        ReflectionTestUtils.setField(objectDownloadManager, "objectStorage", cosObjectStorage);
+    }
+
+    @AfterEach
+    void tearDown() {
+        FileUtil.del(rootDir);
+    }
+
+    private ObjectMetadata newMetadata() {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentLength(content.length);
+        objectMetadata.setLastModified(new Date(1700000000000L));
+        objectMetadata.setHeader("ETag", "\"etag-1\"");
+        return objectMetadata;
+    }
+
+    private MockHttpServletResponse download() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        objectDownloadManager.download(KEY, new MockHttpServletRequest("GET", "/file/object"), response,
+                false, null);
+        return response;
+    }
+
+    @Test
+    void repeatedFullDownloadServedFromCache() throws Exception {
+        // 第一次未命中直接回源，第二次未命中时下载到缓存
+        assertArrayEquals(content, download().getContentAsByteArray());
+        assertArrayEquals(content, download().getContentAsByteArray());
+        verify(cosManager, times(2)).getObject(KEY);
+        // 之后的完整下载都由缓存提供
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletResponse response = download();
+            assertEquals(200, response.getStatus());
+            assertArrayEquals(content, response.getContentAsByteArray());
+        }
+        verify(cosManager, times(2)).getObject(KEY);
+        verify(cosManager, never()).getObject(eq(KEY), anyLong(), anyLong());
+    }
+
+    @Test
+    void rangeDownloadServedFromCachedObject() throws Exception {
+        download();
+        download();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/file/object");
+        request.addHeader("Range", "bytes=100-199");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        objectDownloadManager.download(KEY, request, response, false, null);
+
+        assertEquals(206, response.getStatus());
+        byte[] expected = new byte[100];
+        System.arraycopy(content, 100, expected, 0, 100);
+        assertArrayEquals(expected, response.getContentAsByteArray());
+        verify(cosManager, times(2)).getObject(KEY);
+        verify(cosManager, never()).getObject(eq(KEY), anyLong(), anyLong());
+    }
+}
@@ -0,0 +1,32 @@
+package com.ping.pingpicturebackend.manager.download;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObjectDownloadManagerTest {
+
+    @Test
+    void parseSingleRange() {
+        assertArrayEquals(new long[]{0, 99}, ObjectDownloadManager.parseRange("bytes=0-99", 1000));
+        assertArrayEquals(new long[]{500, 999}, ObjectDownloadManager.parseRange("bytes=500-", 1000));
+        assertArrayEquals(new long[]{900, 999}, ObjectDownloadManager.parseRange("bytes=-100", 1000));
+        // 结束位置超出时截断，后缀长度超出时返回整个对象
+        assertArrayEquals(new long[]{990, 999}, ObjectDownloadManager.parseRange("bytes=990-2000", 1000));
+        assertArrayEquals(new long[]{0, 999}, ObjectDownloadManager.parseRange("bytes=-5000", 1000));
+    }
+
+    @Test
+    void ignoreUnsupportedRange() {
+        assertEquals(0, ObjectDownloadManager.parseRange("bytes=0-1,5-9", 1000).length);
+        assertEquals(0, ObjectDownloadManager.parseRange("items=0-1", 1000).length);
+        assertEquals(0, ObjectDownloadManager.parseRange("bytes=a-b", 1000).length);
+    }
+
+    @Test
+    void rejectUnsatisfiableRange() {
+        assertNull(ObjectDownloadManager.parseRange("bytes=1000-", 1000));
+        assertNull(ObjectDownloadManager.parseRange("bytes=50-10", 1000));
+        assertNull(ObjectDownloadManager.parseRange("bytes=-0", 1000));
+    }
+}
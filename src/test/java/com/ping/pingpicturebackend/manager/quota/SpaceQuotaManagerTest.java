@@ -0,0 +1,244 @@
+package com.ping.pingpicturebackend.manager.quota;
+
+import com.ping.pingpicture.infrastructure.exception.BusinessException;
+import com.ping.pingpicture.infrastructure.mapper.PictureMapper;
+import com.ping.pingpicture.infrastructure.mapper.SpaceMapper;
+import com.ping.pingpicturebackend.model.entity.Space;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 空间额度：Lua 脚本的调用参数、返回值处理，以及预占的确认、取消和对账
+ */
+class SpaceQuotaManagerTest {
+
+    private static final long SPACE_ID = 7L;
+
+    private static final String QUOTA_KEY = "pingPicture:spaceQuota:7";
+
+    private static final String DIRTY_KEY = "pingPicture:spaceQuotaDirty";
+
+    /**
+     * 按脚本记录的调用参数：{keys, args...}
+     */
+    private final List<Object[]> callList = new ArrayList<>();
+
+    /**
+     * 按脚本预设的返回值，依次取出
+     */
+    private final Map<RedisScript<?>, LinkedList<Object>> resultMap = new IdentityHashMap<>();
+
+    private SpaceMapper spaceMapper;
+
+    private TransactionTemplate transactionTemplate;
+
+    private SpaceQuotaManager spaceQuotaManager;
+
+    @BeforeEach
+    void setUp() {
+        StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class, invocation -> {
+            if (!"execute".equals(invocation.getMethod().getName())
+                    || !(invocation.getArgument(0) instanceof RedisScript)) {
+                return null;
+            }
+            Object[] arguments = invocation.getArguments();
+            callList.add(arguments);
+            LinkedList<Object> resultList = resultMap.get(arguments[0]);
+            if (resultList == null || resultList.isEmpty()) {
+                return null;
+            }
+            Object result = resultList.size() == 1 ? resultList.getFirst() : resultList.removeFirst();
+            if (result instanceof RuntimeException) {
+                throw (RuntimeException) result;
+            }
+            return result;
+        });
+        spaceMapper = mock(SpaceMapper.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        spaceQuotaManager = new SpaceQuotaManager();
+        ReflectionTestUtils.setField(spaceQuotaManager, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(spaceQuotaManager, "spaceMapper", spaceMapper);
+        ReflectionTestUtils.setField(spaceQuotaManager, "pictureMapper", mock(PictureMapper.class));
+        ReflectionTestUtils.setField(spaceQuotaManager, "transactionTemplate", transactionTemplate);
+    }
+
+    @Test
+    void reserveRecordsReservationWithGeneration() {
+        willReturn("CHANGE_SCRIPT", Arrays.asList(1L, 3L));
+        QuotaReservation reservation = spaceQuotaManager.reserve(SPACE_ID, 1, 2048);
+        assertEquals(new QuotaReservation(SPACE_ID, 1, 2048, 3), reservation);
+        Object[] call = lastCall("CHANGE_SCRIPT");
+        assertEquals(Arrays.asList(QUOTA_KEY, DIRTY_KEY), call[1]);
+        // 检查上限并记入当前代的预占
+        assertArgs(call, "1", "2048", "1", "7", "1");
+    }
+
+    @Test
+    void reserveLoadsMissingSpaceAndRetries() {
+        willReturn("CHANGE_SCRIPT", Arrays.asList(-1L, 0L), Arrays.asList(1L, 0L));
+        Space space = new Space();
+        space.setId(SPACE_ID);
+        space.setTotalCount(5L);
+        space.setTotalSize(4096L);
+        space.setMaxCount(100L);
+        space.setMaxSize(1024 * 1024L);
+        when(spaceMapper.selectById(SPACE_ID)).thenReturn(space);
+        QuotaReservation reservation = spaceQuotaManager.reserve(SPACE_ID, 1, 0);
+        assertEquals(0, reservation.getGeneration());
+        assertEquals(2, calls("CHANGE_SCRIPT").size());
+        Object[] loadCall = lastCall("LOAD_SCRIPT");
+        assertEquals(Collections.singletonList(QUOTA_KEY), loadCall[1]);
+        assertEquals("5", loadCall[2]);
+        assertEquals("4096", loadCall[3]);
+        assertEquals("100", loadCall[4]);
+    }
+
+    @Test
+    void reserveRejectsWhenLimitReached() {
+        willReturn("CHANGE_SCRIPT", Arrays.asList(0L, 0L));
+        assertThrows(BusinessException.class, () -> spaceQuotaManager.reserve(SPACE_ID, 1, 0));
+        willReturn("CHANGE_SCRIPT", Arrays.asList(-2L, 0L));
+        assertThrows(BusinessException.class, () -> spaceQuotaManager.reserve(SPACE_ID, 0, 1024));
+        // 空间不存在
+        willReturn("CHANGE_SCRIPT", Arrays.asList(-1L, 0L));
+        assertThrows(BusinessException.class, () -> spaceQuotaManager.reserve(SPACE_ID, 1, 0));
+    }
+
+    @Test
+    void releaseDoesNotRecordReservation() {
+        willReturn("CHANGE_SCRIPT", Arrays.asList(1L, 2L));
+        spaceQuotaManager.release(SPACE_ID, -1, -2048);
+        // 不检查上限，也不记入预占
+        assertArgs(lastCall("CHANGE_SCRIPT"), "-1", "-2048", "0", "7", "0");
+    }
+
+    @Test
+    void confirmAndCancelSettleReservedGeneration() {
+        QuotaReservation reservation = new QuotaReservation(SPACE_ID, 1, 2048, 4);
+        spaceQuotaManager.confirm(reservation);
+        Object[] call = lastCall("SETTLE_SCRIPT");
+        assertEquals(Arrays.asList(QUOTA_KEY, DIRTY_KEY), call[1]);
+        // 确认只移除预占记录
+        assertArgs(call, "1", "2048", "4", "0", "7");
+        spaceQuotaManager.cancel(reservation);
+        // 取消同时归还已用额度
+        assertArgs(lastCall("SETTLE_SCRIPT"), "1", "2048", "4", "1", "7");
+    }
+
+    @Test
+    void emptyReservationIsIgnored() {
+        spaceQuotaManager.confirm(null);
+        spaceQuotaManager.cancel(null);
+        spaceQuotaManager.confirm(new QuotaReservation(SPACE_ID, 0, 0, 1));
+        spaceQuotaManager.cancel(new QuotaReservation(SPACE_ID, 0, 0, 1));
+        assertTrue(calls("SETTLE_SCRIPT").isEmpty());
+    }
+
+    @Test
+    void confirmFailureDoesNotThrow() {
+        willReturn("SETTLE_SCRIPT", new RedisConnectionFailureException("down"));
+        QuotaReservation reservation = new QuotaReservation(SPACE_ID, 1, 0, 0);
+        // 图片已入库，确认失败不能让上传失败
+        assertDoesNotThrow(() -> spaceQuotaManager.confirm(reservation));
+        assertThrows(RedisConnectionFailureException.class, () -> spaceQuotaManager.cancel(reservation));
+    }
+
+    @Test
+    void reconcileResetPassesTruthAndDirtyKey() {
+        Space space = new Space();
+        space.setId(SPACE_ID);
+        space.setTotalCount(10L);
+        space.setTotalSize(4096L);
+        when(spaceMapper.selectList(any())).thenReturn(Collections.singletonList(space));
+        int correctedCount = ReflectionTestUtils.invokeMethod(spaceQuotaManager, "applyUsage",
+                Collections.singletonList(new SpaceUsage(SPACE_ID, 8, 2048)));
+        Object[] call = lastCall("RESET_SCRIPT");
+        // 预占由脚本在 Redis 中加回，这里只传入真实的已用额度
+        assertEquals(Arrays.asList(QUOTA_KEY, DIRTY_KEY), call[1]);
+        assertArgs(call, "8", "2048", "7");
+        assertEquals(1, correctedCount);
+        verify(spaceMapper).update(isNull(), any());
+    }
+
+    @Test
+    void reconcileSkipsSpaceTableWhenAlreadyCorrect() {
+        Space space = new Space();
+        space.setId(SPACE_ID);
+        space.setTotalCount(8L);
+        space.setTotalSize(2048L);
+        when(spaceMapper.selectList(any())).thenReturn(Collections.singletonList(space));
+        int correctedCount = ReflectionTestUtils.invokeMethod(spaceQuotaManager, "applyUsage",
+                Collections.singletonList(new SpaceUsage(SPACE_ID, 8, 2048)));
+        assertEquals(0, correctedCount);
+        assertEquals(1, calls("RESET_SCRIPT").size());
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+    }
+
+    @Test
+    void scriptsKeepReservationsSeparateFromTotal() {
+        String changeScript = scriptText("CHANGE_SCRIPT");
+        assertTrue(changeScript.contains("'reservedCount:' .. gen"));
+        String settleScript = scriptText("SETTLE_SCRIPT");
+        // 只结算当前代和上一代，更早的预占已在对账时丢弃
+        assertTrue(settleScript.contains("reservedGen ~= gen and reservedGen ~= gen - 1"));
+        String resetScript = scriptText("RESET_SCRIPT");
+        assertTrue(resetScript.contains("'reservedCount:' .. gen"));
+        assertTrue(resetScript.contains("'reservedCount:' .. (gen - 1)"));
+        assertTrue(resetScript.contains("'gen', gen + 1"));
+    }
+
+    private void willReturn(String scriptName, Object... results) {
+        resultMap.put(script(scriptName), new LinkedList<>(Arrays.asList(results)));
+    }
+
+    private List<Object[]> calls(String scriptName) {
+        RedisScript<?> script = script(scriptName);
+        List<Object[]> scriptCallList = new ArrayList<>();
+        for (Object[] call : callList) {
+            if (call[0] == script) {
+                scriptCallList.add(call);
+            }
+        }
+        return scriptCallList;
+    }
+
+    private Object[] lastCall(String scriptName) {
+        List<Object[]> scriptCallList = calls(scriptName);
+        assertFalse(scriptCallList.isEmpty(), scriptName);
+        return scriptCallList.get(scriptCallList.size() - 1);
+    }
+
+    private static void assertArgs(Object[] call, String... expectedArgs) {
+        assertArrayEquals(expectedArgs, Arrays.copyOfRange(call, 2, call.length));
+    }
+
+    private static RedisScript<?> script(String scriptName) {
+        return (RedisScript<?>) ReflectionTestUtils.getField(SpaceQuotaManager.class, scriptName);
+    }
+
+    private static String scriptText(String scriptName) {
+        return script(scriptName).getScriptAsString();
+    }
+}
@@ -0,0 +1,78 @@
+package com.ping.pingpicturebackend.manager.search;
+
+import com.ping.pingpicture.infrastructure.utils.ImageHashUtils;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PictureHashIndexTest {
+
+    @Test
+    void searchWithinDistance() {
+        PictureHashIndex index = new PictureHashIndex();
+        long base = 0x0123456789ABCDEFL;
+        // 距离 0、3、9、20
+        index.put(1L, base, 0L);
+        index.put(2L, base ^ 0b111L, 0L);
+        index.put(3L, base ^ 0x1FFL, 0L);
+        index.put(4L, base ^ 0xFFFFFL, 0L);
+
+        assertArrayEquals(new long[]{2L, 3L}, index.search(base, 0L, 10, 10, 1L));
+        assertArrayEquals(new long[]{1L, 2L}, index.search(base, 0L, 3, 10, -1L));
+
+        index.remove(2L);
+        assertArrayEquals(new long[]{1L, 3L}, index.search(base, 0L, 10, 10, -1L));
+        // 哈希变化后原来的段值不再命中
+        index.put(3L, ~base, 0L);
+        assertArrayEquals(new long[]{1L}, index.search(base, 0L, 10, 10, -1L));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void matchesBruteForce() {
+        Random random = new Random(7);
+        PictureHashIndex index = new PictureHashIndex();
+        long[] hashes = new long[2000];
+        long query = random.nextLong();
+        for (int i = 0; i < hashes.length; i++) {
+            // 一半在查询附近随机翻转若干位
+            long hash = i % 2 == 0 ? random.nextLong() : query ^ random.nextLong() & random.nextLong() & random.nextLong();
+            hashes[i] = hash;
+            index.put(i, hash, 0L);
+        }
+        for (int i = 0; i < hashes.length; i += 3) {
+            index.remove(i);
+        }
+        int expected = 0;
+        for (int i = 0; i < hashes.length; i++) {
+            if (i % 3 != 0 && Long.bitCount(hashes[i] ^ query) <= 12) {
+                expected++;
+            }
+        }
+        assertEquals(expected, index.search(query, 0L, 12, hashes.length, -1L).length);
+    }
+
+    @Test
+    void perceptualHashIsStableUnderScaling() {
+        BufferedImage image = new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, 400, 300);
+        graphics.setColor(Color.BLUE);
+        graphics.fillOval(50, 40, 200, 160);
+        graphics.setColor(Color.ORANGE);
+        graphics.fillRect(260, 150, 100, 120);
+        graphics.dispose();
+        BufferedImage scaled = new BufferedImage(200, 150, BufferedImage.TYPE_INT_RGB);
+        Graphics2D scaledGraphics = scaled.createGraphics();
+        scaledGraphics.drawImage(image, 0, 0, 200, 150, null);
+        scaledGraphics.dispose();
+
+        assertTrue(ImageHashUtils.hammingDistance(ImageHashUtils.pHash(image), ImageHashUtils.pHash(scaled)) <= 4);
+        assertTrue(ImageHashUtils.hammingDistance(ImageHashUtils.dHash(image), ImageHashUtils.dHash(scaled)) <= 6);
+    }
+}
@@ -0,0 +1,92 @@
+package com.ping.pingpicturebackend.manager.search;
+
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.ping.pingpicture.infrastructure.mapper.PictureMapper;
+import com.ping.pingpicturebackend.manager.event.PictureChangeEvent;
+import com.ping.pingpicturebackend.manager.event.model.PictureChangeTypeEnum;
+import com.ping.pingpicturebackend.model.entity.Picture;
+import com.ping.pingpicturebackend.model.enums.PictureReviewStatusEnum;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 以图搜图：公共图库的索引只包含已过审的图片
+ */
+class PictureSimilarSearchManagerTest {
+
+    private static final long P_HASH = 0x1234_5678_9ABC_DEF0L;
+
+    private PictureMapper pictureMapper;
+
+    private PictureSimilarSearchManager pictureSimilarSearchManager;
+
+    @BeforeEach
+    void setUp() {
+        pictureMapper = mock(PictureMapper.class);
+        pictureSimilarSearchManager = new PictureSimilarSearchManager();
+        ReflectionTestUtils.setField(pictureSimilarSearchManager, "pictureMapper", pictureMapper);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publicScopeLoadsOnlyPassedPictures() {
+        when(pictureMapper.selectList(any())).thenReturn(Collections.singletonList(newPicture(2L, null)));
+        assertArrayEquals(new long[]{2L}, pictureSimilarSearchManager.searchSimilar(newPicture(1L, null), 10, 5));
+        ArgumentCaptor<Wrapper<Picture>> captor = ArgumentCaptor.forClass(Wrapper.class);
+        verify(pictureMapper).selectList(captor.capture());
+        assertTrue(captor.getValue().getSqlSegment().contains("reviewStatus"));
+    }
+
+    @Test
+    void reviewChangesUpdatePublicIndex() {
+        Picture passed = newPicture(2L, PictureReviewStatusEnum.PASS.getValue());
+        Picture rejected = newPicture(2L, PictureReviewStatusEnum.REJECT.getValue());
+        when(pictureMapper.selectList(any())).thenReturn(Collections.singletonList(passed),
+                Collections.singletonList(rejected), Collections.singletonList(passed));
+        Picture query = newPicture(1L, null);
+        assertEquals(1, pictureSimilarSearchManager.searchSimilar(query, 10, 5).length);
+        // 驳回后从索引中移除
+        pictureSimilarSearchManager.onPictureChange(newReviewEvent(null));
+        assertEquals(0, pictureSimilarSearchManager.searchSimilar(query, 10, 5).length);
+        // 重新通过后加入索引
+        pictureSimilarSearchManager.onPictureChange(newReviewEvent(null));
+        assertArrayEquals(new long[]{2L}, pictureSimilarSearchManager.searchSimilar(query, 10, 5));
+    }
+
+    @Test
+    void spaceScopeKeepsUnreviewedPictures() {
+        Picture picture = newPicture(2L, PictureReviewStatusEnum.REVIEWING.getValue());
+        picture.setSpaceId(3L);
+        when(pictureMapper.selectList(any())).thenReturn(Collections.singletonList(picture));
+        Picture query = newPicture(1L, null);
+        query.setSpaceId(3L);
+        assertEquals(1, pictureSimilarSearchManager.searchSimilar(query, 10, 5).length);
+        pictureSimilarSearchManager.onPictureChange(newReviewEvent(3L));
+        assertArrayEquals(new long[]{2L}, pictureSimilarSearchManager.searchSimilar(query, 10, 5));
+    }
+
+    private static Picture newPicture(Long id, Integer reviewStatus) {
+        Picture picture = new Picture();
+        picture.setId(id);
+        picture.setPicPHash(P_HASH);
+        picture.setPicDHash(0L);
+        picture.setReviewStatus(reviewStatus);
+        return picture;
+    }
+
+    private static PictureChangeEvent newReviewEvent(Long spaceId) {
+        PictureChangeEvent pictureChangeEvent = new PictureChangeEvent();
+        pictureChangeEvent.setChangeType(PictureChangeTypeEnum.REVIEW.getValue());
+        pictureChangeEvent.setPictureIdList(Collections.singletonList(2L));
+        pictureChangeEvent.setSpaceId(spaceId);
+        return pictureChangeEvent;
+    }
+}
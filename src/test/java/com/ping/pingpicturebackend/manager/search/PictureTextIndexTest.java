@@ -0,0 +1,51 @@
+package com.ping.pingpicturebackend.manager.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PictureTextIndexTest {
+
+    private static Map<PictureSearchField, String> name(String name) {
+        Map<PictureSearchField, String> fieldText = new EnumMap<>(PictureSearchField.class);
+        fieldText.put(PictureSearchField.NAME, name);
+        return fieldText;
+    }
+
+    @Test
+    void searchUpdateAndRemove() {
+        PictureTextIndex index = new PictureTextIndex();
+        index.index(1L, name("海边日落"));
+        index.index(2L, name("Sunset 壁纸"));
+        index.index(3L, name("山间日出"));
+
+        Set<PictureSearchField> nameField = Collections.singleton(PictureSearchField.NAME);
+        assertEquals(Collections.singleton(1L), index.search("日落", nameField, 100));
+        // 不区分大小写
+        assertEquals(Collections.singleton(2L), index.search("SUN", nameField, 100));
+        // 查询词只有一个字时无法使用索引
+        assertNull(index.search("日", nameField, 100));
+
+        index.index(1L, name("城市夜景"));
+        assertTrue(index.search("日落", nameField, 100).isEmpty());
+        assertEquals(Collections.singleton(1L), index.search("夜景", nameField, 100));
+
+        index.remove(3L);
+        assertTrue(index.search("日出", nameField, 100).isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void tooManyCandidates() {
+        PictureTextIndex index = new PictureTextIndex();
+        for (long i = 1; i <= 10; i++) {
+            index.index(i, name("风景" + i));
+        }
+        assertNull(index.search("风景", Collections.singleton(PictureSearchField.NAME), 5));
+    }
+}
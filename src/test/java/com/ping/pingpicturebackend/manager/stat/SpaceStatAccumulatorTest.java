@@ -0,0 +1,152 @@
+package com.ping.pingpicturebackend.manager.stat;
+
+import cn.hutool.core.date.DateUtil;
+import com.ping.pingpicturebackend.model.entity.SpaceStat;
+import com.ping.pingpicturebackend.model.entity.SpaceUserDayStat;
+import com.ping.pingpicturebackend.model.enums.SpaceStatTypeEnum;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 校验累加器与统计表的比对：缺少、多出的统计项，以及每日上传的日期匹配
+ */
+class SpaceStatAccumulatorTest {
+
+    private static final long SPACE_ID = 3L;
+
+    private SpaceStatAccumulator accumulator;
+
+    @BeforeEach
+    void setUp() {
+        accumulator = new SpaceStatAccumulator();
+        accumulator.reset(SPACE_ID);
+        accumulator.addPicture(1L, "风景", 1024, DateUtil.parse("2024-05-01 08:00:00"));
+        accumulator.addPicture(1L, null, 200 * 1024, DateUtil.parse("2024-05-01 23:59:59"));
+        accumulator.addPicture(2L, "风景", 2048, DateUtil.parse("2024-05-02 00:00:00"));
+        accumulator.addTag("a");
+        accumulator.addTag("a");
+        accumulator.addTag("b");
+    }
+
+    @Test
+    void pictureStatMatches() {
+        assertTrue(accumulator.matchesPictureStat(expectedPictureStats()));
+    }
+
+    @Test
+    void pictureStatMismatchesOnWrongValue() {
+        List<SpaceStat> spaceStatList = expectedPictureStats();
+        spaceStatList.get(0).setTotalSize(1L);
+        assertFalse(accumulator.matchesPictureStat(spaceStatList));
+    }
+
+    @Test
+    void pictureStatMismatchesOnMissingKey() {
+        List<SpaceStat> spaceStatList = expectedPictureStats();
+        // 统计表中缺少未分类
+        spaceStatList.remove(1);
+        assertFalse(accumulator.matchesPictureStat(spaceStatList));
+        spaceStatList = expectedPictureStats();
+        // 统计表中缺少一个大小区间
+        spaceStatList.remove(3);
+        assertFalse(accumulator.matchesPictureStat(spaceStatList));
+    }
+
+    @Test
+    void pictureStatMismatchesOnExtraKey() {
+        List<SpaceStat> spaceStatList = expectedPictureStats();
+        spaceStatList.add(newStat(SpaceStatTypeEnum.CATEGORY, "人物", 1, 1024));
+        assertFalse(accumulator.matchesPictureStat(spaceStatList));
+        spaceStatList = expectedPictureStats();
+        spaceStatList.add(newStat(SpaceStatTypeEnum.SIZE, ">1MB", 1, 2 * 1024 * 1024));
+        assertFalse(accumulator.matchesPictureStat(spaceStatList));
+        spaceStatList = expectedPictureStats();
+        spaceStatList.add(newStat(SpaceStatTypeEnum.SIZE, "unknown", 1, 1));
+        assertFalse(accumulator.matchesPictureStat(spaceStatList));
+    }
+
+    @Test
+    void dayStatMatchesStatDateAtStartOfDay() {
+        // 统计表中的日期为当天零点，与图片创建时间在同一天即匹配
+        assertTrue(accumulator.matchesDayStat(expectedDayStats()));
+    }
+
+    @Test
+    void dayStatMismatchesOnWrongDay() {
+        List<SpaceUserDayStat> dayStatList = expectedDayStats();
+        dayStatList.get(0).setStatDate(DateUtil.parse("2024-04-30 00:00:00"));
+        assertFalse(accumulator.matchesDayStat(dayStatList));
+    }
+
+    @Test
+    void dayStatMismatchesOnMissingOrExtraKey() {
+        List<SpaceUserDayStat> dayStatList = expectedDayStats();
+        dayStatList.remove(1);
+        assertFalse(accumulator.matchesDayStat(dayStatList));
+        dayStatList = expectedDayStats();
+        dayStatList.add(newDayStat(3L, "2024-05-01", 1));
+        assertFalse(accumulator.matchesDayStat(dayStatList));
+    }
+
+    @Test
+    void tagStatComparesCountsAndKeys() {
+        assertTrue(accumulator.matchesTagStat(Arrays.asList(
+                newStat(SpaceStatTypeEnum.TAG, "a", 2, 0), newStat(SpaceStatTypeEnum.TAG, "b", 1, 0))));
+        assertFalse(accumulator.matchesTagStat(Collections.singletonList(newStat(SpaceStatTypeEnum.TAG, "a", 2, 0))));
+        assertFalse(accumulator.matchesTagStat(Arrays.asList(
+                newStat(SpaceStatTypeEnum.TAG, "a", 2, 0), newStat(SpaceStatTypeEnum.TAG, "b", 1, 0),
+                newStat(SpaceStatTypeEnum.TAG, "c", 1, 0))));
+        assertFalse(accumulator.matchesTagStat(Arrays.asList(
+                newStat(SpaceStatTypeEnum.TAG, "a", 1, 0), newStat(SpaceStatTypeEnum.TAG, "b", 1, 0))));
+    }
+
+    @Test
+    void resetStartsEmptySpace() {
+        accumulator.reset(4L);
+        assertEquals(4L, accumulator.getSpaceId());
+        assertTrue(accumulator.matchesPictureStat(Collections.emptyList()));
+        assertTrue(accumulator.matchesDayStat(Collections.emptyList()));
+        assertTrue(accumulator.matchesTagStat(Collections.emptyList()));
+    }
+
+    private static List<SpaceStat> expectedPictureStats() {
+        return new ArrayList<>(Arrays.asList(
+                newStat(SpaceStatTypeEnum.CATEGORY, "风景", 2, 3072),
+                newStat(SpaceStatTypeEnum.CATEGORY, "", 1, 200 * 1024),
+                newStat(SpaceStatTypeEnum.SIZE, "<100KB", 2, 3072),
+                newStat(SpaceStatTypeEnum.SIZE, "100KB-500KB", 1, 200 * 1024)));
+    }
+
+    private static List<SpaceUserDayStat> expectedDayStats() {
+        return new ArrayList<>(Arrays.asList(
+                newDayStat(1L, "2024-05-01", 2),
+                newDayStat(2L, "2024-05-02", 1)));
+    }
+
+    private static SpaceStat newStat(SpaceStatTypeEnum statTypeEnum, String statKey, long pictureCount,
+                                     long totalSize) {
+        SpaceStat spaceStat = new SpaceStat();
+        spaceStat.setSpaceId(SPACE_ID);
+        spaceStat.setStatType(statTypeEnum.getValue());
+        spaceStat.setStatKey(statKey);
+        spaceStat.setPictureCount(pictureCount);
+        spaceStat.setTotalSize(totalSize);
+        return spaceStat;
+    }
+
+    private static SpaceUserDayStat newDayStat(Long userId, String statDate, long pictureCount) {
+        SpaceUserDayStat dayStat = new SpaceUserDayStat();
+        dayStat.setSpaceId(SPACE_ID);
+        dayStat.setUserId(userId);
+        dayStat.setStatDate(DateUtil.parseDate(statDate));
+        dayStat.setPictureCount(pictureCount);
+        return dayStat;
+    }
+}
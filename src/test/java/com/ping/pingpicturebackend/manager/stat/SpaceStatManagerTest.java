@@ -0,0 +1,131 @@
+package com.ping.pingpicturebackend.manager.stat;
+
+import cn.hutool.core.date.DateUtil;
+import com.ping.pingpicturebackend.model.entity.Picture;
+import com.ping.pingpicturebackend.model.entity.PictureStatState;
+import com.ping.pingpicturebackend.model.entity.SpaceStat;
+import com.ping.pingpicturebackend.model.entity.SpaceUserDayStat;
+import com.ping.pingpicturebackend.model.enums.SpaceStatTypeEnum;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 空间统计：统计状态的构造、比较和增量累加
+ */
+class SpaceStatManagerTest {
+
+    @Test
+    void sizeRangeBoundaries() {
+        assertEquals("<100KB", SpaceStatManager.getSizeRange(0));
+        assertEquals("<100KB", SpaceStatManager.getSizeRange(100 * 1024 - 1));
+        assertEquals("100KB-500KB", SpaceStatManager.getSizeRange(100 * 1024));
+        assertEquals("100KB-500KB", SpaceStatManager.getSizeRange(500 * 1024 - 1));
+        assertEquals("500KB-1MB", SpaceStatManager.getSizeRange(500 * 1024));
+        assertEquals("500KB-1MB", SpaceStatManager.getSizeRange(1024 * 1024 - 1));
+        assertEquals(">1MB", SpaceStatManager.getSizeRange(1024 * 1024));
+    }
+
+    @Test
+    void buildStateNormalizesPicture() {
+        Picture picture = new Picture();
+        picture.setId(1L);
+        picture.setUserId(2L);
+        picture.setCreateTime(DateUtil.parse("2024-05-01 13:14:15"));
+        PictureStatState state = SpaceStatManager.buildState(picture, null);
+        // 公共图库、未分类、没有大小和标签
+        assertEquals(SpaceStatManager.PUBLIC_SPACE_ID, state.getSpaceId());
+        assertEquals("", state.getCategory());
+        assertEquals(0L, state.getPicSize());
+        assertNull(state.getTags());
+        assertEquals(DateUtil.parse("2024-05-01 00:00:00"), state.getStatDate());
+
+        picture.setSpaceId(3L);
+        picture.setCategory("风景");
+        picture.setPicSize(2048L);
+        state = SpaceStatManager.buildState(picture, new TreeSet<>(Arrays.asList("b", "a")));
+        assertEquals(3L, state.getSpaceId());
+        assertEquals("风景", state.getCategory());
+        assertEquals(2048L, state.getPicSize());
+        // 标签排序后序列化，顺序不同的同一组标签视为相同
+        assertEquals("[\"a\",\"b\"]", state.getTags());
+        assertNull(SpaceStatManager.buildState(picture, new TreeSet<>()).getTags());
+    }
+
+    @Test
+    void isSameStateComparesCountedFields() {
+        PictureStatState state = newState("风景", "[\"a\"]", 1024L, "2024-05-01 00:00:00");
+        assertTrue(SpaceStatManager.isSameState(null, null));
+        assertFalse(SpaceStatManager.isSameState(state, null));
+        assertFalse(SpaceStatManager.isSameState(null, state));
+        // 同一天的不同时刻视为同一天
+        assertTrue(SpaceStatManager.isSameState(state, newState("风景", "[\"a\"]", 1024L, "2024-05-01 23:59:59")));
+        assertFalse(SpaceStatManager.isSameState(state, newState("人物", "[\"a\"]", 1024L, "2024-05-01 00:00:00")));
+        assertFalse(SpaceStatManager.isSameState(state, newState("风景", null, 1024L, "2024-05-01 00:00:00")));
+        assertFalse(SpaceStatManager.isSameState(state, newState("风景", "[\"a\"]", 2048L, "2024-05-01 00:00:00")));
+        assertFalse(SpaceStatManager.isSameState(state, newState("风景", "[\"a\"]", 1024L, "2024-05-02 00:00:00")));
+    }
+
+    @Test
+    void accumulateMovesCountsBetweenStatKeys() {
+        Map<String, SpaceStat> spaceStatDeltaMap = new LinkedHashMap<>();
+        Map<String, SpaceUserDayStat> dayStatDeltaMap = new LinkedHashMap<>();
+        PictureStatState oldState = newState("风景", "[\"a\",\"b\"]", 1024L, "2024-05-01 00:00:00");
+        PictureStatState newState = newState("人物", "[\"b\",\"c\"]", 1024L, "2024-05-02 00:00:00");
+        SpaceStatManager.accumulate(spaceStatDeltaMap, dayStatDeltaMap, oldState, -1);
+        SpaceStatManager.accumulate(spaceStatDeltaMap, dayStatDeltaMap, newState, 1);
+        // 分类变化：旧分类减一，新分类加一
+        assertDelta(spaceStatDeltaMap, SpaceStatTypeEnum.CATEGORY, "风景", -1, -1024);
+        assertDelta(spaceStatDeltaMap, SpaceStatTypeEnum.CATEGORY, "人物", 1, 1024);
+        // 大小区间不变，增量抵消
+        assertDelta(spaceStatDeltaMap, SpaceStatTypeEnum.SIZE, "<100KB", 0, 0);
+        // 标签：移除 a，保留 b，新增 c
+        assertDelta(spaceStatDeltaMap, SpaceStatTypeEnum.TAG, "a", -1, -1024);
+        assertDelta(spaceStatDeltaMap, SpaceStatTypeEnum.TAG, "b", 0, 0);
+        assertDelta(spaceStatDeltaMap, SpaceStatTypeEnum.TAG, "c", 1, 1024);
+        // 日期变化：两天各自计数
+        assertEquals(-1L, dayStatDeltaMap.get("3:2:2024-05-01").getPictureCount());
+        assertEquals(1L, dayStatDeltaMap.get("3:2:2024-05-02").getPictureCount());
+    }
+
+    @Test
+    void accumulateRemovesAndAddsWholePicture() {
+        Map<String, SpaceStat> spaceStatDeltaMap = new LinkedHashMap<>();
+        Map<String, SpaceUserDayStat> dayStatDeltaMap = new LinkedHashMap<>();
+        PictureStatState state = newState("", null, 600 * 1024L, "2024-05-01 00:00:00");
+        SpaceStatManager.accumulate(spaceStatDeltaMap, dayStatDeltaMap, state, -1);
+        assertDelta(spaceStatDeltaMap, SpaceStatTypeEnum.CATEGORY, "", -1, -600 * 1024L);
+        assertDelta(spaceStatDeltaMap, SpaceStatTypeEnum.SIZE, "500KB-1MB", -1, -600 * 1024L);
+        assertEquals(2, spaceStatDeltaMap.size());
+        assertEquals(-1L, dayStatDeltaMap.get("3:2:2024-05-01").getPictureCount());
+        SpaceStatManager.accumulate(spaceStatDeltaMap, dayStatDeltaMap, state, 1);
+        assertDelta(spaceStatDeltaMap, SpaceStatTypeEnum.CATEGORY, "", 0, 0);
+        assertDelta(spaceStatDeltaMap, SpaceStatTypeEnum.SIZE, "500KB-1MB", 0, 0);
+        assertEquals(0L, dayStatDeltaMap.get("3:2:2024-05-01").getPictureCount());
+    }
+
+    private static PictureStatState newState(String category, String tags, Long picSize, String statDate) {
+        PictureStatState state = new PictureStatState();
+        state.setPictureId(1L);
+        state.setSpaceId(3L);
+        state.setUserId(2L);
+        state.setCategory(category);
+        state.setTags(tags);
+        state.setPicSize(picSize);
+        state.setStatDate(DateUtil.parse(statDate));
+        return state;
+    }
+
+    private static void assertDelta(Map<String, SpaceStat> spaceStatDeltaMap, SpaceStatTypeEnum statTypeEnum,
+                                    String statKey, long countDelta, long sizeDelta) {
+        SpaceStat delta = spaceStatDeltaMap.get("3:" + statTypeEnum.getValue() + ":" + statKey);
+        assertNotNull(delta, statKey);
+        assertEquals(countDelta, delta.getPictureCount(), statKey);
+        assertEquals(sizeDelta, delta.getTotalSize(), statKey);
+    }
+}
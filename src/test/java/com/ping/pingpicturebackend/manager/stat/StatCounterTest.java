@@ -0,0 +1,82 @@
+package com.ping.pingpicturebackend.manager.stat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 开放寻址计数器：冲突、扩容、清空和缩容
+ */
+class StatCounterTest {
+
+    @Test
+    void collidingKeysAreCountedSeparately() {
+        // "Aa" 和 "BB" 的 hashCode 相同
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        StatCounter statCounter = new StatCounter();
+        statCounter.add("Aa", 1, 10);
+        statCounter.add("BB", 2, 20);
+        statCounter.add("Aa", 3, 30);
+        assertEquals(2, statCounter.size());
+        assertEquals(4, statCounter.getCount("Aa"));
+        assertEquals(40, statCounter.getSize("Aa"));
+        assertEquals(2, statCounter.getCount("BB"));
+        assertEquals(20, statCounter.getSize("BB"));
+        assertEquals(0, statCounter.getCount("C#"));
+        assertEquals(0, statCounter.getSize("C#"));
+    }
+
+    @Test
+    void resizeKeepsAllCounts() {
+        StatCounter statCounter = new StatCounter();
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < 1000; i++) {
+                statCounter.add("key" + i, 1, i);
+            }
+        }
+        assertEquals(1000, statCounter.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(2, statCounter.getCount("key" + i));
+            assertEquals(2L * i, statCounter.getSize("key" + i));
+        }
+        // 负载因子不超过 0.5
+        assertTrue(getCapacity(statCounter) >= 2000);
+    }
+
+    @Test
+    void clearResetsCounts() {
+        StatCounter statCounter = new StatCounter();
+        statCounter.add("a", 1, 1);
+        statCounter.add("b", 1, 1);
+        int capacity = getCapacity(statCounter);
+        statCounter.clear();
+        assertEquals(0, statCounter.size());
+        assertEquals(0, statCounter.getCount("a"));
+        assertEquals(0, statCounter.getSize("b"));
+        // 容量不大时原地清空
+        assertEquals(capacity, getCapacity(statCounter));
+        statCounter.add("a", 5, 5);
+        assertEquals(1, statCounter.size());
+        assertEquals(5, statCounter.getCount("a"));
+    }
+
+    @Test
+    void clearShrinksLargeCounter() {
+        StatCounter statCounter = new StatCounter();
+        for (int i = 0; i < 5000; i++) {
+            statCounter.add("key" + i, 1, 1);
+        }
+        assertTrue(getCapacity(statCounter) > 16 * 64);
+        statCounter.clear();
+        assertEquals(16, getCapacity(statCounter));
+        assertEquals(0, statCounter.size());
+        assertEquals(0, statCounter.getCount("key1"));
+        statCounter.add("key1", 1, 1);
+        assertEquals(1, statCounter.getCount("key1"));
+    }
+
+    private static int getCapacity(StatCounter statCounter) {
+        return ((String[]) ReflectionTestUtils.getField(statCounter, "keys")).length;
+    }
+}
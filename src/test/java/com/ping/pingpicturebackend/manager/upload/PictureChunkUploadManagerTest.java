@@ -0,0 +1,164 @@
+package com.ping.pingpicturebackend.manager.upload;
+
+import cn.hutool.json.JSONUtil;
+import com.ping.pingpicture.infrastructure.exception.BusinessException;
+import com.ping.pingpicturebackend.model.dto.picture.PictureUploadRequest;
+import com.ping.pingpicturebackend.model.entity.User;
+import com.ping.pingpicturebackend.model.vo.PictureVO;
+import com.ping.pingpicturebackend.service.ObjectDeleteTaskService;
+import com.ping.pingpicturebackend.service.PictureService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 分片上传的完成：重复提交返回已保存的图片，拿到租约后重新读取会话
+ */
+class PictureChunkUploadManagerTest {
+
+    private static final String UPLOAD_ID = "u1";
+
+    private static final String SESSION_KEY = "pingPicture:chunkUpload:session:u1";
+
+    private static final String CHUNKS_KEY = "pingPicture:chunkUpload:chunks:u1";
+
+    private StringRedisTemplate stringRedisTemplate;
+
+    private ValueOperations<String, String> valueOperations;
+
+    private ZSetOperations<String, String> zSetOperations;
+
+    private PictureService pictureService;
+
+    private ObjectDeleteTaskService objectDeleteTaskService;
+
+    private PictureChunkUploadManager pictureChunkUploadManager;
+
+    private User loginUser;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        SetOperations<String, String> setOperations = mock(SetOperations.class);
+        zSetOperations = mock(ZSetOperations.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(stringRedisTemplate.opsForSet()).thenReturn(setOperations);
+        when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(setOperations.members(CHUNKS_KEY)).thenReturn(new HashSet<>(Arrays.asList("0", "1")));
+        when(valueOperations.setIfAbsent(startsWith("pingPicture:chunkUpload:completeLock:"), anyString(),
+                anyLong(), any(TimeUnit.class))).thenReturn(true);
+        pictureService = mock(PictureService.class);
+        objectDeleteTaskService = mock(ObjectDeleteTaskService.class);
+        pictureChunkUploadManager = new PictureChunkUploadManager();
+        ReflectionTestUtils.setField(pictureChunkUploadManager, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(pictureChunkUploadManager, "pictureService", pictureService);
+        ReflectionTestUtils.setField(pictureChunkUploadManager, "objectDeleteTaskService", objectDeleteTaskService);
+        loginUser = new User();
+        loginUser.setId(2L);
+    }
+
+    @Test
+    void completeSavesResultAndCleansChunks() {
+        PictureChunkUploadSession session = newSession();
+        when(valueOperations.get(SESSION_KEY)).thenReturn(JSONUtil.toJsonStr(session));
+        PictureVO pictureVO = newPictureVO();
+        when(pictureService.uploadPicture(any(PictureChunkUploadSession.class), any(PictureUploadRequest.class),
+                eq(loginUser))).thenReturn(pictureVO);
+        assertSame(pictureVO, pictureChunkUploadManager.complete(UPLOAD_ID, loginUser));
+        // 会话保留完成结果，分片记录和分片文件被清理
+        verify(valueOperations).set(eq(SESSION_KEY), argThat(json ->
+                        Long.valueOf(10L).equals(JSONUtil.toBean(json, PictureChunkUploadSession.class)
+                                .getPicture().getId())),
+                eq(30 * 60 * 1000L), eq(TimeUnit.MILLISECONDS));
+        verify(stringRedisTemplate).delete(CHUNKS_KEY);
+        verify(zSetOperations).remove(anyString(), eq("u1:2"));
+        verify(objectDeleteTaskService).enqueue(Arrays.asList(session.chunkKey(0), session.chunkKey(1)));
+        verify(stringRedisTemplate).execute(any(RedisScript.class), eq(Collections.singletonList(
+                "pingPicture:chunkUpload:completeLock:u1")), anyString());
+    }
+
+    @Test
+    void repeatedCompleteReturnsSavedPicture() {
+        PictureChunkUploadSession session = newSession();
+        session.setPicture(newPictureVO());
+        when(valueOperations.get(SESSION_KEY)).thenReturn(JSONUtil.toJsonStr(session));
+        PictureVO pictureVO = pictureChunkUploadManager.complete(UPLOAD_ID, loginUser);
+        assertEquals(10L, pictureVO.getId());
+        // 不再校验分片，也不需要租约
+        verify(valueOperations, never()).setIfAbsent(anyString(), anyString(), anyLong(), any(TimeUnit.class));
+        verifyNoInteractions(pictureService);
+    }
+
+    @Test
+    void completeReloadsSessionAfterLock() {
+        PictureChunkUploadSession session = newSession();
+        PictureChunkUploadSession completedSession = newSession();
+        completedSession.setPicture(newPictureVO());
+        // 检查时还未完成，拿到租约前另一个请求已完成并释放了租约
+        when(valueOperations.get(SESSION_KEY)).thenReturn(JSONUtil.toJsonStr(session),
+                JSONUtil.toJsonStr(completedSession));
+        PictureVO pictureVO = pictureChunkUploadManager.complete(UPLOAD_ID, loginUser);
+        assertEquals(10L, pictureVO.getId());
+        verifyNoInteractions(pictureService, objectDeleteTaskService);
+        verify(valueOperations, never()).set(anyString(), anyString(), anyLong(), any(TimeUnit.class));
+        // 租约照常释放
+        verify(stringRedisTemplate).execute(any(RedisScript.class), anyList(), anyString());
+    }
+
+    @Test
+    void concurrentCompleteIsRejected() {
+        when(valueOperations.get(SESSION_KEY)).thenReturn(JSONUtil.toJsonStr(newSession()));
+        when(valueOperations.setIfAbsent(anyString(), anyString(), anyLong(), any(TimeUnit.class))).thenReturn(false);
+        assertThrows(BusinessException.class, () -> pictureChunkUploadManager.complete(UPLOAD_ID, loginUser));
+        verifyNoInteractions(pictureService);
+    }
+
+    @Test
+    void completedSessionRejectsChunksAndReportsAllUploaded() {
+        PictureChunkUploadSession session = newSession();
+        session.setPicture(newPictureVO());
+        when(valueOperations.get(SESSION_KEY)).thenReturn(JSONUtil.toJsonStr(session));
+        assertThrows(BusinessException.class, () -> pictureChunkUploadManager.uploadChunk(UPLOAD_ID, 0,
+                new ByteArrayInputStream(new byte[0]), 1024, loginUser));
+        assertEquals(Arrays.asList(0, 1),
+                pictureChunkUploadManager.getStatus(UPLOAD_ID, loginUser).getUploadedChunkList());
+    }
+
+    private static PictureChunkUploadSession newSession() {
+        PictureChunkUploadSession session = new PictureChunkUploadSession();
+        session.setUploadId(UPLOAD_ID);
+        session.setUserId(2L);
+        session.setSpaceId(3L);
+        session.setFileName("a.png");
+        session.setFileSize(1536L);
+        session.setChunkSize(1024L);
+        session.setChunkCount(2);
+        session.setExpireTime(new Date(System.currentTimeMillis() + 60 * 1000L));
+        return session;
+    }
+
+    private static PictureVO newPictureVO() {
+        PictureVO pictureVO = new PictureVO();
+        pictureVO.setId(10L);
+        pictureVO.setUrl("https://cdn/space/3/a.webp");
+        return pictureVO;
+    }
+}
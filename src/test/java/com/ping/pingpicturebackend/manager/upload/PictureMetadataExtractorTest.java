@@ -0,0 +1,105 @@
+package com.ping.pingpicturebackend.manager.upload;
+
+import com.ping.pingpicture.infrastructure.utils.ImageHeaderUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PictureMetadataExtractorTest {
+
+    private final PictureMetadataExtractor pictureMetadataExtractor = new PictureMetadataExtractor();
+
+    @AfterEach
+    void tearDown() {
+        pictureMetadataExtractor.destroy();
+    }
+
+    private static byte[] encode(String formatName, int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        // 四分之三为红色，其余为蓝色
+        graphics.setColor(new Color(0xFF0000));
+        graphics.fillRect(0, 0, width, height);
+        graphics.setColor(new Color(0x0000FF));
+        graphics.fillRect(0, 0, width / 4, height);
+        graphics.dispose();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        assertTrue(ImageIO.write(image, formatName, outputStream));
+        return outputStream.toByteArray();
+    }
+
+    private static ImageHeaderUtils.ImageHeader readHeader(byte[] bytes) throws IOException {
+        return ImageHeaderUtils.readHeader(new ByteArrayInputStream(bytes));
+    }
+
+    private static void assertHeader(String format, int width, int height, ImageHeaderUtils.ImageHeader header) {
+        assertNotNull(header);
+        assertEquals(format, header.getFormat());
+        assertEquals(width, header.getWidth());
+        assertEquals(height, header.getHeight());
+    }
+
+    @Test
+    void readHeaderOfEncodedImages() throws Exception {
+        assertHeader("png", 321, 123, readHeader(encode("png", 321, 123)));
+        assertHeader("jpg", 321, 123, readHeader(encode("jpg", 321, 123)));
+        assertHeader("gif", 321, 123, readHeader(encode("gif", 321, 123)));
+        assertHeader("bmp", 321, 123, readHeader(encode("bmp", 321, 123)));
+    }
+
+    @Test
+    void readHeaderOfWebp() throws Exception {
+        // VP8X：24 位宽高 - 1
+        byte[] vp8x = new byte[30];
+        System.arraycopy("RIFF\0\0\0\0WEBPVP8X".getBytes("ISO-8859-1"), 0, vp8x, 0, 16);
+        vp8x[24] = (byte) (1999 & 0xFF);
+        vp8x[25] = (byte) (1999 >> 8);
+        vp8x[27] = (byte) (999 & 0xFF);
+        vp8x[28] = (byte) (999 >> 8);
+        assertHeader("webp", 2000, 1000, readHeader(vp8x));
+        // VP8L：14 位宽高 - 1
+        byte[] vp8l = new byte[30];
+        System.arraycopy("RIFF\0\0\0\0WEBPVP8L".getBytes("ISO-8859-1"), 0, vp8l, 0, 16);
+        vp8l[20] = 0x2F;
+        int bits = 639 | (479 << 14);
+        vp8l[21] = (byte) bits;
+        vp8l[22] = (byte) (bits >> 8);
+        vp8l[23] = (byte) (bits >> 16);
+        vp8l[24] = (byte) (bits >> 24);
+        assertHeader("webp", 640, 480, readHeader(vp8l));
+    }
+
+    @Test
+    void rejectTruncatedOrUnknownHeader() throws Exception {
+        byte[] png = encode("png", 10, 10);
+        assertNull(readHeader(Arrays.copyOf(png, 20)));
+        byte[] jpg = encode("jpg", 10, 10);
+        assertNull(readHeader(Arrays.copyOf(jpg, 12)));
+        assertNull(readHeader("not an image file".getBytes("ISO-8859-1")));
+    }
+
+    @Test
+    void extractDominantColorLocally() throws Exception {
+        byte[] bytes = encode("png", 400, 200);
+        try (PictureUploadContent content = PictureUploadContent.read(
+                new ByteArrayInputStream(bytes), bytes.length, bytes.length)) {
+            PictureMetadata pictureMetadata = pictureMetadataExtractor.extractAsync(content).join();
+            assertEquals("png", pictureMetadata.getFormat());
+            assertEquals(400, pictureMetadata.getWidth().intValue());
+            assertEquals(200, pictureMetadata.getHeight().intValue());
+            assertEquals("0xff0000", pictureMetadata.getPicColor());
+            assertNotNull(pictureMetadata.getPicPalette());
+            assertNotNull(pictureMetadata.getPicPHash());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.ping.pingpicturebackend.manager.upload;
+
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.crypto.SecureUtil;
+import com.ping.pingpicture.infrastructure.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PictureUploadContentTest {
+
+    private static byte[] pngBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        byte[] magic = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
+        System.arraycopy(magic, 0, bytes, 0, magic.length);
+        return bytes;
+    }
+
+    @Test
+    void keepSmallContentInMemory() throws Exception {
+        byte[] bytes = pngBytes(200 * 1024);
+        try (PictureUploadContent content = PictureUploadContent.read(
+                new ByteArrayInputStream(bytes), 1024 * 1024, 512 * 1024)) {
+            assertTrue(content.isInMemory());
+            assertEquals(bytes.length, content.getSize());
+            assertEquals("png", content.getFormat());
+            assertEquals(SecureUtil.sha256().digestHex(bytes), content.getSha256());
+            try (InputStream inputStream = content.openStream()) {
+                assertArrayEquals(bytes, IoUtil.readBytes(inputStream));
+            }
+        }
+    }
+
+    @Test
+    void spillLargeContentToTempFile() throws Exception {
+        byte[] bytes = pngBytes(300 * 1024);
+        try (PictureUploadContent content = PictureUploadContent.read(
+                new ByteArrayInputStream(bytes), 1024 * 1024, 100 * 1024)) {
+            assertFalse(content.isInMemory());
+            assertEquals(SecureUtil.sha256().digestHex(bytes), content.getSha256());
+            try (InputStream inputStream = content.openStream()) {
+                assertArrayEquals(bytes, IoUtil.readBytes(inputStream));
+            }
+        }
+    }
+
+    @Test
+    void rejectOversizedOrUnknownContent() throws Exception {
+        assertThrows(BusinessException.class, () -> PictureUploadContent.read(
+                new ByteArrayInputStream(pngBytes(2048)), 1024, 4096));
+        try (PictureUploadContent content = PictureUploadContent.read(
+                new ByteArrayInputStream("not an image".getBytes()), 1024, 4096)) {
+            assertNull(content.getFormat());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.ping.pingpicturebackend.service.impl;
+
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.ping.pingpicture.infrastructure.mapper.PictureMapper;
+import com.ping.pingpicturebackend.model.entity.Picture;
+import com.ping.pingpicturebackend.model.entity.PictureBlob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 仅凭哈希的秒传：只复用本人或目标空间已引用的文件
+ */
+class PictureBlobServiceImplTest {
+
+    private static final String SHA256 = "ab" + StrUtil.repeat('0', 62);
+
+    private PictureMapper pictureMapper;
+
+    private PictureBlobServiceImpl pictureBlobService;
+
+    private PictureBlob pictureBlob;
+
+    @BeforeEach
+    void setUp() {
+        pictureMapper = mock(PictureMapper.class);
+        pictureBlobService = spy(new PictureBlobServiceImpl());
+        ReflectionTestUtils.setField(pictureBlobService, "pictureMapper", pictureMapper);
+        pictureBlob = new PictureBlob();
+        pictureBlob.setId(9L);
+        pictureBlob.setSha256(SHA256);
+        doReturn(pictureBlob).when(pictureBlobService).getOne(any());
+        doReturn(pictureBlob).when(pictureBlobService).getById(9L);
+        doReturn(true).when(pictureBlobService).update(any());
+    }
+
+    @Test
+    void referencedBlobIsAcquired() {
+        when(pictureMapper.exists(any())).thenReturn(true);
+        assertSame(pictureBlob, pictureBlobService.acquireReferenced(SHA256, 2L, 5L));
+        // 本人的图片或目标空间中的图片
+        String sqlSegment = captureReferenceQuery().getSqlSegment();
+        assertTrue(sqlSegment.contains("userId"), sqlSegment);
+        assertTrue(sqlSegment.contains("OR spaceId"), sqlSegment);
+        verify(pictureBlobService).update(any());
+    }
+
+    @Test
+    void publicUploadOnlyReusesOwnBlob() {
+        when(pictureMapper.exists(any())).thenReturn(true);
+        pictureBlobService.acquireReferenced(SHA256, 2L, null);
+        String sqlSegment = captureReferenceQuery().getSqlSegment();
+        assertTrue(sqlSegment.contains("userId"), sqlSegment);
+        assertFalse(sqlSegment.contains("spaceId"), sqlSegment);
+    }
+
+    @Test
+    void unreferencedBlobLooksMissing() {
+        when(pictureMapper.exists(any())).thenReturn(false);
+        // 与文件不存在的返回一致，不能用来探测其他用户的文件
+        assertNull(pictureBlobService.acquireReferenced(SHA256, 2L, 5L));
+        verify(pictureBlobService, never()).update(any());
+    }
+
+    @Test
+    void missingBlobIsNotQueried() {
+        doReturn(null).when(pictureBlobService).getOne(any());
+        assertNull(pictureBlobService.acquireReferenced(SHA256, 2L, 5L));
+        assertNull(pictureBlobService.acquireReferenced(" ", 2L, 5L));
+        verifyNoInteractions(pictureMapper);
+    }
+
+    @Test
+    void blobDeletedBeforeAcquireReturnsNull() {
+        when(pictureMapper.exists(any())).thenReturn(true);
+        doReturn(false).when(pictureBlobService).update(any());
+        assertNull(pictureBlobService.acquireReferenced(SHA256, 2L, 5L));
+    }
+
+    @SuppressWarnings("unchecked")
+    private QueryWrapper<Picture> captureReferenceQuery() {
+        ArgumentCaptor<Wrapper<Picture>> captor = ArgumentCaptor.forClass(Wrapper.class);
+        verify(pictureMapper).exists(captor.capture());
+        return (QueryWrapper<Picture>) captor.getValue();
+    }
+}
@@ -0,0 +1,228 @@
+package com.ping.pingpicturebackend.service.impl;
+
+import com.ping.pingpicture.infrastructure.api.storage.ObjectStorage;
+import com.ping.pingpicture.infrastructure.api.storage.StoredVariant;
+import com.ping.pingpicture.infrastructure.exception.BusinessException;
+import com.ping.pingpicture.infrastructure.mapper.PictureMapper;
+import com.ping.pingpicturebackend.model.entity.Picture;
+import com.ping.pingpicturebackend.model.entity.PictureVariant;
+import com.ping.pingpicturebackend.model.vo.PictureVariantVO;
+import com.ping.pingpicturebackend.service.ObjectDeleteTaskService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 图片变体：宽度档位、格式解析，以及生成的合并与旧文件删除
+ */
+class PictureVariantServiceImplTest {
+
+    private static final String SOURCE_KEY = "public/1/a.png";
+
+    private ObjectStorage objectStorage;
+
+    private ObjectDeleteTaskService objectDeleteTaskService;
+
+    private PictureMapper pictureMapper;
+
+    private PictureVariantServiceImpl pictureVariantService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        objectStorage = mock(ObjectStorage.class);
+        when(objectStorage.getKey(anyString())).thenAnswer(invocation ->
+                ((String) invocation.getArgument(0)).substring("https://cdn/".length()));
+        when(objectStorage.getUrl(anyString())).thenAnswer(invocation -> "https://cdn/" + invocation.getArgument(0));
+        when(objectStorage.createVariant(eq(SOURCE_KEY), anyString(), anyInt(), anyInt(), anyString()))
+                .thenAnswer(invocation -> new StoredVariant(invocation.getArgument(1) + ".jpg", 100, "jpg", 512, 512));
+        objectDeleteTaskService = mock(ObjectDeleteTaskService.class);
+        pictureMapper = mock(PictureMapper.class);
+        when(pictureMapper.exists(any())).thenReturn(true);
+        pictureVariantService = spy(new PictureVariantServiceImpl());
+        ReflectionTestUtils.setField(pictureVariantService, "objectStorage", objectStorage);
+        ReflectionTestUtils.setField(pictureVariantService, "objectDeleteTaskService", objectDeleteTaskService);
+        ReflectionTestUtils.setField(pictureVariantService, "pictureMapper", pictureMapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pictureVariantService.close();
+    }
+
+    @Test
+    void resolveWidthRoundsUpToStep() {
+        assertEquals(128, PictureVariantServiceImpl.resolveWidth(1));
+        assertEquals(128, PictureVariantServiceImpl.resolveWidth(128));
+        assertEquals(256, PictureVariantServiceImpl.resolveWidth(129));
+        assertEquals(2048, PictureVariantServiceImpl.resolveWidth(2048));
+        assertEquals(2048, PictureVariantServiceImpl.resolveWidth(5000));
+        assertThrows(BusinessException.class, () -> PictureVariantServiceImpl.resolveWidth(null));
+        assertThrows(BusinessException.class, () -> PictureVariantServiceImpl.resolveWidth(0));
+        assertThrows(BusinessException.class, () -> PictureVariantServiceImpl.resolveWidth(-1));
+    }
+
+    @Test
+    void resolveFormatNormalizes() {
+        assertEquals("auto", PictureVariantServiceImpl.resolveFormat(null));
+        assertEquals("auto", PictureVariantServiceImpl.resolveFormat(" "));
+        assertEquals("jpg", PictureVariantServiceImpl.resolveFormat("JPEG"));
+        assertEquals("jpg", PictureVariantServiceImpl.resolveFormat("jpg"));
+        assertEquals("webp", PictureVariantServiceImpl.resolveFormat("WebP"));
+        assertThrows(BusinessException.class, () -> PictureVariantServiceImpl.resolveFormat("gif"));
+    }
+
+    @Test
+    void smallPictureNeedsNoVariant() {
+        Picture picture = newPicture();
+        picture.setPicWidth(300);
+        PictureVariantVO pictureVariantVO = pictureVariantService.getPictureVariant(picture, 512, null, true);
+        assertEquals(picture.getUrl(), pictureVariantVO.getUrl());
+        verify(pictureVariantService, never()).getVariant(anyLong(), anyInt(), anyString());
+    }
+
+    @Test
+    void upToDateVariantAfterWinningSlotIsReused() throws Exception {
+        Picture picture = newPicture();
+        PictureVariant pictureVariant = newVariant("https://cdn/public/1/variant/done.jpg", picture.getOriginalUrl());
+        // 调用方查询时还没有，拿到生成资格后其他线程已经生成完毕
+        doReturn(null, pictureVariant).when(pictureVariantService).getVariant(1L, 512, "jpg");
+        PictureVariantVO pictureVariantVO = pictureVariantService.getPictureVariant(picture, 500, "jpg", true);
+        assertEquals(pictureVariant.getUrl(), pictureVariantVO.getUrl());
+        verify(objectStorage, never()).createVariant(anyString(), anyString(), anyInt(), anyInt(), anyString());
+    }
+
+    @Test
+    void concurrentRequestsCreateOnce() throws Exception {
+        Picture picture = newPicture();
+        AtomicReference<PictureVariant> saved = new AtomicReference<>();
+        doAnswer(invocation -> saved.get()).when(pictureVariantService).getVariant(1L, 512, "jpg");
+        doAnswer(invocation -> {
+            saved.set(invocation.getArgument(0));
+            return true;
+        }).when(pictureVariantService).save(any(PictureVariant.class));
+        CountDownLatch creating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(objectStorage.createVariant(eq(SOURCE_KEY), anyString(), anyInt(), anyInt(), anyString()))
+                .thenAnswer(invocation -> {
+                    creating.countDown();
+                    assertTrue(release.await(5, TimeUnit.SECONDS));
+                    return new StoredVariant(invocation.getArgument(1) + ".jpg", 100, "jpg", 512, 512);
+                });
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            Future<PictureVariant> first = executorService.submit(() ->
+                    pictureVariantService.createVariantCoalesced(picture, 512, "jpg"));
+            assertTrue(creating.await(5, TimeUnit.SECONDS));
+            // 第二个请求等待正在生成的结果，或在生成完成后重新查询到已保存的记录
+            Future<PictureVariant> second = executorService.submit(() ->
+                    pictureVariantService.createVariantCoalesced(picture, 512, "jpg"));
+            release.countDown();
+            assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        } finally {
+            executorService.shutdownNow();
+        }
+        verify(objectStorage, times(1)).createVariant(anyString(), anyString(), anyInt(), anyInt(), anyString());
+    }
+
+    @Test
+    void replacedVariantFileIsDeletedLater() {
+        Picture picture = newPicture();
+        PictureVariant oldVariant = newVariant("https://cdn/public/1/variant/old.jpg", "https://cdn/public/1/old.png");
+        oldVariant.setId(10L);
+        doReturn(oldVariant).when(pictureVariantService).getVariant(1L, 512, "jpg");
+        doReturn(true).when(pictureVariantService).updateById(any(PictureVariant.class));
+        PictureVariantVO pictureVariantVO = pictureVariantService.getPictureVariant(picture, 512, "jpg", true);
+        assertNotEquals(oldVariant.getUrl(), pictureVariantVO.getUrl());
+        // 旧地址可能还在被使用，不能立即删除
+        verify(objectDeleteTaskService).enqueueByUrls(Collections.singletonList(oldVariant.getUrl()),
+                PictureVariantServiceImpl.REPLACED_VARIANT_DELETE_DELAY_MILLIS);
+        verify(objectDeleteTaskService, never()).enqueueByUrls(anyCollection());
+        assertTrue(PictureVariantServiceImpl.REPLACED_VARIANT_DELETE_DELAY_MILLIS > 30 * 24 * 60 * 60 * 1000L);
+    }
+
+    @Test
+    void missingVariantWithoutCreateNowIsQueued() throws Exception {
+        Picture picture = newPicture();
+        doReturn(null).when(pictureVariantService).getVariant(1L, 512, "jpg");
+        doReturn(true).when(pictureVariantService).save(any(PictureVariant.class));
+        PictureVariantVO pictureVariantVO = pictureVariantService.getPictureVariant(picture, 512, "jpg", false);
+        assertEquals(picture.getUrl(), pictureVariantVO.getUrl());
+        verify(objectStorage, timeout(5000)).createVariant(eq(SOURCE_KEY), anyString(), anyInt(), anyInt(), anyString());
+    }
+
+    @Test
+    void pictureDeletedDuringCreateIsNotSaved() {
+        Picture picture = newPicture();
+        doReturn(null).when(pictureVariantService).getVariant(1L, 512, "jpg");
+        when(pictureMapper.exists(any())).thenReturn(false);
+        assertThrows(BusinessException.class, () -> pictureVariantService.getPictureVariant(picture, 512, "jpg", true));
+        verify(pictureVariantService, never()).save(any(PictureVariant.class));
+        // 生成的文件立即删除
+        verify(objectDeleteTaskService).enqueueByUrls(argThat(urls -> urls.size() == 1
+                && urls.iterator().next().startsWith("https://cdn/public/1/variant/1_512_")));
+    }
+
+    @Test
+    void pictureDeletedAfterSaveRemovesVariant() {
+        Picture picture = newPicture();
+        doReturn(null).when(pictureVariantService).getVariant(1L, 512, "jpg");
+        doAnswer(invocation -> {
+            invocation.<PictureVariant>getArgument(0).setId(20L);
+            return true;
+        }).when(pictureVariantService).save(any(PictureVariant.class));
+        doReturn(true).when(pictureVariantService).removeById(20L);
+        // 保存前图片还在，保存后删除已提交
+        when(pictureMapper.exists(any())).thenReturn(true, false);
+        assertThrows(BusinessException.class, () -> pictureVariantService.getPictureVariant(picture, 512, "jpg", true));
+        verify(pictureVariantService).removeById(20L);
+        verify(objectDeleteTaskService).enqueueByUrls(argThat(urls -> urls.size() == 1
+                && urls.iterator().next().startsWith("https://cdn/public/1/variant/1_512_")));
+    }
+
+    @Test
+    void replacedVariantOfDeletedPictureIsDiscarded() {
+        Picture picture = newPicture();
+        PictureVariant oldVariant = newVariant("https://cdn/public/1/variant/old.jpg", "https://cdn/public/1/old.png");
+        oldVariant.setId(10L);
+        doReturn(oldVariant).when(pictureVariantService).getVariant(1L, 512, "jpg");
+        // 旧记录已随图片删除
+        doReturn(false).when(pictureVariantService).updateById(any(PictureVariant.class));
+        assertThrows(BusinessException.class, () -> pictureVariantService.getPictureVariant(picture, 512, "jpg", true));
+        verify(objectDeleteTaskService, never()).enqueueByUrls(anyCollection(), anyLong());
+        verify(objectDeleteTaskService).enqueueByUrls(argThat(urls -> urls.size() == 1
+                && urls.iterator().next().startsWith("https://cdn/public/1/variant/1_512_")));
+    }
+
+    private static Picture newPicture() {
+        Picture picture = new Picture();
+        picture.setId(1L);
+        picture.setUrl("https://cdn/public/1/a.webp");
+        picture.setOriginalUrl("https://cdn/" + SOURCE_KEY);
+        picture.setPicWidth(4000);
+        picture.setPicHeight(3000);
+        return picture;
+    }
+
+    private static PictureVariant newVariant(String url, String sourceUrl) {
+        PictureVariant pictureVariant = new PictureVariant();
+        pictureVariant.setPictureId(1L);
+        pictureVariant.setWidth(512);
+        pictureVariant.setFormat("jpg");
+        pictureVariant.setUrl(url);
+        pictureVariant.setSourceUrl(sourceUrl);
+        return pictureVariant;
+    }
+}